@@ -16,8 +16,26 @@ public class Constants {
         AT_TARGET
     }
 
+    /** Constants for moving the elbow and slide together. */
+    @Config
+    public static class ArmConstants {
+        /**
+         * The slide can only be extended while the elbow is above this position, in elbow pulses. This is the low
+         * scoring position, the lowest the slide has been taken out at on the robot.
+         */
+        public static int SLIDE_EXTEND_ELBOW_POSITION = 7600;
+        /** The slide counts as retracted at or below this position, in slide pulses */
+        public static int SLIDE_RETRACTED_POSITION = 100;
+    }
+
     public static class AutoConstants {
         public static long DEFAULT_AUTO_WAIT = 250;
+        /**
+         * Whether autonomous follows the RoadRunner paths from AutoPaths instead of the encoder and gyro moves. The
+         * RoadRunner drive constants and velocity PIDF haven't been tuned on the robot yet, so leave this off until
+         * they are
+         */
+        public static boolean USE_TRAJECTORY_FOLLOWER = false;
     }
 
     /** Constants for the BoxSubsystem. */
@@ -74,6 +92,30 @@ public class Constants {
         public static final double AUTO_STRAFE_SPEED = 0.3;
         public static final double AUTO_TURN_SPEED = 0.5;
         public static double AUTO_HEADING_TOLERANCE = 5;
+        /** How long to wait after a turn before correcting it, in milliseconds */
+        public static double TURN_SETTLE_TIME = 500;
+
+        /**
+         * Whether turns follow a profile with the heading controller below, instead of turning at a constant speed
+         * until the heading is within the tolerance. Off until the gains and limits below, which are only starting
+         * points, are tuned on the robot from the dashboard. The tolerance can be tightened once they are.
+         */
+        public static boolean USE_PROFILED_TURN = false;
+        /** PID gains of the heading controller, in power per degree of error */
+        public static double HEADING_P = 0.02;
+        public static double HEADING_I = 0;
+        public static double HEADING_D = 0.001;
+        /** Feedforward of the heading controller, in power per degree/s, power per degree/s^2 and power */
+        public static double HEADING_KV = 0.0024;
+        public static double HEADING_KA = 0.0002;
+        public static double HEADING_KS = 0.05;
+        /** Limits of the turn profile, in degrees/s and degrees/s^2 */
+        public static double MAX_TURN_VELOCITY = 270;
+        public static double MAX_TURN_ACCELERATION = 540;
+        /** How long a turn can go past the end of its profile before giving up, in seconds */
+        public static double TURN_TIMEOUT = 0.75;
+        /** How often the blocking moves update the telemetry while waiting, in milliseconds */
+        public static double WAITING_TELEMETRY_INTERVAL = 250;
 
         public static final double PULSES_PER_MOTOR_REV = 537.7;
         public static final double DRIVE_GEAR_REDUCTION = 1;
@@ -127,6 +169,52 @@ public class Constants {
 
         /** The tolerance for the PID controller for the elbow. */
         public static final double PID_POWER_TOLERANCE = 0.1;
+
+        /**
+         * Whether MoveElbowCommand follows a motion profile instead of jumping straight to the target. Off until the
+         * profile limits, feedforward and gravity below, which are only starting points, are tuned on the robot from
+         * the dashboard.
+         */
+        public static boolean USE_MOTION_PROFILE = false;
+        // Limits for the motion profile in pulses/s, pulses/s^2 and pulses/s^3, a jerk of 0 makes it trapezoidal
+        public static double MAX_VELOCITY = 6000, MAX_ACCELERATION = 12000, MAX_JERK = 0;
+        // Feedforward for the motion profile, in power per pulse/s and power per pulse/s^2
+        public static double KV = 0.00016, KA = 0.00001;
+        /** The power needed to hold the arm when it is level, less is needed as it points up or down */
+        public static double KG = 0.1;
+        /** The pulses the elbow turns per degree, used to find its angle from LEVEL_POSITION */
+        public static double PULSES_PER_DEGREE = 60;
+        /** How close the elbow has to get to the target once the profile is finished, in pulses */
+        public static double POSITION_TOLERANCE = 100;
+        /** How long to keep trying to reach the target after the profile is finished, in seconds */
+        public static double PROFILE_TIMEOUT = 0.5;
+        /** The power to lower with after the profile reaches 0 if the limit switch isn't pressed yet */
+        public static double HOMING_POWER = -0.3;
+    }
+
+    /** Constants for the hardware wrappers shared by the subsystems. */
+    @Config
+    public static class HardwareConstants {
+        /** Motor powers closer than this to the last power sent aren't sent again */
+        public static double MOTOR_POWER_EPSILON = 0.005;
+        /** Servo positions (0-1) closer than this to the last position sent aren't sent again */
+        public static double SERVO_POSITION_EPSILON = 0.001;
+
+        /** How many position differences the velocity estimators take the median of */
+        public static int VELOCITY_WINDOW = 5;
+        /** A motor is stalled if it has at least this much power but moves slower than STALL_VELOCITY pulses/s */
+        public static double STALL_POWER = 0.3, STALL_VELOCITY = 20;
+        /** How long a motor has to be stalled before it counts, in seconds */
+        public static double STALL_TIME = 0.25;
+
+        /** The battery voltage the feedforward and PID gains were tuned at, powers are scaled up as it drops */
+        public static double NOMINAL_VOLTAGE = 12;
+        /** How often the battery voltage is read, in seconds, each read is a separate command to the hub */
+        public static double VOLTAGE_PERIOD = 0.2;
+        /** The time constant of the low-pass filter on the battery voltage, in seconds */
+        public static double VOLTAGE_TIME_CONSTANT = 1;
+        /** Voltage reads below this are taken as a failed read or a brownout and ignored */
+        public static double MIN_VOLTAGE = 7;
     }
 
     /** Constants for the IntakeSubsystem. */
@@ -185,6 +273,19 @@ public class Constants {
 
         /** The tolerance for the PID controller for the slide. */
         public static final double PID_POWER_TOLERANCE = .3;
+
+        /** Whether MoveSlideCommand follows a motion profile instead of jumping straight to the target, untuned so off */
+        public static boolean USE_MOTION_PROFILE = false;
+        // Limits for the motion profile in pulses/s, pulses/s^2 and pulses/s^3, a jerk of 0 makes it trapezoidal
+        public static double MAX_VELOCITY = 2500, MAX_ACCELERATION = 8000, MAX_JERK = 0;
+        // Feedforward for the motion profile, in power per pulse/s and power per pulse/s^2
+        public static double KV = 0.00035, KA = 0.00002;
+        /** How close the slide has to get to the target once the profile is finished, in pulses */
+        public static double POSITION_TOLERANCE = 40;
+        /** How long to keep trying to reach the target after the profile is finished, in seconds */
+        public static double PROFILE_TIMEOUT = 0.5;
+        /** The power to retract with after the profile reaches 0 if the limit switch isn't pressed yet */
+        public static double HOMING_POWER = -0.3;
     }
 
     /** Constants for the WinchSubsystem. */
@@ -7,7 +7,10 @@ import com.arcrobotics.ftclib.gamepad.GamepadKeys;
 import com.qualcomm.robotcore.eventloop.opmode.OpMode;
 
 import org.firstinspires.ftc.teamcode.commands.CommandManager;
+import org.firstinspires.ftc.teamcode.hardware.BatteryMonitor;
+import org.firstinspires.ftc.teamcode.hardware.BulkReadManager;
 import org.firstinspires.ftc.teamcode.subsystems.BoxSubsystem;
+import org.firstinspires.ftc.teamcode.subsystems.CustomSubsystemBase;
 import org.firstinspires.ftc.teamcode.subsystems.DistanceSensorSubsystem;
 import org.firstinspires.ftc.teamcode.subsystems.DriveSubsystem;
 import org.firstinspires.ftc.teamcode.subsystems.DroneSubsystem;
@@ -16,6 +19,9 @@ import org.firstinspires.ftc.teamcode.subsystems.IntakeSubsystem;
 import org.firstinspires.ftc.teamcode.subsystems.LEDSubsystem;
 import org.firstinspires.ftc.teamcode.subsystems.LinearSlideSubsystem;
 import org.firstinspires.ftc.teamcode.subsystems.HangingSubsystem;
+import org.firstinspires.ftc.teamcode.util.LoopProfiler;
+import org.firstinspires.ftc.teamcode.util.TelemetryPublisher;
+import org.firstinspires.ftc.teamcode.util.TimingHistogram;
 
 /**
  * Represents all of the subsystems that make up the robot
@@ -49,6 +55,23 @@ public class Robot {
     private final HangingSubsystem hangingSubsystem;
     /** The LED subsystem of the robot */
     private final LEDSubsystem ledSubsystem;
+    /** All of the subsystems of the robot */
+    private final CustomSubsystemBase[] subsystems;
+
+    /** Clears the hub caches each loop and counts the hardware reads */
+    private final BulkReadManager bulkReadManager;
+
+    /** Reads the battery voltage for the subsystems to compensate for */
+    private final BatteryMonitor batteryMonitor;
+
+    /** Times the parts of each loop */
+    private final LoopProfiler loopProfiler;
+    private final TimingHistogram bulkReadSection;
+    private final TimingHistogram schedulerSection;
+    private final TimingHistogram printDataSection;
+
+    /** Sends the telemetry from a background thread once the op mode starts */
+    private final TelemetryPublisher telemetryPublisher;
 
     private final CommandManager commandManager;
 
@@ -83,6 +106,19 @@ public class Robot {
 
         gamepadEx = driverGamepad;
 
+        // Switch the hubs to manual bulk caching before anything reads from them
+        bulkReadManager = new BulkReadManager(opMode.hardwareMap);
+
+        batteryMonitor = new BatteryMonitor(opMode.hardwareMap);
+        batteryMonitor.setBulkReadManager(bulkReadManager);
+
+        loopProfiler = new LoopProfiler();
+        bulkReadSection = loopProfiler.getSection("bulk read");
+        schedulerSection = loopProfiler.getSection("CommandScheduler.run");
+        printDataSection = loopProfiler.getSection("printData");
+
+        telemetryPublisher = new TelemetryPublisher(opMode.telemetry);
+
         // Initialize the subsystems
         boxSubsystem = new BoxSubsystem(opMode.hardwareMap, opMode.telemetry);
         distanceSensorSubsystem = new DistanceSensorSubsystem(opMode.hardwareMap, opMode.telemetry);
@@ -93,6 +129,14 @@ public class Robot {
         linearSlideSubsystem = new LinearSlideSubsystem(opMode.hardwareMap, opMode.telemetry);
         hangingSubsystem = new HangingSubsystem(opMode.hardwareMap, opMode.telemetry);
         ledSubsystem = new LEDSubsystem(opMode.hardwareMap, opMode.telemetry);
+        subsystems = new CustomSubsystemBase[]{boxSubsystem, distanceSensorSubsystem, driveSubsystem, droneSubsystem,
+                elbowSubsystem, intakeSubsystem, linearSlideSubsystem, hangingSubsystem, ledSubsystem};
+        for (CustomSubsystemBase subsystem : subsystems) {
+            subsystem.setBulkReadManager(bulkReadManager);
+            subsystem.setBatteryMonitor(batteryMonitor);
+            subsystem.setLoopProfiler(loopProfiler);
+            subsystem.setTelemetryPublisher(telemetryPublisher);
+        }
 
         // Initialize the command manager
         commandManager = new CommandManager(this);
@@ -196,29 +240,52 @@ public class Robot {
 
     /** Schedule any commands that run at the start of teleop mode. */
     public void start() {
+        telemetryPublisher.start();
 //        commandManager.getSetupCommand().schedule();
     }
 
     /**
      * Run the robot, including calling CommandScheduler.getInstance().run(), which polls the gamepad inputs and performs scheduled commands.
-     * Also prints data from the subsystems and updates the telemetry.
+     * Also prints data from the subsystems for the telemetry publisher to send.
      */
     public void run() {
+        loopProfiler.startLoop();
+
+        // Clear the hub caches so this loop reads fresh values
+        long start = System.nanoTime();
+        bulkReadManager.update();
+        bulkReadSection.recordSince(start);
+
         // Run the command scheduler, which polls the gamepad inputs, and performs the commands created in bindCommands
-        if (!manualMode)
+        if (!manualMode) {
+            start = System.nanoTime();
             CommandScheduler.getInstance().run();
+            schedulerSection.recordSince(start);
+        }
 
-        printData();
-        opMode.telemetry.update();
+        updateTelemetry();
+    }
+
+    /** Stops sending telemetry and writes the loop timings to a file. Should be called once the op mode has been stopped. */
+    public void stop() {
+        telemetryPublisher.stop();
+        loopProfiler.dumpToFile(opMode.getClass().getSimpleName());
     }
 
     /** Perform things that happen at the start of manual. */
     public void startManual() {
+        telemetryPublisher.start();
         droneSubsystem.startPosition();
     }
 
     /** Controls the elbow, intake, slide, box, drone and drive subsystem manually, without any commands running or PID controllers. */
     public void runManually() {
+        loopProfiler.startLoop();
+
+        long start = System.nanoTime();
+        bulkReadManager.update();
+        bulkReadSection.recordSince(start);
+
         boolean usingFieldCentric = !isPressed(driverGamepad.getTrigger(GamepadKeys.Trigger.RIGHT_TRIGGER));
         double speedMultiplier = isPressed(driverGamepad.getTrigger(GamepadKeys.Trigger.LEFT_TRIGGER)) ? 0.3 : 1;
         driveSubsystem.drive(driverGamepad.getLeftY(), driverGamepad.getLeftX(), driverGamepad.getRightX(), usingFieldCentric, speedMultiplier);
@@ -265,19 +332,42 @@ public class Robot {
 
         if (operatorGamepad.getButton(GamepadKeys.Button.LEFT_STICK_BUTTON)) boxSubsystem.disableLights();
 
+        updateTelemetry();
+    }
+
+    /**
+     * Prints the data from the subsystems, timing it. The telemetry publisher sends it from its own thread, so
+     * formatting and sending the telemetry isn't part of the loop.
+     */
+    private void updateTelemetry() {
+        long start = System.nanoTime();
         printData();
-        opMode.telemetry.update();
+        printDataSection.recordSince(start);
     }
 
+    /** Writes this loop's telemetry to the telemetry publisher. */
     public void printData() {
-        opMode.telemetry.addData("Robot state", state);
-        opMode.telemetry.addData("Gyro heading: ",  driveSubsystem.getHeading());
+        telemetryPublisher.beginFrame();
+        telemetryPublisher.addData("Robot state", state);
+        telemetryPublisher.addData("Gyro heading: ",  driveSubsystem.getHeading());
+        telemetryPublisher.addData("Bulk reads", bulkReadManager.getBulkReads());
+        telemetryPublisher.addData("Individual reads", bulkReadManager.getIndividualReads());
+        telemetryPublisher.addData("Battery voltage", batteryMonitor.getVoltage());
+
+        int writesSent = 0, writesSuppressed = 0;
+        for (CustomSubsystemBase subsystem : subsystems) {
+            writesSent += subsystem.getWritesSent();
+            writesSuppressed += subsystem.getWritesSuppressed();
+        }
+        telemetryPublisher.addData("Writes sent", writesSent);
+        telemetryPublisher.addData("Writes suppressed", writesSuppressed);
 
         elbowSubsystem.printData();
         linearSlideSubsystem.printData();
         distanceSensorSubsystem.printData();
         boxSubsystem.printData();
         intakeSubsystem.printData();
+        telemetryPublisher.endFrame();
     }
 
     /**
@@ -368,6 +458,22 @@ public class Robot {
         return ledSubsystem;
     }
 
+    public BulkReadManager getBulkReadManager() {
+        return bulkReadManager;
+    }
+
+    public BatteryMonitor getBatteryMonitor() {
+        return batteryMonitor;
+    }
+
+    public LoopProfiler getLoopProfiler() {
+        return loopProfiler;
+    }
+
+    public TelemetryPublisher getTelemetryPublisher() {
+        return telemetryPublisher;
+    }
+
     /**
      * Checks if a input from the controller is outside the dead zone
      *
@@ -0,0 +1,106 @@
+package org.firstinspires.ftc.teamcode.auto;
+
+import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.TrajectorySequence;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds the paths from {@link AutoPaths} for every auto position, so they can all be built during init instead of
+ * right after the team prop is found. Paths that weren't built ahead of time are built the first time they are asked for.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class AutoPathCache {
+    private static final boolean[] BOOLEANS = {false, true};
+
+    private TrajectorySequence sensingPath;
+    /** The paths of each stage, keyed by {@link #getKey(AutoPosition)} */
+    private final Map<Integer, TrajectorySequence> purplePaths = new HashMap<>();
+    private final Map<Integer, TrajectorySequence> backdropPaths = new HashMap<>();
+    private final Map<Integer, TrajectorySequence> hidePaths = new HashMap<>();
+
+    /** How long building everything took, in milliseconds */
+    private double buildTime;
+
+    /** Builds the paths for every auto position. Should be called during init, before the start button is pressed. */
+    public void buildAll() {
+        long start = System.nanoTime();
+        getSensingPath();
+        for (boolean isBlue : BOOLEANS) {
+            for (boolean isPlacingYellow : BOOLEANS) {
+                for (boolean isUpstage : BOOLEANS) {
+                    for (AutoPosition.SpikeMark spikeMark : AutoPosition.SpikeMark.values()) {
+                        AutoPosition autoPosition = new AutoPosition(spikeMark, isBlue, isPlacingYellow, isUpstage);
+                        getPurplePath(autoPosition);
+                        getBackdropPath(autoPosition);
+                        getHidePath(autoPosition);
+                    }
+                }
+            }
+        }
+        buildTime = (System.nanoTime() - start) / 1e6;
+    }
+
+    /** @return The path from the start to where the distance sensors can see the spike marks */
+    public TrajectorySequence getSensingPath() {
+        if (sensingPath == null) sensingPath = AutoPaths.getSensingPath();
+        return sensingPath;
+    }
+
+    /**
+     * @param autoPosition The auto position, with the spike mark set
+     * @return The path from where we sensed to where the purple pixel is placed
+     */
+    public TrajectorySequence getPurplePath(AutoPosition autoPosition) {
+        int key = getKey(autoPosition);
+        TrajectorySequence path = purplePaths.get(key);
+        if (path == null) {
+            path = AutoPaths.getPurplePath(autoPosition);
+            purplePaths.put(key, path);
+        }
+        return path;
+    }
+
+    /**
+     * @param autoPosition The auto position, with the spike mark set
+     * @return The path from the purple pixel to the backdrop, or to facing away from us if we aren't placing the yellow
+     */
+    public TrajectorySequence getBackdropPath(AutoPosition autoPosition) {
+        int key = getKey(autoPosition);
+        TrajectorySequence path = backdropPaths.get(key);
+        if (path == null) {
+            path = AutoPaths.getBackdropPath(autoPosition);
+            backdropPaths.put(key, path);
+        }
+        return path;
+    }
+
+    /**
+     * @param autoPosition The auto position, with the spike mark set
+     * @return The path from the backdrop to where we park
+     */
+    public TrajectorySequence getHidePath(AutoPosition autoPosition) {
+        int key = getKey(autoPosition);
+        TrajectorySequence path = hidePaths.get(key);
+        if (path == null) {
+            path = AutoPaths.getHidePath(autoPosition);
+            hidePaths.put(key, path);
+        }
+        return path;
+    }
+
+    /** @return How long {@link #buildAll()} took in milliseconds */
+    public double getBuildTime() {
+        return buildTime;
+    }
+
+    /** @return A number that is different for every combination of the fields of the auto position */
+    private static int getKey(AutoPosition autoPosition) {
+        int key = autoPosition.spikeMark.ordinal();
+        key = key * 2 + (autoPosition.isBlue ? 1 : 0);
+        key = key * 2 + (autoPosition.isPlacingYellow ? 1 : 0);
+        key = key * 2 + (autoPosition.isUpstage ? 1 : 0);
+        return key;
+    }
+}
@@ -0,0 +1,211 @@
+package org.firstinspires.ftc.teamcode.auto;
+
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+import com.acmerobotics.roadrunner.util.Angle;
+
+import org.firstinspires.ftc.teamcode.roadrunner.drive.SampleMecanumDrive;
+import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.TrajectorySequence;
+import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.TrajectorySequenceBuilder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.firstinspires.ftc.teamcode.roadrunner.drive.DriveConstants.MAX_ACCEL;
+import static org.firstinspires.ftc.teamcode.roadrunner.drive.DriveConstants.MAX_ANG_ACCEL;
+import static org.firstinspires.ftc.teamcode.roadrunner.drive.DriveConstants.MAX_ANG_VEL;
+import static org.firstinspires.ftc.teamcode.roadrunner.drive.DriveConstants.MAX_VEL;
+import static org.firstinspires.ftc.teamcode.roadrunner.drive.DriveConstants.TRACK_WIDTH;
+
+/**
+ * The routes driven in autonomous, described as poses on the field instead of single drives, strafes and turns.
+ * Poses are relative to where the robot starts: x is forwards, y is to the left and headings are counter clockwise
+ * in degrees. They are written for the blue alliance and mirrored with {@link AutoPosition#flip(double)} for red.
+ * <p>
+ * Each path starts where the one before it ends, and goes through its poses without stopping at them.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class AutoPaths {
+    /** Where the robot stops to check the distance sensors for the team prop */
+    private static final Pose2d SENSING_POSE = new Pose2d(32, 0, 0);
+
+    /** Two poses closer than this in inches are in the same spot, so only the heading changes */
+    private static final double SAME_POSITION_TOLERANCE = 0.01;
+
+    private AutoPaths() {
+
+    }
+
+    /** @return The path from the start to where the distance sensors can see the spike marks */
+    public static TrajectorySequence getSensingPath() {
+        return build(new Pose2d(), Collections.singletonList(SENSING_POSE));
+    }
+
+    /**
+     * @param autoPosition The auto position, with the spike mark set
+     * @return The path from where we sensed to where the purple pixel is placed
+     */
+    public static TrajectorySequence getPurplePath(AutoPosition autoPosition) {
+        return build(SENSING_POSE, getPurplePoses(autoPosition), autoPosition);
+    }
+
+    /**
+     * @param autoPosition The auto position, with the spike mark set
+     * @return The path from the purple pixel to the backdrop, or to facing away from us if we aren't placing the yellow
+     */
+    public static TrajectorySequence getBackdropPath(AutoPosition autoPosition) {
+        return build(getLast(getPurplePoses(autoPosition)), getBackdropPoses(autoPosition), autoPosition);
+    }
+
+    /**
+     * @param autoPosition The auto position, with the spike mark set
+     * @return The path from the backdrop to where we park, facing away from us
+     */
+    public static TrajectorySequence getHidePath(AutoPosition autoPosition) {
+        return build(getLast(getBackdropPoses(autoPosition)), getHidePoses(autoPosition), autoPosition);
+    }
+
+    /** @return The poses to place the purple pixel, for blue */
+    private static List<Pose2d> getPurplePoses(AutoPosition autoPosition) {
+        switch (autoPosition.spikeMark) {
+            case UPSTAGE:
+                if (autoPosition.isUpstage) return poses(14, 8, 0);
+                // Back away from the team prop before turning to face the spike mark
+                return poses(28, -7, 90, 28, -4, 90);
+            case MIDDLE:
+                return poses(25, 0, 0);
+            case DOWNSTAGE:
+            default:
+                return poses(28, 0, -90, 28, 2, -90);
+        }
+    }
+
+    /** @return The poses to drive to the backdrop, lined up to place the yellow pixel, for blue */
+    private static List<Pose2d> getBackdropPoses(AutoPosition autoPosition) {
+        if (!autoPosition.isPlacingYellow) {
+            Pose2d purple = getLast(getPurplePoses(autoPosition));
+            return poses(purple.getX(), purple.getY(), 0);
+        }
+
+        if (autoPosition.isUpstage) {
+            switch (autoPosition.spikeMark) {
+                case UPSTAGE:
+                    return poses(14, 33, 90, 22, 33, 90);
+                case MIDDLE:
+                    return poses(25, 32, 90, 31, 32, 90);
+                case DOWNSTAGE:
+                default:
+                    return poses(28, 32, 90, 36, 32, 90);
+            }
+        }
+
+        // From downstage we go out to the lane away from the spike marks and drive under the truss
+        switch (autoPosition.spikeMark) {
+            case UPSTAGE:
+                return poses(52, -4, 90, 52, 76, 90, 27, 76, 90);
+            case MIDDLE:
+                return poses(50, 0, 90, 50, 80, 90, 27, 80, 90);
+            case DOWNSTAGE:
+            default:
+                return poses(51, 2, 90, 51, 77, 90, 35, 77, 90);
+        }
+    }
+
+    /** @return The poses to get out of the way after placing the yellow pixel, for blue */
+    private static List<Pose2d> getHidePoses(AutoPosition autoPosition) {
+        Pose2d backdrop = getLast(getBackdropPoses(autoPosition));
+        // Downstage robots don't have time to get to the corner, so just face away from us for field centric
+        if (!autoPosition.isUpstage) return poses(backdrop.getX(), backdrop.getY(), 0);
+
+        switch (autoPosition.spikeMark) {
+            case UPSTAGE:
+                return poses(7, 33, 0, 7, 37, 0);
+            case MIDDLE:
+                return poses(7, 32, 0, 7, 36, 0);
+            case DOWNSTAGE:
+            default:
+                return poses(6, 32, 0, 6, 40, 0);
+        }
+    }
+
+    /**
+     * Builds a path through the poses, flipping them for red.
+     *
+     * @param start The pose at the start of the path, for blue
+     * @param poses The poses to go through, for blue
+     * @param autoPosition The auto position
+     * @return The path
+     */
+    private static TrajectorySequence build(Pose2d start, List<Pose2d> poses, AutoPosition autoPosition) {
+        Pose2d[] flipped = new Pose2d[poses.size()];
+        for (int i = 0; i < flipped.length; i++) flipped[i] = flip(poses.get(i), autoPosition);
+        return build(flip(start, autoPosition), Arrays.asList(flipped));
+    }
+
+    /**
+     * Builds a path through the poses. The robot turns in place for poses in the same spot as the one before,
+     * and otherwise splines through them, leaving each pose towards the next one so it doesn't stop.
+     *
+     * @param start The pose at the start of the path
+     * @param poses The poses to go through
+     * @return The path
+     */
+    private static TrajectorySequence build(Pose2d start, List<Pose2d> poses) {
+        TrajectorySequenceBuilder builder = new TrajectorySequenceBuilder(start,
+                SampleMecanumDrive.getVelocityConstraint(MAX_VEL, MAX_ANG_VEL, TRACK_WIDTH),
+                SampleMecanumDrive.getAccelerationConstraint(MAX_ACCEL),
+                MAX_ANG_VEL, MAX_ANG_ACCEL);
+
+        Pose2d last = start;
+        boolean isSplining = false;
+        for (int i = 0; i < poses.size(); i++) {
+            Pose2d pose = poses.get(i);
+            if (isSamePosition(last, pose)) {
+                builder.turn(Angle.normDelta(pose.getHeading() - last.getHeading()));
+                isSplining = false;
+            }
+            else {
+                if (!isSplining) builder.setTangent(getDirection(last, pose));
+                Pose2d next = i + 1 < poses.size() ? poses.get(i + 1) : null;
+                double endTangent = next == null || isSamePosition(pose, next) ? getDirection(last, pose) : getDirection(last, next);
+                builder.splineToLinearHeading(pose, endTangent);
+                isSplining = true;
+            }
+            last = pose;
+        }
+        return builder.build();
+    }
+
+    /**
+     * Makes poses out of numbers, three per pose.
+     *
+     * @param values The x and y in inches and heading in degrees of each pose
+     * @return The poses
+     */
+    private static List<Pose2d> poses(double... values) {
+        Pose2d[] poses = new Pose2d[values.length / 3];
+        for (int i = 0; i < poses.length; i++) {
+            poses[i] = new Pose2d(values[3 * i], values[3 * i + 1], Math.toRadians(values[3 * i + 2]));
+        }
+        return Arrays.asList(poses);
+    }
+
+    /** @return The pose mirrored across the starting line of the robot if we are red */
+    private static Pose2d flip(Pose2d pose, AutoPosition autoPosition) {
+        return new Pose2d(pose.getX(), autoPosition.flip(pose.getY()), autoPosition.flip(pose.getHeading()));
+    }
+
+    private static Pose2d getLast(List<Pose2d> poses) {
+        return poses.get(poses.size() - 1);
+    }
+
+    private static boolean isSamePosition(Pose2d a, Pose2d b) {
+        return a.vec().distTo(b.vec()) < SAME_POSITION_TOLERANCE;
+    }
+
+    /** @return The direction from one pose to another in radians */
+    private static double getDirection(Pose2d from, Pose2d to) {
+        return to.vec().minus(from.vec()).angle();
+    }
+}
@@ -8,8 +8,10 @@ import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 
 import org.firstinspires.ftc.robotcore.external.Telemetry;
+import org.firstinspires.ftc.teamcode.Constants;
 import org.firstinspires.ftc.teamcode.Robot;
 import org.firstinspires.ftc.teamcode.commands.CommandManager;
+import org.firstinspires.ftc.teamcode.util.TimingHistogram;
 
 public class AutonomousController {
     enum AutonomousState {
@@ -31,6 +33,8 @@ public class AutonomousController {
 
     private final AutoPosition autoPosition;
 
+    private final TimingHistogram schedulerSection;
+
     public AutonomousController(LinearOpMode opMode, boolean isBlueAlliance, boolean isUpstage, boolean isPlacingYellow) {
         this.hardwareMap = opMode.hardwareMap;
         this.telemetry = opMode.telemetry;
@@ -38,17 +42,31 @@ public class AutonomousController {
         robot = new Robot(opMode, true, true);
         commandManager = new CommandManager(robot);
         autoPosition = new AutoPosition(isBlueAlliance, isPlacingYellow, isUpstage);
+        schedulerSection = robot.getLoopProfiler().getSection("CommandScheduler.run");
+
+        // Build every path now, so none are built after the start button is pressed
+        if (Constants.AutoConstants.USE_TRAJECTORY_FOLLOWER) {
+            commandManager.getAutoPathCache().buildAll();
+            telemetry.addData("Auto paths built in (ms)", commandManager.getAutoPathCache().getBuildTime());
+        }
 
         if (isBlueAlliance) robot.getLedSubsystem().setBlue();
         else robot.getLedSubsystem().setRed();
     }
 
     public void start() {
+        // The driving overlay is drawn by the telemetry publisher
+        robot.getTelemetryPublisher().start();
         state = AutonomousState.MOVING_TO_SPIKE_MARKS;
         scheduleCommand(commandManager.getAutoSetupCommand());
     }
 
     public void run() {
+        robot.getLoopProfiler().startLoop();
+
+        // The hubs are in manual bulk caching mode, so the cache has to be cleared every loop
+        robot.getBulkReadManager().update();
+
         switch (state) {
 
             case MOVING_TO_SPIKE_MARKS:
@@ -84,7 +102,14 @@ public class AutonomousController {
             case IDLE:
                 break;
         }
+        long start = System.nanoTime();
         CommandScheduler.getInstance().run();
+        schedulerSection.recordSince(start);
+    }
+
+    /** Writes the loop timings to a file. Should be called once the op mode has been stopped. */
+    public void stop() {
+        robot.stop();
     }
 
     public AutoPosition.SpikeMark getSpikeMark() {
@@ -5,6 +5,7 @@ import com.arcrobotics.ftclib.command.SequentialCommandGroup;
 import com.arcrobotics.ftclib.command.WaitCommand;
 
 import org.firstinspires.ftc.teamcode.auto.AutoPosition;
+import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.TrajectorySequence;
 import org.firstinspires.ftc.teamcode.subsystems.DriveSubsystem;
 import org.firstinspires.ftc.teamcode.subsystems.IntakeSubsystem;
 import org.firstinspires.ftc.teamcode.commands.MoveCommand.MovementType;
@@ -22,6 +23,25 @@ public class AutoDriveAndPlacePurpleCommand extends SequentialCommandGroup {
      *
      * @param driveSubsystem A reference to the driveSubsystem
      * @param intakeSubsystem A reference to the intakeSubsystem
+     * @param purplePath The path to the spike mark with the team prop
+     */
+    public AutoDriveAndPlacePurpleCommand(DriveSubsystem driveSubsystem, IntakeSubsystem intakeSubsystem, TrajectorySequence purplePath) {
+        addCommands(
+                new FollowTrajectoryCommand(driveSubsystem, purplePath),
+                new AutoPlacePurpleCommand(intakeSubsystem)
+        );
+        lastCommand = new WaitCommand(1);
+        addCommands(lastCommand);
+        addRequirements(driveSubsystem, intakeSubsystem);
+    }
+
+    /**
+     * Creates the command that drives from where we sensed the distance sensors to the correct spot to place the
+     * purple pixel, then places the purple pixel.
+     * Drives with the encoder and gyro moves instead of following a path.
+     *
+     * @param driveSubsystem A reference to the driveSubsystem
+     * @param intakeSubsystem A reference to the intakeSubsystem
      * @param autoPosition The auto position we started at
      */
     public AutoDriveAndPlacePurpleCommand(DriveSubsystem driveSubsystem, IntakeSubsystem intakeSubsystem, AutoPosition autoPosition) {
@@ -5,6 +5,7 @@ import com.arcrobotics.ftclib.command.WaitCommand;
 
 import org.firstinspires.ftc.teamcode.Constants;
 import org.firstinspires.ftc.teamcode.auto.AutoPosition;
+import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.TrajectorySequence;
 import org.firstinspires.ftc.teamcode.subsystems.DriveSubsystem;
 import org.firstinspires.ftc.teamcode.commands.MoveCommand.MovementType;
 
@@ -19,6 +20,21 @@ public class AutoDriveFromPurpleCommand extends SequentialCommandGroup {
      * either the backdrop or just facing the correct direction.
      *
      * @param driveSubsystem A reference to the driveSubsystem
+     * @param backdropPath The path to the backdrop, or that only turns if we aren't placing the yellow
+     */
+    public AutoDriveFromPurpleCommand(DriveSubsystem driveSubsystem, TrajectorySequence backdropPath) {
+        // The path lines us up with the correct spot on the backdrop, or only turns if we aren't placing the yellow
+        addCommands(
+                new FollowTrajectoryCommand(driveSubsystem, backdropPath)
+        );
+    }
+
+    /**
+     * Creates a command that drives from where we placed the purple pixel to the next spot,
+     * either the backdrop or just facing the correct direction.
+     * Drives with the encoder and gyro moves instead of following a path.
+     *
+     * @param driveSubsystem A reference to the driveSubsystem
      * @param autoPosition The starting auto position
      */
     public AutoDriveFromPurpleCommand(DriveSubsystem driveSubsystem, AutoPosition autoPosition) {
@@ -116,4 +132,4 @@ public class AutoDriveFromPurpleCommand extends SequentialCommandGroup {
             );
         }
     }
-}
\ No newline at end of file
+}
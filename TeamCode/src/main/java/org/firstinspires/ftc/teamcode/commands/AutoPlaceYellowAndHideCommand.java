@@ -5,6 +5,7 @@ import com.arcrobotics.ftclib.command.SequentialCommandGroup;
 import com.arcrobotics.ftclib.command.WaitCommand;
 
 import org.firstinspires.ftc.teamcode.auto.AutoPosition;
+import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.TrajectorySequence;
 import org.firstinspires.ftc.teamcode.subsystems.BoxSubsystem;
 import org.firstinspires.ftc.teamcode.subsystems.DriveSubsystem;
 import org.firstinspires.ftc.teamcode.subsystems.ElbowSubsystem;
@@ -26,6 +27,30 @@ public class AutoPlaceYellowAndHideCommand extends SequentialCommandGroup {
      * @param elbowSubsystem Reference to the elbowSubsystem
      * @param linearSlideSubsystem Reference to the linearSlideSubsystem
      * @param boxSubsystem Reference to the boxReleaseSubsystem
+     * @param hidePath The path from the backdrop to where we park
+     */
+    public AutoPlaceYellowAndHideCommand(DriveSubsystem driveSubsystem, ElbowSubsystem elbowSubsystem, LinearSlideSubsystem linearSlideSubsystem, BoxSubsystem boxSubsystem, TrajectorySequence hidePath) {
+        lastCommand = new WaitCommand(1);
+
+        // We are already lined up with the correct spot on the backdrop, so place the yellow and then hide,
+        // or just face away from us if we are downstage
+        addCommands(
+                new AutoPlaceYellowCommand(elbowSubsystem, linearSlideSubsystem, boxSubsystem),
+                new FollowTrajectoryCommand(driveSubsystem, hidePath),
+                lastCommand
+        );
+        addRequirements(driveSubsystem, elbowSubsystem, linearSlideSubsystem, boxSubsystem);
+    }
+
+    /**
+     * Creates a command that drives to the correct position on the backdrop, places the yellow pixel on the (hopefully)
+     *  * correct position, and drives into the corner.
+     * Drives with the encoder and gyro moves instead of following a path.
+     *
+     * @param driveSubsystem Reference to the driveSubsystem
+     * @param elbowSubsystem Reference to the elbowSubsystem
+     * @param linearSlideSubsystem Reference to the linearSlideSubsystem
+     * @param boxSubsystem Reference to the boxReleaseSubsystem
      * @param autoPosition The starting auto position
      */
     public AutoPlaceYellowAndHideCommand(DriveSubsystem driveSubsystem, ElbowSubsystem elbowSubsystem, LinearSlideSubsystem linearSlideSubsystem, BoxSubsystem boxSubsystem, AutoPosition autoPosition) {
@@ -1,9 +1,12 @@
 package org.firstinspires.ftc.teamcode.commands;
 
+import com.acmerobotics.roadrunner.geometry.Pose2d;
 import com.arcrobotics.ftclib.command.Command;
 import com.arcrobotics.ftclib.command.InstantCommand;
 import com.arcrobotics.ftclib.command.SequentialCommandGroup;
+import com.arcrobotics.ftclib.command.WaitCommand;
 
+import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.TrajectorySequence;
 import org.firstinspires.ftc.teamcode.subsystems.DriveSubsystem;
 import org.firstinspires.ftc.teamcode.subsystems.IntakeSubsystem;
 
@@ -20,6 +23,24 @@ public class AutoSetupCommand extends SequentialCommandGroup {
      *
      * @param driveSubsystem Reference to the driveSubsystem
      * @param intakeSubsystem Reference to the intakeSubsystem
+     * @param sensingPath The path to where the distance sensors can see the spike marks
+     */
+    public AutoSetupCommand(DriveSubsystem driveSubsystem, IntakeSubsystem intakeSubsystem, TrajectorySequence sensingPath) {
+        addCommands(
+                new InstantCommand(intakeSubsystem::upPosition, intakeSubsystem),
+                // The auto paths are relative to where we start
+                new InstantCommand(() -> driveSubsystem.setPoseEstimate(new Pose2d())),
+                new FollowTrajectoryCommand(driveSubsystem, sensingPath),
+                // Give the distance sensors time to see the team prop
+                lastCommand = new WaitCommand(1000)
+        );
+    }
+
+    /**
+     * Creates a command that drives forwards to sense for the team prop, using the encoders instead of following a path.
+     *
+     * @param driveSubsystem Reference to the driveSubsystem
+     * @param intakeSubsystem Reference to the intakeSubsystem
      */
     public AutoSetupCommand(DriveSubsystem driveSubsystem, IntakeSubsystem intakeSubsystem) {
         addCommands(
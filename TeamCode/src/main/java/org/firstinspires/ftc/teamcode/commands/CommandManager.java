@@ -10,8 +10,11 @@ import com.arcrobotics.ftclib.gamepad.GamepadKeys;
 //import org.firstinspires.ftc.teamcode.Constants;
 //import org.firstinspires.ftc.teamcode.auto.AutonomousController;
 import org.firstinspires.ftc.teamcode.Robot;
+import org.firstinspires.ftc.teamcode.auto.AutoPathCache;
 import org.firstinspires.ftc.teamcode.auto.AutoPosition;
 
+import static org.firstinspires.ftc.teamcode.Constants.AutoConstants.USE_TRAJECTORY_FOLLOWER;
+
 public class CommandManager {
     private final Robot robot;
     /** Command that opens the box, lets the pixels drop and closes the box */
@@ -61,73 +64,75 @@ public class CommandManager {
     /** Command run at the start of driver controlled */
     private final Command setupCommand;
 
+    /** The paths driven in autonomous, only built if they are used */
+    private final AutoPathCache autoPathCache = new AutoPathCache();
+
     public CommandManager(Robot robot) {
         this.robot = robot;
 
-        openBoxCommand = new SequentialCommandGroup(
+        openBoxCommand = profile("openBox", new SequentialCommandGroup(
                 new InstantCommand(() -> robot.getBoxSubsystem().openBox(), robot.getBoxSubsystem()),
                 new WaitCommand(1000),
                 new InstantCommand(() -> robot.getBoxSubsystem().closeBox(), robot.getBoxSubsystem())
-        );
+        ));
 
-        closeBoxCommand = new InstantCommand(() -> robot.getBoxSubsystem().closeBox(), robot.getBoxSubsystem());
+        closeBoxCommand = profile("closeBox", new InstantCommand(() -> robot.getBoxSubsystem().closeBox(), robot.getBoxSubsystem()));
 
-        defaultDriveCommand = new RunCommand(() -> robot.getDriveSubsystem().drive(robot.getDriverGamepad(), robot.isPressed(robot.getDriverGamepad().getTrigger(GamepadKeys.Trigger.LEFT_TRIGGER)) ? 0.3 : 1.0), robot.getDriveSubsystem());
+        defaultDriveCommand = profile("defaultDrive", new RunCommand(() -> robot.getDriveSubsystem().drive(robot.getDriverGamepad(), robot.isPressed(robot.getDriverGamepad().getTrigger(GamepadKeys.Trigger.LEFT_TRIGGER)) ? 0.3 : 1.0), robot.getDriveSubsystem()));
 
-        resetGyroCommand = new InstantCommand(() -> robot.getDriveSubsystem().resetGyro());
+        resetGyroCommand = profile("resetGyro", new InstantCommand(() -> robot.getDriveSubsystem().resetGyro()));
 
         // Snap right
-        snapRightCommand = new SnapCommand(robot.getDriveSubsystem(), robot.getDriverGamepad(), -90);
+        snapRightCommand = profile("snapRight", new SnapCommand(robot.getDriveSubsystem(), robot.getDriverGamepad(), -90));
         // Snap left
-        snapLeftCommand = new SnapCommand(robot.getDriveSubsystem(), robot.getDriverGamepad(), 90);
+        snapLeftCommand = profile("snapLeft", new SnapCommand(robot.getDriveSubsystem(), robot.getDriverGamepad(), 90));
         // Snap up
-        snapUpCommand = new SnapCommand(robot.getDriveSubsystem(), robot.getDriverGamepad(), 0);
+        snapUpCommand = profile("snapUp", new SnapCommand(robot.getDriveSubsystem(), robot.getDriverGamepad(), 0));
         // Snap down
-        snapDownCommand = new SnapCommand(robot.getDriveSubsystem(), robot.getDriverGamepad(), 180);
+        snapDownCommand = profile("snapDown", new SnapCommand(robot.getDriveSubsystem(), robot.getDriverGamepad(), 180));
 // :]
-        droneModeCommand = new SequentialCommandGroup(
+        droneModeCommand = profile("droneMode", new SequentialCommandGroup(
                 new InstantCommand(() -> robot.setState(Robot.RobotState.SHOOTING_DRONE)),
                 new MoveElbowCommand(robot.getElbowSubsystem(), robot.getElbowSubsystem().getDroneLaunchPosition())
-        );
+        ));
 
-        droneLaunchCommand = new InstantCommand(() -> {
+        droneLaunchCommand = profile("droneLaunch", new InstantCommand(() -> {
             robot.setState(Robot.RobotState.DRIVING);
             robot.getDroneSubsystem().release();
-        });
+        }));
 
-        droneCancelCommand = new InstantCommand(() -> robot.setState(Robot.RobotState.DRIVING));
+        droneCancelCommand = profile("droneCancel", new InstantCommand(() -> robot.setState(Robot.RobotState.DRIVING)));
 
-        defaultElbowCommand = new RunCommand(() -> {
+        defaultElbowCommand = profile("defaultElbow", new RunCommand(() -> {
             robot.getElbowSubsystem().moveManually(Math.abs(robot.getOperatorGamepad().getLeftY()) >= 0.1 ? robot.getOperatorGamepad().getLeftY() : 0);
-        }, robot.getElbowSubsystem());
+        }, robot.getElbowSubsystem()));
 
-        defaultSlideCommand = new RunCommand(() -> {
+        defaultSlideCommand = profile("defaultSlide", new RunCommand(() -> {
             robot.getLinearSlideSubsystem().moveManually(Math.abs(robot.getOperatorGamepad().getRightY()) >= 0.1 ? robot.getOperatorGamepad().getRightY() : 0);
-        }, robot.getLinearSlideSubsystem());
+        }, robot.getLinearSlideSubsystem()));
 
-        defaultHangingCommand = new RunCommand(() -> {
+        defaultHangingCommand = profile("defaultHanging", new RunCommand(() -> {
             robot.getHangingSubsystem().levelServo(robot.getElbowSubsystem());
             if (robot.getOperatorGamepad().getButton(GamepadKeys.Button.LEFT_BUMPER)) robot.getHangingSubsystem().winch();
             else if (robot.isPressed(robot.getOperatorGamepad().getTrigger(GamepadKeys.Trigger.LEFT_TRIGGER))) robot.getHangingSubsystem().unwinch();
             else robot.getHangingSubsystem().stopMotor();
-        }, robot.getHangingSubsystem());
+        }, robot.getHangingSubsystem()));
 
-        intakeModeCommand = new SequentialCommandGroup(
+        intakeModeCommand = profile("intakeMode", new SequentialCommandGroup(
                 new InstantCommand(() -> {
                     robot.setState(Robot.RobotState.INTAKE);
                     robot.getBoxSubsystem().closeBox();
                     robot.getIntakeSubsystem().downPosition();
                 }),
-                new MoveSlideCommand(robot.getLinearSlideSubsystem(), robot.getLinearSlideSubsystem().getInPosition()),
-                new MoveElbowCommand(robot.getElbowSubsystem(), robot.getElbowSubsystem().getIntakePosition()),
+                new MoveArmCommand(robot.getElbowSubsystem(), robot.getLinearSlideSubsystem(), robot.getElbowSubsystem().getIntakePosition(), robot.getLinearSlideSubsystem().getInPosition()),
                 new InstantCommand(robot.getIntakeSubsystem()::intake, robot.getIntakeSubsystem())
-        );
+        ));
 
-        outtakeCommand = new InstantCommand(robot.getIntakeSubsystem()::outtake, robot.getIntakeSubsystem());
+        outtakeCommand = profile("outtake", new InstantCommand(robot.getIntakeSubsystem()::outtake, robot.getIntakeSubsystem()));
 
-        intakeCommand = new InstantCommand(robot.getIntakeSubsystem()::intake, robot.getIntakeSubsystem());
+        intakeCommand = profile("intake", new InstantCommand(robot.getIntakeSubsystem()::intake, robot.getIntakeSubsystem()));
 
-        pickupPixelsCommand = new SequentialCommandGroup(
+        pickupPixelsCommand = profile("pickupPixels", new SequentialCommandGroup(
                 new InstantCommand(() -> robot.setState(Robot.RobotState.LOADING_PIXELS)),
                 new MoveSlideCommand(robot.getLinearSlideSubsystem(), robot.getLinearSlideSubsystem().getInPosition()),
                 new InstantCommand(() -> {
@@ -136,32 +141,31 @@ public class CommandManager {
                 }),
                 new MoveElbowCommand(robot.getElbowSubsystem(), robot.getElbowSubsystem().getLevelPosition()),
                 new InstantCommand(() -> robot.setState(Robot.RobotState.DRIVING))
-        );
+        ));
 
-        lowScoringPositionCommand = new SequentialCommandGroup(
-                new MoveElbowCommand(robot.getElbowSubsystem(), robot.getElbowSubsystem().getLowScoringPosition()),
-                new MoveSlideCommand(robot.getLinearSlideSubsystem(), robot.getLinearSlideSubsystem().getLowScoringPosition())
-        );
+        lowScoringPositionCommand = profile("lowScoringPosition", new MoveArmCommand(robot.getElbowSubsystem(), robot.getLinearSlideSubsystem(), robot.getElbowSubsystem().getLowScoringPosition(), robot.getLinearSlideSubsystem().getLowScoringPosition()));
 
-        mediumScoringPositionCommand = new SequentialCommandGroup(
-                new MoveElbowCommand(robot.getElbowSubsystem(), robot.getElbowSubsystem().getMediumScoringPosition()),
-                new MoveSlideCommand(robot.getLinearSlideSubsystem(), robot.getLinearSlideSubsystem().getMediumScoringPosition())
-        );
+        mediumScoringPositionCommand = profile("mediumScoringPosition", new MoveArmCommand(robot.getElbowSubsystem(), robot.getLinearSlideSubsystem(), robot.getElbowSubsystem().getMediumScoringPosition(), robot.getLinearSlideSubsystem().getMediumScoringPosition()));
 
-        highScoringPositionCommand = new SequentialCommandGroup(
-                new MoveElbowCommand(robot.getElbowSubsystem(), robot.getElbowSubsystem().getHighScoringPosition()),
-                new MoveSlideCommand(robot.getLinearSlideSubsystem(), robot.getLinearSlideSubsystem().getHighScoringPosition())
-        );
+        highScoringPositionCommand = profile("highScoringPosition", new MoveArmCommand(robot.getElbowSubsystem(), robot.getLinearSlideSubsystem(), robot.getElbowSubsystem().getHighScoringPosition(), robot.getLinearSlideSubsystem().getHighScoringPosition()));
 
-        homePostionCommand = new SequentialCommandGroup(
-                new MoveSlideCommand(robot.getLinearSlideSubsystem(), robot.getLinearSlideSubsystem().getInPosition()),
-                new MoveElbowCommand(robot.getElbowSubsystem(), robot.getElbowSubsystem().getDrivingPosition())
-        );
+        homePostionCommand = profile("homePosition", new MoveArmCommand(robot.getElbowSubsystem(), robot.getLinearSlideSubsystem(), robot.getElbowSubsystem().getDrivingPosition(), robot.getLinearSlideSubsystem().getInPosition()));
 
-        setupCommand = new InstantCommand(() -> {
+        setupCommand = profile("setup", new InstantCommand(() -> {
             robot.getDroneSubsystem().startPosition();
             robot.getBoxSubsystem().closeBox();
-        });
+        }));
+    }
+
+    /**
+     * Wraps a command so that the time of its execute method is recorded by the loop profiler of the robot.
+     *
+     * @param name The name of the command in the profile
+     * @param command The command to wrap
+     * @return The wrapped command
+     */
+    private Command profile(String name, Command command) {
+        return new ProfiledCommand(command, robot.getLoopProfiler().getSection("command " + name));
     }
 
     public Command getOpenBoxCommand() {
@@ -256,19 +260,27 @@ public class CommandManager {
         return setupCommand;
     }
 
+    public AutoPathCache getAutoPathCache() {
+        return autoPathCache;
+    }
+
     public Command getAutoSetupCommand() {
-        return new AutoSetupCommand(robot.getDriveSubsystem(), robot.getIntakeSubsystem());
+        if (!USE_TRAJECTORY_FOLLOWER) return profile("autoSetup", new AutoSetupCommand(robot.getDriveSubsystem(), robot.getIntakeSubsystem()));
+        return profile("autoSetup", new AutoSetupCommand(robot.getDriveSubsystem(), robot.getIntakeSubsystem(), autoPathCache.getSensingPath()));
     }
 
     public Command getAutoDriveAndPlacePurpleCommand(AutoPosition autoPosition) {
-        return new AutoDriveAndPlacePurpleCommand(robot.getDriveSubsystem(), robot.getIntakeSubsystem(), autoPosition);
+        if (!USE_TRAJECTORY_FOLLOWER) return profile("autoDriveAndPlacePurple", new AutoDriveAndPlacePurpleCommand(robot.getDriveSubsystem(), robot.getIntakeSubsystem(), autoPosition));
+        return profile("autoDriveAndPlacePurple", new AutoDriveAndPlacePurpleCommand(robot.getDriveSubsystem(), robot.getIntakeSubsystem(), autoPathCache.getPurplePath(autoPosition)));
     }
 
     public Command getAutoDriveFromPurpleCommand(AutoPosition autoPosition) {
-        return new AutoDriveFromPurpleCommand(robot.getDriveSubsystem(), autoPosition);
+        if (!USE_TRAJECTORY_FOLLOWER) return profile("autoDriveFromPurple", new AutoDriveFromPurpleCommand(robot.getDriveSubsystem(), autoPosition));
+        return profile("autoDriveFromPurple", new AutoDriveFromPurpleCommand(robot.getDriveSubsystem(), autoPathCache.getBackdropPath(autoPosition)));
     }
 
     public Command getAutoPlaceYellowAndHideCommand(AutoPosition autoPosition) {
-        return new AutoPlaceYellowAndHideCommand(robot.getDriveSubsystem(), robot.getElbowSubsystem(), robot.getLinearSlideSubsystem(), robot.getBoxSubsystem(), autoPosition);
+        if (!USE_TRAJECTORY_FOLLOWER) return profile("autoPlaceYellowAndHide", new AutoPlaceYellowAndHideCommand(robot.getDriveSubsystem(), robot.getElbowSubsystem(), robot.getLinearSlideSubsystem(), robot.getBoxSubsystem(), autoPosition));
+        return profile("autoPlaceYellowAndHide", new AutoPlaceYellowAndHideCommand(robot.getDriveSubsystem(), robot.getElbowSubsystem(), robot.getLinearSlideSubsystem(), robot.getBoxSubsystem(), autoPathCache.getHidePath(autoPosition)));
     }
 }
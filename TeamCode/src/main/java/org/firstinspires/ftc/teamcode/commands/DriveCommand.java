@@ -41,7 +41,7 @@ public class DriveCommand extends CommandBase {
 
     @Override
     public void end(boolean interrupted) {
-        driveSubsystem.stopMotors();
+        driveSubsystem.cancelMovement();
     }
 
     @Override
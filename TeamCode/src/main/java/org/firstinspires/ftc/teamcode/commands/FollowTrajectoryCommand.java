@@ -0,0 +1,64 @@
+package org.firstinspires.ftc.teamcode.commands;
+
+import com.arcrobotics.ftclib.command.CommandBase;
+
+import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.PendingTrajectorySequence;
+import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.TrajectorySequence;
+import org.firstinspires.ftc.teamcode.subsystems.DriveSubsystem;
+
+/**
+ * Command that uses the driveSubsystem to follow a trajectory sequence.
+ */
+public class FollowTrajectoryCommand extends CommandBase {
+    private final DriveSubsystem driveSubsystem;
+    private final TrajectorySequence trajectorySequence;
+    private final PendingTrajectorySequence pendingSequence;
+
+    /**
+     * Creates a command that follows a trajectory sequence.
+     *
+     * @param driveSubsystem Reference to the driveSubsystem
+     * @param trajectorySequence The sequence to follow, should start where the robot is
+     */
+    public FollowTrajectoryCommand(DriveSubsystem driveSubsystem, TrajectorySequence trajectorySequence) {
+        this.driveSubsystem = driveSubsystem;
+        this.trajectorySequence = trajectorySequence;
+        this.pendingSequence = null;
+        addRequirements(driveSubsystem);
+    }
+
+    /**
+     * Creates a command that follows a trajectory sequence that is still being built on a background thread.
+     *
+     * @param driveSubsystem Reference to the driveSubsystem
+     * @param pendingSequence The sequence to follow, should start where the robot is
+     */
+    public FollowTrajectoryCommand(DriveSubsystem driveSubsystem, PendingTrajectorySequence pendingSequence) {
+        this.driveSubsystem = driveSubsystem;
+        this.trajectorySequence = null;
+        this.pendingSequence = pendingSequence;
+        addRequirements(driveSubsystem);
+    }
+
+    @Override
+    public void initialize() {
+        if (pendingSequence != null) driveSubsystem.followTrajectorySequenceAsync(pendingSequence);
+        else driveSubsystem.followTrajectorySequenceAsync(trajectorySequence);
+    }
+
+    // The drive subsystem moves the follower along in its periodic
+    @Override
+    public void execute() {
+
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        driveSubsystem.cancelMovement();
+    }
+
+    @Override
+    public boolean isFinished() {
+        return driveSubsystem.isFinishedMoving();
+    }
+}
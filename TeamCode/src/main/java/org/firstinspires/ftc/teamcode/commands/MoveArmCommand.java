@@ -0,0 +1,177 @@
+package org.firstinspires.ftc.teamcode.commands;
+
+import com.acmerobotics.roadrunner.profile.MotionProfile;
+import com.acmerobotics.roadrunner.profile.MotionProfileGenerator;
+import com.acmerobotics.roadrunner.profile.MotionState;
+import com.arcrobotics.ftclib.command.CommandBase;
+
+import org.firstinspires.ftc.teamcode.Constants.ElbowConstants;
+import org.firstinspires.ftc.teamcode.Constants.LinearSlideConstants;
+import org.firstinspires.ftc.teamcode.subsystems.ElbowSubsystem;
+import org.firstinspires.ftc.teamcode.subsystems.LinearSlideSubsystem;
+
+import static org.firstinspires.ftc.teamcode.Constants.ArmConstants.*;
+
+/**
+ * Command that moves the elbow and the slide to set positions at the same time, following motion profiles if
+ * {@code USE_MOTION_PROFILE} is set for them. The slide is only allowed out while the elbow is above
+ * {@code SLIDE_EXTEND_ELBOW_POSITION}, so each joint waits on where the other one actually is:
+ * <ul>
+ *     <li>If the elbow is going up past it, the slide starts extending once the elbow is above it.</li>
+ *     <li>If the elbow is going down past it, the elbow starts once the slide has retracted far enough. With both
+ *     profiles on, that is the point on the slide's profile from which the slide finishes retracting just as the
+ *     elbow gets there, otherwise it is once the slide is all the way in.</li>
+ * </ul>
+ * Otherwise both joints start right away.
+ */
+public class MoveArmCommand extends CommandBase {
+    private final ElbowSubsystem elbowSubsystem;
+    private final LinearSlideSubsystem linearSlideSubsystem;
+    private final double elbowTarget;
+    private final double slideTarget;
+
+    /** The timeouts in seconds without a profile, the same as MoveElbowCommand and MoveSlideCommand use */
+    private static final double ELBOW_TIMEOUT = 5.0;
+    private static final double SLIDE_TIMEOUT = 1.5;
+
+    private boolean isMovingElbow;
+    private boolean isMovingSlide;
+    private double elbowGoal;
+    private double slideGoal;
+
+    /** Whether the elbow has to wait for the slide to retract before going down */
+    private boolean elbowWaitsForSlide;
+    /** The elbow starts once the slide is at or below this position, in slide pulses */
+    private double elbowStartSlidePosition;
+    /** Whether the slide has to wait for the elbow to be high enough before extending */
+    private boolean slideWaitsForElbow;
+
+    private boolean isElbowStarted;
+    private boolean isSlideStarted;
+
+    /**
+     * Creates a command that moves the elbow and the slide together.
+     *
+     * @param elbowSubsystem Reference to the elbowSubsystem
+     * @param linearSlideSubsystem Reference to the linearSlideSubsystem
+     * @param elbowPosition The target position of the elbow in pulses, -1 to leave it where it is
+     * @param slidePosition The target position of the slide in pulses, -1 to leave it where it is
+     */
+    public MoveArmCommand(ElbowSubsystem elbowSubsystem, LinearSlideSubsystem linearSlideSubsystem, double elbowPosition, double slidePosition) {
+        this.elbowSubsystem = elbowSubsystem;
+        this.linearSlideSubsystem = linearSlideSubsystem;
+        elbowTarget = elbowPosition;
+        slideTarget = slidePosition;
+        addRequirements(elbowSubsystem, linearSlideSubsystem);
+    }
+
+    @Override
+    public void initialize() {
+        int elbowPosition = elbowSubsystem.getPosition();
+        int slidePosition = linearSlideSubsystem.getPosition();
+
+        isMovingElbow = elbowTarget != -1;
+        elbowGoal = isMovingElbow ? elbowTarget : elbowPosition;
+        isMovingSlide = slideTarget != -1;
+        slideGoal = isMovingSlide ? slideTarget : slidePosition;
+
+        // The slide can't stay out if the elbow is ending up low
+        if (elbowGoal < SLIDE_EXTEND_ELBOW_POSITION && slideGoal > SLIDE_RETRACTED_POSITION) {
+            slideGoal = linearSlideSubsystem.getInPosition();
+            isMovingSlide = true;
+        }
+
+        slideWaitsForElbow = isMovingSlide && slideGoal > SLIDE_RETRACTED_POSITION
+                && elbowPosition < SLIDE_EXTEND_ELBOW_POSITION;
+
+        elbowWaitsForSlide = isMovingElbow && isMovingSlide && elbowGoal < SLIDE_EXTEND_ELBOW_POSITION
+                && slidePosition > SLIDE_RETRACTED_POSITION;
+        if (elbowWaitsForSlide) {
+            elbowStartSlidePosition = ElbowConstants.USE_MOTION_PROFILE && LinearSlideConstants.USE_MOTION_PROFILE
+                    ? getElbowStartSlidePosition(elbowPosition, slidePosition) : SLIDE_RETRACTED_POSITION;
+        }
+
+        isElbowStarted = false;
+        isSlideStarted = false;
+    }
+
+    @Override
+    public void execute() {
+        // A joint that has settled at its target a little short of the position the other is waiting on still counts
+        if (isMovingElbow && !isElbowStarted && (!elbowWaitsForSlide
+                || linearSlideSubsystem.getPosition() <= elbowStartSlidePosition
+                || (isSlideStarted && linearSlideSubsystem.isAtTarget()))) {
+            if (ElbowConstants.USE_MOTION_PROFILE) elbowSubsystem.setProfiledTarget(elbowGoal);
+            else elbowSubsystem.setTarget(elbowGoal, ELBOW_TIMEOUT);
+            isElbowStarted = true;
+        }
+        if (isMovingSlide && !isSlideStarted && (!slideWaitsForElbow
+                || elbowSubsystem.getPosition() >= SLIDE_EXTEND_ELBOW_POSITION
+                || (isElbowStarted && elbowSubsystem.isAtTarget()))) {
+            if (LinearSlideConstants.USE_MOTION_PROFILE) linearSlideSubsystem.setProfiledTarget(slideGoal);
+            else linearSlideSubsystem.setTarget(slideGoal, SLIDE_TIMEOUT);
+            isSlideStarted = true;
+        }
+
+        if (isElbowStarted) elbowSubsystem.runPID();
+        if (isSlideStarted) linearSlideSubsystem.runPID();
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        elbowSubsystem.stopMotor();
+        linearSlideSubsystem.stopMotor();
+    }
+
+    @Override
+    public boolean isFinished() {
+        boolean isElbowDone = !isMovingElbow || (isElbowStarted && elbowSubsystem.isAtTarget());
+        boolean isSlideDone = !isMovingSlide || (isSlideStarted && linearSlideSubsystem.isAtTarget());
+        return isElbowDone && isSlideDone;
+    }
+
+    /**
+     * Finds where the slide should be for the elbow to start going down, so that following both profiles the slide
+     * finishes retracting just as the elbow reaches the lowest safe position. The slide is checked against this
+     * instead of waiting a set time, so a slide that is slower than its profile holds the elbow back.
+     *
+     * @param elbowPosition The position the elbow starts at in pulses
+     * @param slidePosition The position the slide starts at in pulses
+     * @return The slide position in pulses
+     */
+    private double getElbowStartSlidePosition(double elbowPosition, double slidePosition) {
+        MotionProfile slideProfile = MotionProfileGenerator.generateSimpleMotionProfile(
+                new MotionState(slidePosition, 0), new MotionState(slideGoal, 0),
+                LinearSlideConstants.MAX_VELOCITY, LinearSlideConstants.MAX_ACCELERATION, LinearSlideConstants.MAX_JERK);
+        double elbowTimeToLimit = getTimeToReach(elbowPosition, elbowGoal, SLIDE_EXTEND_ELBOW_POSITION);
+        double slideTime = slideProfile.duration() - elbowTimeToLimit;
+        return slideTime > 0 ? slideProfile.get(slideTime).getX() : slidePosition;
+    }
+
+    /**
+     * Finds how long it takes the elbow to reach a position on its way to a target, using the same profile
+     * limits as the elbow.
+     *
+     * @param start The position the elbow starts at in pulses
+     * @param goal The target of the elbow in pulses
+     * @param position The position to reach in pulses, between the start and the goal
+     * @return The time to reach the position in seconds, 0 if it starts past it
+     */
+    private static double getTimeToReach(double start, double goal, double position) {
+        if ((goal - start) * (position - start) <= 0) return 0;
+        MotionProfile profile = MotionProfileGenerator.generateSimpleMotionProfile(
+                new MotionState(start, 0), new MotionState(goal, 0),
+                ElbowConstants.MAX_VELOCITY, ElbowConstants.MAX_ACCELERATION, ElbowConstants.MAX_JERK);
+
+        // The profile only ever moves towards the goal, so search for when it passes the position
+        double low = 0;
+        double high = profile.duration();
+        for (int i = 0; i < 20; i++) {
+            double middle = (low + high) / 2;
+            boolean isPast = (profile.get(middle).getX() - position) * (goal - start) >= 0;
+            if (isPast) high = middle;
+            else low = middle;
+        }
+        return high;
+    }
+}
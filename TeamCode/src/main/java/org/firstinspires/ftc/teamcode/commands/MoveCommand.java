@@ -22,6 +22,7 @@ public class MoveCommand extends SequentialCommandGroup {
         STRAFE,
         TURN,
         TURN_TO_HEADING,
+        /** Corrects a turn that oversteered, not needed after a profiled turn */
         SLOW_TURN_TO_HEADING
     }
 
@@ -5,8 +5,11 @@ import com.arcrobotics.ftclib.command.CommandScheduler;
 
 import org.firstinspires.ftc.teamcode.subsystems.ElbowSubsystem;
 
+import static org.firstinspires.ftc.teamcode.Constants.ElbowConstants.USE_MOTION_PROFILE;
+
 /**
- * Command that moves the elbow to a set position using the PID controller.
+ * Command that moves the elbow to a set position using the PID controller, following a motion
+ * profile if {@code USE_MOTION_PROFILE} is set.
  */
 public class MoveElbowCommand extends CommandBase {
     private final ElbowSubsystem elbowSubsystem;
@@ -30,7 +33,8 @@ public class MoveElbowCommand extends CommandBase {
             cancel();
             return;
         }
-        elbowSubsystem.setTarget(target, 5.0);
+        if (USE_MOTION_PROFILE) elbowSubsystem.setProfiledTarget(target);
+        else elbowSubsystem.setTarget(target, 5.0);
     }
 
     @Override
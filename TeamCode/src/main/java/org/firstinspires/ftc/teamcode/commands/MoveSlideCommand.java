@@ -4,8 +4,11 @@ import com.arcrobotics.ftclib.command.CommandBase;
 
 import org.firstinspires.ftc.teamcode.subsystems.LinearSlideSubsystem;
 
+import static org.firstinspires.ftc.teamcode.Constants.LinearSlideConstants.USE_MOTION_PROFILE;
+
 /**
- * Command that moves the slide to a set position using the PID controller.
+ * Command that moves the slide to a set position using the PID controller, following a motion
+ * profile if {@code USE_MOTION_PROFILE} is set.
  */
 public class MoveSlideCommand extends CommandBase {
     private final LinearSlideSubsystem linearSlideSubsystem;
@@ -29,7 +32,8 @@ public class MoveSlideCommand extends CommandBase {
             cancel();
             return;
         }
-        linearSlideSubsystem.setTarget(target, 1.5);
+        if (USE_MOTION_PROFILE) linearSlideSubsystem.setProfiledTarget(target);
+        else linearSlideSubsystem.setTarget(target, 1.5);
     }
 
     @Override
@@ -0,0 +1,54 @@
+package org.firstinspires.ftc.teamcode.commands;
+
+import com.arcrobotics.ftclib.command.Command;
+import com.arcrobotics.ftclib.command.CommandBase;
+import com.arcrobotics.ftclib.command.Subsystem;
+
+import org.firstinspires.ftc.teamcode.util.TimingHistogram;
+
+/**
+ * Command that runs another command, timing each call to its execute method.
+ */
+public class ProfiledCommand extends CommandBase {
+    private final Command command;
+    private final TimingHistogram histogram;
+
+    /**
+     * Creates a command that runs a command and records how long its execute method takes.
+     *
+     * @param command The command to run
+     * @param histogram The histogram to record the execute times in
+     */
+    public ProfiledCommand(Command command, TimingHistogram histogram) {
+        this.command = command;
+        this.histogram = histogram;
+        addRequirements(command.getRequirements().toArray(new Subsystem[0]));
+    }
+
+    @Override
+    public void initialize() {
+        command.initialize();
+    }
+
+    @Override
+    public void execute() {
+        long start = System.nanoTime();
+        command.execute();
+        histogram.recordSince(start);
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        command.end(interrupted);
+    }
+
+    @Override
+    public boolean isFinished() {
+        return command.isFinished();
+    }
+
+    @Override
+    public boolean runsWhenDisabled() {
+        return command.runsWhenDisabled();
+    }
+}
@@ -3,7 +3,6 @@ package org.firstinspires.ftc.teamcode.commands;
 import com.arcrobotics.ftclib.command.CommandBase;
 import com.arcrobotics.ftclib.gamepad.GamepadEx;
 
-import org.firstinspires.ftc.teamcode.Constants;
 import org.firstinspires.ftc.teamcode.subsystems.DriveSubsystem;
 
 /**
@@ -13,8 +12,7 @@ import org.firstinspires.ftc.teamcode.subsystems.DriveSubsystem;
 public class SnapCommand extends CommandBase {
     private final DriveSubsystem driveSubsystem;
     private final GamepadEx driver;
-    private double heading;
-    private double turningSpeed;
+    private final double heading;
 
     /**
      * Creates a command that rotates the robot to a specified angle while the driver is driving.
@@ -31,31 +29,23 @@ public class SnapCommand extends CommandBase {
 
     @Override
     public void initialize() {
-        correctTargetHeading();
-        driveSubsystem.turnAsync(heading - driveSubsystem.getHeading(), Constants.DriveConstants.AUTO_TURN_SPEED);
-        turningSpeed = driveSubsystem.getAutoTurnSpeed(Constants.DriveConstants.AUTO_TURN_SPEED);
+        // The heading controller takes the shortest way around, so the robot never rotates an extra 360 degrees
+        driveSubsystem.snapToHeadingAsync(heading);
     }
 
     @Override
     public void execute() {
-        driveSubsystem.drive(driver.getLeftY(), driver.getLeftX(), turningSpeed, true, 1);
+        driveSubsystem.driveWhileSnapping(driver.getLeftY(), driver.getLeftX());
     }
 
     @Override
     public void end(boolean interrupted) {
-
+        // Otherwise an interrupted snap keeps turning against the driver
+        driveSubsystem.cancelMovement();
     }
 
     @Override
     public boolean isFinished() {
         return driveSubsystem.isFinishedTurning();
     }
-
-    private void correctTargetHeading() {
-        double currentHeading = driveSubsystem.getHeading();
-        // Move the heading to the same "frame" as the current heading
-        // This is done to prevent the robot rotating an extra or two 360 degrees
-        while (heading < currentHeading - 180) heading += 360;
-        while (heading > currentHeading + 180) heading -= 360;
-    }
 }
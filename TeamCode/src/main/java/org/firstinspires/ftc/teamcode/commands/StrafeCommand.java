@@ -39,7 +39,7 @@ public class StrafeCommand extends CommandBase {
 
     @Override
     public void end(boolean interrupted) {
-        driveSubsystem.stopMotors();
+        driveSubsystem.cancelMovement();
     }
 
     @Override
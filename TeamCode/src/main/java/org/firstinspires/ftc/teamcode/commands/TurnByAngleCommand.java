@@ -55,7 +55,7 @@ public class TurnByAngleCommand extends CommandBase {
 
     @Override
     public void end(boolean interrupted) {
-        driveSubsystem.stopMotors();
+        driveSubsystem.cancelMovement();
     }
 
     @Override
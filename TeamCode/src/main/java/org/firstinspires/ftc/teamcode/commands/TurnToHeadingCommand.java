@@ -18,7 +18,7 @@ public class TurnToHeadingCommand extends TurnByAngleCommand {
      */
     public TurnToHeadingCommand(DriveSubsystem driveSubsystem, double targetHeading, double speed) {
         // Just call the super constructor to add requirement and things
-        // We will set the angle when the command is actually initialized
+        // The angle isn't used, we turn to the heading instead
         super(driveSubsystem, 0, speed);
         this.targetHeading = targetHeading;
     }
@@ -33,11 +33,9 @@ public class TurnToHeadingCommand extends TurnByAngleCommand {
         this(driveSubsystem, targetHeading, Constants.DriveConstants.AUTO_TURN_SPEED);
     }
 
-    // Initialize is called when the command is about to begin, so we
-    // set the angle here
+    // The heading controller takes the shortest way around to the heading
     @Override
     public void initialize() {
-        angle = targetHeading - driveSubsystem.getHeading();
-        super.initialize();
+        driveSubsystem.turnToHeadingAsync(targetHeading, speed);
     }
 }
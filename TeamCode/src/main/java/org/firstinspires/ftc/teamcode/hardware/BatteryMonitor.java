@@ -0,0 +1,108 @@
+package org.firstinspires.ftc.teamcode.hardware;
+
+import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.qualcomm.robotcore.hardware.VoltageSensor;
+import com.qualcomm.robotcore.util.Range;
+
+import org.firstinspires.ftc.teamcode.util.RobotClock;
+
+import static org.firstinspires.ftc.teamcode.Constants.HardwareConstants.*;
+
+import java.util.List;
+
+/**
+ * Keeps a filtered battery voltage for the whole robot, so powers can be scaled to do the same thing at the end of
+ * a match as they did when the gains were tuned. The voltage is only read every {@code VOLTAGE_PERIOD}, since each
+ * read is a separate command to the hub, and goes through a low-pass filter so the voltage sagging while the motors
+ * accelerate doesn't make the compensation jump around.
+ * <p>
+ * The voltage is read when it is asked for, so nothing has to update the monitor each loop.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class BatteryMonitor {
+    /** The battery voltage sensor, null if the robot doesn't have one */
+    private final VoltageSensor voltageSensor;
+
+    /** Counts the voltage reads, null if the monitor isn't part of a Robot */
+    private BulkReadManager bulkReadManager;
+
+    /** The filtered voltage, NaN until the first good read */
+    private double voltage = Double.NaN;
+    private long lastReadNanos;
+    private long lastFilterNanos;
+
+    /**
+     * Creates a monitor for the first voltage sensor in the hardware map, which is the battery.
+     *
+     * @param hardwareMap The hardware map of the robot
+     */
+    public BatteryMonitor(HardwareMap hardwareMap) {
+        this(getVoltageSensor(hardwareMap));
+    }
+
+    /**
+     * Creates a monitor for a voltage sensor.
+     *
+     * @param voltageSensor The sensor, or null to always assume the nominal voltage
+     */
+    public BatteryMonitor(VoltageSensor voltageSensor) {
+        this.voltageSensor = voltageSensor;
+    }
+
+    private static VoltageSensor getVoltageSensor(HardwareMap hardwareMap) {
+        List<VoltageSensor> sensors = hardwareMap.getAll(VoltageSensor.class);
+        return sensors.isEmpty() ? null : sensors.get(0);
+    }
+
+    /**
+     * Sets the bulk read manager that counts the voltage reads, which can't be bulk cached.
+     *
+     * @param bulkReadManager The bulk read manager of the robot
+     */
+    public void setBulkReadManager(BulkReadManager bulkReadManager) {
+        this.bulkReadManager = bulkReadManager;
+    }
+
+    /** Reads the voltage if it hasn't been read in the last {@code VOLTAGE_PERIOD} and filters it. */
+    private void update() {
+        if (voltageSensor == null) return;
+        long now = RobotClock.nanoTime();
+        if (!Double.isNaN(voltage) && (now - lastReadNanos) / 1e9 < VOLTAGE_PERIOD) return;
+        lastReadNanos = now;
+
+        double reading = voltageSensor.getVoltage();
+        if (bulkReadManager != null) bulkReadManager.recordIndividualRead();
+        if (reading < MIN_VOLTAGE) return;
+
+        if (Double.isNaN(voltage)) voltage = reading;
+        else {
+            // An exponential moving average that weighs each read by how long it has been since the last one
+            double dt = (now - lastFilterNanos) / 1e9;
+            double alpha = VOLTAGE_TIME_CONSTANT > 0 ? 1 - Math.exp(-dt / VOLTAGE_TIME_CONSTANT) : 1;
+            voltage += alpha * (reading - voltage);
+        }
+        lastFilterNanos = now;
+    }
+
+    /** @return The filtered battery voltage, or the nominal voltage if it hasn't been read */
+    public double getVoltage() {
+        update();
+        return Double.isNaN(voltage) ? NOMINAL_VOLTAGE : voltage;
+    }
+
+    /** @return How much to scale powers by to act like the battery is at the nominal voltage */
+    public double getCompensation() {
+        return NOMINAL_VOLTAGE / getVoltage();
+    }
+
+    /**
+     * Scales a power so it acts like the battery is at the nominal voltage.
+     *
+     * @param power The power that was tuned at the nominal voltage
+     * @return The scaled power, clipped to the range of a motor
+     */
+    public double compensate(double power) {
+        return Range.clip(power * getCompensation(), -1, 1);
+    }
+}
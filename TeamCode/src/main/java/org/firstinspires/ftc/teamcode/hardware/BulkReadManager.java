@@ -0,0 +1,119 @@
+package org.firstinspires.ftc.teamcode.hardware;
+
+import com.qualcomm.hardware.lynx.LynxModule;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import org.firstinspires.ftc.teamcode.util.RobotClock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Manages bulk reads on the Lynx modules (control hub and expansion hub) of the robot. Puts every module
+ * into manual bulk caching mode, so every encoder, velocity, busy and digital channel read in one loop is
+ * served by a single bulk read per module. The cache must be cleared exactly once at the start of each
+ * loop with {@link #update()}.
+ * <p>
+ * The motors whose velocity is tracked have their velocity estimated right after the bulk read, so every
+ * subsystem sees velocities from the same read.
+ * <p>
+ * Also counts the bulk reads and the individual reads (reads that can't be bulk cached, like the IMU and
+ * the distance sensors) done each loop. Every module whose cache is cleared counts as one bulk read, so loops that
+ * wait on the hardware and clear the cache with {@link #clearCache()} are counted too.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class BulkReadManager {
+    /** The Lynx modules on the robot. */
+    private final List<LynxModule> modules;
+    /** The motors whose velocity is estimated after each bulk read. */
+    private final List<CachingMotor> velocityMotors = new ArrayList<>();
+
+    private int bulkReads;
+    private int individualReads;
+
+    private int lastLoopBulkReads;
+    private int lastLoopIndividualReads;
+
+    private long loopCount;
+
+    /**
+     * Constructs a BulkReadManager and switches all of the Lynx modules to manual bulk caching.
+     *
+     * @param hardwareMap The hardware map of the robot
+     */
+    public BulkReadManager(HardwareMap hardwareMap) {
+        modules = hardwareMap.getAll(LynxModule.class);
+        for (LynxModule module : modules) {
+            module.setBulkCachingMode(LynxModule.BulkCachingMode.MANUAL);
+        }
+    }
+
+    /**
+     * Starts a new loop: keeps the counts of the last loop for the telemetry, then clears the bulk cache of every
+     * module. Must be called once, at the top of each loop, before anything reads from the hardware.
+     */
+    public void update() {
+        lastLoopBulkReads = bulkReads;
+        lastLoopIndividualReads = individualReads;
+        bulkReads = 0;
+        individualReads = 0;
+        loopCount++;
+
+        clearCache();
+    }
+
+    /**
+     * Clears the bulk cache of every module and reads the new bulk data, without starting a new loop. Used by loops
+     * that wait on the hardware, so their reads are counted as part of the loop they are in.
+     */
+    public void clearCache() {
+        for (int i = 0; i < modules.size(); i++) {
+            LynxModule module = modules.get(i);
+            module.clearBulkCache();
+            // Reading the bulk data now fills the cache, so nothing else until the next clear talks to the hub
+            module.getBulkData();
+            bulkReads++;
+        }
+
+        double time = RobotClock.seconds();
+        for (int i = 0; i < velocityMotors.size(); i++) {
+            velocityMotors.get(i).updateVelocity(time);
+        }
+    }
+
+    /**
+     * Estimates the velocity of a motor after every bulk read.
+     *
+     * @param motor The motor to track
+     */
+    public void trackVelocity(CachingMotor motor) {
+        motor.trackVelocity();
+        if (!velocityMotors.contains(motor)) velocityMotors.add(motor);
+    }
+
+    /** Records a read that can't be served from the bulk cache (I2C devices, such as the IMU). */
+    public void recordIndividualRead() {
+        individualReads++;
+    }
+
+    /** @return The number of bulk reads done in the last full loop, one for each module each time the cache was cleared */
+    public int getBulkReads() {
+        return lastLoopBulkReads;
+    }
+
+    /** @return The number of individual reads done in the last full loop */
+    public int getIndividualReads() {
+        return lastLoopIndividualReads;
+    }
+
+    /** @return The number of times {@link #update()} has been called */
+    public long getLoopCount() {
+        return loopCount;
+    }
+
+    /** @return The Lynx modules being managed */
+    public List<LynxModule> getModules() {
+        return modules;
+    }
+}
@@ -0,0 +1,152 @@
+package org.firstinspires.ftc.teamcode.hardware;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.hardware.DcMotorSimple;
+
+import static org.firstinspires.ftc.teamcode.Constants.HardwareConstants.*;
+
+/**
+ * Wraps a {@link DcMotorEx} and only sends a new power to the hub when it is different enough from the last
+ * power that was sent. Every write is a blocking command on the hub, so skipping the ones that don't change
+ * anything (like setting zero power every loop) shortens the loop.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class CachingMotor {
+    private final DcMotorEx motor;
+    /** How close a new power has to be to the last power to be skipped */
+    private final double epsilon;
+
+    /** The last power sent to the motor, NaN if the next write must be sent */
+    private double lastPower = Double.NaN;
+
+    /** Estimates the velocity from the bulk reads, null unless the velocity is being tracked */
+    private VelocityEstimator velocityEstimator;
+
+    private int writesSent;
+    private int writesSuppressed;
+
+    /**
+     * Creates a caching wrapper around a motor.
+     *
+     * @param motor The motor to wrap
+     * @param epsilon How close a new power has to be to the last power to not be sent
+     */
+    public CachingMotor(DcMotorEx motor, double epsilon) {
+        this.motor = motor;
+        this.epsilon = epsilon;
+    }
+
+    /**
+     * Creates a caching wrapper around a motor using the default power epsilon.
+     *
+     * @param motor The motor to wrap
+     */
+    public CachingMotor(DcMotorEx motor) {
+        this(motor, MOTOR_POWER_EPSILON);
+    }
+
+    /**
+     * Sets the power of the motor, if it is different enough from the last power sent. Zero power is always
+     * sent exactly, so the motor can't be left creeping just inside the epsilon.
+     *
+     * @param power The new power of the motor
+     */
+    public void setPower(double power) {
+        if (!Double.isNaN(lastPower) && Math.abs(power - lastPower) <= epsilon && (power != 0 || lastPower == 0)) {
+            writesSuppressed++;
+            return;
+        }
+        motor.setPower(power);
+        lastPower = power;
+        writesSent++;
+    }
+
+    /** Forgets the last power, so the next {@link #setPower(double)} is always sent. */
+    public void invalidate() {
+        lastPower = Double.NaN;
+    }
+
+    /**
+     * Sets the run mode of the motor. Changing the mode can change what the motor is doing, so the cached
+     * power is forgotten.
+     *
+     * @param runMode The new run mode
+     */
+    public void setMode(DcMotor.RunMode runMode) {
+        motor.setMode(runMode);
+        invalidate();
+        if (velocityEstimator != null && runMode == DcMotor.RunMode.STOP_AND_RESET_ENCODER) velocityEstimator.reset();
+    }
+
+    public void setDirection(DcMotorSimple.Direction direction) {
+        motor.setDirection(direction);
+    }
+
+    public void setZeroPowerBehavior(DcMotor.ZeroPowerBehavior zeroPowerBehavior) {
+        motor.setZeroPowerBehavior(zeroPowerBehavior);
+    }
+
+    public void setTargetPosition(int position) {
+        motor.setTargetPosition(position);
+    }
+
+    public int getCurrentPosition() {
+        return motor.getCurrentPosition();
+    }
+
+    /**
+     * Starts estimating the velocity every time {@link #updateVelocity} is called, which the bulk read manager does
+     * once per loop for the motors it tracks.
+     */
+    public void trackVelocity() {
+        if (velocityEstimator == null) velocityEstimator = new VelocityEstimator(motor);
+    }
+
+    /**
+     * Updates the velocity estimate from the bulk cache, if the velocity is being tracked.
+     *
+     * @param time The time of the bulk read, in seconds
+     */
+    public void updateVelocity(double time) {
+        if (velocityEstimator != null) velocityEstimator.update(time, getPower());
+    }
+
+    /**
+     * @return The velocity in pulses per second, corrected for overflow as of the last update if the velocity is
+     * being tracked, otherwise straight from the hub
+     */
+    public double getVelocity() {
+        return velocityEstimator != null ? velocityEstimator.getVelocity() : motor.getVelocity();
+    }
+
+    /** @return True if the motor has been powered without moving for a while, always false if not tracked */
+    public boolean isStalled() {
+        return velocityEstimator != null && velocityEstimator.isStalled();
+    }
+
+    public boolean isBusy() {
+        return motor.isBusy();
+    }
+
+    /** @return The last power sent to the motor, without reading from the hub */
+    public double getPower() {
+        return Double.isNaN(lastPower) ? 0 : lastPower;
+    }
+
+    /** @return The wrapped motor, for anything this class doesn't cover */
+    public DcMotorEx getMotor() {
+        return motor;
+    }
+
+    /** @return The number of writes sent to the hub */
+    public int getWritesSent() {
+        return writesSent;
+    }
+
+    /** @return The number of writes skipped because nothing changed */
+    public int getWritesSuppressed() {
+        return writesSuppressed;
+    }
+}
@@ -0,0 +1,115 @@
+package org.firstinspires.ftc.teamcode.hardware;
+
+import com.arcrobotics.ftclib.hardware.ServoEx;
+import com.arcrobotics.ftclib.hardware.SimpleServo;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.qualcomm.robotcore.util.Range;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+
+import static org.firstinspires.ftc.teamcode.Constants.HardwareConstants.*;
+
+/**
+ * Wraps a {@link ServoEx} and only sends a new position to the hub when it is different enough from the last
+ * position that was sent.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class CachingServo {
+    private final ServoEx servo;
+    private final double minAngle;
+    private final double maxAngle;
+    /** How close a new position (0-1) has to be to the last position to be skipped */
+    private final double epsilon;
+
+    /** The last position sent to the servo, NaN if the next write must be sent */
+    private double lastPosition = Double.NaN;
+
+    private int writesSent;
+    private int writesSuppressed;
+
+    /**
+     * Creates a caching wrapper around a servo.
+     *
+     * @param servo The servo to wrap
+     * @param minAngle The angle of the servo at position 0, in degrees
+     * @param maxAngle The angle of the servo at position 1, in degrees
+     * @param epsilon How close a new position (0-1) has to be to the last position to not be sent
+     */
+    public CachingServo(ServoEx servo, double minAngle, double maxAngle, double epsilon) {
+        this.servo = servo;
+        this.minAngle = minAngle;
+        this.maxAngle = maxAngle;
+        this.epsilon = epsilon;
+    }
+
+    /**
+     * Creates a {@link SimpleServo} with a caching wrapper around it, using the default position epsilon.
+     *
+     * @param hardwareMap The hardware map of the robot
+     * @param name The name of the servo
+     * @param minAngle The angle of the servo at position 0, in degrees
+     * @param maxAngle The angle of the servo at position 1, in degrees
+     */
+    public CachingServo(HardwareMap hardwareMap, String name, double minAngle, double maxAngle) {
+        this(new SimpleServo(hardwareMap, name, minAngle, maxAngle), minAngle, maxAngle, SERVO_POSITION_EPSILON);
+    }
+
+    /**
+     * Sets the position of the servo, if it is different enough from the last position sent.
+     *
+     * @param position The new position of the servo (0-1)
+     */
+    public void setPosition(double position) {
+        if (!Double.isNaN(lastPosition) && Math.abs(position - lastPosition) <= epsilon) {
+            writesSuppressed++;
+            return;
+        }
+        servo.setPosition(position);
+        lastPosition = position;
+        writesSent++;
+    }
+
+    /**
+     * Turns the servo to an angle, if it is different enough from the last position sent.
+     *
+     * @param degrees The angle in degrees
+     */
+    public void turnToAngle(double degrees) {
+        // Same conversion as SimpleServo, angles outside of the range are clipped
+        degrees = Range.clip(degrees, minAngle, maxAngle);
+        setPosition((degrees - minAngle) / (maxAngle - minAngle));
+    }
+
+    /** Forgets the last position, so the next write is always sent. */
+    public void invalidate() {
+        lastPosition = Double.NaN;
+    }
+
+    public double getPosition() {
+        return servo.getPosition();
+    }
+
+    public double getAngle() {
+        return servo.getAngle();
+    }
+
+    public double getAngle(AngleUnit angleUnit) {
+        return servo.getAngle(angleUnit);
+    }
+
+    /** @return The wrapped servo, for anything this class doesn't cover */
+    public ServoEx getServo() {
+        return servo;
+    }
+
+    /** @return The number of writes sent to the hub */
+    public int getWritesSent() {
+        return writesSent;
+    }
+
+    /** @return The number of writes skipped because nothing changed */
+    public int getWritesSuppressed() {
+        return writesSuppressed;
+    }
+}
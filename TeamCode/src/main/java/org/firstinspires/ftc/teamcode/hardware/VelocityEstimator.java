@@ -0,0 +1,131 @@
+package org.firstinspires.ftc.teamcode.hardware;
+
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+
+import org.firstinspires.ftc.teamcode.roadrunner.util.Encoder;
+
+import static org.firstinspires.ftc.teamcode.Constants.HardwareConstants.*;
+
+/**
+ * Estimates the velocity of a motor's encoder once per loop from the bulk cached position and velocity. The
+ * position is differenced every update and the median of the last few differences is used to recover the upper
+ * bits of the hub's velocity, which is sent as 16 bits and overflows on fast encoders (see
+ * {@link Encoder#inverseOverflow}). The hub measures velocity over a longer window than a loop, so once corrected it
+ * is less noisy than the differences and is what the estimate reports.
+ * <p>
+ * Also notices when the motor is stalled: powered but not moving for a while.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class VelocityEstimator {
+    private final DcMotorEx motor;
+
+    /** The last velocities found by differencing positions, as a ring */
+    private final double[] differences;
+    /** Scratch space for finding the median */
+    private final double[] sorted;
+    private int differenceIndex;
+    private int differenceCount;
+
+    private int lastPosition;
+    private double lastTime = Double.NaN;
+
+    private double velocity;
+    /** When the motor started being powered without moving, NaN if it isn't */
+    private double stallStartTime = Double.NaN;
+
+    /**
+     * @param motor The motor whose encoder to read
+     * @param window How many position differences the median is taken over, odd so there is a middle one
+     */
+    public VelocityEstimator(DcMotorEx motor, int window) {
+        this.motor = motor;
+        differences = new double[window];
+        sorted = new double[window];
+    }
+
+    public VelocityEstimator(DcMotorEx motor) {
+        this(motor, VELOCITY_WINDOW);
+    }
+
+    /**
+     * Reads the position and velocity, which should already be in the bulk cache, and updates the estimate.
+     * Should be called once per loop, after the bulk cache is cleared.
+     *
+     * @param time The time of the bulk read, in seconds
+     * @param power The power the motor was last set to, for finding stalls
+     */
+    public void update(double time, double power) {
+        int position = motor.getCurrentPosition();
+        if (Double.isNaN(lastTime)) {
+            lastPosition = position;
+            lastTime = time;
+            velocity = motor.getVelocity();
+            return;
+        }
+
+        double dt = time - lastTime;
+        if (dt <= 0) return;
+
+        differences[differenceIndex] = (position - lastPosition) / dt;
+        differenceIndex = (differenceIndex + 1) % differences.length;
+        if (differenceCount < differences.length) differenceCount++;
+        lastPosition = position;
+        lastTime = time;
+
+        velocity = Encoder.inverseOverflow(motor.getVelocity(), getDifferencedVelocity());
+
+        boolean isStalled = Math.abs(power) >= STALL_POWER && Math.abs(velocity) <= STALL_VELOCITY;
+        if (!isStalled) stallStartTime = Double.NaN;
+        else if (Double.isNaN(stallStartTime)) stallStartTime = time;
+    }
+
+    /**
+     * Updates the estimate without looking for stalls.
+     *
+     * @param time The time of the bulk read, in seconds
+     */
+    public void update(double time) {
+        update(time, 0);
+    }
+
+    /** Forgets the past positions, used when the encoder is reset so the jump isn't seen as a velocity. */
+    public void reset() {
+        lastTime = Double.NaN;
+        differenceCount = 0;
+        differenceIndex = 0;
+        stallStartTime = Double.NaN;
+    }
+
+    /** @return The velocity in pulses per second, as of the last update */
+    public double getVelocity() {
+        return velocity;
+    }
+
+    /** @return The median velocity from differencing positions in pulses per second, noisier than the hub's */
+    public double getDifferencedVelocity() {
+        if (differenceCount == 0) return 0;
+
+        // insertion sort, the window is only a few long
+        for (int i = 0; i < differenceCount; i++) {
+            double value = differences[i];
+            int j = i - 1;
+            while (j >= 0 && sorted[j] > value) {
+                sorted[j + 1] = sorted[j];
+                j--;
+            }
+            sorted[j + 1] = value;
+        }
+        return sorted[differenceCount / 2];
+    }
+
+    /** @return The position read in the last update, in pulses */
+    public int getPosition() {
+        return lastPosition;
+    }
+
+    /** @return True if the motor has been powered without moving for at least {@code STALL_TIME} */
+    public boolean isStalled() {
+        return !Double.isNaN(stallStartTime) && lastTime - stallStartTime >= STALL_TIME;
+    }
+}
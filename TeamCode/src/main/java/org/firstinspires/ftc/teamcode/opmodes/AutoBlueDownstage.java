@@ -22,5 +22,7 @@ public class AutoBlueDownstage extends LinearOpMode {
         while (opModeIsActive() && !isStopRequested()) {
             autonomousController.run();
         }
+
+        autonomousController.stop();
     }
 }
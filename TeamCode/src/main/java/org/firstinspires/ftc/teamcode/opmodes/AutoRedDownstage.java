@@ -22,6 +22,8 @@ public class AutoRedDownstage extends LinearOpMode {
         while (opModeIsActive() && !isStopRequested()) {
             autonomousController.run();
         }
+
+        autonomousController.stop();
     }
 }
 
@@ -22,5 +22,7 @@ public class AutoRedUpstage extends LinearOpMode {
         while (opModeIsActive() && !isStopRequested()) {
             autonomousController.run();
         }
+
+        autonomousController.stop();
     }
 }
@@ -28,5 +28,7 @@ public class MainOpMode extends LinearOpMode {
         while (opModeIsActive() && !isStopRequested()) {
             robot.run();
         }
+
+        robot.stop();
     }
 }
@@ -11,6 +11,7 @@ import com.qualcomm.robotcore.hardware.Gamepad;
 
 import org.firstinspires.ftc.teamcode.Robot;
 import org.firstinspires.ftc.teamcode.commands.MoveSlideCommand;
+import org.firstinspires.ftc.teamcode.util.TelemetryPublisher;
 
 @Config
 @TeleOp(name = "PID Testing", group = "Testing")
@@ -30,6 +31,10 @@ public class PIDTestingOpMode extends LinearOpMode {
 
         waitForStart();
 
+        // The subsystems print through the telemetry publisher, which sends each frame from its own thread
+        TelemetryPublisher telemetryPublisher = robot.getTelemetryPublisher();
+        telemetryPublisher.start();
+
         Trigger moveTrigger = new Trigger(() -> gamepad.y);
 //        moveTrigger.whenActive(new SequentialCommandGroup(
 ////                new MoveElbowCommand(robot.getElbowSubsystem(), robot.getElbowSubsystem().getLowScoringPosition()),
@@ -52,6 +57,7 @@ public class PIDTestingOpMode extends LinearOpMode {
         boolean bPressed = false;
 
         while (opModeIsActive() && !isStopRequested()) {
+            robot.getBulkReadManager().update();
 
             if (gamepad.a) {
                 if (!aPressed) robot.getElbowSubsystem().setTarget(elbowTarget, 5.0);
@@ -69,11 +75,14 @@ public class PIDTestingOpMode extends LinearOpMode {
 
             CommandScheduler.getInstance().run();
 
+            telemetryPublisher.beginFrame();
             robot.getElbowSubsystem().printData();
 //            telemetry.addData("Elbow target", ElbowSubsystem.target);
             robot.getLinearSlideSubsystem().printData();
 //            telemetry.addData("Slide target", LinearSlideSubsystem.target);
-            telemetry.update();
+            telemetryPublisher.endFrame();
         }
+
+        telemetryPublisher.stop();
     }
 }
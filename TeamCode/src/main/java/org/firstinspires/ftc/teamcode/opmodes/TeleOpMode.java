@@ -29,5 +29,7 @@ public class TeleOpMode extends LinearOpMode {
         while (opModeIsActive() && !isStopRequested()) {
             robot.run();
         }
+
+        robot.stop();
     }
 }
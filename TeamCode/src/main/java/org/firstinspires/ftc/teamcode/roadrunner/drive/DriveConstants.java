@@ -108,10 +108,11 @@ public class DriveConstants {
 
     /*
      * Adjust the orientations here to match your robot. See the FTC SDK documentation for details.
+     * These must match DriveSubsystem, since both initialize the same IMU.
      */
     public static RevHubOrientationOnRobot.LogoFacingDirection LOGO_FACING_DIR =
             RevHubOrientationOnRobot.LogoFacingDirection.LEFT;
     public static RevHubOrientationOnRobot.UsbFacingDirection USB_FACING_DIR =
-            RevHubOrientationOnRobot.UsbFacingDirection.DOWN;
+            RevHubOrientationOnRobot.UsbFacingDirection.BACKWARD;
 
 }
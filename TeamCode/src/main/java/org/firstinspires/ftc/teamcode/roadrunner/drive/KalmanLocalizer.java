@@ -0,0 +1,141 @@
+package org.firstinspires.ftc.teamcode.roadrunner.drive;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.roadrunner.drive.Drive;
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+import com.acmerobotics.roadrunner.localization.Localizer;
+import com.acmerobotics.roadrunner.util.NanoClock;
+
+import org.firstinspires.ftc.teamcode.roadrunner.util.PoseKalmanFilter;
+import org.firstinspires.ftc.teamcode.util.RobotClock;
+
+/*
+ * Localizer that fuses odometry with the IMU in a Kalman filter. The odometry can be the drive wheels
+ * or tracking wheels (see the WheelOdometryLocalizer factories); it moves the pose and measures the turn
+ * rate, and the IMU measures the heading and the turn rate. Each is trusted according to how noisy it
+ * is, so the heading doesn't drift like the wheels and a single bad IMU read doesn't jump it.
+ *
+ * Besides the poses handed out, updating allocates nothing on our side.
+ */
+@Config
+public class KalmanLocalizer implements Localizer {
+    // fraction of the distance travelled that the odometry may be off by, from wheel slip
+    public static double ODOMETRY_SLIP = 0.03;
+    public static double ODOMETRY_HEADING_VELOCITY_NOISE = Math.toRadians(20); // rad/s
+    public static double IMU_HEADING_NOISE = Math.toRadians(0.5); // rad
+    public static double IMU_HEADING_VELOCITY_NOISE = Math.toRadians(3); // rad/s
+    // how quickly the turn rate may change between updates
+    public static double HEADING_ACCELERATION_NOISE = Math.toRadians(720); // rad/s^2
+
+    // seconds between IMU reads, each read is a slow I2C transaction; 0 reads it every update
+    public static double IMU_PERIOD = 0.05;
+    // the turn rate is a second I2C read, so by default only the heading is read and the odometry gives the rate
+    public static boolean USE_IMU_HEADING_VELOCITY = false;
+
+    private final WheelOdometryLocalizer odometry;
+    private final Drive drive;
+    private final NanoClock clock;
+    private final PoseKalmanFilter filter = new PoseKalmanFilter();
+
+    private double lastUpdateTime;
+    private double lastImuTime = Double.NEGATIVE_INFINITY;
+    // the field heading minus the raw IMU heading
+    private double headingOffset;
+
+    private Pose2d poseEstimate = new Pose2d();
+    private Pose2d poseVelocity;
+    // the poses are only made when asked for, since Pose2d can't be reused
+    private boolean isPoseStale;
+    private boolean isVelocityStale;
+
+    public KalmanLocalizer(WheelOdometryLocalizer odometry, Drive drive, NanoClock clock) {
+        this.odometry = odometry;
+        this.drive = drive;
+        this.clock = clock;
+
+        setPoseEstimate(new Pose2d());
+    }
+
+    public KalmanLocalizer(WheelOdometryLocalizer odometry, Drive drive) {
+        this(odometry, drive, RobotClock.NANO_CLOCK);
+    }
+
+    @NonNull
+    @Override
+    public Pose2d getPoseEstimate() {
+        if (isPoseStale) {
+            poseEstimate = new Pose2d(filter.getX(), filter.getY(), filter.getHeading());
+            isPoseStale = false;
+        }
+        return poseEstimate;
+    }
+
+    @Override
+    public void setPoseEstimate(@NonNull Pose2d pose) {
+        odometry.setPoseEstimate(pose);
+        lastUpdateTime = clock.seconds();
+
+        filter.reset(pose.getX(), pose.getY(), pose.getHeading(), 0, 0);
+        headingOffset = pose.getHeading() - drive.getRawExternalHeading();
+        poseEstimate = pose;
+        isPoseStale = false;
+    }
+
+    @Nullable
+    @Override
+    public Pose2d getPoseVelocity() {
+        if (isVelocityStale) {
+            poseVelocity = new Pose2d(odometry.getVelocityX(), odometry.getVelocityY(), filter.getHeadingVelocity());
+            isVelocityStale = false;
+        }
+        return poseVelocity;
+    }
+
+    @Override
+    public void update() {
+        odometry.update();
+        double now = clock.seconds();
+        double dt = now - lastUpdateTime;
+        if (dt <= 0) return;
+        lastUpdateTime = now;
+
+        // how far the odometry moved relative to the robot
+        double dx = odometry.getDeltaX();
+        double dy = odometry.getDeltaY();
+        double odometryTurn = odometry.getDeltaHeading();
+
+        boolean readImu = now - lastImuTime >= IMU_PERIOD;
+        if (readImu) lastImuTime = now;
+
+        // the turn rate is measured first, so the pose is turned at the rate of this update
+        filter.predictHeadingVelocity(square(HEADING_ACCELERATION_NOISE * dt));
+        filter.correctHeadingVelocity(odometryTurn / dt, square(ODOMETRY_HEADING_VELOCITY_NOISE));
+        if (readImu && USE_IMU_HEADING_VELOCITY) {
+            Double imuHeadingVelocity = drive.getExternalHeadingVelocity();
+            if (imuHeadingVelocity != null) {
+                filter.correctHeadingVelocity(imuHeadingVelocity, square(IMU_HEADING_VELOCITY_NOISE));
+            }
+        }
+
+        double distance = Math.hypot(dx, dy);
+        filter.predictPose(dx, dy, dt, square(ODOMETRY_SLIP * distance));
+
+        if (readImu) {
+            filter.correctHeading(drive.getRawExternalHeading() + headingOffset, square(IMU_HEADING_NOISE));
+        }
+
+        isPoseStale = true;
+        isVelocityStale = true;
+    }
+
+    public PoseKalmanFilter getFilter() {
+        return filter;
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+}
@@ -17,6 +17,7 @@ import com.acmerobotics.roadrunner.trajectory.constraints.MinVelocityConstraint;
 import com.acmerobotics.roadrunner.trajectory.constraints.ProfileAccelerationConstraint;
 import com.acmerobotics.roadrunner.trajectory.constraints.TrajectoryAccelerationConstraint;
 import com.acmerobotics.roadrunner.trajectory.constraints.TrajectoryVelocityConstraint;
+import com.acmerobotics.roadrunner.util.NanoClock;
 import com.qualcomm.hardware.lynx.LynxModule;
 import com.qualcomm.hardware.rev.RevHubOrientationOnRobot;
 import com.qualcomm.robotcore.hardware.DcMotor;
@@ -25,17 +26,24 @@ import com.qualcomm.robotcore.hardware.DcMotorSimple;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 import com.qualcomm.robotcore.hardware.IMU;
 import com.qualcomm.robotcore.hardware.PIDFCoefficients;
-import com.qualcomm.robotcore.hardware.VoltageSensor;
 import com.qualcomm.robotcore.hardware.configuration.typecontainers.MotorConfigurationType;
 
 import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
 import org.firstinspires.ftc.teamcode.Constants;
+import org.firstinspires.ftc.teamcode.hardware.BatteryMonitor;
+import org.firstinspires.ftc.teamcode.hardware.VelocityEstimator;
 import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.TrajectorySequence;
 import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.TrajectorySequenceBuilder;
+import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.PendingTrajectorySequence;
+import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.TrajectoryReplanner;
 import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.TrajectorySequenceRunner;
+import org.firstinspires.ftc.teamcode.roadrunner.util.DoubleArrayList;
+import org.firstinspires.ftc.teamcode.roadrunner.util.IntArrayList;
 import org.firstinspires.ftc.teamcode.roadrunner.util.LynxModuleUtil;
+import org.firstinspires.ftc.teamcode.roadrunner.util.WheelEncoders;
+import org.firstinspires.ftc.teamcode.util.RobotClock;
+import org.firstinspires.ftc.teamcode.util.TelemetryPublisher;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -55,16 +63,27 @@ import static org.firstinspires.ftc.teamcode.roadrunner.drive.DriveConstants.kV;
  * Simple mecanum drive hardware implementation for REV hardware.
  */
 @Config
-public class SampleMecanumDrive extends MecanumDrive {
+public class SampleMecanumDrive extends MecanumDrive implements WheelEncoders {
     public static PIDCoefficients TRANSLATIONAL_PID = new PIDCoefficients(1, 0, 0);
     public static PIDCoefficients HEADING_PID = new PIDCoefficients(5, 0, 0);
 
     public static double LATERAL_MULTIPLIER = 1;
 
+    // how close to the end of a trajectory the follower has to get, and how long it may keep correcting past the end
+    public static final Pose2d FOLLOWER_ADMISSIBLE_ERROR = new Pose2d(0.5, 0.5, Math.toRadians(5.0));
+    public static final double FOLLOWER_TIMEOUT = 0.5;
+
     public static double VX_WEIGHT = 1;
     public static double VY_WEIGHT = 1;
     public static double OMEGA_WEIGHT = 1;
 
+    // fuse the odometry with the IMU heading and turn rate instead of using the raw IMU heading, off until it has
+    // been tuned on the robot
+    public static boolean USE_KALMAN_LOCALIZER = false;
+
+    // how far the battery voltage has to move before the motor velocity F is compensated again, in volts
+    public static double PIDF_VOLTAGE_CHANGE = 0.25;
+
     private TrajectorySequenceRunner trajectorySequenceRunner;
 
     private static final TrajectoryVelocityConstraint VEL_CONSTRAINT = getVelocityConstraint(MAX_VEL, MAX_ANG_VEL, TRACK_WIDTH);
@@ -74,73 +93,111 @@ public class SampleMecanumDrive extends MecanumDrive {
 
     private DcMotorEx leftFront, leftRear, rightRear, rightFront;
     private List<DcMotorEx> motors;
+    // velocity of each motor corrected for overflow, updated with the positions
+    private VelocityEstimator[] velocityEstimators;
+    private final NanoClock clock = RobotClock.NANO_CLOCK;
 
     private IMU imu;
-    private VoltageSensor batteryVoltageSensor;
+    private BatteryMonitor batteryMonitor;
+    // the last coefficients set, so F can be compensated again as the battery drains
+    private DcMotor.RunMode pidfRunMode;
+    private PIDFCoefficients pidfCoefficients;
+    private double pidfVoltage;
 
-    private List<Integer> lastEncPositions = new ArrayList<>();
-    private List<Integer> lastEncVels = new ArrayList<>();
+    private IntArrayList lastEncPositions = new IntArrayList(4);
+    private IntArrayList lastEncVels = new IntArrayList(4);
 
     public SampleMecanumDrive(HardwareMap hardwareMap) {
+        this(hardwareMap, new BatteryMonitor(hardwareMap));
+    }
+
+    public SampleMecanumDrive(HardwareMap hardwareMap, BatteryMonitor batteryMonitor) {
+        this(hardwareMap, batteryMonitor, true);
+    }
+
+    /**
+     * @param configureHardware Whether to initialize the IMU and set up the drive motors for RoadRunner. False when
+     *                          something else, like DriveSubsystem, already owns and configures them, so their
+     *                          directions, modes and velocity PIDF are left alone
+     */
+    public SampleMecanumDrive(HardwareMap hardwareMap, BatteryMonitor batteryMonitor, boolean configureHardware) {
         super(kV, kA, kStatic, TRACK_WIDTH, TRACK_WIDTH, LATERAL_MULTIPLIER);
 
         follower = new HolonomicPIDVAFollower(TRANSLATIONAL_PID, TRANSLATIONAL_PID, HEADING_PID,
-                new Pose2d(0.5, 0.5, Math.toRadians(5.0)), 0.5);
+                FOLLOWER_ADMISSIBLE_ERROR, FOLLOWER_TIMEOUT);
 
         LynxModuleUtil.ensureMinimumFirmwareVersion(hardwareMap);
 
-        batteryVoltageSensor = hardwareMap.voltageSensor.iterator().next();
+        this.batteryMonitor = batteryMonitor;
 
+        // Keep manual caching if the robot is already clearing the cache itself every loop
         for (LynxModule module : hardwareMap.getAll(LynxModule.class)) {
-            module.setBulkCachingMode(LynxModule.BulkCachingMode.AUTO);
+            if (module.getBulkCachingMode() == LynxModule.BulkCachingMode.OFF)
+                module.setBulkCachingMode(LynxModule.BulkCachingMode.AUTO);
         }
 
         // TODO: adjust the names of the following hardware devices to match your configuration
         imu = hardwareMap.get(IMU.class, "imu");
-        IMU.Parameters parameters = new IMU.Parameters(new RevHubOrientationOnRobot(
-                DriveConstants.LOGO_FACING_DIR, DriveConstants.USB_FACING_DIR));
-        imu.initialize(parameters);
+        if (configureHardware) {
+            IMU.Parameters parameters = new IMU.Parameters(new RevHubOrientationOnRobot(
+                    DriveConstants.LOGO_FACING_DIR, DriveConstants.USB_FACING_DIR));
+            imu.initialize(parameters);
+        }
 
         leftFront = hardwareMap.get(DcMotorEx.class, Constants.DriveConstants.FRONT_LEFT_MOTOR_NAME);
         leftRear = hardwareMap.get(DcMotorEx.class, Constants.DriveConstants.REAR_LEFT_MOTOR_NAME);
         rightRear = hardwareMap.get(DcMotorEx.class, Constants.DriveConstants.REAR_RIGHT_MOTOR_NAME);
         rightFront = hardwareMap.get(DcMotorEx.class, Constants.DriveConstants.FRONT_RIGHT_MOTOR_NAME);
 
-        leftFront.setDirection(DcMotorSimple.Direction.REVERSE);
-        leftRear.setDirection(DcMotorSimple.Direction.REVERSE);
-        rightRear.setDirection(DcMotorSimple.Direction.FORWARD);
-        rightFront.setDirection(DcMotorSimple.Direction.FORWARD);
-
         motors = Arrays.asList(leftFront, leftRear, rightRear, rightFront);
-
-        for (DcMotorEx motor : motors) {
-            MotorConfigurationType motorConfigurationType = motor.getMotorType().clone();
-            motorConfigurationType.setAchieveableMaxRPMFraction(1.0);
-            motor.setMotorType(motorConfigurationType);
+        velocityEstimators = new VelocityEstimator[motors.size()];
+        for (int i = 0; i < motors.size(); i++) {
+            velocityEstimators[i] = new VelocityEstimator(motors.get(i));
         }
 
-        if (RUN_USING_ENCODER) {
-            setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-        }
+        if (configureHardware) {
+            leftFront.setDirection(DcMotorSimple.Direction.REVERSE);
+            leftRear.setDirection(DcMotorSimple.Direction.REVERSE);
+            rightRear.setDirection(DcMotorSimple.Direction.FORWARD);
+            rightFront.setDirection(DcMotorSimple.Direction.FORWARD);
+
+            for (DcMotorEx motor : motors) {
+                MotorConfigurationType motorConfigurationType = motor.getMotorType().clone();
+                motorConfigurationType.setAchieveableMaxRPMFraction(1.0);
+                motor.setMotorType(motorConfigurationType);
+            }
 
-        setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
+            if (RUN_USING_ENCODER) {
+                setMode(DcMotor.RunMode.RUN_USING_ENCODER);
+            }
 
-        if (RUN_USING_ENCODER && MOTOR_VELO_PID != null) {
-            setPIDFCoefficients(DcMotor.RunMode.RUN_USING_ENCODER, MOTOR_VELO_PID);
+            setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
+
+            if (RUN_USING_ENCODER && MOTOR_VELO_PID != null) {
+                setPIDFCoefficients(DcMotor.RunMode.RUN_USING_ENCODER, MOTOR_VELO_PID);
+            }
         }
 
         // TODO: reverse any motors using DcMotor.setDirection()
 
-        List<Integer> lastTrackingEncPositions = new ArrayList<>();
-        List<Integer> lastTrackingEncVels = new ArrayList<>();
+        IntArrayList lastTrackingEncPositions = new IntArrayList(3);
+        IntArrayList lastTrackingEncVels = new IntArrayList(3);
 
         // TODO: if desired, use setLocalizer() to change the localization method
         // setLocalizer(new StandardTrackingWheelLocalizer(hardwareMap, lastTrackingEncPositions, lastTrackingEncVels));
+        // The wheels are localized without allocating, with the IMU heading like RoadRunner's default localizer
+        WheelOdometryLocalizer odometry = WheelOdometryLocalizer.mecanum(this, TRACK_WIDTH, TRACK_WIDTH, LATERAL_MULTIPLIER);
+        if (USE_KALMAN_LOCALIZER) {
+            setLocalizer(new KalmanLocalizer(odometry, this));
+        } else {
+            setLocalizer(odometry.useExternalHeading(this));
+        }
 
         trajectorySequenceRunner = new TrajectorySequenceRunner(
-                follower, HEADING_PID, batteryVoltageSensor,
+                follower, HEADING_PID, batteryMonitor,
                 lastEncPositions, lastEncVels, lastTrackingEncPositions, lastTrackingEncVels
         );
+        trajectorySequenceRunner.setReplanner(new TrajectoryReplanner(VEL_CONSTRAINT, ACCEL_CONSTRAINT));
     }
 
     public TrajectoryBuilder trajectoryBuilder(Pose2d startPose) {
@@ -193,6 +250,10 @@ public class SampleMecanumDrive extends MecanumDrive {
         trajectorySequenceRunner.followTrajectorySequenceAsync(trajectorySequence);
     }
 
+    public void followTrajectorySequenceAsync(PendingTrajectorySequence pendingSequence) {
+        trajectorySequenceRunner.followTrajectorySequenceAsync(pendingSequence);
+    }
+
     public void followTrajectorySequence(TrajectorySequence trajectorySequence) {
         followTrajectorySequenceAsync(trajectorySequence);
         waitForIdle();
@@ -202,8 +263,21 @@ public class SampleMecanumDrive extends MecanumDrive {
         return trajectorySequenceRunner.getLastPoseError();
     }
 
+    public void setBatteryMonitor(BatteryMonitor batteryMonitor) {
+        this.batteryMonitor = batteryMonitor;
+        trajectorySequenceRunner.setBatteryMonitor(batteryMonitor);
+    }
+
+    public void setTelemetryPublisher(TelemetryPublisher telemetryPublisher) {
+        trajectorySequenceRunner.setTelemetryPublisher(telemetryPublisher);
+    }
+
     public void update() {
         updatePoseEstimate();
+        if (pidfCoefficients != null
+                && Math.abs(batteryMonitor.getVoltage() - pidfVoltage) >= PIDF_VOLTAGE_CHANGE) {
+            setPIDFCoefficients(pidfRunMode, pidfCoefficients);
+        }
         DriveSignal signal = trajectorySequenceRunner.update(getPoseEstimate(), getPoseVelocity());
         if (signal != null) setDriveSignal(signal);
     }
@@ -230,9 +304,13 @@ public class SampleMecanumDrive extends MecanumDrive {
     }
 
     public void setPIDFCoefficients(DcMotor.RunMode runMode, PIDFCoefficients coefficients) {
+        pidfRunMode = runMode;
+        pidfCoefficients = coefficients;
+        pidfVoltage = batteryMonitor.getVoltage();
+
         PIDFCoefficients compensatedCoefficients = new PIDFCoefficients(
                 coefficients.p, coefficients.i, coefficients.d,
-                coefficients.f * 12 / batteryVoltageSensor.getVoltage()
+                coefficients.f * batteryMonitor.getCompensation()
         );
 
         for (DcMotorEx motor : motors) {
@@ -260,31 +338,49 @@ public class SampleMecanumDrive extends MecanumDrive {
         setDrivePower(vel);
     }
 
-    @NonNull
     @Override
-    public List<Double> getWheelPositions() {
+    public int getWheelCount() {
+        return velocityEstimators.length;
+    }
+
+    @Override
+    public void readWheelPositions(double[] positions) {
         lastEncPositions.clear();
 
-        List<Double> wheelPositions = new ArrayList<>();
-        for (DcMotorEx motor : motors) {
-            int position = motor.getCurrentPosition();
-            lastEncPositions.add(position);
-            wheelPositions.add(encoderTicksToInches(position));
+        // the localizer reads the positions every update, so the velocities are estimated from the same read
+        double time = clock.seconds();
+        for (int i = 0; i < velocityEstimators.length; i++) {
+            velocityEstimators[i].update(time);
+            int position = velocityEstimators[i].getPosition();
+            lastEncPositions.addInt(position);
+            positions[i] = encoderTicksToInches(position);
         }
-        return wheelPositions;
     }
 
     @Override
-    public List<Double> getWheelVelocities() {
+    public void readWheelVelocities(double[] velocities) {
         lastEncVels.clear();
 
-        List<Double> wheelVelocities = new ArrayList<>();
-        for (DcMotorEx motor : motors) {
-            int vel = (int) motor.getVelocity();
-            lastEncVels.add(vel);
-            wheelVelocities.add(encoderTicksToInches(vel));
+        for (int i = 0; i < velocityEstimators.length; i++) {
+            int vel = (int) velocityEstimators[i].getVelocity();
+            lastEncVels.addInt(vel);
+            velocities[i] = encoderTicksToInches(vel);
         }
-        return wheelVelocities;
+    }
+
+    @NonNull
+    @Override
+    public List<Double> getWheelPositions() {
+        double[] positions = new double[getWheelCount()];
+        readWheelPositions(positions);
+        return DoubleArrayList.wrap(positions);
+    }
+
+    @Override
+    public List<Double> getWheelVelocities() {
+        double[] velocities = new double[getWheelCount()];
+        readWheelVelocities(velocities);
+        return DoubleArrayList.wrap(velocities);
     }
 
     @Override
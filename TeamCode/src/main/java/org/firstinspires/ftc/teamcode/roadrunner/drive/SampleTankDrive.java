@@ -24,14 +24,16 @@ import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 import com.qualcomm.robotcore.hardware.IMU;
 import com.qualcomm.robotcore.hardware.PIDFCoefficients;
-import com.qualcomm.robotcore.hardware.VoltageSensor;
 import com.qualcomm.robotcore.hardware.configuration.typecontainers.MotorConfigurationType;
 
 import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.teamcode.hardware.BatteryMonitor;
 import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.TrajectorySequence;
 import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.TrajectorySequenceBuilder;
 import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.TrajectorySequenceRunner;
+import org.firstinspires.ftc.teamcode.roadrunner.util.DoubleArrayList;
 import org.firstinspires.ftc.teamcode.roadrunner.util.LynxModuleUtil;
+import org.firstinspires.ftc.teamcode.roadrunner.util.WheelEncoders;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -53,7 +55,7 @@ import static org.firstinspires.ftc.teamcode.roadrunner.drive.DriveConstants.kV;
  * Simple tank drive hardware implementation for REV hardware.
  */
 @Config
-public class SampleTankDrive extends TankDrive {
+public class SampleTankDrive extends TankDrive implements WheelEncoders {
     public static PIDCoefficients AXIAL_PID = new PIDCoefficients(0, 0, 0);
     public static PIDCoefficients CROSS_TRACK_PID = new PIDCoefficients(0, 0, 0);
     public static PIDCoefficients HEADING_PID = new PIDCoefficients(0, 0, 0);
@@ -71,7 +73,7 @@ public class SampleTankDrive extends TankDrive {
     private List<DcMotorEx> motors, leftMotors, rightMotors;
     private IMU imu;
 
-    private VoltageSensor batteryVoltageSensor;
+    private BatteryMonitor batteryMonitor;
 
     public SampleTankDrive(HardwareMap hardwareMap) {
         super(kV, kA, kStatic, TRACK_WIDTH);
@@ -81,7 +83,7 @@ public class SampleTankDrive extends TankDrive {
 
         LynxModuleUtil.ensureMinimumFirmwareVersion(hardwareMap);
 
-        batteryVoltageSensor = hardwareMap.voltageSensor.iterator().next();
+        batteryMonitor = new BatteryMonitor(hardwareMap);
 
         for (LynxModule module : hardwareMap.getAll(LynxModule.class)) {
             module.setBulkCachingMode(LynxModule.BulkCachingMode.AUTO);
@@ -123,9 +125,10 @@ public class SampleTankDrive extends TankDrive {
 
         // TODO: if desired, use setLocalizer() to change the localization method
         // for instance, setLocalizer(new ThreeTrackingWheelLocalizer(...));
+        // or, to localize from the wheels without allocating, setLocalizer(WheelOdometryLocalizer.tank(this, TRACK_WIDTH));
 
         trajectorySequenceRunner = new TrajectorySequenceRunner(
-                follower, HEADING_PID, batteryVoltageSensor,
+                follower, HEADING_PID, batteryMonitor,
                 new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>()
         );
     }
@@ -220,7 +223,7 @@ public class SampleTankDrive extends TankDrive {
     public void setPIDFCoefficients(DcMotor.RunMode runMode, PIDFCoefficients coefficients) {
         PIDFCoefficients compensatedCoefficients = new PIDFCoefficients(
                 coefficients.p, coefficients.i, coefficients.d,
-                coefficients.f * 12 / batteryVoltageSensor.getVoltage()
+                coefficients.f * batteryMonitor.getCompensation()
         );
         for (DcMotorEx motor : motors) {
             motor.setPIDFCoefficients(runMode, compensatedCoefficients);
@@ -248,28 +251,49 @@ public class SampleTankDrive extends TankDrive {
         setDrivePower(vel);
     }
 
-    @NonNull
     @Override
-    public List<Double> getWheelPositions() {
+    public int getWheelCount() {
+        return 2;
+    }
+
+    @Override
+    public void readWheelPositions(double[] positions) {
         double leftSum = 0, rightSum = 0;
-        for (DcMotorEx leftMotor : leftMotors) {
-            leftSum += encoderTicksToInches(leftMotor.getCurrentPosition());
+        for (int i = 0; i < leftMotors.size(); i++) {
+            leftSum += encoderTicksToInches(leftMotors.get(i).getCurrentPosition());
         }
-        for (DcMotorEx rightMotor : rightMotors) {
-            rightSum += encoderTicksToInches(rightMotor.getCurrentPosition());
+        for (int i = 0; i < rightMotors.size(); i++) {
+            rightSum += encoderTicksToInches(rightMotors.get(i).getCurrentPosition());
         }
-        return Arrays.asList(leftSum / leftMotors.size(), rightSum / rightMotors.size());
+        positions[0] = leftSum / leftMotors.size();
+        positions[1] = rightSum / rightMotors.size();
     }
 
-    public List<Double> getWheelVelocities() {
+    @Override
+    public void readWheelVelocities(double[] velocities) {
         double leftSum = 0, rightSum = 0;
-        for (DcMotorEx leftMotor : leftMotors) {
-            leftSum += encoderTicksToInches(leftMotor.getVelocity());
+        for (int i = 0; i < leftMotors.size(); i++) {
+            leftSum += encoderTicksToInches(leftMotors.get(i).getVelocity());
         }
-        for (DcMotorEx rightMotor : rightMotors) {
-            rightSum += encoderTicksToInches(rightMotor.getVelocity());
+        for (int i = 0; i < rightMotors.size(); i++) {
+            rightSum += encoderTicksToInches(rightMotors.get(i).getVelocity());
         }
-        return Arrays.asList(leftSum / leftMotors.size(), rightSum / rightMotors.size());
+        velocities[0] = leftSum / leftMotors.size();
+        velocities[1] = rightSum / rightMotors.size();
+    }
+
+    @NonNull
+    @Override
+    public List<Double> getWheelPositions() {
+        double[] positions = new double[2];
+        readWheelPositions(positions);
+        return DoubleArrayList.wrap(positions);
+    }
+
+    public List<Double> getWheelVelocities() {
+        double[] velocities = new double[2];
+        readWheelVelocities(velocities);
+        return DoubleArrayList.wrap(velocities);
     }
 
     @Override
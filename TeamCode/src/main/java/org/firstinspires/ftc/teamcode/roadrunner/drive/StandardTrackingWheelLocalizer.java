@@ -7,7 +7,10 @@ import com.acmerobotics.roadrunner.geometry.Pose2d;
 import com.acmerobotics.roadrunner.localization.ThreeTrackingWheelLocalizer;
 import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.HardwareMap;
+import org.firstinspires.ftc.teamcode.roadrunner.util.DoubleArrayList;
 import org.firstinspires.ftc.teamcode.roadrunner.util.Encoder;
+import org.firstinspires.ftc.teamcode.roadrunner.util.IntArrayList;
+import org.firstinspires.ftc.teamcode.roadrunner.util.WheelEncoders;
 
 import java.util.Arrays;
 import java.util.List;
@@ -26,7 +29,7 @@ import java.util.List;
  *
  */
 @Config
-public class StandardTrackingWheelLocalizer extends ThreeTrackingWheelLocalizer {
+public class StandardTrackingWheelLocalizer extends ThreeTrackingWheelLocalizer implements WheelEncoders {
     public static double TICKS_PER_REV = 0;
     public static double WHEEL_RADIUS = 2; // in
     public static double GEAR_RATIO = 1; // output (wheel) speed / input (encoder) speed
@@ -36,14 +39,10 @@ public class StandardTrackingWheelLocalizer extends ThreeTrackingWheelLocalizer
 
     private Encoder leftEncoder, rightEncoder, frontEncoder;
 
-    private List<Integer> lastEncPositions, lastEncVels;
+    private IntArrayList lastEncPositions, lastEncVels;
 
-    public StandardTrackingWheelLocalizer(HardwareMap hardwareMap, List<Integer> lastTrackingEncPositions, List<Integer> lastTrackingEncVels) {
-        super(Arrays.asList(
-                new Pose2d(0, LATERAL_DISTANCE / 2, 0), // left
-                new Pose2d(0, -LATERAL_DISTANCE / 2, 0), // right
-                new Pose2d(FORWARD_OFFSET, 0, Math.toRadians(90)) // front
-        ));
+    public StandardTrackingWheelLocalizer(HardwareMap hardwareMap, IntArrayList lastTrackingEncPositions, IntArrayList lastTrackingEncVels) {
+        super(getWheelPoses());
 
         lastEncPositions = lastTrackingEncPositions;
         lastEncVels = lastTrackingEncVels;
@@ -55,45 +54,68 @@ public class StandardTrackingWheelLocalizer extends ThreeTrackingWheelLocalizer
         // TODO: reverse any encoders using Encoder.setDirection(Encoder.Direction.REVERSE)
     }
 
+    public static List<Pose2d> getWheelPoses() {
+        return Arrays.asList(
+                new Pose2d(0, LATERAL_DISTANCE / 2, 0), // left
+                new Pose2d(0, -LATERAL_DISTANCE / 2, 0), // right
+                new Pose2d(FORWARD_OFFSET, 0, Math.toRadians(90)) // front
+        );
+    }
+
     public static double encoderTicksToInches(double ticks) {
         return WHEEL_RADIUS * 2 * Math.PI * GEAR_RATIO * ticks / TICKS_PER_REV;
     }
 
-    @NonNull
     @Override
-    public List<Double> getWheelPositions() {
+    public int getWheelCount() {
+        return 3;
+    }
+
+    @Override
+    public void readWheelPositions(double[] positions) {
         int leftPos = leftEncoder.getCurrentPosition();
         int rightPos = rightEncoder.getCurrentPosition();
         int frontPos = frontEncoder.getCurrentPosition();
 
         lastEncPositions.clear();
-        lastEncPositions.add(leftPos);
-        lastEncPositions.add(rightPos);
-        lastEncPositions.add(frontPos);
+        lastEncPositions.addInt(leftPos);
+        lastEncPositions.addInt(rightPos);
+        lastEncPositions.addInt(frontPos);
 
-        return Arrays.asList(
-                encoderTicksToInches(leftPos),
-                encoderTicksToInches(rightPos),
-                encoderTicksToInches(frontPos)
-        );
+        positions[0] = encoderTicksToInches(leftPos);
+        positions[1] = encoderTicksToInches(rightPos);
+        positions[2] = encoderTicksToInches(frontPos);
     }
 
-    @NonNull
     @Override
-    public List<Double> getWheelVelocities() {
+    public void readWheelVelocities(double[] velocities) {
         int leftVel = (int) leftEncoder.getCorrectedVelocity();
         int rightVel = (int) rightEncoder.getCorrectedVelocity();
         int frontVel = (int) frontEncoder.getCorrectedVelocity();
 
         lastEncVels.clear();
-        lastEncVels.add(leftVel);
-        lastEncVels.add(rightVel);
-        lastEncVels.add(frontVel);
+        lastEncVels.addInt(leftVel);
+        lastEncVels.addInt(rightVel);
+        lastEncVels.addInt(frontVel);
 
-        return Arrays.asList(
-                encoderTicksToInches(leftVel),
-                encoderTicksToInches(rightVel),
-                encoderTicksToInches(frontVel)
-        );
+        velocities[0] = encoderTicksToInches(leftVel);
+        velocities[1] = encoderTicksToInches(rightVel);
+        velocities[2] = encoderTicksToInches(frontVel);
+    }
+
+    @NonNull
+    @Override
+    public List<Double> getWheelPositions() {
+        double[] positions = new double[3];
+        readWheelPositions(positions);
+        return DoubleArrayList.wrap(positions);
+    }
+
+    @NonNull
+    @Override
+    public List<Double> getWheelVelocities() {
+        double[] velocities = new double[3];
+        readWheelVelocities(velocities);
+        return DoubleArrayList.wrap(velocities);
     }
 }
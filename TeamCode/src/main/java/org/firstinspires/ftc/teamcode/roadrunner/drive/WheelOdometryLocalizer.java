@@ -0,0 +1,235 @@
+package org.firstinspires.ftc.teamcode.roadrunner.drive;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.acmerobotics.roadrunner.drive.Drive;
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+import com.acmerobotics.roadrunner.localization.Localizer;
+import com.acmerobotics.roadrunner.util.Angle;
+
+import org.firstinspires.ftc.teamcode.roadrunner.util.WheelEncoders;
+
+import java.util.List;
+
+/*
+ * Localizer that integrates wheel odometry using only primitive arrays, so an update allocates nothing.
+ * It does the same as RoadRunner's MecanumLocalizer, TankLocalizer and ThreeTrackingWheelLocalizer,
+ * which box every reading into lists and allocate poses each update.
+ *
+ * The wheels are turned into robot motion by a 3 x wheel count matrix, made by one of the static
+ * factories. Poses are only allocated when they are asked for.
+ */
+public class WheelOdometryLocalizer implements Localizer {
+    private static final double EPSILON = 1e-6;
+
+    private final WheelEncoders wheels;
+    // rows of forward, left and heading per unit of each wheel, row by row
+    private final double[] forwardKinematics;
+    private final int wheelCount;
+
+    private final double[] positions;
+    private final double[] lastPositions;
+    private final double[] velocities;
+    private boolean hasLastPositions;
+
+    // the drive whose external heading is used instead of the wheels', null to use the wheels
+    @Nullable
+    private Drive headingDrive;
+    private double lastExternalHeading;
+
+    private double x, y, heading;
+    // the robot relative change of the last update
+    private double deltaX, deltaY, deltaHeading;
+    private double velocityX, velocityY, headingVelocity;
+
+    public WheelOdometryLocalizer(WheelEncoders wheels, double[] forwardKinematics) {
+        this.wheels = wheels;
+        this.forwardKinematics = forwardKinematics;
+        wheelCount = wheels.getWheelCount();
+        if (forwardKinematics.length != 3 * wheelCount) {
+            throw new IllegalArgumentException("Expected a 3 x " + wheelCount + " matrix");
+        }
+
+        positions = new double[wheelCount];
+        lastPositions = new double[wheelCount];
+        velocities = new double[wheelCount];
+    }
+
+    /*
+     * Wheels in the order front left, rear left, rear right, front right, like MecanumKinematics.
+     */
+    public static WheelOdometryLocalizer mecanum(
+            WheelEncoders wheels, double trackWidth, double wheelBase, double lateralMultiplier
+    ) {
+        double k = (trackWidth + wheelBase) / 2;
+        return new WheelOdometryLocalizer(wheels, new double[] {
+                0.25, 0.25, 0.25, 0.25,
+                -0.25 / lateralMultiplier, 0.25 / lateralMultiplier, -0.25 / lateralMultiplier, 0.25 / lateralMultiplier,
+                -0.25 / k, -0.25 / k, 0.25 / k, 0.25 / k
+        });
+    }
+
+    /*
+     * Wheels in the order left, right, like TankKinematics.
+     */
+    public static WheelOdometryLocalizer tank(WheelEncoders wheels, double trackWidth) {
+        return new WheelOdometryLocalizer(wheels, new double[] {
+                0.5, 0.5,
+                0, 0,
+                -1 / trackWidth, 1 / trackWidth
+        });
+    }
+
+    /*
+     * Three tracking wheels at the given poses on the robot, like ThreeTrackingWheelLocalizer.
+     */
+    public static WheelOdometryLocalizer trackingWheels(WheelEncoders wheels, List<Pose2d> wheelPoses) {
+        if (wheelPoses.size() != 3) throw new IllegalArgumentException("3 wheel poses must be provided");
+
+        // each wheel measures the robot's motion along its direction, invert that to get the robot's motion
+        double[] m = new double[9];
+        for (int i = 0; i < 3; i++) {
+            Pose2d pose = wheelPoses.get(i);
+            double cos = Math.cos(pose.getHeading());
+            double sin = Math.sin(pose.getHeading());
+            m[i * 3] = cos;
+            m[i * 3 + 1] = sin;
+            m[i * 3 + 2] = pose.getX() * sin - pose.getY() * cos;
+        }
+        return new WheelOdometryLocalizer(wheels, invert3x3(m));
+    }
+
+    /*
+     * Turns with the drive's external heading, the IMU, instead of the wheels, like MecanumLocalizer with
+     * useExternalHeading. The turn rate still comes from the wheels, since the IMU's would be another
+     * slow read each update and comes back boxed.
+     */
+    public WheelOdometryLocalizer useExternalHeading(Drive drive) {
+        headingDrive = drive;
+        hasLastPositions = false;
+        return this;
+    }
+
+    private static double[] invert3x3(double[] m) {
+        double a = m[0], b = m[1], c = m[2];
+        double d = m[3], e = m[4], f = m[5];
+        double g = m[6], h = m[7], i = m[8];
+
+        double determinant = a * (e * i - f * h) - b * (d * i - f * g) + c * (d * h - e * g);
+        if (Math.abs(determinant) < EPSILON) {
+            throw new IllegalArgumentException("The tracking wheel configuration is invalid");
+        }
+
+        return new double[] {
+                (e * i - f * h) / determinant, (c * h - b * i) / determinant, (b * f - c * e) / determinant,
+                (f * g - d * i) / determinant, (a * i - c * g) / determinant, (c * d - a * f) / determinant,
+                (d * h - e * g) / determinant, (b * g - a * h) / determinant, (a * e - b * d) / determinant
+        };
+    }
+
+    @Override
+    public void update() {
+        wheels.readWheelPositions(positions);
+        double externalHeading = headingDrive != null ? headingDrive.getExternalHeading() : 0;
+        if (hasLastPositions) {
+            double dx = 0, dy = 0, dHeading = 0;
+            for (int i = 0; i < wheelCount; i++) {
+                double wheelDelta = positions[i] - lastPositions[i];
+                dx += forwardKinematics[i] * wheelDelta;
+                dy += forwardKinematics[wheelCount + i] * wheelDelta;
+                dHeading += forwardKinematics[2 * wheelCount + i] * wheelDelta;
+            }
+            if (headingDrive != null) dHeading = Angle.normDelta(externalHeading - lastExternalHeading);
+            deltaX = dx;
+            deltaY = dy;
+            deltaHeading = dHeading;
+            integrate(dx, dy, dHeading);
+        }
+        System.arraycopy(positions, 0, lastPositions, 0, wheelCount);
+        lastExternalHeading = externalHeading;
+        hasLastPositions = true;
+
+        wheels.readWheelVelocities(velocities);
+        double vx = 0, vy = 0, omega = 0;
+        for (int i = 0; i < wheelCount; i++) {
+            vx += forwardKinematics[i] * velocities[i];
+            vy += forwardKinematics[wheelCount + i] * velocities[i];
+            omega += forwardKinematics[2 * wheelCount + i] * velocities[i];
+        }
+        velocityX = vx;
+        velocityY = vy;
+        headingVelocity = omega;
+    }
+
+    // same as Kinematics.relativeOdometryUpdate, the robot moves along an arc while it turns
+    private void integrate(double dx, double dy, double dHeading) {
+        double sineTerm, cosTerm;
+        if (Math.abs(dHeading) < EPSILON) {
+            sineTerm = 1.0 - dHeading * dHeading / 6.0;
+            cosTerm = dHeading / 2.0;
+        } else {
+            sineTerm = Math.sin(dHeading) / dHeading;
+            cosTerm = (1 - Math.cos(dHeading)) / dHeading;
+        }
+
+        double arcX = sineTerm * dx - cosTerm * dy;
+        double arcY = cosTerm * dx + sineTerm * dy;
+        double cos = Math.cos(heading);
+        double sin = Math.sin(heading);
+
+        x += cos * arcX - sin * arcY;
+        y += sin * arcX + cos * arcY;
+        heading = Angle.norm(heading + dHeading);
+    }
+
+    @NonNull
+    @Override
+    public Pose2d getPoseEstimate() {
+        return new Pose2d(x, y, heading);
+    }
+
+    @Override
+    public void setPoseEstimate(@NonNull Pose2d pose) {
+        x = pose.getX();
+        y = pose.getY();
+        heading = pose.getHeading();
+        if (headingDrive != null) headingDrive.setExternalHeading(heading);
+        hasLastPositions = false;
+        deltaX = 0;
+        deltaY = 0;
+        deltaHeading = 0;
+    }
+
+    @Override
+    public Pose2d getPoseVelocity() {
+        return new Pose2d(velocityX, velocityY, headingVelocity);
+    }
+
+    // forward, in inches, in the last update
+    public double getDeltaX() {
+        return deltaX;
+    }
+
+    // to the left, in inches, in the last update
+    public double getDeltaY() {
+        return deltaY;
+    }
+
+    // in radians, in the last update
+    public double getDeltaHeading() {
+        return deltaHeading;
+    }
+
+    public double getVelocityX() {
+        return velocityX;
+    }
+
+    public double getVelocityY() {
+        return velocityY;
+    }
+
+    public double getHeadingVelocity() {
+        return headingVelocity;
+    }
+}
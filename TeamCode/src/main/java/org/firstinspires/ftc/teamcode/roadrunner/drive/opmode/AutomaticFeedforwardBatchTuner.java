@@ -0,0 +1,194 @@
+package org.firstinspires.ftc.teamcode.roadrunner.drive.opmode;
+
+import static org.firstinspires.ftc.teamcode.roadrunner.drive.DriveConstants.MAX_RPM;
+import static org.firstinspires.ftc.teamcode.roadrunner.drive.DriveConstants.RUN_USING_ENCODER;
+import static org.firstinspires.ftc.teamcode.roadrunner.drive.DriveConstants.rpmToVelocity;
+
+import com.acmerobotics.dashboard.FtcDashboard;
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.dashboard.telemetry.MultipleTelemetry;
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+import com.acmerobotics.roadrunner.util.NanoClock;
+import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.util.RobotLog;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+import org.firstinspires.ftc.robotcore.internal.system.Misc;
+import org.firstinspires.ftc.teamcode.roadrunner.drive.SampleMecanumDrive;
+import org.firstinspires.ftc.teamcode.roadrunner.util.FeedforwardRegression;
+import org.firstinspires.ftc.teamcode.roadrunner.util.LoggingUtil;
+
+/*
+ * Op mode for computing kV, kA, and kStatic together from many drive runs. Where the
+ * AutomaticFeedforwardTuner fits one ramp and then one constant power run, this one repeats:
+ *   1. Slowly ramp the motor power forward, then backward back to the start.
+ *   2. Optionally apply constant power forward, then backward, so there is acceleration to fit kA.
+ * All the runs are fit at once with a robust regression (see FeedforwardRegression), so a run
+ * with wheel slip or a bad encoder read doesn't throw the constants off, and the constants are
+ * reported with 95% confidence intervals. The fit and each run are written to the log directory.
+ */
+@Config
+@Autonomous(group = "drive")
+public class AutomaticFeedforwardBatchTuner extends LinearOpMode {
+    public static int RUNS = 3;
+    public static double MAX_POWER = 0.7;
+    public static double DISTANCE = 72; // in
+    public static boolean FIT_STATIC = true;
+    public static boolean FIT_ACCEL = true;
+    public static double SETTLE_TIME = 0.5; // s
+
+    private NanoClock clock;
+    private SampleMecanumDrive drive;
+
+    @Override
+    public void runOpMode() throws InterruptedException {
+        if (RUN_USING_ENCODER) {
+            RobotLog.setGlobalErrorMsg("Feedforward constants usually don't need to be tuned " +
+                    "when using the built-in drive motor velocity PID.");
+        }
+
+        Telemetry telemetry = new MultipleTelemetry(this.telemetry, FtcDashboard.getInstance().getTelemetry());
+
+        drive = new SampleMecanumDrive(hardwareMap);
+
+        clock = NanoClock.system();
+
+        telemetry.addLine(Misc.formatInvariant(
+                "Place your robot on the field with at least %.2f in of room in front", DISTANCE));
+        telemetry.addLine("Press play to begin the feedforward tuning routine");
+        telemetry.update();
+
+        waitForStart();
+
+        if (isStopRequested()) return;
+
+        double maxVel = rpmToVelocity(MAX_RPM);
+        double finalVel = MAX_POWER * maxVel;
+        double accel = (finalVel * finalVel) / (2.0 * DISTANCE);
+        double rampTime = Math.sqrt(2.0 * DISTANCE / accel);
+        // at constant power the robot goes a little less than DISTANCE, since it has to speed up
+        double maxPowerTime = DISTANCE / maxVel / MAX_POWER;
+
+        FeedforwardRegression regression = new FeedforwardRegression();
+        long timestamp = System.currentTimeMillis();
+        int runCount = 0;
+        int unwrittenLogs = 0;
+
+        for (int i = 0; i < RUNS && !isStopRequested(); i++) {
+            for (int direction = 1; direction >= -1 && !isStopRequested(); direction -= 2) {
+                telemetry.clearAll();
+                telemetry.addLine(Misc.formatInvariant("Ramp %d of %d, %s", i + 1, RUNS,
+                        direction > 0 ? "forward" : "backward"));
+                addUnwrittenLogs(telemetry, unwrittenLogs);
+                telemetry.update();
+
+                FeedforwardRegression.Run run = runRamp(direction, accel, maxVel, rampTime);
+                regression.addRun(run);
+                if (!run.write(LoggingUtil.getLogFile(Misc.formatInvariant(
+                        "DriveBatchRun-%d-%d.csv", timestamp, runCount++)))) unwrittenLogs++;
+            }
+
+            if (!FIT_ACCEL) continue;
+
+            for (int direction = 1; direction >= -1 && !isStopRequested(); direction -= 2) {
+                telemetry.clearAll();
+                telemetry.addLine(Misc.formatInvariant("Constant power %d of %d, %s", i + 1, RUNS,
+                        direction > 0 ? "forward" : "backward"));
+                addUnwrittenLogs(telemetry, unwrittenLogs);
+                telemetry.update();
+
+                FeedforwardRegression.Run run = runConstantPower(direction, maxPowerTime);
+                regression.addRun(run);
+                if (!run.write(LoggingUtil.getLogFile(Misc.formatInvariant(
+                        "DriveBatchRun-%d-%d.csv", timestamp, runCount++)))) unwrittenLogs++;
+            }
+        }
+
+        if (isStopRequested()) return;
+
+        FeedforwardRegression.Result result = regression.fit(FIT_ACCEL, FIT_STATIC);
+
+        telemetry.clearAll();
+        if (result == null) {
+            telemetry.addLine("Not enough samples were recorded to fit");
+        } else {
+            if (!regression.write(result, LoggingUtil.getLogFile(Misc.formatInvariant(
+                    "DriveFeedforwardBatch-%d.csv", timestamp)))) unwrittenLogs++;
+
+            telemetry.addLine("Feedforward batch test complete");
+            telemetry.addLine(Misc.formatInvariant("kV = %.5f +/- %.5f", result.kV, result.kVError));
+            if (FIT_ACCEL) {
+                telemetry.addLine(Misc.formatInvariant("kA = %.5f +/- %.5f", result.kA, result.kAError));
+            }
+            if (FIT_STATIC) {
+                telemetry.addLine(Misc.formatInvariant("kStatic = %.5f +/- %.5f",
+                        result.kStatic, result.kStaticError));
+            }
+            telemetry.addLine(Misc.formatInvariant("R^2 = %.3f, %d of %d samples down weighted",
+                    result.rSquare, result.downWeighted, result.samples));
+        }
+        addUnwrittenLogs(telemetry, unwrittenLogs);
+        telemetry.update();
+
+        while (!isStopRequested()) {
+            idle();
+        }
+    }
+
+    private static void addUnwrittenLogs(Telemetry telemetry, int unwrittenLogs) {
+        if (unwrittenLogs > 0) {
+            telemetry.addLine(Misc.formatInvariant("%d logs couldn't be written, see the robot log", unwrittenLogs));
+        }
+    }
+
+    private FeedforwardRegression.Run runRamp(int direction, double accel, double maxVel, double rampTime) {
+        FeedforwardRegression.Run run = new FeedforwardRegression.Run();
+        drive.setPoseEstimate(new Pose2d());
+
+        double startTime = clock.seconds();
+        while (!isStopRequested()) {
+            double elapsedTime = clock.seconds() - startTime;
+            if (elapsedTime > rampTime) {
+                break;
+            }
+            double power = direction * accel * elapsedTime / maxVel;
+
+            run.add(elapsedTime, drive.getPoseEstimate().getX(), power);
+
+            drive.setDrivePower(new Pose2d(power, 0.0, 0.0));
+            drive.updatePoseEstimate();
+        }
+        stopAndSettle();
+        return run;
+    }
+
+    private FeedforwardRegression.Run runConstantPower(int direction, double maxPowerTime) {
+        FeedforwardRegression.Run run = new FeedforwardRegression.Run();
+        drive.setPoseEstimate(new Pose2d());
+        drive.setDrivePower(new Pose2d(direction * MAX_POWER, 0.0, 0.0));
+
+        double startTime = clock.seconds();
+        while (!isStopRequested()) {
+            double elapsedTime = clock.seconds() - startTime;
+            if (elapsedTime > maxPowerTime) {
+                break;
+            }
+
+            run.add(elapsedTime, drive.getPoseEstimate().getX(), direction * MAX_POWER);
+
+            drive.updatePoseEstimate();
+        }
+        stopAndSettle();
+        return run;
+    }
+
+    // the next run should start from rest
+    private void stopAndSettle() {
+        drive.setDrivePower(new Pose2d(0.0, 0.0, 0.0));
+        double stopTime = clock.seconds();
+        while (!isStopRequested() && clock.seconds() - stopTime < SETTLE_TIME) {
+            drive.updatePoseEstimate();
+        }
+    }
+}
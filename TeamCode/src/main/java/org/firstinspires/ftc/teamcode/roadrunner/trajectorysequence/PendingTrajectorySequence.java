@@ -0,0 +1,112 @@
+package org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence;
+
+import androidx.annotation.Nullable;
+
+import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.sequencesegment.SequenceSegment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A trajectory sequence being built on a background thread, made by {@link TrajectorySequenceBuilder#buildAsync}.
+ * Each segment is available as soon as it is generated, so the runner can start following the first segments while
+ * the later ones are still being generated. Markers are only placed once the whole sequence is built, so when the
+ * final sequence replaces the partial one, the markers of segments that already finished fire right away, and markers
+ * of the segment being followed fire as soon as their time has passed.
+ * <p>
+ * The sequences are built one at a time by a single thread with a short queue, so building can't take more than one
+ * core from the op mode and a burst of builds fails fast instead of piling up.
+ */
+public class PendingTrajectorySequence implements Future<TrajectorySequence> {
+    /** The most builds that can wait for the build thread */
+    private static final int QUEUE_CAPACITY = 8;
+
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(
+            1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+            runnable -> {
+                Thread thread = new Thread(runnable, "Trajectory builder");
+                thread.setDaemon(true);
+                // the op mode thread should win if they are fighting over a core
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            });
+
+    /** The segments generated so far, only added to by the build thread */
+    private final List<SequenceSegment> readySegments = new ArrayList<>();
+    /** The segments so far as a sequence, or the final sequence once it is built */
+    private volatile TrajectorySequence latest;
+
+    private final Future<TrajectorySequence> future;
+
+    /**
+     * Queues the build.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException If too many builds are already waiting
+     */
+    PendingTrajectorySequence(TrajectorySequenceBuilder builder, TrajectorySequenceBuilder.Steps steps) {
+        future = EXECUTOR.submit(() -> {
+            builder.setSegmentListener(this::addSegment);
+            TrajectorySequence sequence = steps.addTo(builder).build();
+            latest = sequence;
+            return sequence;
+        });
+    }
+
+    private void addSegment(SequenceSegment segment) {
+        readySegments.add(segment);
+        latest = new TrajectorySequence(new ArrayList<>(readySegments));
+    }
+
+    /** @return The final sequence if it has been built, otherwise the segments so far, or null if there are none yet */
+    @Nullable
+    public TrajectorySequence getLatest() {
+        return latest;
+    }
+
+    /** @return Why the build failed, or null if it hasn't failed */
+    @Nullable
+    public Throwable getError() {
+        if (!future.isDone() || future.isCancelled()) return null;
+        try {
+            future.get();
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return e;
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return future.cancel(mayInterruptIfRunning);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return future.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    @Override
+    public TrajectorySequence get() throws ExecutionException, InterruptedException {
+        return future.get();
+    }
+
+    @Override
+    public TrajectorySequence get(long timeout, TimeUnit unit) throws ExecutionException, InterruptedException, TimeoutException {
+        return future.get(timeout, unit);
+    }
+}
@@ -0,0 +1,87 @@
+package org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence;
+
+import androidx.annotation.Nullable;
+
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+import com.acmerobotics.roadrunner.geometry.Vector2d;
+import com.acmerobotics.roadrunner.path.Path;
+import com.acmerobotics.roadrunner.path.PathBuilder;
+import com.acmerobotics.roadrunner.profile.MotionState;
+import com.acmerobotics.roadrunner.trajectory.Trajectory;
+import com.acmerobotics.roadrunner.trajectory.TrajectoryGenerator;
+import com.acmerobotics.roadrunner.trajectory.constraints.TrajectoryAccelerationConstraint;
+import com.acmerobotics.roadrunner.trajectory.constraints.TrajectoryVelocityConstraint;
+
+import java.util.Collections;
+
+/**
+ * Plans a new trajectory from where the robot actually is to the end of the trajectory it was following, used when
+ * the robot has been pushed too far off to catch up with the original. The new path is a single spline that leaves
+ * in the direction the robot is already moving and arrives like the original did, and its profile starts at the
+ * robot's current speed so the swap doesn't brake the robot.
+ */
+public class TrajectoryReplanner {
+    // below this speed the robot isn't really moving in any direction, in in/s
+    private static final double MIN_MOVING_SPEED = 1.0;
+    // closer than this to the end there's nothing worth planning, in inches
+    private static final double MIN_DISTANCE = 1.0;
+
+    private final TrajectoryVelocityConstraint velConstraint;
+    private final TrajectoryAccelerationConstraint accelConstraint;
+    private final double resolution;
+
+    public TrajectoryReplanner(
+            TrajectoryVelocityConstraint velConstraint, TrajectoryAccelerationConstraint accelConstraint,
+            double resolution
+    ) {
+        this.velConstraint = velConstraint;
+        this.accelConstraint = accelConstraint;
+        this.resolution = resolution;
+    }
+
+    public TrajectoryReplanner(TrajectoryVelocityConstraint velConstraint, TrajectoryAccelerationConstraint accelConstraint) {
+        this(velConstraint, accelConstraint, 0.25);
+    }
+
+    /**
+     * @param trajectory The trajectory being followed
+     * @param poseEstimate Where the robot is
+     * @param poseVelocity How fast the robot is moving, relative to the robot like the localizer reports it
+     * @return A trajectory from the robot to the end of the original, or null if the robot is already there or no
+     * path could be made
+     */
+    @Nullable
+    public Trajectory replan(Trajectory trajectory, Pose2d poseEstimate, Pose2d poseVelocity) {
+        Pose2d end = trajectory.end();
+        Vector2d toEnd = end.vec().minus(poseEstimate.vec());
+        if (toEnd.norm() < MIN_DISTANCE) return null;
+
+        Vector2d fieldVelocity = poseVelocity.vec().rotated(poseEstimate.getHeading());
+        double speed = fieldVelocity.norm();
+        double startTangent = speed >= MIN_MOVING_SPEED ? fieldVelocity.angle() : toEnd.angle();
+
+        Path originalPath = trajectory.getPath();
+        Pose2d endDeriv = originalPath.deriv(originalPath.length());
+        double endTangent = Math.atan2(endDeriv.getY(), endDeriv.getX());
+
+        Path path;
+        try {
+            path = new PathBuilder(poseEstimate, startTangent)
+                    .splineToSplineHeading(end, endTangent)
+                    .build();
+        } catch (RuntimeException e) {
+            // the spline can't be made, for example if it would have to turn back on itself
+            return null;
+        }
+
+        // the path leaves along the velocity, so all of the speed carries over
+        double startSpeed = speed >= MIN_MOVING_SPEED ? speed : 0;
+        return TrajectoryGenerator.INSTANCE.generateTrajectory(
+                path, velConstraint, accelConstraint,
+                new MotionState(0, startSpeed, 0, 0),
+                new MotionState(path.length(), 0, 0, 0),
+                Collections.emptyList(), Collections.emptyList(), Collections.emptyList(),
+                resolution
+        );
+    }
+}
@@ -30,6 +30,16 @@ import java.util.Comparator;
 import java.util.List;
 
 public class TrajectorySequenceBuilder {
+    /** Adds the steps of a sequence to a builder, used to build it on another thread */
+    public interface Steps {
+        TrajectorySequenceBuilder addTo(TrajectorySequenceBuilder builder);
+    }
+
+    /** Told about each segment as soon as it is generated, before markers are placed */
+    interface SegmentListener {
+        void onSegmentReady(SequenceSegment segment);
+    }
+
     private final double resolution = 0.25;
 
     private final TrajectoryVelocityConstraint baseVelConstraint;
@@ -50,6 +60,12 @@ public class TrajectorySequenceBuilder {
     private final List<DisplacementMarker> displacementMarkers;
     private final List<SpatialMarker> spatialMarkers;
 
+    // markers fired by how far along the path the measured pose is, rather than by time
+    private final List<TrajectoryMarker> measuredDisplacementMarkers;
+    private final List<SpatialMarker> measuredSpatialMarkers;
+
+    private SegmentListener segmentListener;
+
     private Pose2d lastPose;
 
     private double tangentOffset;
@@ -91,6 +107,9 @@ public class TrajectorySequenceBuilder {
         displacementMarkers = new ArrayList<>();
         spatialMarkers = new ArrayList<>();
 
+        measuredDisplacementMarkers = new ArrayList<>();
+        measuredSpatialMarkers = new ArrayList<>();
+
         lastPose = startPose;
 
         tangentOffset = 0.0;
@@ -431,6 +450,33 @@ public class TrajectorySequenceBuilder {
         return this;
     }
 
+    /**
+     * Adds a marker that fires once the measured pose, projected onto the path, reaches the current displacement.
+     * Unlike {@link #addDisplacementMarker(MarkerCallback)}, it waits for the robot instead of the planned motion.
+     */
+    public TrajectorySequenceBuilder addMeasuredDisplacementMarker(MarkerCallback callback) {
+        return addMeasuredDisplacementMarker(currentDisplacement, callback);
+    }
+
+    /**
+     * Adds a marker that fires once the measured pose, projected onto the path, is a displacement along the sequence.
+     *
+     * @param displacement How far along the trajectories of the sequence, in inches
+     */
+    public TrajectorySequenceBuilder addMeasuredDisplacementMarker(double displacement, MarkerCallback callback) {
+        measuredDisplacementMarkers.add(new TrajectoryMarker(displacement, callback));
+        return this;
+    }
+
+    /**
+     * Adds a marker that fires once the measured pose, projected onto the path, passes the point on the path
+     * closest to a point.
+     */
+    public TrajectorySequenceBuilder addMeasuredSpatialMarker(Vector2d point, MarkerCallback callback) {
+        measuredSpatialMarkers.add(new SpatialMarker(point, callback));
+        return this;
+    }
+
     public TrajectorySequenceBuilder turn(double angle) {
         return turn(angle, currentTurnConstraintMaxAngVel, currentTurnConstraintMaxAngAccel);
     }
@@ -445,7 +491,7 @@ public class TrajectorySequenceBuilder {
                 maxAngAccel
         );
 
-        sequenceSegments.add(new TurnSegment(lastPose, angle, turnProfile, Collections.emptyList()));
+        addSegment(new TurnSegment(lastPose, angle, turnProfile, Collections.emptyList()));
 
         lastPose = new Pose2d(
                 lastPose.getX(), lastPose.getY(),
@@ -459,7 +505,7 @@ public class TrajectorySequenceBuilder {
 
     public TrajectorySequenceBuilder waitSeconds(double seconds) {
         pushPath();
-        sequenceSegments.add(new WaitSegment(lastPose, seconds, Collections.emptyList()));
+        addSegment(new WaitSegment(lastPose, seconds, Collections.emptyList()));
 
         currentDuration += seconds;
         return this;
@@ -468,19 +514,28 @@ public class TrajectorySequenceBuilder {
     public TrajectorySequenceBuilder addTrajectory(Trajectory trajectory) {
         pushPath();
 
-        sequenceSegments.add(new TrajectorySegment(trajectory));
+        addSegment(new TrajectorySegment(trajectory));
         return this;
     }
 
     private void pushPath() {
         if (currentTrajectoryBuilder != null) {
             Trajectory builtTraj = currentTrajectoryBuilder.build();
-            sequenceSegments.add(new TrajectorySegment(builtTraj));
+            addSegment(new TrajectorySegment(builtTraj));
         }
 
         currentTrajectoryBuilder = null;
     }
 
+    private void addSegment(SequenceSegment segment) {
+        sequenceSegments.add(segment);
+        if (segmentListener != null) segmentListener.onSegmentReady(segment);
+    }
+
+    void setSegmentListener(SegmentListener segmentListener) {
+        this.segmentListener = segmentListener;
+    }
+
     private void newPath() {
         if (currentTrajectoryBuilder != null)
             pushPath();
@@ -501,7 +556,88 @@ public class TrajectorySequenceBuilder {
                 temporalMarkers, displacementMarkers, spatialMarkers
         );
 
-        return new TrajectorySequence(projectGlobalMarkersToLocalSegments(globalMarkers, sequenceSegments));
+        List<SequenceSegment> segments = projectGlobalMarkersToLocalSegments(globalMarkers, sequenceSegments);
+        return new TrajectorySequence(addMeasuredMarkers(segments));
+    }
+
+    /**
+     * Adds the steps to this builder and builds the sequence on a background thread, so generating the splines and
+     * motion profiles doesn't hold up the loop. The builder shouldn't be used by anything else afterwards.
+     *
+     * @param steps Adds the steps of the sequence, called on the background thread
+     * @return The sequence, which can be followed before it is finished
+     * @throws java.util.concurrent.RejectedExecutionException If too many sequences are already waiting to be built
+     */
+    public PendingTrajectorySequence buildAsync(Steps steps) {
+        return new PendingTrajectorySequence(this, steps);
+    }
+
+    private List<SequenceSegment> addMeasuredMarkers(List<SequenceSegment> sequenceSegments) {
+        if (measuredDisplacementMarkers.isEmpty() && measuredSpatialMarkers.isEmpty()) return sequenceSegments;
+
+        // The markers of each segment, by displacement along that segment's path
+        List<List<TrajectoryMarker>> segmentMarkers = new ArrayList<>();
+        int lastTrajectoryIndex = -1;
+        for (int i = 0; i < sequenceSegments.size(); i++) {
+            segmentMarkers.add(new ArrayList<>());
+            if (sequenceSegments.get(i) instanceof TrajectorySegment) lastTrajectoryIndex = i;
+        }
+        if (lastTrajectoryIndex == -1) throw new IllegalStateException("Measured markers need a trajectory to follow");
+
+        for (TrajectoryMarker marker : measuredDisplacementMarkers) {
+            double displacement = marker.getTime();
+            int markerIndex = lastTrajectoryIndex;
+            double localDisplacement = getPathLength(sequenceSegments.get(lastTrajectoryIndex));
+
+            double startDisplacement = 0.0;
+            for (int i = 0; i < sequenceSegments.size(); i++) {
+                if (!(sequenceSegments.get(i) instanceof TrajectorySegment)) continue;
+
+                double length = getPathLength(sequenceSegments.get(i));
+                if (startDisplacement + length > displacement) {
+                    markerIndex = i;
+                    localDisplacement = Math.max(0.0, displacement - startDisplacement);
+                    break;
+                }
+                startDisplacement += length;
+            }
+
+            segmentMarkers.get(markerIndex).add(new TrajectoryMarker(localDisplacement, marker.getCallback()));
+        }
+
+        for (SpatialMarker marker : measuredSpatialMarkers) {
+            int closestIndex = -1;
+            double closestDistance = Double.POSITIVE_INFINITY;
+            double closestDisplacement = 0.0;
+
+            for (int i = 0; i < sequenceSegments.size(); i++) {
+                if (!(sequenceSegments.get(i) instanceof TrajectorySegment)) continue;
+
+                Trajectory trajectory = ((TrajectorySegment) sequenceSegments.get(i)).getTrajectory();
+                double displacement = trajectory.getPath().project(marker.getPoint(), 0.25);
+                double distance = marker.getPoint().minus(trajectory.getPath().get(displacement).vec()).norm();
+                if (distance < closestDistance) {
+                    closestIndex = i;
+                    closestDistance = distance;
+                    closestDisplacement = displacement;
+                }
+            }
+
+            segmentMarkers.get(closestIndex).add(new TrajectoryMarker(closestDisplacement, marker.getCallback()));
+        }
+
+        for (int i = 0; i < sequenceSegments.size(); i++) {
+            if (segmentMarkers.get(i).isEmpty()) continue;
+
+            TrajectorySegment segment = (TrajectorySegment) sequenceSegments.get(i);
+            sequenceSegments.set(i, new TrajectorySegment(segment.getTrajectory(), segment.getMarkers(), segmentMarkers.get(i)));
+        }
+
+        return sequenceSegments;
+    }
+
+    private double getPathLength(SequenceSegment segment) {
+        return ((TrajectorySegment) segment).getTrajectory().getPath().length();
     }
 
     private List<TrajectoryMarker> convertMarkersToGlobal(
@@ -597,10 +733,10 @@ public class TrajectorySequenceBuilder {
             } else if (segment instanceof TrajectorySegment) {
                 TrajectorySegment thisSegment = (TrajectorySegment) segment;
 
-                List<TrajectoryMarker> newMarkers = new ArrayList<>(thisSegment.getTrajectory().getMarkers());
+                List<TrajectoryMarker> newMarkers = new ArrayList<>(thisSegment.getMarkers());
                 newMarkers.add(new TrajectoryMarker(segmentOffsetTime, marker.getCallback()));
 
-                newSegment = new TrajectorySegment(new Trajectory(thisSegment.getTrajectory().getPath(), thisSegment.getTrajectory().getProfile(), newMarkers));
+                newSegment = new TrajectorySegment(thisSegment.getTrajectory(), newMarkers, Collections.emptyList());
             }
 
             sequenceSegments.set(segmentIndex, newSegment);
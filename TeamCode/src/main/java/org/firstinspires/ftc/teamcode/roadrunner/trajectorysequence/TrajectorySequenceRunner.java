@@ -13,22 +13,25 @@ import com.acmerobotics.roadrunner.followers.TrajectoryFollower;
 import com.acmerobotics.roadrunner.geometry.Pose2d;
 import com.acmerobotics.roadrunner.profile.MotionState;
 import com.acmerobotics.roadrunner.trajectory.Trajectory;
-import com.acmerobotics.roadrunner.trajectory.TrajectoryMarker;
+import com.acmerobotics.roadrunner.util.Angle;
 import com.acmerobotics.roadrunner.util.NanoClock;
-import com.qualcomm.robotcore.hardware.VoltageSensor;
+import com.qualcomm.robotcore.util.RobotLog;
 
+import org.firstinspires.ftc.teamcode.hardware.BatteryMonitor;
 import org.firstinspires.ftc.teamcode.roadrunner.drive.DriveConstants;
+import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.sequencesegment.MarkerSchedule;
 import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.sequencesegment.SequenceSegment;
 import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.sequencesegment.TrajectorySegment;
 import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.sequencesegment.TurnSegment;
 import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.sequencesegment.WaitSegment;
 import org.firstinspires.ftc.teamcode.roadrunner.util.DashboardUtil;
 import org.firstinspires.ftc.teamcode.roadrunner.util.LogFiles;
+import org.firstinspires.ftc.teamcode.roadrunner.util.PoseHistory;
+import org.firstinspires.ftc.teamcode.util.RobotClock;
+import org.firstinspires.ftc.teamcode.util.TelemetryPublisher;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 @Config
 public class TrajectorySequenceRunner {
@@ -39,9 +42,38 @@ public class TrajectorySequenceRunner {
     public static String COLOR_ACTIVE_TRAJECTORY = "#4CAF50";
     public static String COLOR_ACTIVE_TURN = "#7c4dff";
     public static String COLOR_ACTIVE_WAIT = "#dd2c00";
+    public static String COLOR_REPLANNED_TRAJECTORY = "#ff9800";
 
+    // when the follower is this far off, the rest of the trajectory is planned again from where the robot is
+    // off until the thresholds are tuned on the robot and ReplanBenchmarkTest shows a plan fits in a loop
+    public static boolean REPLAN_ENABLED = false;
+    public static double REPLAN_TRANSLATIONAL_ERROR = 4; // in
+    public static double REPLAN_HEADING_ERROR = Math.toRadians(20);
+    // the least time between plans, so a robot that is held doesn't plan every loop
+    public static double REPLAN_COOLDOWN = 0.5; // s
+
+    // the pose is added to the history each time the overlay is drawn
     public static int POSE_HISTORY_LIMIT = 100;
 
+    // the dashboard only sends packets this often, so drawing more often than this is wasted
+    public static long DASHBOARD_INTERVAL_MS = 25;
+
+    private static final DriveSignal STOPPED = new DriveSignal();
+
+    // the slots of the overlay snapshot, doubles are stored as their bits
+    private static final int OVERLAY_X = 0;
+    private static final int OVERLAY_Y = 1;
+    private static final int OVERLAY_HEADING = 2;
+    private static final int OVERLAY_ERROR_X = 3;
+    private static final int OVERLAY_ERROR_Y = 4;
+    private static final int OVERLAY_ERROR_HEADING = 5;
+    private static final int OVERLAY_TARGET_X = 6;
+    private static final int OVERLAY_TARGET_Y = 7;
+    private static final int OVERLAY_TARGET_HEADING = 8;
+    private static final int OVERLAY_HAS_TARGET = 9;
+    private static final int OVERLAY_SEGMENT_INDEX = 10;
+    private static final int OVERLAY_SIZE = 11;
+
     private final TrajectoryFollower follower;
 
     private final PIDFController turnController;
@@ -49,23 +81,55 @@ public class TrajectorySequenceRunner {
     private final NanoClock clock;
 
     private TrajectorySequence currentTrajectorySequence;
+    // the sequence being built, until it is done, currentTrajectorySequence has what is ready of it
+    @Nullable
+    private PendingTrajectorySequence pendingSequence;
     private double currentSegmentStartTime;
     private int currentSegmentIndex;
     private int lastSegmentIndex;
 
-    private Pose2d lastPoseError = new Pose2d();
-
-    List<TrajectoryMarker> remainingMarkers = new ArrayList<>();
+    // kept as primitives so following doesn't allocate a pose for them every loop
+    private double lastErrorX, lastErrorY, lastErrorHeading;
+    private double targetX, targetY, targetHeading;
+
+    // the trajectory the follower is following, the segment's or a replanned one, and when it started
+    private Trajectory activeTrajectory;
+    private double activeTrajectoryStartTime;
+    private double lastReplanTime = Double.NEGATIVE_INFINITY;
+    private int replanCount;
+    @Nullable
+    private TrajectoryReplanner replanner;
+    // drawn over the segment's trajectory while it is being followed instead
+    private volatile Trajectory replannedTrajectory;
+
+    // the segment whose markers are firing, and the next of its markers by time and by displacement
+    private SequenceSegment markerSegment;
+    private int markerCursor;
+    private int displacementMarkerCursor;
+    // how far along the path the measured pose was last projected, the guess for the next projection
+    private double projectedDisplacement;
 
     private final FtcDashboard dashboard;
-    private final LinkedList<Pose2d> poseHistory = new LinkedList<>();
+    private long lastDashboardNanos;
+
+    // when set, the overlay is drawn on the publisher's thread instead of being sent from update()
+    private TelemetryPublisher telemetryPublisher;
+    private final TelemetryPublisher.PacketSource overlaySource = this::addOverlay;
 
-    private VoltageSensor voltageSensor;
+    // written every update and read by whichever thread draws the overlay
+    private final AtomicLongArray overlay = new AtomicLongArray(OVERLAY_SIZE);
+    private volatile DrawnSequence drawnSequence;
+
+    // only used by the thread drawing the overlay
+    private final PoseHistory poseHistory = new PoseHistory();
+
+    // filtered and only read every so often, so the loop doesn't wait on the hub for it
+    private BatteryMonitor batteryMonitor;
 
     private List<Integer> lastDriveEncPositions, lastDriveEncVels, lastTrackingEncPositions, lastTrackingEncVels;
 
     public TrajectorySequenceRunner(
-            TrajectoryFollower follower, PIDCoefficients headingPIDCoefficients, VoltageSensor voltageSensor,
+            TrajectoryFollower follower, PIDCoefficients headingPIDCoefficients, BatteryMonitor batteryMonitor,
             List<Integer> lastDriveEncPositions, List<Integer> lastDriveEncVels, List<Integer> lastTrackingEncPositions, List<Integer> lastTrackingEncVels
     ) {
         this.follower = follower;
@@ -73,87 +137,183 @@ public class TrajectorySequenceRunner {
         turnController = new PIDFController(headingPIDCoefficients);
         turnController.setInputBounds(0, 2 * Math.PI);
 
-        this.voltageSensor = voltageSensor;
+        this.batteryMonitor = batteryMonitor;
 
         this.lastDriveEncPositions = lastDriveEncPositions;
         this.lastDriveEncVels = lastDriveEncVels;
         this.lastTrackingEncPositions = lastTrackingEncPositions;
         this.lastTrackingEncVels = lastTrackingEncVels;
 
-        clock = NanoClock.system();
+        clock = RobotClock.NANO_CLOCK;
 
+        // there is no dashboard when running in the simulator
         dashboard = FtcDashboard.getInstance();
-        dashboard.setTelemetryTransmissionInterval(25);
+        if (dashboard != null) {
+            dashboard.setTelemetryTransmissionInterval((int) DASHBOARD_INTERVAL_MS);
+        }
     }
 
     public void followTrajectorySequenceAsync(TrajectorySequence trajectorySequence) {
+        pendingSequence = null;
         currentTrajectorySequence = trajectorySequence;
         currentSegmentStartTime = clock.seconds();
         currentSegmentIndex = 0;
         lastSegmentIndex = -1;
+
+        DashboardUtil.clearPathCache();
+        setDrawnSequence(trajectorySequence);
+    }
+
+    /**
+     * Follows a sequence that is still being built, starting on each segment once it has been generated. If the
+     * robot reaches the end of the segments generated so far, it holds still until the next one is ready.
+     */
+    public void followTrajectorySequenceAsync(PendingTrajectorySequence pendingSequence) {
+        this.pendingSequence = pendingSequence;
+        currentTrajectorySequence = null;
+        currentSegmentStartTime = clock.seconds();
+        currentSegmentIndex = 0;
+        lastSegmentIndex = -1;
+
+        DashboardUtil.clearPathCache();
+        drawnSequence = null;
+        adoptPendingSegments();
+    }
+
+    // picks up the segments generated since the last update, and the final sequence once it is built
+    private void adoptPendingSegments() {
+        // checked before getting the latest, which is the final sequence once the build is done
+        boolean isDone = pendingSequence.isDone();
+        TrajectorySequence latest = pendingSequence.getLatest();
+        if (isDone) {
+            Throwable error = pendingSequence.getError();
+            if (error != null) {
+                RobotLog.ee("TrajectorySequenceRunner", error, "Building a trajectory sequence failed, only following what was built");
+            }
+            pendingSequence = null;
+        }
+
+        if (latest == null || latest == currentTrajectorySequence) return;
+
+        currentTrajectorySequence = latest;
+        setDrawnSequence(latest);
+
+        // only the final sequence has markers, so the markers of the segments that already finished without them
+        // fire now, in order, and the segment being followed is swapped for its version with them
+        int finishedSegments = Math.min(currentSegmentIndex, latest.size());
+        for (int i = 0; i < finishedSegments; i++) {
+            fireAllMarkers(latest.get(i));
+        }
+        if (markerSegment != null && lastSegmentIndex == currentSegmentIndex && currentSegmentIndex < latest.size()) {
+            markerSegment = latest.get(currentSegmentIndex);
+        }
+    }
+
+    private void setDrawnSequence(TrajectorySequence trajectorySequence) {
+        // the sampled path of each trajectory segment, sampled now so drawing doesn't have to
+        double[][][] sampledPaths = new double[trajectorySequence.size()][][];
+        for (int i = 0; i < trajectorySequence.size(); i++) {
+            SequenceSegment segment = trajectorySequence.get(i);
+            if (segment instanceof TrajectorySegment) {
+                sampledPaths[i] = DashboardUtil.getSampledPath(((TrajectorySegment) segment).getTrajectory().getPath());
+            }
+        }
+        drawnSequence = new DrawnSequence(trajectorySequence, sampledPaths);
+    }
+
+    /**
+     * @param batteryMonitor the monitor to compensate the drive signal with from now on
+     */
+    public void setBatteryMonitor(BatteryMonitor batteryMonitor) {
+        this.batteryMonitor = batteryMonitor;
+    }
+
+    /**
+     * Draws the overlay on the publisher's thread from now on, instead of sending it to the dashboard from update().
+     *
+     * @param telemetryPublisher the publisher, or null to send the overlay from update() again
+     */
+    public void setTelemetryPublisher(@Nullable TelemetryPublisher telemetryPublisher) {
+        if (this.telemetryPublisher != null) this.telemetryPublisher.removePacketSource(overlaySource);
+        this.telemetryPublisher = telemetryPublisher;
+        if (telemetryPublisher != null) telemetryPublisher.addPacketSource(overlaySource);
     }
 
     public @Nullable
     DriveSignal update(Pose2d poseEstimate, Pose2d poseVelocity) {
-        Pose2d targetPose = null;
+        boolean hasTarget = false;
         DriveSignal driveSignal = null;
-
-        TelemetryPacket packet = new TelemetryPacket();
-        Canvas fieldOverlay = packet.fieldOverlay();
+        boolean isCompensated = false;
 
         SequenceSegment currentSegment = null;
+        int segmentIndex = -1;
+
+        if (pendingSequence != null) {
+            adoptPendingSegments();
+
+            // the next segment is still being generated, so hold still until it is
+            if (currentTrajectorySequence == null || (pendingSequence != null
+                    && currentSegmentIndex >= currentTrajectorySequence.size())) {
+                return STOPPED;
+            }
+        }
 
         if (currentTrajectorySequence != null) {
             if (currentSegmentIndex >= currentTrajectorySequence.size()) {
-                for (TrajectoryMarker marker : remainingMarkers) {
-                    marker.getCallback().onMarkerReached();
-                }
-
-                remainingMarkers.clear();
+                fireRemainingMarkers();
+                markerSegment = null;
 
                 currentTrajectorySequence = null;
+                drawnSequence = null;
+                replannedTrajectory = null;
             }
 
             if (currentTrajectorySequence == null)
-                return new DriveSignal();
+                return STOPPED;
 
             double now = clock.seconds();
             boolean isNewTransition = currentSegmentIndex != lastSegmentIndex;
 
-            currentSegment = currentTrajectorySequence.get(currentSegmentIndex);
+            segmentIndex = currentSegmentIndex;
+            currentSegment = currentTrajectorySequence.get(segmentIndex);
 
             if (isNewTransition) {
                 currentSegmentStartTime = now;
                 lastSegmentIndex = currentSegmentIndex;
 
-                for (TrajectoryMarker marker : remainingMarkers) {
-                    marker.getCallback().onMarkerReached();
-                }
-
-                remainingMarkers.clear();
-
-                remainingMarkers.addAll(currentSegment.getMarkers());
-                Collections.sort(remainingMarkers, (t1, t2) -> Double.compare(t1.getTime(), t2.getTime()));
+                fireRemainingMarkers();
+                markerSegment = currentSegment;
+                markerCursor = 0;
+                displacementMarkerCursor = 0;
+                projectedDisplacement = 0;
             }
 
             double deltaTime = now - currentSegmentStartTime;
 
             if (currentSegment instanceof TrajectorySegment) {
-                Trajectory currentTrajectory = ((TrajectorySegment) currentSegment).getTrajectory();
-
-                if (isNewTransition)
-                    follower.followTrajectory(currentTrajectory);
+                if (isNewTransition) {
+                    activeTrajectory = ((TrajectorySegment) currentSegment).getTrajectory();
+                    activeTrajectoryStartTime = now;
+                    replannedTrajectory = null;
+                    follower.followTrajectory(activeTrajectory);
+                }
 
                 if (!follower.isFollowing()) {
                     currentSegmentIndex++;
 
-                    driveSignal = new DriveSignal();
+                    driveSignal = STOPPED;
                 } else {
                     driveSignal = follower.update(poseEstimate, poseVelocity);
-                    lastPoseError = follower.getLastError();
+                    Pose2d error = follower.getLastError();
+                    setLastError(error.getX(), error.getY(), error.getHeading());
+
+                    if (shouldReplan(now)) replan(now, poseEstimate, poseVelocity);
                 }
 
-                targetPose = currentTrajectory.get(deltaTime);
+                // markers keep the segment's time, the target follows the trajectory actually being followed
+                Pose2d targetPose = activeTrajectory.get(now - activeTrajectoryStartTime);
+                setTarget(targetPose.getX(), targetPose.getY(), targetPose.getHeading());
+                hasTarget = true;
             } else if (currentSegment instanceof TurnSegment) {
                 MotionState targetState = ((TurnSegment) currentSegment).getMotionProfile().get(deltaTime);
 
@@ -164,80 +324,193 @@ public class TrajectorySequenceRunner {
                 double targetOmega = targetState.getV();
                 double targetAlpha = targetState.getA();
 
-                lastPoseError = new Pose2d(0, 0, turnController.getLastError());
+                setLastError(0, 0, turnController.getLastError());
 
                 Pose2d startPose = currentSegment.getStartPose();
-                targetPose = startPose.copy(startPose.getX(), startPose.getY(), targetState.getX());
-
-                driveSignal = new DriveSignal(
-                        new Pose2d(0, 0, targetOmega + correction),
-                        new Pose2d(0, 0, targetAlpha)
-                );
+                setTarget(startPose.getX(), startPose.getY(), targetState.getX());
+                hasTarget = true;
 
                 if (deltaTime >= currentSegment.getDuration()) {
                     currentSegmentIndex++;
-                    driveSignal = new DriveSignal();
+                    driveSignal = STOPPED;
+                } else {
+                    // compensated as it is made, so it isn't made again to compensate it
+                    double compensation = getCompensation();
+                    driveSignal = new DriveSignal(
+                            new Pose2d(0, 0, (targetOmega + correction) * compensation),
+                            new Pose2d(0, 0, targetAlpha * compensation)
+                    );
+                    isCompensated = true;
                 }
             } else if (currentSegment instanceof WaitSegment) {
-                lastPoseError = new Pose2d();
+                setLastError(0, 0, 0);
 
-                targetPose = currentSegment.getStartPose();
-                driveSignal = new DriveSignal();
+                Pose2d startPose = currentSegment.getStartPose();
+                setTarget(startPose.getX(), startPose.getY(), startPose.getHeading());
+                hasTarget = true;
+                driveSignal = STOPPED;
 
                 if (deltaTime >= currentSegment.getDuration()) {
                     currentSegmentIndex++;
                 }
             }
 
-            while (remainingMarkers.size() > 0 && deltaTime > remainingMarkers.get(0).getTime()) {
-                remainingMarkers.get(0).getCallback().onMarkerReached();
-                remainingMarkers.remove(0);
-            }
-        }
-
-        poseHistory.add(poseEstimate);
+            markerCursor = currentSegment.getMarkerSchedule().fireBelow(markerCursor, deltaTime);
 
-        if (POSE_HISTORY_LIMIT > -1 && poseHistory.size() > POSE_HISTORY_LIMIT) {
-            poseHistory.removeFirst();
+            if (currentSegment instanceof TrajectorySegment) {
+                TrajectorySegment trajectorySegment = (TrajectorySegment) currentSegment;
+                MarkerSchedule displacementMarkers = trajectorySegment.getDisplacementMarkers();
+
+                // only project when there is a marker left to fire, projecting from where the last one landed
+                if (displacementMarkerCursor < displacementMarkers.size()) {
+                    projectedDisplacement = trajectorySegment.getTrajectory().getPath()
+                            .fastProject(poseEstimate.vec(), projectedDisplacement);
+                    displacementMarkerCursor = displacementMarkers.fireBelow(displacementMarkerCursor, projectedDisplacement);
+                }
+            }
         }
 
-        final double NOMINAL_VOLTAGE = 12.0;
-        double voltage = voltageSensor.getVoltage();
-        if (driveSignal != null && !DriveConstants.RUN_USING_ENCODER) {
+        double voltage = batteryMonitor.getVoltage();
+        // a drive signal can't be changed, so compensating one means making another, which stopping doesn't need
+        if (driveSignal != null && driveSignal != STOPPED && !isCompensated && !DriveConstants.RUN_USING_ENCODER) {
+            double compensation = getCompensation();
             driveSignal = new DriveSignal(
-                    driveSignal.getVel().times(NOMINAL_VOLTAGE / voltage),
-                    driveSignal.getAccel().times(NOMINAL_VOLTAGE / voltage)
+                    driveSignal.getVel().times(compensation),
+                    driveSignal.getAccel().times(compensation)
             );
         }
 
-        if (targetPose != null) {
+        if (hasTarget) {
             LogFiles.record(
-                    targetPose, poseEstimate, voltage,
+                    targetX, targetY, targetHeading,
+                    poseEstimate.getX(), poseEstimate.getY(), poseEstimate.getHeading(), voltage,
                     lastDriveEncPositions, lastDriveEncVels, lastTrackingEncPositions, lastTrackingEncVels
             );
         }
 
-        packet.put("x", poseEstimate.getX());
-        packet.put("y", poseEstimate.getY());
-        packet.put("heading (deg)", Math.toDegrees(poseEstimate.getHeading()));
-
-        packet.put("xError", getLastPoseError().getX());
-        packet.put("yError", getLastPoseError().getY());
-        packet.put("headingError (deg)", Math.toDegrees(getLastPoseError().getHeading()));
+        updateOverlay(poseEstimate, segmentIndex, hasTarget);
 
-        draw(fieldOverlay, currentTrajectorySequence, currentSegment, targetPose, poseEstimate);
+        long nanos = System.nanoTime();
+        if (telemetryPublisher == null && dashboard != null
+                && (nanos - lastDashboardNanos) / 1_000_000 >= DASHBOARD_INTERVAL_MS) {
+            lastDashboardNanos = nanos;
 
-        dashboard.sendTelemetryPacket(packet);
+            TelemetryPacket packet = new TelemetryPacket();
+            addOverlay(packet);
+            dashboard.sendTelemetryPacket(packet);
+        }
 
         return driveSignal;
     }
 
+    // the velocity PID of the motors already makes up for the battery when running using encoders
+    private double getCompensation() {
+        return DriveConstants.RUN_USING_ENCODER ? 1 : batteryMonitor.getCompensation();
+    }
+
+    // stores what is drawn without allocating, so it can be drawn on another thread
+    private void updateOverlay(Pose2d poseEstimate, int segmentIndex, boolean hasTarget) {
+        setOverlay(OVERLAY_X, poseEstimate.getX());
+        setOverlay(OVERLAY_Y, poseEstimate.getY());
+        setOverlay(OVERLAY_HEADING, poseEstimate.getHeading());
+        setOverlay(OVERLAY_ERROR_X, lastErrorX);
+        setOverlay(OVERLAY_ERROR_Y, lastErrorY);
+        setOverlay(OVERLAY_ERROR_HEADING, lastErrorHeading);
+        setOverlay(OVERLAY_TARGET_X, targetX);
+        setOverlay(OVERLAY_TARGET_Y, targetY);
+        setOverlay(OVERLAY_TARGET_HEADING, targetHeading);
+        overlay.lazySet(OVERLAY_HAS_TARGET, hasTarget ? 1 : 0);
+        overlay.lazySet(OVERLAY_SEGMENT_INDEX, segmentIndex);
+    }
+
+    private void setOverlay(int slot, double value) {
+        overlay.lazySet(slot, Double.doubleToRawLongBits(value));
+    }
+
+    private double getOverlay(int slot) {
+        return Double.longBitsToDouble(overlay.get(slot));
+    }
+
+    private void addOverlay(TelemetryPacket packet) {
+        double x = getOverlay(OVERLAY_X);
+        double y = getOverlay(OVERLAY_Y);
+        double heading = getOverlay(OVERLAY_HEADING);
+
+        packet.put("x", x);
+        packet.put("y", y);
+        packet.put("heading (deg)", Math.toDegrees(heading));
+
+        packet.put("xError", getOverlay(OVERLAY_ERROR_X));
+        packet.put("yError", getOverlay(OVERLAY_ERROR_Y));
+        packet.put("headingError (deg)", Math.toDegrees(getOverlay(OVERLAY_ERROR_HEADING)));
+
+        poseHistory.add(x, y, POSE_HISTORY_LIMIT);
+
+        draw(packet.fieldOverlay(), drawnSequence, (int) overlay.get(OVERLAY_SEGMENT_INDEX),
+                overlay.get(OVERLAY_HAS_TARGET) == 1, x, y, heading);
+    }
+
+    private boolean shouldReplan(double now) {
+        if (replanner == null || !REPLAN_ENABLED || now - lastReplanTime < REPLAN_COOLDOWN) return false;
+
+        return Math.hypot(lastErrorX, lastErrorY) > REPLAN_TRANSLATIONAL_ERROR
+                || Math.abs(Angle.normDelta(lastErrorHeading)) > REPLAN_HEADING_ERROR;
+    }
+
+    // swaps in a trajectory from the current pose to the end of the segment, without stopping
+    private void replan(double now, Pose2d poseEstimate, Pose2d poseVelocity) {
+        lastReplanTime = now;
+
+        Trajectory replanned = replanner.replan(activeTrajectory, poseEstimate, poseVelocity);
+        if (replanned == null) return;
+
+        activeTrajectory = replanned;
+        activeTrajectoryStartTime = now;
+        replannedTrajectory = replanned;
+        replanCount++;
+        follower.followTrajectory(replanned);
+    }
+
+    // fires the markers the last segment didn't reach, since it ended early or was replaced
+    private void fireRemainingMarkers() {
+        if (markerSegment == null) return;
+
+        markerCursor = markerSegment.getMarkerSchedule().fireRemaining(markerCursor);
+        if (markerSegment instanceof TrajectorySegment) {
+            displacementMarkerCursor = ((TrajectorySegment) markerSegment).getDisplacementMarkers()
+                    .fireRemaining(displacementMarkerCursor);
+        }
+    }
+
+    // fires every marker of a segment, for a segment that finished before its markers were placed
+    private static void fireAllMarkers(SequenceSegment segment) {
+        segment.getMarkerSchedule().fireRemaining(0);
+        if (segment instanceof TrajectorySegment) {
+            ((TrajectorySegment) segment).getDisplacementMarkers().fireRemaining(0);
+        }
+    }
+
+    private void setLastError(double x, double y, double heading) {
+        lastErrorX = x;
+        lastErrorY = y;
+        lastErrorHeading = heading;
+    }
+
+    private void setTarget(double x, double y, double heading) {
+        targetX = x;
+        targetY = y;
+        targetHeading = heading;
+    }
+
     private void draw(
             Canvas fieldOverlay,
-            TrajectorySequence sequence, SequenceSegment currentSegment,
-            Pose2d targetPose, Pose2d poseEstimate
+            @Nullable DrawnSequence drawn, int activeSegmentIndex,
+            boolean hasTarget, double x, double y, double heading
     ) {
-        if (sequence != null) {
+        if (drawn != null) {
+            TrajectorySequence sequence = drawn.sequence;
+            double[][][] sampledPaths = drawn.sampledPaths;
+
             for (int i = 0; i < sequence.size(); i++) {
                 SequenceSegment segment = sequence.get(i);
 
@@ -245,7 +518,7 @@ public class TrajectorySequenceRunner {
                     fieldOverlay.setStrokeWidth(1);
                     fieldOverlay.setStroke(COLOR_INACTIVE_TRAJECTORY);
 
-                    DashboardUtil.drawSampledPath(fieldOverlay, ((TrajectorySegment) segment).getTrajectory().getPath());
+                    fieldOverlay.strokePolyline(sampledPaths[i][0], sampledPaths[i][1]);
                 } else if (segment instanceof TurnSegment) {
                     Pose2d pose = segment.getStartPose();
 
@@ -259,48 +532,84 @@ public class TrajectorySequenceRunner {
                     fieldOverlay.strokeCircle(pose.getX(), pose.getY(), 3);
                 }
             }
-        }
 
-        if (currentSegment != null) {
-            if (currentSegment instanceof TrajectorySegment) {
-                Trajectory currentTrajectory = ((TrajectorySegment) currentSegment).getTrajectory();
+            // the index may still be from the last sequence if it only just changed
+            if (activeSegmentIndex != -1 && activeSegmentIndex < sequence.size()) {
+                SequenceSegment currentSegment = sequence.get(activeSegmentIndex);
 
-                fieldOverlay.setStrokeWidth(1);
-                fieldOverlay.setStroke(COLOR_ACTIVE_TRAJECTORY);
+                if (currentSegment instanceof TrajectorySegment) {
+                    fieldOverlay.setStrokeWidth(1);
+                    fieldOverlay.setStroke(COLOR_ACTIVE_TRAJECTORY);
 
-                DashboardUtil.drawSampledPath(fieldOverlay, currentTrajectory.getPath());
-            } else if (currentSegment instanceof TurnSegment) {
-                Pose2d pose = currentSegment.getStartPose();
+                    fieldOverlay.strokePolyline(sampledPaths[activeSegmentIndex][0], sampledPaths[activeSegmentIndex][1]);
+                } else if (currentSegment instanceof TurnSegment) {
+                    Pose2d pose = currentSegment.getStartPose();
 
-                fieldOverlay.setFill(COLOR_ACTIVE_TURN);
-                fieldOverlay.fillCircle(pose.getX(), pose.getY(), 3);
-            } else if (currentSegment instanceof WaitSegment) {
-                Pose2d pose = currentSegment.getStartPose();
+                    fieldOverlay.setFill(COLOR_ACTIVE_TURN);
+                    fieldOverlay.fillCircle(pose.getX(), pose.getY(), 3);
+                } else if (currentSegment instanceof WaitSegment) {
+                    Pose2d pose = currentSegment.getStartPose();
 
-                fieldOverlay.setStrokeWidth(1);
-                fieldOverlay.setStroke(COLOR_ACTIVE_WAIT);
-                fieldOverlay.strokeCircle(pose.getX(), pose.getY(), 3);
+                    fieldOverlay.setStrokeWidth(1);
+                    fieldOverlay.setStroke(COLOR_ACTIVE_WAIT);
+                    fieldOverlay.strokeCircle(pose.getX(), pose.getY(), 3);
+                }
             }
         }
 
-        if (targetPose != null) {
+        Trajectory replanned = replannedTrajectory;
+        if (replanned != null) {
+            double[][] points = DashboardUtil.getSampledPath(replanned.getPath());
+
+            fieldOverlay.setStrokeWidth(1);
+            fieldOverlay.setStroke(COLOR_REPLANNED_TRAJECTORY);
+            fieldOverlay.strokePolyline(points[0], points[1]);
+        }
+
+        if (hasTarget) {
             fieldOverlay.setStrokeWidth(1);
             fieldOverlay.setStroke("#4CAF50");
-            DashboardUtil.drawRobot(fieldOverlay, targetPose);
+            DashboardUtil.drawRobot(fieldOverlay,
+                    getOverlay(OVERLAY_TARGET_X), getOverlay(OVERLAY_TARGET_Y), getOverlay(OVERLAY_TARGET_HEADING));
         }
 
         fieldOverlay.setStroke("#3F51B5");
         DashboardUtil.drawPoseHistory(fieldOverlay, poseHistory);
 
         fieldOverlay.setStroke("#3F51B5");
-        DashboardUtil.drawRobot(fieldOverlay, poseEstimate);
+        DashboardUtil.drawRobot(fieldOverlay, x, y, heading);
+    }
+
+    /**
+     * Lets the runner plan the rest of a trajectory again when the follower falls too far behind.
+     *
+     * @param replanner what plans the new trajectories, or null to never replan
+     */
+    public void setReplanner(@Nullable TrajectoryReplanner replanner) {
+        this.replanner = replanner;
+    }
+
+    // how many times a trajectory has been planned again since the runner was made
+    public int getReplanCount() {
+        return replanCount;
     }
 
     public Pose2d getLastPoseError() {
-        return lastPoseError;
+        return new Pose2d(lastErrorX, lastErrorY, lastErrorHeading);
     }
 
     public boolean isBusy() {
-        return currentTrajectorySequence != null;
+        return currentTrajectorySequence != null || pendingSequence != null;
+    }
+
+    // a sequence and its sampled paths, swapped together so a drawing thread never sees one without the other
+    private static class DrawnSequence {
+        final TrajectorySequence sequence;
+        final double[][][] sampledPaths;
+
+        DrawnSequence(TrajectorySequence sequence, double[][][] sampledPaths) {
+            this.sequence = sequence;
+            this.sampledPaths = sampledPaths;
+        }
     }
 }
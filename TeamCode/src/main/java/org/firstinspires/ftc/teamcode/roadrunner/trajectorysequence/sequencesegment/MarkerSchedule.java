@@ -0,0 +1,80 @@
+package org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.sequencesegment;
+
+import com.acmerobotics.roadrunner.trajectory.MarkerCallback;
+import com.acmerobotics.roadrunner.trajectory.TrajectoryMarker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The markers of a segment, sorted once when the segment is built into parallel arrays so the runner can walk them
+ * with a cursor instead of copying, sorting and removing from a list. The key of each marker is its time in the
+ * segment, or for displacement markers how far along the path it is.
+ */
+public final class MarkerSchedule {
+    public static final MarkerSchedule EMPTY = new MarkerSchedule(new double[0], new MarkerCallback[0]);
+
+    private final double[] keys;
+    private final MarkerCallback[] callbacks;
+
+    private MarkerSchedule(double[] keys, MarkerCallback[] callbacks) {
+        this.keys = keys;
+        this.callbacks = callbacks;
+    }
+
+    /**
+     * @param markers The markers, with their time as the key
+     * @return The markers sorted by key, keeping the order of markers with the same key
+     */
+    public static MarkerSchedule of(List<TrajectoryMarker> markers) {
+        if (markers.isEmpty()) return EMPTY;
+
+        List<TrajectoryMarker> sorted = new ArrayList<>(markers);
+        Collections.sort(sorted, (t1, t2) -> Double.compare(t1.getTime(), t2.getTime()));
+
+        double[] keys = new double[sorted.size()];
+        MarkerCallback[] callbacks = new MarkerCallback[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            keys[i] = sorted.get(i).getTime();
+            callbacks[i] = sorted.get(i).getCallback();
+        }
+        return new MarkerSchedule(keys, callbacks);
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public double getKey(int index) {
+        return keys[index];
+    }
+
+    /**
+     * Fires every marker from the cursor that has a key below the value.
+     *
+     * @param cursor The first marker that hasn't fired
+     * @param value The time or displacement that has been reached
+     * @return The new cursor
+     */
+    public int fireBelow(int cursor, double value) {
+        while (cursor < keys.length && value > keys[cursor]) {
+            callbacks[cursor].onMarkerReached();
+            cursor++;
+        }
+        return cursor;
+    }
+
+    /**
+     * Fires every marker from the cursor, used when the segment ends early.
+     *
+     * @return The new cursor, the number of markers
+     */
+    public int fireRemaining(int cursor) {
+        while (cursor < keys.length) {
+            callbacks[cursor].onMarkerReached();
+            cursor++;
+        }
+        return cursor;
+    }
+}
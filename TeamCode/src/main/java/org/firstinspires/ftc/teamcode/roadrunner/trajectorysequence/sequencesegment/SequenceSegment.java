@@ -10,6 +10,7 @@ public abstract class SequenceSegment {
     private final Pose2d startPose;
     private final Pose2d endPose;
     private final List<TrajectoryMarker> markers;
+    private final MarkerSchedule markerSchedule;
 
     protected SequenceSegment(
             double duration,
@@ -20,6 +21,7 @@ public abstract class SequenceSegment {
         this.startPose = startPose;
         this.endPose = endPose;
         this.markers = markers;
+        this.markerSchedule = MarkerSchedule.of(markers);
     }
 
     public double getDuration() {
@@ -37,4 +39,9 @@ public abstract class SequenceSegment {
     public List<TrajectoryMarker> getMarkers() {
         return markers;
     }
+
+    // the markers sorted by time, for the runner to walk through
+    public MarkerSchedule getMarkerSchedule() {
+        return markerSchedule;
+    }
 }
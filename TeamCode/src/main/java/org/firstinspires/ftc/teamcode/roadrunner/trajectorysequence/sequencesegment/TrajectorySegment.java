@@ -1,20 +1,40 @@
 package org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.sequencesegment;
 
 import com.acmerobotics.roadrunner.trajectory.Trajectory;
+import com.acmerobotics.roadrunner.trajectory.TrajectoryMarker;
 
 import java.util.Collections;
+import java.util.List;
 
 public final class TrajectorySegment extends SequenceSegment {
     private final Trajectory trajectory;
+    private final MarkerSchedule displacementMarkers;
 
     public TrajectorySegment(Trajectory trajectory) {
-        // Note: Markers are already stored in the `Trajectory` itself.
-        // This class should not hold any markers
-        super(trajectory.duration(), trajectory.start(), trajectory.end(), Collections.emptyList());
-        this.trajectory = trajectory;
+        this(trajectory, trajectory.getMarkers(), Collections.emptyList());
+    }
+
+    /**
+     * @param trajectory The trajectory to follow, any markers of its own are moved to the segment
+     * @param markers The markers, by time in the segment
+     * @param displacementMarkers The markers that fire once the measured pose, projected onto the path, is this many
+     *                            inches along it, stored as the time of the marker
+     */
+    public TrajectorySegment(Trajectory trajectory, List<TrajectoryMarker> markers, List<TrajectoryMarker> displacementMarkers) {
+        // Note: The runner fires the markers, so the trajectory given to the follower has none
+        super(trajectory.duration(), trajectory.start(), trajectory.end(), markers);
+        this.trajectory = trajectory.getMarkers().isEmpty()
+                ? trajectory
+                : new Trajectory(trajectory.getPath(), trajectory.getProfile(), Collections.emptyList());
+        this.displacementMarkers = MarkerSchedule.of(displacementMarkers);
     }
 
     public Trajectory getTrajectory() {
         return this.trajectory;
     }
+
+    // the markers sorted by how far along the path they are
+    public MarkerSchedule getDisplacementMarkers() {
+        return displacementMarkers;
+    }
 }
@@ -0,0 +1,118 @@
+package org.firstinspires.ftc.teamcode.roadrunner.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.firstinspires.ftc.teamcode.roadrunner.util.LogColumns.DoubleColumn;
+import org.firstinspires.ftc.teamcode.roadrunner.util.LogColumns.IntColumn;
+import org.firstinspires.ftc.teamcode.roadrunner.util.LogColumns.LongColumn;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns a log written by {@link BinaryLogWriter} back into the JSON of {@link LogFiles.LogFile}. A log that is still
+ * being written, or was cut off, is read up to its last whole record.
+ */
+public class BinaryLogReader {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private BinaryLogReader() {
+
+    }
+
+    /**
+     * @param stream The binary log, which is closed once it has been read
+     * @return The log as pretty printed JSON
+     * @throws IOException If the log couldn't be read or isn't a binary log
+     */
+    public static byte[] toJson(InputStream stream) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+            if (in.readInt() != BinaryLogWriter.MAGIC) throw new IOException("Not a binary log");
+            int version = in.readInt();
+            if (version != BinaryLogWriter.VERSION) throw new IOException("Unknown log version " + version);
+
+            // The metadata has every field of the log, so the columns keep their place when they are filled in
+            ObjectNode log = (ObjectNode) MAPPER.readTree(in.readUTF());
+
+            LongColumn nsTimes = new LongColumn();
+            DoubleColumn targetXs = new DoubleColumn();
+            DoubleColumn targetYs = new DoubleColumn();
+            DoubleColumn targetHeadings = new DoubleColumn();
+            DoubleColumn xs = new DoubleColumn();
+            DoubleColumn ys = new DoubleColumn();
+            DoubleColumn headings = new DoubleColumn();
+            DoubleColumn voltages = new DoubleColumn();
+            List<IntColumn> driveEncPositions = new ArrayList<>();
+            List<IntColumn> driveEncVels = new ArrayList<>();
+            List<IntColumn> trackingEncPositions = new ArrayList<>();
+            List<IntColumn> trackingEncVels = new ArrayList<>();
+
+            try {
+                while (true) {
+                    byte type = in.readByte();
+                    if (type == BinaryLogWriter.START) {
+                        log.put("nsStart", in.readLong());
+                    }
+                    else if (type == BinaryLogWriter.STOP) {
+                        log.put("nsStop", in.readLong());
+                    }
+                    else if (type == BinaryLogWriter.SAMPLE) {
+                        // Read the whole sample first so a cut off one isn't partly added
+                        long nsTime = in.readLong();
+                        double[] values = new double[7];
+                        for (int i = 0; i < values.length; i++) values[i] = in.readDouble();
+                        int[][] encoders = new int[4][];
+                        for (int group = 0; group < encoders.length; group++) {
+                            encoders[group] = new int[in.readUnsignedByte()];
+                            for (int i = 0; i < encoders[group].length; i++) encoders[group][i] = in.readInt();
+                        }
+
+                        nsTimes.add(nsTime);
+                        targetXs.add(values[0]);
+                        targetYs.add(values[1]);
+                        targetHeadings.add(values[2]);
+                        xs.add(values[3]);
+                        ys.add(values[4]);
+                        headings.add(values[5]);
+                        voltages.add(values[6]);
+                        addEncoders(driveEncPositions, encoders[0]);
+                        addEncoders(driveEncVels, encoders[1]);
+                        addEncoders(trackingEncPositions, encoders[2]);
+                        addEncoders(trackingEncVels, encoders[3]);
+                    }
+                    else {
+                        throw new IOException("Unknown record type " + type);
+                    }
+                }
+            } catch (EOFException ignored) {
+                // The end of the file, or of what has been written so far
+            }
+
+            log.set("nsTimes", MAPPER.valueToTree(nsTimes));
+            log.set("targetXs", MAPPER.valueToTree(targetXs));
+            log.set("targetYs", MAPPER.valueToTree(targetYs));
+            log.set("targetHeadings", MAPPER.valueToTree(targetHeadings));
+            log.set("xs", MAPPER.valueToTree(xs));
+            log.set("ys", MAPPER.valueToTree(ys));
+            log.set("headings", MAPPER.valueToTree(headings));
+            log.set("voltages", MAPPER.valueToTree(voltages));
+            log.set("driveEncPositions", MAPPER.valueToTree(driveEncPositions));
+            log.set("driveEncVels", MAPPER.valueToTree(driveEncVels));
+            log.set("trackingEncPositions", MAPPER.valueToTree(trackingEncPositions));
+            log.set("trackingEncVels", MAPPER.valueToTree(trackingEncVels));
+
+            return MAPPER.writerWithDefaultPrettyPrinter().writeValueAsBytes(log);
+        }
+    }
+
+    private static void addEncoders(List<IntColumn> columns, int[] values) {
+        while (columns.size() < values.length) columns.add(new IntColumn());
+        for (int i = 0; i < values.length; i++) columns.get(i).add(values[i]);
+    }
+}
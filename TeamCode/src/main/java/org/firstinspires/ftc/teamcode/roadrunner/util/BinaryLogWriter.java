@@ -0,0 +1,218 @@
+package org.firstinspires.ftc.teamcode.roadrunner.util;
+
+import com.qualcomm.robotcore.util.RobotLog;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes a RoadRunner log to a file as it is recorded, so memory use doesn't grow with the length of the op mode
+ * and nothing has to be written all at once when it stops. {@link #record} copies each sample into a ring buffer
+ * without allocating or locking, and a background thread appends the buffer to the file every
+ * {@link #FLUSH_PERIOD_MS}. If the thread falls a whole buffer behind, new samples are dropped.
+ * <p>
+ * The file starts with {@link #MAGIC}, {@link #VERSION} and the metadata of the log as JSON, followed by records
+ * that each start with their type:
+ * <ul>
+ *     <li>{@link #SAMPLE}: the time, the target and estimated pose, the voltage, then the drive encoder positions
+ *     and velocities and tracking encoder positions and velocities, each as a count followed by the values.</li>
+ *     <li>{@link #START} and {@link #STOP}: the time the op mode started or stopped.</li>
+ * </ul>
+ * {@link BinaryLogReader} turns the file back into the JSON log.
+ */
+public class BinaryLogWriter {
+    public static final String EXTENSION = ".rrlog";
+
+    static final int MAGIC = 0x52524C47;
+    static final int VERSION = 1;
+
+    static final byte SAMPLE = 1;
+    static final byte START = 2;
+    static final byte STOP = 3;
+
+    /** The most encoders of each kind that are logged */
+    static final int MAX_ENCODERS = 8;
+
+    private static final int ENCODER_GROUPS = 4;
+    /** The time, seven doubles and each encoder group as a count and its values */
+    private static final int SLOT_SIZE = 8 + ENCODER_GROUPS * (1 + MAX_ENCODERS);
+    /** How many samples fit in the buffer, several seconds of following */
+    private static final int CAPACITY = 1024;
+    private static final long FLUSH_PERIOD_MS = 50;
+
+    private final File file;
+    private final DataOutputStream out;
+    private final Thread thread;
+
+    /** Doubles are stored as their bits so every slot is one type */
+    private final long[] ring = new long[CAPACITY * SLOT_SIZE];
+    /** How many samples have been recorded, only changed by the thread calling {@link #record} */
+    private final AtomicLong writeIndex = new AtomicLong();
+    /** How many samples have been written to the file, only changed by the background thread */
+    private final AtomicLong readIndex = new AtomicLong();
+
+    private volatile long nsStart;
+    private volatile long nsStop;
+    private volatile boolean isClosed;
+    /** How long the file is so far, updated by the background thread each time it writes */
+    private volatile long bytesWritten;
+    private int droppedSamples;
+
+    /**
+     * Creates the file, writes its header and starts the background thread.
+     *
+     * @param file The file to write to
+     * @param metadata The metadata of the log as JSON
+     * @throws IOException If the file couldn't be created
+     */
+    public BinaryLogWriter(File file, String metadata) throws IOException {
+        this.file = file;
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(metadata);
+
+        thread = new Thread(this::run, "RoadRunner log writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Adds a sample to the buffer. Should only be called from one thread.
+     */
+    public void record(
+            double targetX, double targetY, double targetHeading, double x, double y, double heading, double voltage,
+            List<Integer> driveEncPositions, List<Integer> driveEncVels, List<Integer> trackingEncPositions, List<Integer> trackingEncVels
+    ) {
+        if (isClosed) return;
+
+        long index = writeIndex.get();
+        if (index - readIndex.get() >= CAPACITY) {
+            droppedSamples++;
+            return;
+        }
+
+        int i = (int) (index % CAPACITY) * SLOT_SIZE;
+        ring[i++] = System.nanoTime();
+        ring[i++] = Double.doubleToRawLongBits(targetX);
+        ring[i++] = Double.doubleToRawLongBits(targetY);
+        ring[i++] = Double.doubleToRawLongBits(targetHeading);
+        ring[i++] = Double.doubleToRawLongBits(x);
+        ring[i++] = Double.doubleToRawLongBits(y);
+        ring[i++] = Double.doubleToRawLongBits(heading);
+        ring[i++] = Double.doubleToRawLongBits(voltage);
+        i = putEncoders(i, driveEncPositions);
+        i = putEncoders(i, driveEncVels);
+        i = putEncoders(i, trackingEncPositions);
+        putEncoders(i, trackingEncVels);
+
+        writeIndex.lazySet(index + 1);
+    }
+
+    /** @param nsStart The time the op mode started */
+    public void start(long nsStart) {
+        this.nsStart = nsStart;
+    }
+
+    /**
+     * Lets the background thread write what is left in the buffer and close the file, without waiting for it.
+     *
+     * @param nsStop The time the op mode stopped
+     */
+    public void close(long nsStop) {
+        this.nsStop = nsStop;
+        isClosed = true;
+        thread.interrupt();
+    }
+
+    /**
+     * Waits for the background thread to finish the file after {@link #close}.
+     *
+     * @throws InterruptedException If the waiting thread is interrupted
+     */
+    public void awaitFinished() throws InterruptedException {
+        thread.join();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /** @return How many bytes of the log have been written so far, including the header */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    private int putEncoders(int i, List<Integer> values) {
+        int count = Math.min(values.size(), MAX_ENCODERS);
+        ring[i] = count;
+        if (values instanceof IntArrayList) {
+            // the drives keep their readings unboxed
+            IntArrayList ints = (IntArrayList) values;
+            for (int j = 0; j < count; j++) ring[i + 1 + j] = ints.getInt(j);
+        } else {
+            for (int j = 0; j < count; j++) ring[i + 1 + j] = values.get(j);
+        }
+        return i + 1 + MAX_ENCODERS;
+    }
+
+    private void run() {
+        boolean isStartWritten = false;
+        try {
+            while (true) {
+                boolean isLast = isClosed;
+                drain();
+                if (!isStartWritten && nsStart != 0) {
+                    out.writeByte(START);
+                    out.writeLong(nsStart);
+                    isStartWritten = true;
+                }
+                if (isLast) break;
+                out.flush();
+                bytesWritten = out.size();
+
+                try {
+                    Thread.sleep(FLUSH_PERIOD_MS);
+                } catch (InterruptedException ignored) {
+                    // Closing wakes the thread up to finish the file
+                }
+            }
+
+            out.writeByte(STOP);
+            out.writeLong(nsStop);
+            out.close();
+            bytesWritten = out.size();
+            if (droppedSamples > 0) {
+                RobotLog.ww("LogFiles", "Dropped " + droppedSamples + " samples from " + file.getName());
+            }
+        } catch (IOException e) {
+            RobotLog.setGlobalErrorMsg(new RuntimeException(e),
+                    "Unable to write data to " + file.getAbsolutePath());
+        }
+    }
+
+    /** Writes every sample in the buffer to the file. */
+    private void drain() throws IOException {
+        long index = readIndex.get();
+        long end = writeIndex.get();
+        while (index < end) {
+            int i = (int) (index % CAPACITY) * SLOT_SIZE;
+            out.writeByte(SAMPLE);
+            out.writeLong(ring[i++]);
+            for (int j = 0; j < 7; j++) out.writeDouble(Double.longBitsToDouble(ring[i++]));
+            for (int group = 0; group < ENCODER_GROUPS; group++) {
+                int count = (int) ring[i];
+                out.writeByte(count);
+                for (int j = 0; j < count; j++) out.writeInt((int) ring[i + 1 + j]);
+                i += 1 + MAX_ENCODERS;
+            }
+            index++;
+            readIndex.lazySet(index);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.firstinspires.ftc.teamcode.roadrunner.util;
 
 import com.acmerobotics.dashboard.canvas.Canvas;
+import com.acmerobotics.dashboard.config.Config;
 import com.acmerobotics.roadrunner.geometry.Pose2d;
 import com.acmerobotics.roadrunner.geometry.Vector2d;
 import com.acmerobotics.roadrunner.path.Path;
@@ -10,10 +11,16 @@ import java.util.List;
 /**
  * Set of helper functions for drawing Road Runner paths and trajectories on dashboard canvases.
  */
+@Config
 public class DashboardUtil {
+    // how far a drawn path may stray from the sampled points, in inches; 0 draws every sampled point
+    public static double PATH_TOLERANCE = 0.25;
+
     private static final double DEFAULT_RESOLUTION = 2.0; // distance units; presumed inches
     private static final double ROBOT_RADIUS = 9; // in
 
+    private static final SampledPathCache PATH_CACHE = new SampledPathCache();
+
 
     public static void drawPoseHistory(Canvas canvas, List<Pose2d> poseHistory) {
         double[] xPoints = new double[poseHistory.size()];
@@ -26,7 +33,24 @@ public class DashboardUtil {
         canvas.strokePolyline(xPoints, yPoints);
     }
 
-    public static void drawSampledPath(Canvas canvas, Path path, double resolution) {
+    public static void drawPoseHistory(Canvas canvas, PoseHistory poseHistory) {
+        // the canvas keeps the arrays until the packet is sent, so they can't be reused
+        double[] xPoints = new double[poseHistory.size()];
+        double[] yPoints = new double[poseHistory.size()];
+        for (int i = 0; i < poseHistory.size(); i++) {
+            xPoints[i] = poseHistory.getX(i);
+            yPoints[i] = poseHistory.getY(i);
+        }
+        canvas.strokePolyline(xPoints, yPoints);
+    }
+
+    /**
+     * Samples points along a path, so they can be drawn many times without sampling again. The arrays are only
+     * read by the canvas, so the same ones can be drawn in every packet.
+     *
+     * @return The x points and the y points
+     */
+    public static double[][] samplePath(Path path, double resolution) {
         int samples = (int) Math.ceil(path.length() / resolution);
         double[] xPoints = new double[samples];
         double[] yPoints = new double[samples];
@@ -37,7 +61,34 @@ public class DashboardUtil {
             xPoints[i] = pose.getX();
             yPoints[i] = pose.getY();
         }
-        canvas.strokePolyline(xPoints, yPoints);
+        return new double[][] {xPoints, yPoints};
+    }
+
+    public static double[][] samplePath(Path path) {
+        return samplePath(path, DEFAULT_RESOLUTION);
+    }
+
+    /**
+     * Gets the sampled points of a path from the cache, sampling and decimating it the first time.
+     *
+     * @return The x points and the y points, which are shared so they shouldn't be changed
+     */
+    public static double[][] getSampledPath(Path path, double resolution) {
+        return PATH_CACHE.get(path, resolution, PATH_TOLERANCE);
+    }
+
+    public static double[][] getSampledPath(Path path) {
+        return getSampledPath(path, DEFAULT_RESOLUTION);
+    }
+
+    /** Forgets every cached path, called when a new sequence is followed. */
+    public static void clearPathCache() {
+        PATH_CACHE.clear();
+    }
+
+    public static void drawSampledPath(Canvas canvas, Path path, double resolution) {
+        double[][] points = getSampledPath(path, resolution);
+        canvas.strokePolyline(points[0], points[1]);
     }
 
     public static void drawSampledPath(Canvas canvas, Path path) {
@@ -51,4 +102,10 @@ public class DashboardUtil {
         double x2 = pose.getX() + v.getX(), y2 = pose.getY() + v.getY();
         canvas.strokeLine(x1, y1, x2, y2);
     }
+
+    public static void drawRobot(Canvas canvas, double x, double y, double heading) {
+        canvas.strokeCircle(x, y, ROBOT_RADIUS);
+        double vx = Math.cos(heading) * ROBOT_RADIUS, vy = Math.sin(heading) * ROBOT_RADIUS;
+        canvas.strokeLine(x + vx / 2, y + vy / 2, x + vx, y + vy);
+    }
 }
@@ -0,0 +1,42 @@
+package org.firstinspires.ftc.teamcode.roadrunner.util;
+
+import androidx.annotation.NonNull;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A fixed size {@code List<Double>} over a double array, for handing primitive readings to RoadRunner code that
+ * wants lists. Values are only boxed when they are read.
+ */
+public final class DoubleArrayList extends AbstractList<Double> implements RandomAccess {
+    private final double[] values;
+
+    private DoubleArrayList(double[] values) {
+        this.values = values;
+    }
+
+    /**
+     * @param values The values, which shouldn't be filled again while the list is in use. RoadRunner's localizers
+     *               keep the last list they were given to find the change from it, so give them a new array each time
+     * @return A list that reads straight from the array
+     */
+    public static DoubleArrayList wrap(double[] values) {
+        return new DoubleArrayList(values);
+    }
+
+    @NonNull
+    @Override
+    public Double get(int index) {
+        return values[index];
+    }
+
+    public double getDouble(int index) {
+        return values[index];
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+}
@@ -11,7 +11,7 @@ import com.qualcomm.robotcore.hardware.DcMotorSimple;
 public class Encoder {
     private final static int CPS_STEP = 0x10000;
 
-    private static double inverseOverflow(double input, double estimate) {
+    public static double inverseOverflow(double input, double estimate) {
         // convert to uint16
         int real = (int) input & 0xffff;
         // initial, modulo-based correction: it can recover the remainder of 5 of the upper 16 bits
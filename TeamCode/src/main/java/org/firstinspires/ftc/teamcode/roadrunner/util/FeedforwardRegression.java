@@ -0,0 +1,422 @@
+package org.firstinspires.ftc.teamcode.roadrunner.util;
+
+import androidx.annotation.Nullable;
+
+import com.qualcomm.robotcore.util.RobotLog;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Fits kV, kA and kStatic together over many drive runs, in either direction, with a robust regression. Each
+ * sample is modelled as
+ * <pre>
+ *     power = kV * velocity + kA * acceleration + kStatic * sign(velocity)
+ * </pre>
+ * and fit with a Huber M-estimator by iteratively reweighted least squares, so samples thrown off by wheel slip or
+ * a bad encoder read are given less weight instead of dragging the fit. The samples are kept in primitive arrays.
+ * <p>
+ * The confidence intervals come from the covariance of the weighted fit, so they are only approximate when many
+ * samples were down weighted.
+ */
+public class FeedforwardRegression {
+    private static final String TAG = "FeedforwardRegression";
+
+    // the usual Huber tuning, 95% as efficient as least squares when there are no outliers
+    private static final double HUBER_K = 1.345;
+    // a position this many standard deviations off the local fit is taken as a bad encoder read
+    private static final double REJECT_K = 4;
+    // scales the median absolute deviation to a standard deviation for normal noise
+    private static final double MAD_TO_STANDARD_DEVIATION = 1.4826;
+    private static final double Z_95 = 1.96;
+    private static final int MAX_ITERATIONS = 50;
+    private static final int WINDOW_ITERATIONS = 6;
+    private static final double TOLERANCE = 1e-9;
+
+    // samples slower than this are left out, since the sign of kStatic is unclear near zero, in in/s
+    private static final double MIN_VELOCITY = 1.0;
+
+    /**
+     * How many samples on each side of a sample the position is fit over to find its velocity and acceleration.
+     * Differentiating twice between neighbours amplifies the encoder noise so much that kA is lost in it.
+     */
+    private final int smoothing;
+
+    /**
+     * The samples of one run, recorded into primitive arrays that grow as needed.
+     */
+    public static class Run {
+        private double[] times = new double[512];
+        private double[] positions = new double[512];
+        private double[] powers = new double[512];
+        private int size;
+
+        public void add(double time, double position, double power) {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                positions = Arrays.copyOf(positions, size * 2);
+                powers = Arrays.copyOf(powers, size * 2);
+            }
+            times[size] = time;
+            positions[size] = position;
+            powers[size] = power;
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Writes the samples as CSV.
+         *
+         * @param file The log file
+         * @return Whether the file could be written, why not is in the robot log
+         */
+        public boolean write(File file) {
+            try (PrintWriter pw = new PrintWriter(file)) {
+                pw.println("time,position,power");
+                for (int i = 0; i < size; i++) {
+                    pw.println(times[i] + "," + positions[i] + "," + powers[i]);
+                }
+                return true;
+            } catch (FileNotFoundException e) {
+                RobotLog.ee(TAG, e, "Unable to write " + file);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Feedforward parameter estimates with the half widths of their 95% confidence intervals
+     */
+    public static class Result {
+        public final double kV, kA, kStatic;
+        public final double kVError, kAError, kStaticError;
+        public final double rSquare;
+        public final int runs, samples, downWeighted;
+
+        Result(double kV, double kA, double kStatic, double kVError, double kAError, double kStaticError,
+               double rSquare, int runs, int samples, int downWeighted) {
+            this.kV = kV;
+            this.kA = kA;
+            this.kStatic = kStatic;
+            this.kVError = kVError;
+            this.kAError = kAError;
+            this.kStaticError = kStaticError;
+            this.rSquare = rSquare;
+            this.runs = runs;
+            this.samples = samples;
+            this.downWeighted = downWeighted;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "kV = %.6f +/- %.6f%nkA = %.6f +/- %.6f%nkStatic = %.6f +/- %.6f%n" +
+                    "R^2 = %.4f, %d runs, %d samples, %d down weighted",
+                    kV, kVError, kA, kAError, kStatic, kStaticError, rSquare, runs, samples, downWeighted);
+        }
+    }
+
+    private double[] velocities = new double[1024];
+    private double[] accelerations = new double[1024];
+    private double[] powers = new double[1024];
+    private double[] weights = new double[1024];
+    private int size;
+    private int runs;
+
+    /**
+     * @param smoothing How many samples on each side of a sample the position is fit over to differentiate it
+     */
+    public FeedforwardRegression(int smoothing) {
+        this.smoothing = smoothing;
+    }
+
+    public FeedforwardRegression() {
+        this(5);
+    }
+
+    /**
+     * Adds the samples of a run, finding the velocity and acceleration of each by fitting a parabola to the
+     * positions around it (a Savitzky-Golay filter that allows uneven loop times). The parabola is fit robustly
+     * too, so a glitched encoder read doesn't spread into the velocity and acceleration of its neighbours.
+     *
+     * @param run The run, with the position in inches and the power as sent to the drive
+     */
+    public void addRun(Run run) {
+        int count = run.size;
+        if (count < 2 * smoothing + 1) return;
+        runs++;
+
+        int window = 2 * smoothing + 1;
+        double[] normal = new double[9];
+        double[] rhs = new double[3];
+        double[] parabola = new double[3];
+        double[] windowWeights = new double[window];
+        double[] windowResiduals = new double[window];
+        double[] sortedResiduals = new double[window];
+        // the ends don't have a full window around them
+        for (int i = smoothing; i < count - smoothing; i++) {
+            Arrays.fill(windowWeights, 1);
+            boolean isSolved = false;
+            for (int iteration = 0; iteration < WINDOW_ITERATIONS; iteration++) {
+                Arrays.fill(normal, 0);
+                Arrays.fill(rhs, 0);
+                for (int k = 0; k < window; k++) {
+                    int j = i - smoothing + k;
+                    double w = windowWeights[k];
+                    double dt = run.times[j] - run.times[i];
+                    double dt2 = dt * dt;
+                    normal[0] += w;
+                    normal[1] += w * dt;
+                    normal[2] += w * dt2;
+                    normal[5] += w * dt2 * dt;
+                    normal[8] += w * dt2 * dt2;
+                    rhs[0] += w * run.positions[j];
+                    rhs[1] += w * dt * run.positions[j];
+                    rhs[2] += w * dt2 * run.positions[j];
+                }
+                normal[3] = normal[1];
+                normal[4] = normal[2];
+                normal[6] = normal[2];
+                normal[7] = normal[5];
+                isSolved = solve(normal, rhs, parabola, 3);
+                if (!isSolved) break;
+
+                for (int k = 0; k < window; k++) {
+                    double dt = run.times[i - smoothing + k] - run.times[i];
+                    double fit = parabola[0] + parabola[1] * dt + parabola[2] * dt * dt;
+                    windowResiduals[k] = Math.abs(run.positions[i - smoothing + k] - fit);
+                }
+                if (!updateWeights(windowResiduals, sortedResiduals, windowWeights, window, true)) break;
+            }
+            if (!isSolved) continue;
+
+            double velocity = parabola[1];
+            if (Math.abs(velocity) < MIN_VELOCITY) continue;
+            add(velocity, 2 * parabola[2], run.powers[i]);
+        }
+    }
+
+    private void add(double velocity, double acceleration, double power) {
+        if (size == velocities.length) {
+            velocities = Arrays.copyOf(velocities, size * 2);
+            accelerations = Arrays.copyOf(accelerations, size * 2);
+            powers = Arrays.copyOf(powers, size * 2);
+            weights = Arrays.copyOf(weights, size * 2);
+        }
+        velocities[size] = velocity;
+        accelerations[size] = acceleration;
+        powers[size] = power;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param fitAccel Whether to fit kA, the runs should include changes in acceleration if so
+     * @param fitStatic Whether to fit kStatic
+     * @return The fit, with the parameters that weren't fit at 0, or null if there aren't enough samples
+     */
+    @Nullable
+    public Result fit(boolean fitAccel, boolean fitStatic) {
+        // columns: velocity, then acceleration and the sign of the velocity if they are fit
+        int parameters = 1 + (fitAccel ? 1 : 0) + (fitStatic ? 1 : 0);
+        if (size <= parameters) return null;
+
+        double[] row = new double[parameters];
+        double[] normal = new double[parameters * parameters];
+        double[] rhs = new double[parameters];
+        double[] coefficients = new double[parameters];
+        double[] lastCoefficients = new double[parameters];
+        double[] absResiduals = new double[size];
+        double[] sortedResiduals = new double[size];
+
+        Arrays.fill(weights, 0, size, 1);
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            buildNormalEquations(row, normal, rhs, fitAccel, fitStatic);
+            if (!solve(normal, rhs, coefficients, parameters)) return null;
+
+            for (int i = 0; i < size; i++) {
+                fillRow(row, i, fitAccel, fitStatic);
+                absResiduals[i] = Math.abs(powers[i] - dot(row, coefficients));
+            }
+            if (!updateWeights(absResiduals, sortedResiduals, weights, size, false)) break;
+
+            if (iteration > 0 && hasConverged(coefficients, lastCoefficients)) break;
+            System.arraycopy(coefficients, 0, lastCoefficients, 0, parameters);
+        }
+
+        // the covariance of the coefficients is the residual variance times the inverse of the normal matrix
+        buildNormalEquations(row, normal, rhs, fitAccel, fitStatic);
+        double weightedSquares = 0, weightSum = 0, weightedPower = 0;
+        int downWeighted = 0;
+        for (int i = 0; i < size; i++) {
+            fillRow(row, i, fitAccel, fitStatic);
+            double residual = powers[i] - dot(row, coefficients);
+            weightedSquares += weights[i] * residual * residual;
+            weightSum += weights[i];
+            weightedPower += weights[i] * powers[i];
+            if (weights[i] < 1) downWeighted++;
+        }
+        double meanPower = weightedPower / weightSum;
+        double totalSquares = 0;
+        for (int i = 0; i < size; i++) {
+            totalSquares += weights[i] * (powers[i] - meanPower) * (powers[i] - meanPower);
+        }
+        double residualVariance = weightedSquares / (size - parameters);
+
+        double[] errors = new double[parameters];
+        double[] unit = new double[parameters];
+        double[] column = new double[parameters];
+        for (int j = 0; j < parameters; j++) {
+            Arrays.fill(unit, 0);
+            unit[j] = 1;
+            if (!solve(normal.clone(), unit, column, parameters)) return null;
+            errors[j] = Z_95 * Math.sqrt(Math.max(0, residualVariance * column[j]));
+        }
+
+        int accelIndex = fitAccel ? 1 : -1;
+        int staticIndex = fitStatic ? parameters - 1 : -1;
+        return new Result(
+                coefficients[0],
+                accelIndex >= 0 ? coefficients[accelIndex] : 0,
+                staticIndex >= 0 ? coefficients[staticIndex] : 0,
+                errors[0],
+                accelIndex >= 0 ? errors[accelIndex] : 0,
+                staticIndex >= 0 ? errors[staticIndex] : 0,
+                totalSquares > 0 ? 1 - weightedSquares / totalSquares : 1,
+                runs, size, downWeighted
+        );
+    }
+
+    /**
+     * Writes the fit and every sample with its final weight.
+     *
+     * @param result The result of {@link #fit}
+     * @param file The log file
+     * @return Whether the file could be written, why not is in the robot log
+     */
+    public boolean write(Result result, File file) {
+        try (PrintWriter pw = new PrintWriter(file)) {
+            for (String line : result.toString().split(String.format("%n"))) {
+                pw.println("# " + line);
+            }
+            pw.println("velocity,acceleration,power,weight");
+            for (int i = 0; i < size; i++) {
+                pw.println(velocities[i] + "," + accelerations[i] + "," + powers[i] + "," + weights[i]);
+            }
+            return true;
+        } catch (FileNotFoundException e) {
+            RobotLog.ee(TAG, e, "Unable to write " + file);
+            return false;
+        }
+    }
+
+    /**
+     * Sets the Huber weight of each residual, with the scale of the residuals taken from their median so the
+     * outliers don't inflate it.
+     *
+     * @param isRejecting Whether residuals far outside the scale are given no weight at all
+     * @return False if the residuals are all but zero, so there is nothing to weight
+     */
+    private static boolean updateWeights(
+            double[] absResiduals, double[] sorted, double[] weights, int count, boolean isRejecting
+    ) {
+        System.arraycopy(absResiduals, 0, sorted, 0, count);
+        Arrays.sort(sorted, 0, count);
+        double scale = MAD_TO_STANDARD_DEVIATION * sorted[count / 2];
+        if (scale == 0) return false;
+
+        double limit = HUBER_K * scale;
+        for (int i = 0; i < count; i++) {
+            if (isRejecting && absResiduals[i] > REJECT_K * scale) {
+                weights[i] = 0;
+            } else {
+                weights[i] = absResiduals[i] <= limit ? 1 : limit / absResiduals[i];
+            }
+        }
+        return true;
+    }
+
+    private void fillRow(double[] row, int i, boolean fitAccel, boolean fitStatic) {
+        int j = 0;
+        row[j++] = velocities[i];
+        if (fitAccel) row[j++] = accelerations[i];
+        if (fitStatic) row[j] = Math.signum(velocities[i]);
+    }
+
+    // X^T W X and X^T W y
+    private void buildNormalEquations(double[] row, double[] normal, double[] rhs, boolean fitAccel, boolean fitStatic) {
+        int parameters = row.length;
+        Arrays.fill(normal, 0);
+        Arrays.fill(rhs, 0);
+        for (int i = 0; i < size; i++) {
+            fillRow(row, i, fitAccel, fitStatic);
+            double weight = weights[i];
+            for (int j = 0; j < parameters; j++) {
+                rhs[j] += weight * row[j] * powers[i];
+                for (int k = 0; k < parameters; k++) {
+                    normal[j * parameters + k] += weight * row[j] * row[k];
+                }
+            }
+        }
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) sum += a[i] * b[i];
+        return sum;
+    }
+
+    private static boolean hasConverged(double[] coefficients, double[] lastCoefficients) {
+        for (int i = 0; i < coefficients.length; i++) {
+            double change = Math.abs(coefficients[i] - lastCoefficients[i]);
+            if (change > TOLERANCE * Math.max(1, Math.abs(coefficients[i]))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Solves a small system by Gaussian elimination with partial pivoting. The matrix is changed.
+     *
+     * @return False if the matrix is singular, such as when a parameter can't be told apart from another
+     */
+    private static boolean solve(double[] matrix, double[] rhs, double[] solution, int n) {
+        double[] b = rhs.clone();
+        for (int column = 0; column < n; column++) {
+            int pivot = column;
+            for (int r = column + 1; r < n; r++) {
+                if (Math.abs(matrix[r * n + column]) > Math.abs(matrix[pivot * n + column])) pivot = r;
+            }
+            if (Math.abs(matrix[pivot * n + column]) < 1e-12) return false;
+            if (pivot != column) {
+                for (int k = 0; k < n; k++) {
+                    double temp = matrix[column * n + k];
+                    matrix[column * n + k] = matrix[pivot * n + k];
+                    matrix[pivot * n + k] = temp;
+                }
+                double temp = b[column];
+                b[column] = b[pivot];
+                b[pivot] = temp;
+            }
+            for (int r = column + 1; r < n; r++) {
+                double factor = matrix[r * n + column] / matrix[column * n + column];
+                for (int k = column; k < n; k++) matrix[r * n + k] -= factor * matrix[column * n + k];
+                b[r] -= factor * b[column];
+            }
+        }
+        for (int r = n - 1; r >= 0; r--) {
+            double sum = b[r];
+            for (int k = r + 1; k < n; k++) sum -= matrix[r * n + k] * solution[k];
+            solution[r] = sum / matrix[r * n + r];
+        }
+        return true;
+    }
+}
@@ -0,0 +1,54 @@
+package org.firstinspires.ftc.teamcode.roadrunner.util;
+
+import androidx.annotation.NonNull;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A {@code List<Integer>} over an int array that can be cleared and filled again without allocating, used for the
+ * last encoder readings that are shared with the log. Values added with {@link #addInt} and read with
+ * {@link #getInt} are never boxed.
+ */
+public final class IntArrayList extends AbstractList<Integer> implements RandomAccess {
+    private int[] values;
+    private int size;
+
+    /** @param capacity How many values fit before the array has to grow */
+    public IntArrayList(int capacity) {
+        values = new int[capacity];
+    }
+
+    public void addInt(int value) {
+        if (size == values.length) values = Arrays.copyOf(values, Math.max(4, size * 2));
+        values[size++] = value;
+    }
+
+    public int getInt(int index) {
+        if (index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        return values[index];
+    }
+
+    @Override
+    public boolean add(Integer value) {
+        addInt(value);
+        return true;
+    }
+
+    @NonNull
+    @Override
+    public Integer get(int index) {
+        return getInt(index);
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,107 @@
+package org.firstinspires.ftc.teamcode.roadrunner.util;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Growable columns of primitives for the samples of a {@link LogFiles.LogFile}. Values are stored in fixed size
+ * chunks, so adding a value never boxes it or copies what is already there, and only allocates when a new chunk is
+ * needed. Each column is written to JSON as a plain array, the same as a list of boxed values would be.
+ */
+public final class LogColumns {
+    /** How many values are stored in each chunk */
+    static final int CHUNK_SIZE = 1024;
+
+    private LogColumns() {
+
+    }
+
+    public static final class DoubleColumn {
+        private final List<double[]> chunks = new ArrayList<>();
+        private int size;
+
+        public void add(double value) {
+            int chunk = size / CHUNK_SIZE;
+            if (chunk == chunks.size()) chunks.add(new double[CHUNK_SIZE]);
+            chunks.get(chunk)[size % CHUNK_SIZE] = value;
+            size++;
+        }
+
+        public double get(int index) {
+            return chunks.get(index / CHUNK_SIZE)[index % CHUNK_SIZE];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        @JsonValue
+        public double[] toArray() {
+            double[] array = new double[size];
+            for (int i = 0; i < size; i += CHUNK_SIZE) {
+                System.arraycopy(chunks.get(i / CHUNK_SIZE), 0, array, i, Math.min(CHUNK_SIZE, size - i));
+            }
+            return array;
+        }
+    }
+
+    public static final class LongColumn {
+        private final List<long[]> chunks = new ArrayList<>();
+        private int size;
+
+        public void add(long value) {
+            int chunk = size / CHUNK_SIZE;
+            if (chunk == chunks.size()) chunks.add(new long[CHUNK_SIZE]);
+            chunks.get(chunk)[size % CHUNK_SIZE] = value;
+            size++;
+        }
+
+        public long get(int index) {
+            return chunks.get(index / CHUNK_SIZE)[index % CHUNK_SIZE];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        @JsonValue
+        public long[] toArray() {
+            long[] array = new long[size];
+            for (int i = 0; i < size; i += CHUNK_SIZE) {
+                System.arraycopy(chunks.get(i / CHUNK_SIZE), 0, array, i, Math.min(CHUNK_SIZE, size - i));
+            }
+            return array;
+        }
+    }
+
+    public static final class IntColumn {
+        private final List<int[]> chunks = new ArrayList<>();
+        private int size;
+
+        public void add(int value) {
+            int chunk = size / CHUNK_SIZE;
+            if (chunk == chunks.size()) chunks.add(new int[CHUNK_SIZE]);
+            chunks.get(chunk)[size % CHUNK_SIZE] = value;
+            size++;
+        }
+
+        public int get(int index) {
+            return chunks.get(index / CHUNK_SIZE)[index % CHUNK_SIZE];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        @JsonValue
+        public int[] toArray() {
+            int[] array = new int[size];
+            for (int i = 0; i < size; i += CHUNK_SIZE) {
+                System.arraycopy(chunks.get(i / CHUNK_SIZE), 0, array, i, Math.min(CHUNK_SIZE, size - i));
+            }
+            return array;
+        }
+    }
+}
@@ -20,17 +20,23 @@ import org.firstinspires.ftc.teamcode.roadrunner.drive.DriveConstants;
 import org.firstinspires.ftc.teamcode.roadrunner.drive.SampleMecanumDrive;
 import org.firstinspires.ftc.teamcode.roadrunner.drive.SampleTankDrive;
 import org.firstinspires.ftc.teamcode.roadrunner.drive.StandardTrackingWheelLocalizer;
+import org.firstinspires.ftc.teamcode.roadrunner.util.LogColumns.DoubleColumn;
+import org.firstinspires.ftc.teamcode.roadrunner.util.LogColumns.IntColumn;
+import org.firstinspires.ftc.teamcode.roadrunner.util.LogColumns.LongColumn;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
-import java.util.Objects;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import fi.iki.elonen.NanoHTTPD;
 
@@ -38,7 +44,8 @@ public final class LogFiles {
     private static final File ROOT =
             new File(AppUtil.ROOT_FOLDER + "/RoadRunner/logs/");
 
-    public static LogFile log = new LogFile("uninitialized");
+    private static volatile BinaryLogWriter writer;
+    private static LogRetention retention;
 
     public static class LogFile {
         public String version = "quickstart1 v2";
@@ -93,22 +100,23 @@ public final class LogFiles {
         public RevHubOrientationOnRobot.LogoFacingDirection LOGO_FACING_DIR = DriveConstants.LOGO_FACING_DIR;
         public RevHubOrientationOnRobot.UsbFacingDirection USB_FACING_DIR = DriveConstants.USB_FACING_DIR;
 
-        public List<Long> nsTimes = new ArrayList<>();
+        // the samples are written to a binary log as they come in, these are only filled in by BinaryLogReader
+        public LongColumn nsTimes = new LongColumn();
 
-        public List<Double> targetXs = new ArrayList<>();
-        public List<Double> targetYs = new ArrayList<>();
-        public List<Double> targetHeadings = new ArrayList<>();
+        public DoubleColumn targetXs = new DoubleColumn();
+        public DoubleColumn targetYs = new DoubleColumn();
+        public DoubleColumn targetHeadings = new DoubleColumn();
 
-        public List<Double> xs = new ArrayList<>();
-        public List<Double> ys = new ArrayList<>();
-        public List<Double> headings = new ArrayList<>();
+        public DoubleColumn xs = new DoubleColumn();
+        public DoubleColumn ys = new DoubleColumn();
+        public DoubleColumn headings = new DoubleColumn();
 
-        public List<Double> voltages = new ArrayList<>();
+        public DoubleColumn voltages = new DoubleColumn();
 
-        public List<List<Integer>> driveEncPositions = new ArrayList<>();
-        public List<List<Integer>> driveEncVels = new ArrayList<>();
-        public List<List<Integer>> trackingEncPositions = new ArrayList<>();
-        public List<List<Integer>> trackingEncVels = new ArrayList<>();
+        public List<IntColumn> driveEncPositions = new ArrayList<>();
+        public List<IntColumn> driveEncVels = new ArrayList<>();
+        public List<IntColumn> trackingEncPositions = new ArrayList<>();
+        public List<IntColumn> trackingEncVels = new ArrayList<>();
 
         public LogFile(String opModeName) {
             this.opModeName = opModeName;
@@ -119,47 +127,23 @@ public final class LogFiles {
             Pose2d targetPose, Pose2d pose, double voltage,
             List<Integer> lastDriveEncPositions, List<Integer> lastDriveEncVels, List<Integer> lastTrackingEncPositions, List<Integer> lastTrackingEncVels
     ) {
-        long nsTime = System.nanoTime();
-        if (nsTime - log.nsStart > 3 * 60 * 1_000_000_000L) {
-            return;
-        }
-
-        log.nsTimes.add(nsTime);
-
-        log.targetXs.add(targetPose.getX());
-        log.targetYs.add(targetPose.getY());
-        log.targetHeadings.add(targetPose.getHeading());
-
-        log.xs.add(pose.getX());
-        log.ys.add(pose.getY());
-        log.headings.add(pose.getHeading());
-
-        log.voltages.add(voltage);
-
-        while (log.driveEncPositions.size() < lastDriveEncPositions.size()) {
-            log.driveEncPositions.add(new ArrayList<>());
-        }
-        while (log.driveEncVels.size() < lastDriveEncVels.size()) {
-            log.driveEncVels.add(new ArrayList<>());
-        }
-        while (log.trackingEncPositions.size() < lastTrackingEncPositions.size()) {
-            log.trackingEncPositions.add(new ArrayList<>());
-        }
-        while (log.trackingEncVels.size() < lastTrackingEncVels.size()) {
-            log.trackingEncVels.add(new ArrayList<>());
-        }
+        record(
+                targetPose.getX(), targetPose.getY(), targetPose.getHeading(),
+                pose.getX(), pose.getY(), pose.getHeading(), voltage,
+                lastDriveEncPositions, lastDriveEncVels, lastTrackingEncPositions, lastTrackingEncVels
+        );
+    }
 
-        for (int i = 0; i < lastDriveEncPositions.size(); i++) {
-            log.driveEncPositions.get(i).add(lastDriveEncPositions.get(i));
-        }
-        for (int i = 0; i < lastDriveEncVels.size(); i++) {
-            log.driveEncVels.get(i).add(lastDriveEncVels.get(i));
-        }
-        for (int i = 0; i < lastTrackingEncPositions.size(); i++) {
-            log.trackingEncPositions.get(i).add(lastTrackingEncPositions.get(i));
-        }
-        for (int i = 0; i < lastTrackingEncVels.size(); i++) {
-            log.trackingEncVels.get(i).add(lastTrackingEncVels.get(i));
+    public static void record(
+            double targetX, double targetY, double targetHeading, double x, double y, double heading, double voltage,
+            List<Integer> lastDriveEncPositions, List<Integer> lastDriveEncVels, List<Integer> lastTrackingEncPositions, List<Integer> lastTrackingEncVels
+    ) {
+        BinaryLogWriter writer = LogFiles.writer;
+        if (writer != null) {
+            writer.record(
+                    targetX, targetY, targetHeading, x, y, heading, voltage,
+                    lastDriveEncPositions, lastDriveEncVels, lastTrackingEncPositions, lastTrackingEncVels
+            );
         }
     }
 
@@ -167,52 +151,48 @@ public final class LogFiles {
         @SuppressLint("SimpleDateFormat")
         final DateFormat dateFormat = new SimpleDateFormat("yyyy_MM_dd__HH_mm_ss_SSS");
 
-        final ObjectWriter jsonWriter = new ObjectMapper(new JsonFactory())
-                .writerWithDefaultPrettyPrinter();
+        final ObjectWriter jsonWriter = new ObjectMapper(new JsonFactory()).writer();
 
         @Override
         public void onOpModePreInit(OpMode opMode) {
-            log = new LogFile(opMode.getClass().getCanonicalName());
-
-            // clean up old files
-            File[] fs = Objects.requireNonNull(ROOT.listFiles());
-            Arrays.sort(fs, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
-            long totalSizeBytes = 0;
-            for (File f : fs) {
-                totalSizeBytes += f.length();
-            }
+            closeWriter();
+
+            if (!(opMode instanceof OpModeManagerImpl.DefaultOpMode)) {
+                //noinspection ResultOfMethodCallIgnored
+                ROOT.mkdirs();
 
-            int i = 0;
-            while (i < fs.length && totalSizeBytes >= 32 * 1000 * 1000) {
-                totalSizeBytes -= fs[i].length();
-                if (!fs[i].delete()) {
-                    RobotLog.setGlobalErrorMsg("Unable to delete file " + fs[i].getAbsolutePath());
+                LogFile log = new LogFile(opMode.getClass().getCanonicalName());
+                String filename = dateFormat.format(new Date(log.msInit)) + "__" + opMode.getClass().getSimpleName() + BinaryLogWriter.EXTENSION;
+                File file = new File(ROOT, filename);
+                try {
+                    writer = new BinaryLogWriter(file, jsonWriter.writeValueAsString(log));
+                    // old files are cleaned up by the retention thread once this log is finished
+                    retention.add(writer, log.opModeName, log.msInit);
+                } catch (IOException e) {
+                    RobotLog.setGlobalErrorMsg(new RuntimeException(e),
+                            "Unable to write data to " + file.getAbsolutePath());
                 }
-                ++i;
             }
         }
 
         @Override
         public void onOpModePreStart(OpMode opMode) {
-            log.nsStart = System.nanoTime();
+            if (writer != null) {
+                writer.start(System.nanoTime());
+            }
         }
 
         @Override
         public void onOpModePostStop(OpMode opMode) {
-            log.nsStop = System.nanoTime();
-
-            if (!(opMode instanceof OpModeManagerImpl.DefaultOpMode)) {
-                //noinspection ResultOfMethodCallIgnored
-                ROOT.mkdirs();
+            closeWriter();
+        }
 
-                String filename = dateFormat.format(new Date(log.msInit)) + "__" + opMode.getClass().getSimpleName() + ".json";
-                File file = new File(ROOT, filename);
-                try {
-                    jsonWriter.writeValue(file, log);
-                } catch (IOException e) {
-                    RobotLog.setGlobalErrorMsg(new RuntimeException(e),
-                            "Unable to write data to " + file.getAbsolutePath());
-                }
+        // the writer thread finishes the file on its own, so stopping doesn't wait for it
+        private void closeWriter() {
+            if (writer != null) {
+                writer.close(System.nanoTime());
+                retention.finish(writer);
+                writer = null;
             }
         }
     };
@@ -221,6 +201,9 @@ public final class LogFiles {
     public static void registerRoutes(Context context, WebHandlerManager manager) {
         //noinspection ResultOfMethodCallIgnored
         ROOT.mkdirs();
+        if (retention == null) {
+            retention = new LogRetention(ROOT);
+        }
 
         // op mode manager only stores a weak reference, so we need to keep notifHandler alive ourselves
         // don't use @OnCreateEventLoop because it's unreliable
@@ -231,16 +214,24 @@ public final class LogFiles {
         manager.register("/logs", session -> {
             final StringBuilder sb = new StringBuilder();
             sb.append("<!doctype html><html><head><title>Logs</title></head><body><ul>");
-            File[] fs = Objects.requireNonNull(ROOT.listFiles());
-            Arrays.sort(fs, (a, b) -> Long.compare(b.lastModified(), a.lastModified()));
-            for (File f : fs) {
+            for (LogRetention.Entry entry : retention.getLogs()) {
+                String jsonName = getJsonName(entry.name);
                 sb.append("<li><a href=\"/logs/download?file=");
-                sb.append(f.getName());
+                sb.append(entry.name);
                 sb.append("\" download=\"");
-                sb.append(f.getName());
+                sb.append(jsonName);
                 sb.append("\">");
-                sb.append(f.getName());
-                sb.append("</a></li>");
+                sb.append(jsonName);
+                sb.append("</a> (<a href=\"/logs/download?file=");
+                sb.append(entry.name);
+                sb.append("&format=gzip\" download=\"");
+                sb.append(jsonName);
+                sb.append(LogRetention.GZIP_EXTENSION);
+                sb.append("\">gzip</a>) ");
+                sb.append(entry.opModeName);
+                sb.append(", ");
+                sb.append(entry.sizeBytes / 1000);
+                sb.append(" kB</li>");
             }
             sb.append("</ul></body></html>");
             return NanoHTTPD.newFixedLengthResponse(NanoHTTPD.Response.Status.OK,
@@ -248,26 +239,81 @@ public final class LogFiles {
         });
 
         manager.register("/logs/download", session -> {
-            final String[] pairs = session.getQueryParameterString().split("&");
-            if (pairs.length != 1) {
-                return NanoHTTPD.newFixedLengthResponse(NanoHTTPD.Response.Status.BAD_REQUEST,
-                        NanoHTTPD.MIME_PLAINTEXT, "expected one query parameter, got " + pairs.length);
+            String filename = null;
+            boolean isGzip = false;
+            for (String pair : session.getQueryParameterString().split("&")) {
+                final String[] parts = pair.split("=");
+                if (parts.length != 2) {
+                    return NanoHTTPD.newFixedLengthResponse(NanoHTTPD.Response.Status.BAD_REQUEST,
+                            NanoHTTPD.MIME_PLAINTEXT, "expected key=value query parameter, got " + pair);
+                }
+                if (parts[0].equals("file")) {
+                    filename = parts[1];
+                } else if (parts[0].equals("format") && parts[1].equals("gzip")) {
+                    isGzip = true;
+                } else {
+                    return NanoHTTPD.newFixedLengthResponse(NanoHTTPD.Response.Status.BAD_REQUEST,
+                            NanoHTTPD.MIME_PLAINTEXT, "unexpected query parameter " + pair);
+                }
             }
-
-            final String[] parts = pairs[0].split("=");
-            if (!parts[0].equals("file")) {
+            if (filename == null) {
                 return NanoHTTPD.newFixedLengthResponse(NanoHTTPD.Response.Status.BAD_REQUEST,
-                        NanoHTTPD.MIME_PLAINTEXT, "expected file query parameter, got " + parts[0]);
+                        NanoHTTPD.MIME_PLAINTEXT, "expected file query parameter");
             }
 
-            File f = new File(ROOT, parts[1]);
+            File f = new File(ROOT, filename);
             if (!f.exists()) {
                 return NanoHTTPD.newFixedLengthResponse(NanoHTTPD.Response.Status.NOT_FOUND,
                         NanoHTTPD.MIME_PLAINTEXT, "file " + f + " doesn't exist");
             }
+            // the retention thread leaves the file alone until the stream is closed
+            InputStream in = retention.openForDownload(filename);
+            if (in == null) {
+                return NanoHTTPD.newFixedLengthResponse(NanoHTTPD.Response.Status.SERVICE_UNAVAILABLE,
+                        NanoHTTPD.MIME_PLAINTEXT, "file " + f + " is being compressed, try again in a moment");
+            }
+
+            boolean isCompressed = f.getName().endsWith(LogRetention.GZIP_EXTENSION);
+            String name = isCompressed ? f.getName().substring(0, f.getName().length() - LogRetention.GZIP_EXTENSION.length()) : f.getName();
+
+            // archived json logs are already what a compressed download should be
+            if (isGzip && isCompressed && !name.endsWith(BinaryLogWriter.EXTENSION)) {
+                return NanoHTTPD.newChunkedResponse(NanoHTTPD.Response.Status.OK,
+                        "application/gzip", in);
+            }
+
+            if (isCompressed) {
+                try {
+                    in = new GZIPInputStream(in);
+                } catch (IOException e) {
+                    in.close();
+                    throw e;
+                }
+            }
+            if (name.endsWith(BinaryLogWriter.EXTENSION)) {
+                // binary logs are converted when they are downloaded, so the tools that read the json still work
+                in = new ByteArrayInputStream(BinaryLogReader.toJson(in));
+            }
+
+            if (isGzip) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (InputStream json = in; OutputStream out = new GZIPOutputStream(bytes)) {
+                    byte[] buffer = new byte[8192];
+                    int length;
+                    while ((length = json.read(buffer)) != -1) {
+                        out.write(buffer, 0, length);
+                    }
+                }
+                return NanoHTTPD.newFixedLengthResponse(NanoHTTPD.Response.Status.OK,
+                        "application/gzip", new ByteArrayInputStream(bytes.toByteArray()), bytes.size());
+            }
 
             return NanoHTTPD.newChunkedResponse(NanoHTTPD.Response.Status.OK,
-                    "application/json", new FileInputStream(f));
+                    "application/json", in);
         });
     }
+
+    private static String getJsonName(String name) {
+        return LogRetention.stripExtensions(name) + ".json";
+    }
 }
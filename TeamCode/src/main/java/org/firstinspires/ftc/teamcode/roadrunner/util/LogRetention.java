@@ -0,0 +1,345 @@
+package org.firstinspires.ftc.teamcode.roadrunner.util;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qualcomm.robotcore.util.RobotLog;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps an index of the RoadRunner logs, so the folder doesn't have to be listed and sorted every time an op mode
+ * is initialized. Once a log is finished, all but the newest few are compressed with gzip, and the oldest are deleted
+ * while the folder is over {@link #MAX_TOTAL_BYTES}. All of this happens on a background thread; the index is
+ * rebuilt from the folder if it is missing. Logs that are still being written count as however much has been written
+ * so far. Downloads open logs through {@link #openForDownload}, so a log isn't compressed or deleted while it is being
+ * downloaded, and can't be downloaded while it is being compressed.
+ */
+public class LogRetention {
+    public static final String GZIP_EXTENSION = ".gz";
+
+    private static final String INDEX_NAME = "index.json";
+    /** How many of the newest logs are left uncompressed */
+    static final int UNCOMPRESSED_LOGS = 3;
+    private static final long MAX_TOTAL_BYTES = 32 * 1000 * 1000;
+
+    public static class Entry {
+        public String name;
+        public String opModeName;
+        public long msInit;
+        public long msStop;
+        public long sizeBytes;
+    }
+
+    public static class Index {
+        public int version = 1;
+        /** Oldest first */
+        public List<Entry> logs = new ArrayList<>();
+    }
+
+    private final File root;
+    private final File indexFile;
+    private final long maxTotalBytes;
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "RoadRunner log retention");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Only changed on the executor, read by the web handlers */
+    private Index index = new Index();
+
+    /** The writers of the logs that haven't been finished, by name, only used on the executor */
+    private final Map<String, BinaryLogWriter> openWriters = new HashMap<>();
+    /** How many downloads are reading each log, by name */
+    private final Map<String, Integer> downloads = new HashMap<>();
+    /** The logs that are being compressed */
+    private final Set<String> compressing = new HashSet<>();
+
+    /**
+     * Loads the index in the background.
+     *
+     * @param root The folder of the logs
+     */
+    public LogRetention(File root) {
+        this(root, MAX_TOTAL_BYTES);
+    }
+
+    /**
+     * @param root The folder of the logs
+     * @param maxTotalBytes How large the logs can be together before the oldest are deleted
+     */
+    LogRetention(File root, long maxTotalBytes) {
+        this.root = root;
+        this.maxTotalBytes = maxTotalBytes;
+        indexFile = new File(root, INDEX_NAME);
+        executor.execute(this::load);
+    }
+
+    /**
+     * Adds a log that is being written to the index.
+     *
+     * @param writer The writer of the log
+     * @param opModeName The name of the op mode writing it
+     * @param msInit When the op mode was initialized
+     */
+    public void add(BinaryLogWriter writer, String opModeName, long msInit) {
+        executor.execute(() -> {
+            openWriters.put(writer.getFile().getName(), writer);
+            Entry entry = new Entry();
+            entry.name = writer.getFile().getName();
+            entry.opModeName = opModeName;
+            entry.msInit = msInit;
+            synchronized (this) {
+                // The log was created before the index was rebuilt, so the folder already had it
+                index.logs.removeIf(log -> log.name.equals(entry.name));
+                index.logs.add(entry);
+            }
+            save();
+        });
+    }
+
+    /**
+     * Waits for a log to be written, then compresses and deletes old logs.
+     *
+     * @param writer The writer of the log, already closed
+     */
+    public void finish(BinaryLogWriter writer) {
+        executor.execute(() -> {
+            try {
+                writer.awaitFinished();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            File file = writer.getFile();
+            openWriters.remove(file.getName());
+            synchronized (this) {
+                for (Entry entry : index.logs) {
+                    if (entry.name.equals(file.getName())) {
+                        entry.msStop = System.currentTimeMillis();
+                        entry.sizeBytes = file.length();
+                    }
+                }
+            }
+            compressOldLogs();
+            deleteOldLogs();
+            save();
+        });
+    }
+
+    /**
+     * Opens a log to be downloaded. It won't be compressed or deleted until the stream is closed.
+     *
+     * @param name The name of the log
+     * @return The contents of the log, or null if it is being compressed and should be asked for again later
+     * @throws IOException If the log doesn't exist
+     */
+    public synchronized InputStream openForDownload(String name) throws IOException {
+        if (compressing.contains(name)) return null;
+
+        InputStream in = new FileInputStream(new File(root, name));
+        downloads.merge(name, 1, Integer::sum);
+        return new FilterInputStream(in) {
+            private boolean isClosed;
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    if (!isClosed) finishDownload(name);
+                    isClosed = true;
+                }
+            }
+        };
+    }
+
+    private synchronized void finishDownload(String name) {
+        int count = downloads.get(name) - 1;
+        if (count == 0) downloads.remove(name);
+        else downloads.put(name, count);
+    }
+
+    /** @return Whether a log is being downloaded or compressed, so it has to be left alone */
+    private synchronized boolean isInUse(String name) {
+        return downloads.containsKey(name) || compressing.contains(name);
+    }
+
+    /** @return The logs in the index, newest first */
+    public synchronized List<Entry> getLogs() {
+        List<Entry> logs = new ArrayList<>(index.logs);
+        Collections.reverse(logs);
+        return logs;
+    }
+
+    /**
+     * Waits for the background thread to do everything it has been given so far.
+     *
+     * @throws InterruptedException If the waiting thread is interrupted
+     */
+    void awaitIdle() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(done::countDown);
+        done.await();
+    }
+
+    private void load() {
+        if (indexFile.exists()) {
+            try {
+                Index loaded = mapper.readValue(indexFile, Index.class);
+                // Forget logs that were deleted by hand
+                loaded.logs.removeIf(entry -> !new File(root, entry.name).exists());
+                // Logs that were never finished are as long as they will get
+                for (Entry entry : loaded.logs) {
+                    if (entry.msStop == 0) {
+                        File file = new File(root, entry.name);
+                        entry.msStop = file.lastModified();
+                        entry.sizeBytes = file.length();
+                    }
+                }
+                synchronized (this) {
+                    index = loaded;
+                }
+                return;
+            } catch (IOException e) {
+                RobotLog.ww("LogFiles", "Unable to read " + indexFile + ", rebuilding it");
+            }
+        }
+
+        Index rebuilt = new Index();
+        File[] files = root.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().equals(INDEX_NAME) || file.getName().endsWith(".tmp")) continue;
+                Entry entry = new Entry();
+                entry.name = file.getName();
+                // Files are named date__OpMode.extension
+                String[] parts = stripExtensions(file.getName()).split("__");
+                entry.opModeName = parts[parts.length - 1];
+                entry.msInit = file.lastModified();
+                entry.msStop = file.lastModified();
+                entry.sizeBytes = file.length();
+                rebuilt.logs.add(entry);
+            }
+        }
+        rebuilt.logs.sort((a, b) -> Long.compare(a.msInit, b.msInit));
+        synchronized (this) {
+            index = rebuilt;
+        }
+        save();
+    }
+
+    /** Compresses the finished logs other than the newest ones. */
+    private void compressOldLogs() {
+        List<Entry> logs;
+        synchronized (this) {
+            logs = new ArrayList<>(index.logs);
+        }
+
+        for (int i = 0; i < logs.size() - UNCOMPRESSED_LOGS; i++) {
+            Entry entry = logs.get(i);
+            if (entry.name.endsWith(GZIP_EXTENSION) || entry.msStop == 0) continue;
+            // Logs that are being downloaded are compressed once a later log is finished
+            synchronized (this) {
+                if (isInUse(entry.name)) continue;
+                compressing.add(entry.name);
+            }
+
+            File file = new File(root, entry.name);
+            File compressed = new File(root, entry.name + GZIP_EXTENSION);
+            File temporary = new File(root, compressed.getName() + ".tmp");
+            try {
+                try (InputStream in = new FileInputStream(file);
+                     OutputStream out = new GZIPOutputStream(new FileOutputStream(temporary))) {
+                    byte[] buffer = new byte[8192];
+                    int length;
+                    while ((length = in.read(buffer)) != -1) out.write(buffer, 0, length);
+                }
+                if (!temporary.renameTo(compressed)) throw new IOException("Unable to rename " + temporary);
+            } catch (IOException e) {
+                RobotLog.setGlobalErrorMsg(new RuntimeException(e), "Unable to compress " + file.getAbsolutePath());
+                //noinspection ResultOfMethodCallIgnored
+                temporary.delete();
+                synchronized (this) {
+                    compressing.remove(entry.name);
+                }
+                continue;
+            }
+
+            synchronized (this) {
+                compressing.remove(entry.name);
+                entry.name = compressed.getName();
+                entry.sizeBytes = compressed.length();
+            }
+            if (!file.delete()) {
+                RobotLog.setGlobalErrorMsg("Unable to delete file " + file.getAbsolutePath());
+            }
+        }
+    }
+
+    /** Deletes the oldest finished logs that aren't being downloaded until the logs fit in the size limit. */
+    private void deleteOldLogs() {
+        long totalBytes = 0;
+        synchronized (this) {
+            for (Entry entry : index.logs) {
+                BinaryLogWriter writer = openWriters.get(entry.name);
+                if (writer != null) entry.sizeBytes = writer.getBytesWritten();
+                totalBytes += entry.sizeBytes;
+            }
+
+            Iterator<Entry> iterator = index.logs.iterator();
+            while (totalBytes > maxTotalBytes && iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.msStop == 0 || isInUse(entry.name)) continue;
+
+                File file = new File(root, entry.name);
+                if (!file.delete() && file.exists()) {
+                    RobotLog.setGlobalErrorMsg("Unable to delete file " + file.getAbsolutePath());
+                    continue;
+                }
+                totalBytes -= entry.sizeBytes;
+                iterator.remove();
+            }
+        }
+    }
+
+    /** Writes the index, replacing the old one only once it is complete. */
+    private void save() {
+        File temporary = new File(root, INDEX_NAME + ".tmp");
+        try {
+            synchronized (this) {
+                mapper.writeValue(temporary, index);
+            }
+            if (!temporary.renameTo(indexFile)) throw new IOException("Unable to rename " + temporary);
+        } catch (IOException e) {
+            RobotLog.setGlobalErrorMsg(new RuntimeException(e), "Unable to write " + indexFile.getAbsolutePath());
+        }
+    }
+
+    /** @return The name of a log without its extensions */
+    static String stripExtensions(String name) {
+        int dot = name.indexOf('.');
+        return dot == -1 ? name : name.substring(0, dot);
+    }
+}
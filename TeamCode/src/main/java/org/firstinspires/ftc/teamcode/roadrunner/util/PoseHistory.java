@@ -0,0 +1,68 @@
+package org.firstinspires.ftc.teamcode.roadrunner.util;
+
+/**
+ * The most recent positions of the robot, kept in a ring buffer of primitives so adding one doesn't allocate once
+ * the buffer is big enough for the limit.
+ */
+public class PoseHistory {
+    private double[] xs = new double[16];
+    private double[] ys = new double[16];
+    /** Where the oldest position is */
+    private int start;
+    private int size;
+
+    /**
+     * Adds a position, forgetting the oldest ones if there are more than the limit.
+     *
+     * @param x The x of the position
+     * @param y The y of the position
+     * @param limit The most positions to keep, -1 for no limit
+     */
+    public void add(double x, double y, int limit) {
+        if (limit == 0) {
+            clear();
+            return;
+        }
+        while (limit > -1 && size >= limit) {
+            start = (start + 1) % xs.length;
+            size--;
+        }
+        if (size == xs.length) grow();
+
+        int i = (start + size) % xs.length;
+        xs[i] = x;
+        ys[i] = y;
+        size++;
+    }
+
+    public void clear() {
+        start = 0;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** @return The x of a position, 0 being the oldest */
+    public double getX(int index) {
+        return xs[(start + index) % xs.length];
+    }
+
+    /** @return The y of a position, 0 being the oldest */
+    public double getY(int index) {
+        return ys[(start + index) % ys.length];
+    }
+
+    private void grow() {
+        double[] newXs = new double[xs.length * 2];
+        double[] newYs = new double[ys.length * 2];
+        for (int i = 0; i < size; i++) {
+            newXs[i] = getX(i);
+            newYs[i] = getY(i);
+        }
+        xs = newXs;
+        ys = newYs;
+        start = 0;
+    }
+}
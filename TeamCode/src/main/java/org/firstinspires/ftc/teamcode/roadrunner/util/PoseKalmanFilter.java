@@ -0,0 +1,212 @@
+package org.firstinspires.ftc.teamcode.roadrunner.util;
+
+import com.acmerobotics.roadrunner.util.Angle;
+
+/**
+ * An extended Kalman filter of the robot's pose on the field and its turn rate. The pose is moved by odometry in the
+ * robot's frame turned by the estimated heading, and the heading and turn rate are corrected by any sensor that
+ * measures them directly, like the IMU or the difference between the wheels. Every measurement is of one state, so a
+ * correction never has to invert a matrix.
+ * <p>
+ * The matrices are fixed 4x4 arrays stored row by row and updated in place, so predicting and correcting allocates
+ * nothing.
+ */
+public class PoseKalmanFilter {
+    public static final int X = 0;
+    public static final int Y = 1;
+    public static final int HEADING = 2;
+    public static final int HEADING_VELOCITY = 3;
+
+    private static final int SIZE = 4;
+
+    private final double[] state = new double[SIZE];
+    private final double[] covariance = new double[SIZE * SIZE];
+
+    // scratch space, so nothing is allocated per update
+    private final double[] jacobian = new double[SIZE * SIZE];
+    private final double[] product = new double[SIZE * SIZE];
+    private final double[] gain = new double[SIZE];
+    private final double[] measuredRow = new double[SIZE];
+
+    /**
+     * Starts the filter over from a known pose.
+     *
+     * @param x The x position, in inches
+     * @param y The y position, in inches
+     * @param heading The heading, in radians
+     * @param positionVariance How unsure the position is, in square inches
+     * @param headingVariance How unsure the heading is, in square radians
+     */
+    public void reset(double x, double y, double heading, double positionVariance, double headingVariance) {
+        state[X] = x;
+        state[Y] = y;
+        state[HEADING] = Angle.norm(heading);
+        state[HEADING_VELOCITY] = 0;
+
+        for (int i = 0; i < covariance.length; i++) covariance[i] = 0;
+        covariance[X * SIZE + X] = positionVariance;
+        covariance[Y * SIZE + Y] = positionVariance;
+        covariance[HEADING * SIZE + HEADING] = headingVariance;
+        covariance[HEADING_VELOCITY * SIZE + HEADING_VELOCITY] = 0;
+    }
+
+    /**
+     * Lets the turn rate change since the last update. Turn rate measurements of the interval should be corrected
+     * after this and before {@link #predictPose}, so the pose moves with the rate of this interval.
+     *
+     * @param variance How much the turn rate may have changed, in (rad/s)^2
+     */
+    public void predictHeadingVelocity(double variance) {
+        covariance[HEADING_VELOCITY * SIZE + HEADING_VELOCITY] += variance;
+    }
+
+    /**
+     * Moves the pose by how far odometry measured the robot moved, and turns it at the estimated turn rate.
+     *
+     * @param dx How far the robot moved forward, in inches
+     * @param dy How far the robot moved to the left, in inches
+     * @param dt How long the robot took, in seconds
+     * @param translationVariance How unsure each of dx and dy is, in square inches
+     */
+    public void predictPose(double dx, double dy, double dt, double translationVariance) {
+        double heading = state[HEADING];
+        double headingVelocity = state[HEADING_VELOCITY];
+
+        // the robot is turning while it moves, so its motion is turned by the heading halfway through
+        double midHeading = heading + headingVelocity * dt / 2;
+        double cos = Math.cos(midHeading);
+        double sin = Math.sin(midHeading);
+        double fieldDx = cos * dx - sin * dy;
+        double fieldDy = sin * dx + cos * dy;
+
+        state[X] += fieldDx;
+        state[Y] += fieldDy;
+        state[HEADING] = Angle.norm(heading + headingVelocity * dt);
+
+        setIdentity(jacobian);
+        jacobian[X * SIZE + HEADING] = -fieldDy;
+        jacobian[X * SIZE + HEADING_VELOCITY] = -fieldDy * dt / 2;
+        jacobian[Y * SIZE + HEADING] = fieldDx;
+        jacobian[Y * SIZE + HEADING_VELOCITY] = fieldDx * dt / 2;
+        jacobian[HEADING * SIZE + HEADING_VELOCITY] = dt;
+
+        // P = F P F^T + Q
+        multiply(jacobian, covariance, product);
+        multiplyTransposed(product, jacobian, covariance);
+
+        // the noise is the same along and across the robot, so turned onto the field it is still only on x and y
+        covariance[X * SIZE + X] += translationVariance;
+        covariance[Y * SIZE + Y] += translationVariance;
+        symmetrize(covariance);
+    }
+
+    /**
+     * @param heading The measured heading, in radians
+     * @param variance How unsure the measurement is, in square radians
+     */
+    public void correctHeading(double heading, double variance) {
+        correct(HEADING, Angle.normDelta(heading - state[HEADING]), variance);
+        state[HEADING] = Angle.norm(state[HEADING]);
+    }
+
+    /**
+     * @param headingVelocity The measured turn rate, in rad/s
+     * @param variance How unsure the measurement is, in (rad/s)^2
+     */
+    public void correctHeadingVelocity(double headingVelocity, double variance) {
+        correct(HEADING_VELOCITY, headingVelocity - state[HEADING_VELOCITY], variance);
+    }
+
+    // a measurement of a single state, so the innovation covariance is a number
+    private void correct(int index, double innovation, double variance) {
+        double innovationVariance = covariance[index * SIZE + index] + variance;
+        if (innovationVariance <= 0) return;
+
+        for (int i = 0; i < SIZE; i++) {
+            gain[i] = covariance[i * SIZE + index] / innovationVariance;
+            measuredRow[i] = covariance[index * SIZE + i];
+        }
+        for (int i = 0; i < SIZE; i++) {
+            state[i] += gain[i] * innovation;
+            // P = P - K H P, where H P is the measured row of P
+            for (int j = 0; j < SIZE; j++) {
+                covariance[i * SIZE + j] -= gain[i] * measuredRow[j];
+            }
+        }
+        symmetrize(covariance);
+    }
+
+    public double getX() {
+        return state[X];
+    }
+
+    public double getY() {
+        return state[Y];
+    }
+
+    public double getHeading() {
+        return state[HEADING];
+    }
+
+    public double getHeadingVelocity() {
+        return state[HEADING_VELOCITY];
+    }
+
+    /**
+     * @param index One of {@link #X}, {@link #Y}, {@link #HEADING} or {@link #HEADING_VELOCITY}
+     * @return How unsure the estimate of the state is
+     */
+    public double getVariance(int index) {
+        return getCovariance(index, index);
+    }
+
+    /**
+     * @param row One of {@link #X}, {@link #Y}, {@link #HEADING} or {@link #HEADING_VELOCITY}
+     * @param column One of {@link #X}, {@link #Y}, {@link #HEADING} or {@link #HEADING_VELOCITY}
+     * @return How the errors of the two states vary together
+     */
+    public double getCovariance(int row, int column) {
+        return covariance[row * SIZE + column];
+    }
+
+    private static void setIdentity(double[] matrix) {
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                matrix[i * SIZE + j] = i == j ? 1 : 0;
+            }
+        }
+    }
+
+    // out = a b
+    private static void multiply(double[] a, double[] b, double[] out) {
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                double sum = 0;
+                for (int k = 0; k < SIZE; k++) sum += a[i * SIZE + k] * b[k * SIZE + j];
+                out[i * SIZE + j] = sum;
+            }
+        }
+    }
+
+    // out = a b^T
+    private static void multiplyTransposed(double[] a, double[] b, double[] out) {
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                double sum = 0;
+                for (int k = 0; k < SIZE; k++) sum += a[i * SIZE + k] * b[j * SIZE + k];
+                out[i * SIZE + j] = sum;
+            }
+        }
+    }
+
+    // rounding slowly makes the covariance lopsided, which can make it stop being positive definite
+    private static void symmetrize(double[] matrix) {
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = i + 1; j < SIZE; j++) {
+                double average = (matrix[i * SIZE + j] + matrix[j * SIZE + i]) / 2;
+                matrix[i * SIZE + j] = average;
+                matrix[j * SIZE + i] = average;
+            }
+        }
+    }
+}
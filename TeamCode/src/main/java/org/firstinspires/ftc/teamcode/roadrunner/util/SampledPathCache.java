@@ -0,0 +1,125 @@
+package org.firstinspires.ftc.teamcode.roadrunner.util;
+
+import com.acmerobotics.roadrunner.path.Path;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Sampled points of paths, kept by path identity so a path is only sampled once however often it is drawn. Points
+ * that are within a tolerance of the line between their neighbours are dropped (Ramer-Douglas-Peucker), so straight
+ * parts of a path are sent to the dashboard as a few points. The dashboard field is drawn in inches, so the
+ * tolerance is how far the drawn line may be from the path in inches.
+ */
+public class SampledPathCache {
+    private final Map<Path, Entry> entries = new IdentityHashMap<>();
+
+    /**
+     * @param path The path to sample
+     * @param resolution How far apart the points are sampled, in inches
+     * @param tolerance How far a dropped point may be from the line, in inches, 0 to keep every point
+     * @return The x points and the y points, which are shared so they shouldn't be changed
+     */
+    public synchronized double[][] get(Path path, double resolution, double tolerance) {
+        Entry entry = entries.get(path);
+        if (entry == null || entry.resolution != resolution || entry.tolerance != tolerance) {
+            double[][] points = DashboardUtil.samplePath(path, resolution);
+            if (tolerance > 0) points = decimate(points[0], points[1], tolerance);
+            entry = new Entry(resolution, tolerance, points);
+            entries.put(path, entry);
+        }
+        return entry.points;
+    }
+
+    /** Forgets every path, so they aren't kept once they won't be drawn again. */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @param xs The x of every point
+     * @param ys The y of every point
+     * @param tolerance How far a dropped point may be from the line between the points kept around it
+     * @return The x points and the y points that were kept, always including the first and last
+     */
+    static double[][] decimate(double[] xs, double[] ys, double tolerance) {
+        int count = xs.length;
+        if (count <= 2) return new double[][] {xs, ys};
+
+        boolean[] keep = new boolean[count];
+        keep[0] = true;
+        keep[count - 1] = true;
+
+        // The ranges that still have to be checked, as start and end indices
+        int[] stack = new int[2 * count];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = count - 1;
+        double toleranceSquared = tolerance * tolerance;
+
+        while (top > 0) {
+            int end = stack[--top];
+            int start = stack[--top];
+
+            double dx = xs[end] - xs[start];
+            double dy = ys[end] - ys[start];
+            double lengthSquared = dx * dx + dy * dy;
+
+            int farthest = -1;
+            double farthestSquared = toleranceSquared;
+            for (int i = start + 1; i < end; i++) {
+                double distanceSquared = distanceSquared(xs[i] - xs[start], ys[i] - ys[start], dx, dy, lengthSquared);
+                if (distanceSquared > farthestSquared) {
+                    farthest = i;
+                    farthestSquared = distanceSquared;
+                }
+            }
+
+            if (farthest != -1) {
+                keep[farthest] = true;
+                stack[top++] = start;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = end;
+            }
+        }
+
+        int kept = 0;
+        for (boolean k : keep) if (k) kept++;
+        double[] keptXs = new double[kept];
+        double[] keptYs = new double[kept];
+        for (int i = 0, j = 0; i < count; i++) {
+            if (keep[i]) {
+                keptXs[j] = xs[i];
+                keptYs[j] = ys[i];
+                j++;
+            }
+        }
+        return new double[][] {keptXs, keptYs};
+    }
+
+    /** @return The squared distance from a point to a segment, both relative to the start of the segment */
+    private static double distanceSquared(double px, double py, double dx, double dy, double lengthSquared) {
+        if (lengthSquared == 0) return px * px + py * py;
+        double t = Math.max(0, Math.min(1, (px * dx + py * dy) / lengthSquared));
+        double ex = px - t * dx;
+        double ey = py - t * dy;
+        return ex * ex + ey * ey;
+    }
+
+    private static class Entry {
+        final double resolution;
+        final double tolerance;
+        final double[][] points;
+
+        Entry(double resolution, double tolerance, double[][] points) {
+            this.resolution = resolution;
+            this.tolerance = tolerance;
+            this.points = points;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.firstinspires.ftc.teamcode.roadrunner.util;
+
+/**
+ * Wheels whose encoders can be read into arrays the caller keeps, so reading them every loop allocates nothing.
+ * The {@code List<Double>} getters RoadRunner needs can be built on top of these with {@link DoubleArrayList}.
+ */
+public interface WheelEncoders {
+    int getWheelCount();
+
+    /** @param positions Filled with the position of each wheel, in inches */
+    void readWheelPositions(double[] positions);
+
+    /** @param velocities Filled with the velocity of each wheel, in in/s */
+    void readWheelVelocities(double[] velocities);
+}
@@ -1,11 +1,10 @@
 package org.firstinspires.ftc.teamcode.subsystems;
 
-import com.arcrobotics.ftclib.hardware.ServoEx;
-import com.arcrobotics.ftclib.hardware.SimpleServo;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 
 import org.firstinspires.ftc.robotcore.external.Telemetry;
 import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.teamcode.hardware.CachingServo;
 
 import com.qualcomm.robotcore.hardware.LED;
 
@@ -20,7 +19,7 @@ import static org.firstinspires.ftc.teamcode.Constants.BoxConstants.*;
  */
 public class BoxSubsystem extends CustomSubsystemBase {
     /** Servo on the back of the box. */
-    private final ServoEx boxReleaseServo;
+    private final CachingServo boxReleaseServo;
 
     private final LED redRightLED;
     private final LED greenRightLED;
@@ -36,7 +35,7 @@ public class BoxSubsystem extends CustomSubsystemBase {
     public BoxSubsystem(HardwareMap hardwareMap, Telemetry telemetry) {
         super(hardwareMap, telemetry);
 
-        boxReleaseServo = new SimpleServo(hardwareMap, BOX_SERVO_NAME, MIN_ANGLE, MAX_ANGLE);
+        boxReleaseServo = getCachingServo(BOX_SERVO_NAME, MIN_ANGLE, MAX_ANGLE);
 
         redLeftLED = hardwareMap.get(LED.class, RED_LEFT_LED_NAME);
         greenLeftLED = hardwareMap.get(LED.class, GREEN_LEFT_LED_NAME);
@@ -85,9 +84,9 @@ public class BoxSubsystem extends CustomSubsystemBase {
     /** Prints data from the subsystem. */
     @Override
     public void printData() {
-        telemetry.addLine("--- Box Release ---");
-        telemetry.addData("Angle", boxReleaseServo.getAngle());
-        telemetry.addData("Angle (degrees)", boxReleaseServo.getAngle(AngleUnit.DEGREES));
-        telemetry.addData("Position", boxReleaseServo.getPosition());
+        addLine("--- Box Release ---");
+        addData("Angle", boxReleaseServo.getAngle());
+        addData("Angle (degrees)", boxReleaseServo.getAngle(AngleUnit.DEGREES));
+        addData("Position", boxReleaseServo.getPosition());
     }
 }
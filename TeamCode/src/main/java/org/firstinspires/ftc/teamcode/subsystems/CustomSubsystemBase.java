@@ -1,19 +1,203 @@
 package org.firstinspires.ftc.teamcode.subsystems;
 
 import com.arcrobotics.ftclib.command.SubsystemBase;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 
 import org.firstinspires.ftc.robotcore.external.Telemetry;
+import org.firstinspires.ftc.teamcode.hardware.BatteryMonitor;
+import org.firstinspires.ftc.teamcode.hardware.BulkReadManager;
+import org.firstinspires.ftc.teamcode.hardware.CachingMotor;
+import org.firstinspires.ftc.teamcode.hardware.CachingServo;
+import org.firstinspires.ftc.teamcode.util.LoopProfiler;
+import org.firstinspires.ftc.teamcode.util.RobotClock;
+import org.firstinspires.ftc.teamcode.util.TelemetryPublisher;
+import org.firstinspires.ftc.teamcode.util.TimingHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class CustomSubsystemBase extends SubsystemBase {
     protected HardwareMap hardwareMap;
     protected Telemetry telemetry;
 
+    /** The bulk read manager of the robot, null if the subsystem isn't part of a Robot */
+    protected BulkReadManager bulkReadManager;
+
+    /** Sends the telemetry from a background thread, null if the subsystem isn't part of a Robot */
+    protected TelemetryPublisher telemetryPublisher;
+
+    /** The battery monitor shared by the subsystems, null if the subsystem isn't part of a Robot */
+    protected BatteryMonitor batteryMonitor;
+
+    /** The motors and servos of this subsystem that skip repeated writes */
+    private final List<CachingMotor> cachingMotors = new ArrayList<>();
+    private final List<CachingServo> cachingServos = new ArrayList<>();
+    /** The motors of this subsystem whose velocity is estimated every loop */
+    private final List<CachingMotor> velocityMotors = new ArrayList<>();
+
+    /** Where the time spent in {@link #periodic()} is recorded, null if we aren't profiling */
+    private TimingHistogram periodicHistogram;
+
     public CustomSubsystemBase(HardwareMap hardwareMap, Telemetry telemetry) {
         this.hardwareMap = hardwareMap;
         this.telemetry = telemetry;
     }
 
+    /**
+     * Sets the bulk read manager that clears the hub caches and counts the reads of this subsystem.
+     *
+     * @param bulkReadManager The bulk read manager of the robot
+     */
+    public void setBulkReadManager(BulkReadManager bulkReadManager) {
+        this.bulkReadManager = bulkReadManager;
+        for (CachingMotor motor : velocityMotors) bulkReadManager.trackVelocity(motor);
+    }
+
+    /**
+     * Sets the battery monitor that automatic moves are compensated with.
+     *
+     * @param batteryMonitor The battery monitor of the robot
+     */
+    public void setBatteryMonitor(BatteryMonitor batteryMonitor) {
+        this.batteryMonitor = batteryMonitor;
+    }
+
+    /**
+     * Scales a power tuned at the nominal battery voltage to the current voltage, so automatic moves are as fast
+     * late in a match as they are with a fresh battery. Without a battery monitor the power is left as it is.
+     *
+     * @param power The power for a battery at the nominal voltage
+     * @return The power for the battery as it is now
+     */
+    protected double compensateVoltage(double power) {
+        return batteryMonitor != null ? batteryMonitor.compensate(power) : power;
+    }
+
+    /**
+     * Sets where {@link #printData()} writes its values, so they are sent from a background thread.
+     *
+     * @param telemetryPublisher The telemetry publisher of the robot
+     */
+    public void setTelemetryPublisher(TelemetryPublisher telemetryPublisher) {
+        this.telemetryPublisher = telemetryPublisher;
+    }
+
+    /**
+     * Starts timing {@link #periodic()} of this subsystem using a loop profiler.
+     *
+     * @param loopProfiler The loop profiler of the robot
+     */
+    public void setLoopProfiler(LoopProfiler loopProfiler) {
+        periodicHistogram = loopProfiler.getSection("periodic " + getClass().getSimpleName());
+    }
+
+    /** Runs {@link #subsystemPeriodic()}, timing it if we are profiling. */
+    @Override
+    public final void periodic() {
+        long start = System.nanoTime();
+        // Without a bulk read manager nothing else updates the velocities
+        if (bulkReadManager == null) {
+            double time = RobotClock.seconds();
+            for (int i = 0; i < velocityMotors.size(); i++) velocityMotors.get(i).updateVelocity(time);
+        }
+        subsystemPeriodic();
+        if (periodicHistogram != null) periodicHistogram.recordSince(start);
+    }
+
+    /** Called once per scheduler run. Override this instead of {@link #periodic()} so that it is timed. */
+    protected void subsystemPeriodic() {
+
+    }
+
+    /** Records a read that can't be bulk cached, if we have a bulk read manager. */
+    protected void recordIndividualRead() {
+        if (bulkReadManager != null) bulkReadManager.recordIndividualRead();
+    }
+
+    /** Clears the bulk cache, used by loops that wait on the hardware outside of the main loop. */
+    protected void clearBulkCache() {
+        if (bulkReadManager != null) bulkReadManager.clearCache();
+    }
+
+    /**
+     * Gets a motor from the hardware map, wrapped so that repeated powers aren't sent to the hub.
+     *
+     * @param name The name of the motor
+     * @return The wrapped motor
+     */
+    protected CachingMotor getCachingMotor(String name) {
+        CachingMotor motor = new CachingMotor(hardwareMap.get(DcMotorEx.class, name));
+        cachingMotors.add(motor);
+        return motor;
+    }
+
+    /**
+     * Estimates the velocity of a motor once per loop from the bulk read, so {@link CachingMotor#getVelocity()} is
+     * corrected for overflow and {@link CachingMotor#isStalled()} works.
+     *
+     * @param motor A motor of this subsystem
+     */
+    protected void trackVelocity(CachingMotor motor) {
+        motor.trackVelocity();
+        velocityMotors.add(motor);
+        if (bulkReadManager != null) bulkReadManager.trackVelocity(motor);
+    }
+
+    /**
+     * Creates a servo, wrapped so that repeated positions aren't sent to the hub.
+     *
+     * @param name The name of the servo
+     * @param minAngle The angle of the servo at position 0, in degrees
+     * @param maxAngle The angle of the servo at position 1, in degrees
+     * @return The wrapped servo
+     */
+    protected CachingServo getCachingServo(String name, double minAngle, double maxAngle) {
+        CachingServo servo = new CachingServo(hardwareMap, name, minAngle, maxAngle);
+        cachingServos.add(servo);
+        return servo;
+    }
+
+    /** @return The number of motor and servo writes this subsystem has sent to the hub */
+    public int getWritesSent() {
+        int writes = 0;
+        for (CachingMotor motor : cachingMotors) writes += motor.getWritesSent();
+        for (CachingServo servo : cachingServos) writes += servo.getWritesSent();
+        return writes;
+    }
+
+    /** @return The number of motor and servo writes this subsystem skipped because nothing changed */
+    public int getWritesSuppressed() {
+        int writes = 0;
+        for (CachingMotor motor : cachingMotors) writes += motor.getWritesSuppressed();
+        for (CachingServo servo : cachingServos) writes += servo.getWritesSuppressed();
+        return writes;
+    }
+
+    /** Adds a line to the telemetry, through the telemetry publisher if we have one. */
+    protected void addLine(String line) {
+        if (telemetryPublisher != null) telemetryPublisher.addLine(line);
+        else telemetry.addLine(line);
+    }
+
+    /** Adds a number to the telemetry, through the telemetry publisher if we have one. */
+    protected void addData(String caption, double value) {
+        if (telemetryPublisher != null) telemetryPublisher.addData(caption, value);
+        else telemetry.addData(caption, value);
+    }
+
+    /** Adds a whole number to the telemetry, through the telemetry publisher if we have one. */
+    protected void addData(String caption, long value) {
+        if (telemetryPublisher != null) telemetryPublisher.addData(caption, value);
+        else telemetry.addData(caption, value);
+    }
+
+    /** Adds a value to the telemetry, through the telemetry publisher if we have one. */
+    protected void addData(String caption, Object value) {
+        if (telemetryPublisher != null) telemetryPublisher.addData(caption, value);
+        else telemetry.addData(caption, value);
+    }
+
     public void printData() {
 
     }
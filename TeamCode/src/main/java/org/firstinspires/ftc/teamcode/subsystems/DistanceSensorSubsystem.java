@@ -33,19 +33,31 @@ public class DistanceSensorSubsystem extends CustomSubsystemBase {
 
     /** @return True if there is something blocking the left sensor less than the threshold inches away */
     public boolean isLeftBlocked() {
-        return leftDistanceSensor.getDistance(DistanceUnit.INCH) <= DISTANCE_THRESHOLD;
+        return getLeftDistance() <= DISTANCE_THRESHOLD;
     }
 
     /** @return True if there is something blocking the right sensor less than the threshold inches away */
     public boolean isRightBlocked() {
-        return rightDistanceSensor.getDistance(DistanceUnit.INCH) <= DISTANCE_THRESHOLD;
+        return getRightDistance() <= DISTANCE_THRESHOLD;
+    }
+
+    /** @return The distance read by the left sensor in inches */
+    public double getLeftDistance() {
+        recordIndividualRead();
+        return leftDistanceSensor.getDistance(DistanceUnit.INCH);
+    }
+
+    /** @return The distance read by the right sensor in inches */
+    public double getRightDistance() {
+        recordIndividualRead();
+        return rightDistanceSensor.getDistance(DistanceUnit.INCH);
     }
 
     /** Prints data from the distance sensors. */
     @Override
     public void printData() {
-        telemetry.addLine("--- Distance ---");
-        telemetry.addData("Left (in)", leftDistanceSensor.getDistance(DistanceUnit.INCH));
-        telemetry.addData("Right (in)", rightDistanceSensor.getDistance(DistanceUnit.INCH));
+        addLine("--- Distance ---");
+        addData("Left (in)", getLeftDistance());
+        addData("Right (in)", getRightDistance());
     }
 }
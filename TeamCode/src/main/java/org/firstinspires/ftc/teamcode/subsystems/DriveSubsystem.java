@@ -1,10 +1,9 @@
 package org.firstinspires.ftc.teamcode.subsystems;
 
+import com.acmerobotics.roadrunner.geometry.Pose2d;
 import com.arcrobotics.ftclib.gamepad.GamepadEx;
-import com.qualcomm.hardware.bosch.BHI260IMU;
 import com.qualcomm.hardware.rev.RevHubOrientationOnRobot;
 import com.qualcomm.robotcore.hardware.DcMotor;
-import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 import com.qualcomm.robotcore.hardware.IMU;
 import com.qualcomm.robotcore.util.ElapsedTime;
@@ -13,7 +12,17 @@ import com.qualcomm.robotcore.util.Range;
 import org.firstinspires.ftc.robotcore.external.Telemetry;
 import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
 import org.firstinspires.ftc.robotcore.external.navigation.CurrentUnit;
-
+import org.firstinspires.ftc.teamcode.hardware.BatteryMonitor;
+import org.firstinspires.ftc.teamcode.hardware.CachingMotor;
+import org.firstinspires.ftc.teamcode.roadrunner.drive.SampleMecanumDrive;
+import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.PendingTrajectorySequence;
+import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.TrajectorySequence;
+import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.TrajectorySequenceBuilder;
+import org.firstinspires.ftc.teamcode.util.HeadingController;
+import org.firstinspires.ftc.teamcode.util.RobotClock;
+import org.firstinspires.ftc.teamcode.util.TelemetryPublisher;
+
+import static org.firstinspires.ftc.teamcode.Constants.AutoConstants.USE_TRAJECTORY_FOLLOWER;
 import static org.firstinspires.ftc.teamcode.Constants.DriveConstants.*;
 
 import java.util.Arrays;
@@ -25,25 +34,49 @@ import java.util.Arrays;
  * @author Esquimalt Atom Smashers
  */
 public class DriveSubsystem extends CustomSubsystemBase {
-    private final DcMotorEx frontLeftMotor;
-    private final DcMotorEx frontRightMotor;
-    private final DcMotorEx rearLeftMotor;
-    private final DcMotorEx rearRightMotor;
+    private final CachingMotor frontLeftMotor;
+    private final CachingMotor frontRightMotor;
+    private final CachingMotor rearLeftMotor;
+    private final CachingMotor rearRightMotor;
     /** The DC motors on the robot. */
-    private final DcMotorEx[] motors;
+    private final CachingMotor[] motors;
 
     /** The built-in IMU(gyro) on the control hub. */
-    private final BHI260IMU imu;
+    private final IMU imu;
 
     private enum DriveState {
         MANUAL,
         MOVING_TO_POSITION,
-        TURNING_TO_POSITION
+        TURNING_TO_POSITION,
+        /** Waiting for the robot to stop after a turn, before correcting it */
+        SETTLING,
+        /** Turning to a heading while the driver controls the translation */
+        SNAPPING,
+        FOLLOWING_TRAJECTORY
     }
 
     private DriveState driveState = DriveState.MANUAL;
 
+    /** Turns the robot during turns and snaps, if they are profiled */
+    private final HeadingController headingController = new HeadingController();
+
+    /** The heading the current turn is going to, if it isn't profiled */
     private double targetHeading;
+    /** The power the current turn turns with if it isn't profiled, clockwise is positive like the joystick */
+    private double turnSpeed;
+    /** The speed to correct the current turn at once it settles, 0 if it won't be corrected */
+    private double correctionSpeed;
+    private final ElapsedTime settleTimer = RobotClock.newTimer();
+
+    /**
+     * Follows trajectories in autonomous, uses our motors and gyro as we configured them. Null until it is needed,
+     * unless the autonomous uses the trajectory follower, see {@link #getTrajectoryDrive()}
+     */
+    private SampleMecanumDrive trajectoryDrive;
+    /** Where the robot is on the field, kept here until the trajectory drive is created */
+    private Pose2d poseEstimate = new Pose2d();
+
+    private final ElapsedTime waitingTelemetryTimer = new ElapsedTime();
 
     /**
      * Constructs a new DriveSubsystem.
@@ -54,15 +87,48 @@ public class DriveSubsystem extends CustomSubsystemBase {
     public DriveSubsystem(HardwareMap hardwareMap, Telemetry telemetry) {
         super(hardwareMap, telemetry);
 
-        frontLeftMotor = hardwareMap.get(DcMotorEx.class, FRONT_LEFT_MOTOR_NAME);
-        frontRightMotor = hardwareMap.get(DcMotorEx.class, FRONT_RIGHT_MOTOR_NAME);
-        rearLeftMotor = hardwareMap.get(DcMotorEx.class, REAR_LEFT_MOTOR_NAME);
-        rearRightMotor = hardwareMap.get(DcMotorEx.class, REAR_RIGHT_MOTOR_NAME);
-        motors = new DcMotorEx[]{frontLeftMotor, frontRightMotor, rearLeftMotor, rearRightMotor};
+        frontLeftMotor = getCachingMotor(FRONT_LEFT_MOTOR_NAME);
+        frontRightMotor = getCachingMotor(FRONT_RIGHT_MOTOR_NAME);
+        rearLeftMotor = getCachingMotor(REAR_LEFT_MOTOR_NAME);
+        rearRightMotor = getCachingMotor(REAR_RIGHT_MOTOR_NAME);
+        motors = new CachingMotor[]{frontLeftMotor, frontRightMotor, rearLeftMotor, rearRightMotor};
         configureMotors();
+        for (CachingMotor motor : motors) trackVelocity(motor);
 
-        imu = hardwareMap.get(BHI260IMU.class, IMU_NAME);
+        imu = hardwareMap.get(IMU.class, IMU_NAME);
         configureIMU();
+
+        // Created now if the autonomous follows trajectories, so nothing is set up after the start button is pressed
+        if (USE_TRAJECTORY_FOLLOWER) getTrajectoryDrive();
+    }
+
+    /**
+     * Creates the trajectory drive the first time it is needed. It is told not to configure the hardware, since its
+     * own setup would initialize the gyro again and replace the velocity PIDF of the motors.
+     *
+     * @return The trajectory drive
+     */
+    private SampleMecanumDrive getTrajectoryDrive() {
+        if (trajectoryDrive == null) {
+            // Uses its own battery monitor until the robot gives us one
+            BatteryMonitor monitor = batteryMonitor != null ? batteryMonitor : new BatteryMonitor(hardwareMap);
+            trajectoryDrive = new SampleMecanumDrive(hardwareMap, monitor, false);
+            if (telemetryPublisher != null) trajectoryDrive.setTelemetryPublisher(telemetryPublisher);
+            trajectoryDrive.setPoseEstimate(poseEstimate);
+        }
+        return trajectoryDrive;
+    }
+
+    @Override
+    public void setBatteryMonitor(BatteryMonitor batteryMonitor) {
+        super.setBatteryMonitor(batteryMonitor);
+        if (trajectoryDrive != null) trajectoryDrive.setBatteryMonitor(batteryMonitor);
+    }
+
+    @Override
+    public void setTelemetryPublisher(TelemetryPublisher telemetryPublisher) {
+        super.setTelemetryPublisher(telemetryPublisher);
+        if (trajectoryDrive != null) trajectoryDrive.setTelemetryPublisher(telemetryPublisher);
     }
 
     /** Configure the drive motors by setting their directions and zero power behaviors. */
@@ -110,6 +176,19 @@ public class DriveSubsystem extends CustomSubsystemBase {
         forward = Math.abs(forward) >= DEADZONE ? forward : 0;
         strafe = Math.abs(strafe) >= DEADZONE ? strafe : 0;
         turn = Math.abs(turn) >= DEADZONE ? turn : 0;
+        setDrivePowers(forward, strafe, turn, fieldCentric, multiplier);
+    }
+
+    /**
+     * Sets the powers of the motors from a movement, without any dead zones.
+     *
+     * @param forward The amount to move forward
+     * @param strafe The amount to move left and right
+     * @param turn The amount to turn
+     * @param fieldCentric If we want these movements to be field centric
+     * @param multiplier The speed multiplier
+     */
+    private void setDrivePowers(double forward, double strafe, double turn, boolean fieldCentric, double multiplier) {
         multiplier = Range.clip(multiplier, 0, 1);
 
         if (fieldCentric) {
@@ -170,13 +249,14 @@ public class DriveSubsystem extends CustomSubsystemBase {
     }
 
     /**
-     * Drive the robot some number of inches forwards/backwards.
+     * Drive the robot some number of inches forwards/backwards. Blocks until the robot is there, so nothing else
+     * runs in the meantime. Commands should use {@link #driveByDistanceAsync(double)} instead.
      *
      * @param inches The distance in inches to drive forwards/backwards
      */
     public void driveByDistance(double inches) {
         driveByDistanceAsync(inches);
-        while (!isFinishedMoving()) {doNothing("Driving");}
+        waitUntilFinished("Driving");
     }
 
     /**
@@ -202,50 +282,78 @@ public class DriveSubsystem extends CustomSubsystemBase {
      */
     public void strafeByDistance(double inches) {
         strafeByDistanceAsync(inches);
-        while (!isFinishedMoving()) {doNothing("Strafing");}
+        waitUntilFinished("Strafing");
     }
 
     /**
-     * Turn the robot some angle using the gyro. Sets the target heading and starts moving the motors.
-     * {@link #isFinishedTurning()} must be called to check if the robot has made it.
+     * Turn the robot some angle using the gyro. Starts the turn, which is moved along every loop by
+     * {@link #updateMovement()}. {@link #isFinishedTurning()} must be called to check if the robot has made it.
      *
-     * @param angle The angle to rotate the robot by
-     * @param speed The speed at which the robot rotates (0-1)
+     * @param angle The angle to rotate the robot by, counter clockwise is positive
+     * @param speed The most power to turn with (0-1)
      */
     public void turnAsync(double angle, double speed) {
-        driveState = DriveState.TURNING_TO_POSITION;
-        targetHeading = getHeading() + angle;
-        // Counter clockwise is positive
-        // If the angle is positive, we want to turn negative (counterclockwise)
-        drive(0, 0, getAutoTurnSpeed(speed), false, 1);
+        double heading = getHeading();
+        startTurn(heading, heading + angle, speed, DriveState.TURNING_TO_POSITION);
     }
 
     /**
-     * Turns the robot some angle using the gyro. Waits half a second and corrects a little bit
+     * Turn the robot to a heading using the gyro, going the shortest way around.
+     * {@link #isFinishedTurning()} must be called to check if the robot has made it.
      *
-     * @param angle The angle to turn the robot by
+     * @param targetHeading The heading to turn to in degrees
+     * @param speed The most power to turn with (0-1)
      */
-    public void turn(double angle) {
-        turnAsync(angle, AUTO_TURN_SPEED);
-        while (!isFinishedTurning()) {doNothing("Turning");}
+    public void turnToHeadingAsync(double targetHeading, double speed) {
+        double heading = getHeading();
+        // Only the heading controller unwraps the gyro heading, so the constant speed turn keeps the heading as given
+        double goal = USE_PROFILED_TURN ? heading + AngleUnit.normalizeDegrees(targetHeading - heading) : targetHeading;
+        startTurn(heading, goal, speed, DriveState.TURNING_TO_POSITION);
+    }
 
-        // Wait for a bit
-        ElapsedTime timer = new ElapsedTime();
-        while (timer.milliseconds() <= 500) {doNothing("Waiting");}
+    /**
+     * Start turning the robot to a heading while the driver keeps driving. {@link #driveWhileSnapping(double, double)}
+     * must be called every loop to drive, and {@link #isFinishedTurning()} to check if the robot has made it.
+     *
+     * @param targetHeading The heading to turn to in degrees
+     */
+    public void snapToHeadingAsync(double targetHeading) {
+        double heading = getHeading();
+        startTurn(heading, heading + AngleUnit.normalizeDegrees(targetHeading - heading), AUTO_TURN_SPEED, DriveState.SNAPPING);
+    }
+
+    /**
+     * Starts a turn, profiled if {@code USE_PROFILED_TURN} is on, otherwise at a constant speed.
+     *
+     * @param heading The current heading in degrees
+     * @param goal The heading to turn to in degrees, not wrapped
+     * @param speed The most power to turn with (0-1)
+     * @param state Either turning in place or snapping
+     */
+    private void startTurn(double heading, double goal, double speed, DriveState state) {
+        driveState = state;
+        correctionSpeed = 0;
+        if (USE_PROFILED_TURN) {
+            // The fastest we can turn with this much power, after the feedforward overcomes friction
+            double maxVelocity = Math.max(speed - HEADING_KS, 0) / HEADING_KV;
+            headingController.start(heading, getHeadingVelocity(), goal, maxVelocity);
+            return;
+        }
 
-        angle = targetHeading - getHeading();
-        turnAsync(angle, AUTO_TURN_SPEED / 2);
-        while (!isFinishedTurning()) {doNothing("Correcting turn");}
+        targetHeading = goal;
+        turnSpeed = getAutoTurnSpeed(speed);
+        if (state == DriveState.TURNING_TO_POSITION) drive(0, 0, turnSpeed, false, 1);
     }
 
     /**
-     * Gets the speed we should be turning. Used while turning automatically.
+     * Gets the speed we should be turning. Used while turning automatically without the heading controller.
      *
      * @param speed The absolute value of the speed
      * @return What speed we should turn
      */
     public double getAutoTurnSpeed(double speed) {
         double angle = targetHeading - getHeading();
+        // Counter clockwise is positive, so if the angle is positive we turn negative
         return angle > 0 ? -speed : speed;
     }
 
@@ -254,6 +362,149 @@ public class DriveSubsystem extends CustomSubsystemBase {
         return getAutoTurnSpeed(AUTO_TURN_SPEED);
     }
 
+    /**
+     * Start following a trajectory sequence with the RoadRunner follower. The sequence is moved along every loop by
+     * {@link #updateMovement()}, and {@link #isFinishedMoving()} must be called to check if the robot has made it.
+     *
+     * @param trajectorySequence The sequence to follow
+     */
+    public void followTrajectorySequenceAsync(TrajectorySequence trajectorySequence) {
+        driveState = DriveState.FOLLOWING_TRAJECTORY;
+        // The follower sets the powers without going through our motors, so they can't trust their last powers
+        Arrays.stream(motors).forEach(CachingMotor::invalidate);
+        getTrajectoryDrive().followTrajectorySequenceAsync(trajectorySequence);
+    }
+
+    /**
+     * Start following a trajectory sequence that is still being built, starting on each segment once it is ready.
+     *
+     * @param pendingSequence The sequence to follow, from {@link #trajectorySequenceBuilder}
+     */
+    public void followTrajectorySequenceAsync(PendingTrajectorySequence pendingSequence) {
+        driveState = DriveState.FOLLOWING_TRAJECTORY;
+        Arrays.stream(motors).forEach(CachingMotor::invalidate);
+        getTrajectoryDrive().followTrajectorySequenceAsync(pendingSequence);
+    }
+
+    /**
+     * @param startPose Where the sequence starts
+     * @return A builder with the constraints of the drive, whose {@link TrajectorySequenceBuilder#buildAsync} builds
+     * off the loop thread
+     */
+    public TrajectorySequenceBuilder trajectorySequenceBuilder(Pose2d startPose) {
+        return getTrajectoryDrive().trajectorySequenceBuilder(startPose);
+    }
+
+    /**
+     * Sets where the follower thinks the robot is, should be called before following the first trajectory.
+     *
+     * @param pose The pose of the robot on the field
+     */
+    public void setPoseEstimate(Pose2d pose) {
+        if (trajectoryDrive != null) trajectoryDrive.setPoseEstimate(pose);
+        else poseEstimate = pose;
+    }
+
+    /** @return Where the follower thinks the robot is */
+    public Pose2d getPoseEstimate() {
+        return trajectoryDrive != null ? trajectoryDrive.getPoseEstimate() : poseEstimate;
+    }
+
+    /**
+     * Drives the robot using joystick input while the heading controller does the turning. Used while snapping.
+     *
+     * @param forward The amount to move forward
+     * @param strafe The amount to move left and right
+     */
+    public void driveWhileSnapping(double forward, double strafe) {
+        forward = Math.abs(forward) >= DEADZONE ? forward : 0;
+        strafe = Math.abs(strafe) >= DEADZONE ? strafe : 0;
+        double turn = 0;
+        if (driveState == DriveState.SNAPPING) {
+            // The controller is counter clockwise positive, but turning right is positive when driving
+            turn = USE_PROFILED_TURN ? -compensateVoltage(headingController.calculate(getHeading())) : turnSpeed;
+        }
+        setDrivePowers(forward, strafe, turn, FIELD_CENTRIC, 1);
+    }
+
+    /**
+     * Turns the robot some angle using the gyro. Without the heading controller, waits for the robot to settle and
+     * corrects the turn at half speed. Blocks until the turn is done, commands should use
+     * {@link #turnAsync(double, double)} instead.
+     *
+     * @param angle The angle to turn the robot by
+     */
+    public void turn(double angle) {
+        turnAsync(angle, AUTO_TURN_SPEED);
+        if (!USE_PROFILED_TURN) correctionSpeed = AUTO_TURN_SPEED / 2;
+        waitUntilFinished("Turning");
+    }
+
+    /**
+     * Moves the current automatic movement along: turns using the heading controller, stops the motors once the
+     * robot has made it, and starts the correction once a turn without the controller has settled. Runs every loop
+     * through the scheduler, and can be called again by anything waiting on the movement.
+     */
+    public void updateMovement() {
+        switch (driveState) {
+            case MOVING_TO_POSITION:
+                if (!motorsBusy()) {
+                    stopMotors();
+                    setMotorMode(DcMotor.RunMode.RUN_USING_ENCODER);
+                    driveState = DriveState.MANUAL;
+                }
+                break;
+            case TURNING_TO_POSITION: {
+                double heading = getHeading();
+                if (!USE_PROFILED_TURN) {
+                    if (Math.abs(heading - targetHeading) <= AUTO_HEADING_TOLERANCE) {
+                        stopMotors();
+                        if (correctionSpeed > 0) {
+                            settleTimer.reset();
+                            driveState = DriveState.SETTLING;
+                        }
+                        else driveState = DriveState.MANUAL;
+                    }
+                }
+                else if (headingController.isFinished(heading)) {
+                    stopMotors();
+                    driveState = DriveState.MANUAL;
+                }
+                // The controller is counter clockwise positive, but turning right is positive when driving
+                else setDrivePowers(0, 0, -compensateVoltage(headingController.calculate(heading)), false, 1);
+                break;
+            }
+            case SETTLING:
+                if (settleTimer.milliseconds() >= TURN_SETTLE_TIME) {
+                    turnAsync(targetHeading - getHeading(), correctionSpeed);
+                }
+                break;
+            case SNAPPING: {
+                // The driver is still driving, so the motors keep going once we get there
+                double heading = getHeading();
+                boolean isFinished = USE_PROFILED_TURN ? headingController.isFinished(heading)
+                        : Math.abs(heading - targetHeading) <= AUTO_HEADING_TOLERANCE;
+                if (isFinished) driveState = DriveState.MANUAL;
+                break;
+            }
+            case FOLLOWING_TRAJECTORY:
+                trajectoryDrive.update();
+                if (!trajectoryDrive.isBusy()) {
+                    Arrays.stream(motors).forEach(CachingMotor::invalidate);
+                    stopMotors();
+                    driveState = DriveState.MANUAL;
+                }
+                break;
+            case MANUAL:
+                break;
+        }
+    }
+
+    @Override
+    protected void subsystemPeriodic() {
+        updateMovement();
+    }
+
     /** @return True is all of the motors are busy, false otherwise */
     private boolean motorsBusy() {
         return frontLeftMotor.isBusy() && frontRightMotor.isBusy() && rearRightMotor.isBusy() && rearLeftMotor.isBusy();
@@ -266,28 +517,38 @@ public class DriveSubsystem extends CustomSubsystemBase {
      * @return True if we are done moving, false otherwise
      */
     public boolean isFinishedMoving() {
-        if (!motorsBusy()) {
-            stopMotors();
-            setMotorMode(DcMotor.RunMode.RUN_USING_ENCODER);
-            driveState = DriveState.MANUAL;
-            return true;
-        }
-        return false;
+        // The follower already updated this loop, and updating it again would only waste time
+        if (driveState != DriveState.FOLLOWING_TRAJECTORY) updateMovement();
+        return driveState == DriveState.MANUAL;
     }
 
     /**
-     * Checks if we are done turning, and if we are done, stops the motors and sets the
-     * state back to manual.
+     * Checks if we are done turning. The turn is moved along and stopped by {@link #updateMovement()}, which already
+     * ran this loop, so this only checks the state.
      *
      * @return True if we are done moving, false otherwise
      */
     public boolean isFinishedTurning() {
-        if (Math.abs(getHeading() - targetHeading) <= AUTO_HEADING_TOLERANCE) {
-            stopMotors();
-            driveState = DriveState.MANUAL;
-            return true;
-        }
-        return false;
+        // Updating again would read the gyro twice a loop and run the controller's derivative over a tiny time step
+        return driveState == DriveState.MANUAL;
+    }
+
+    /** @return True if the robot is driving, strafing or turning automatically */
+    public boolean isMoving() {
+        return driveState != DriveState.MANUAL;
+    }
+
+    /**
+     * Stops any automatic movement and the motors, so the driver has control again. Commands that move the robot
+     * call this when they end, otherwise an interrupted movement would carry on from {@link #updateMovement()}.
+     */
+    public void cancelMovement() {
+        if (driveState == DriveState.MANUAL) return;
+        driveState = DriveState.MANUAL;
+        Arrays.stream(motors).forEach(CachingMotor::invalidate);
+        stopMotors();
+        // Driving and strafing leave the motors running to a position
+        setMotorMode(DcMotor.RunMode.RUN_USING_ENCODER);
     }
 
     /** Stop all of the drive motors */
@@ -306,29 +567,67 @@ public class DriveSubsystem extends CustomSubsystemBase {
 
     /** @return The heading of the robot */
     public double getHeading() {
+        recordIndividualRead();
         return imu.getRobotYawPitchRollAngles().getYaw(AngleUnit.DEGREES);
     }
 
+    /** @return How fast the robot is turning in degrees/s, counter clockwise is positive */
+    public double getHeadingVelocity() {
+        recordIndividualRead();
+        return imu.getRobotAngularVelocity(AngleUnit.DEGREES).zRotationRate;
+    }
+
     /** Reset the gyro by resetting the yaw. */
     public void resetGyro() {
         imu.resetYaw();
     }
 
+    /** @return True if any drive motor is powered but hasn't moved for a while, such as when pushing a wall */
+    public boolean isStalled() {
+        for (CachingMotor motor : motors) {
+            if (motor.isStalled()) return true;
+        }
+        return false;
+    }
+
     /** Prints data from the motors to the telemetry */
     @Override
     public void printData() {
-        telemetry.addLine("--- Drive base ---");
-
-        telemetry.addData("Position", frontLeftMotor.getCurrentPosition());
-        telemetry.addData("Power", frontLeftMotor.getPower());
-        telemetry.addData("Velocity", frontLeftMotor.getVelocity());
-        telemetry.addData("Current (amps)", frontLeftMotor.getCurrent(CurrentUnit.AMPS));
-        telemetry.addData("Is over current?", frontLeftMotor.isOverCurrent());
+        addLine("--- Drive base ---");
+
+        addData("Position", frontLeftMotor.getCurrentPosition());
+        addData("Power", frontLeftMotor.getPower());
+        addData("Velocity", frontLeftMotor.getVelocity());
+        addData("Is stalled?", isStalled());
+        addData("Current (amps)", frontLeftMotor.getMotor().getCurrent(CurrentUnit.AMPS));
+        addData("Is over current?", frontLeftMotor.getMotor().isOverCurrent());
     }
 
-    private void doNothing(String str) {
-        telemetry.addLine("Waiting, current task: " + str);
-        telemetry.update();
+    /**
+     * Waits for the current automatic movement to finish. The task is shown on the telemetry, by the telemetry
+     * publisher if we have one, otherwise by updating the telemetry every so often.
+     *
+     * @param task What we are waiting on, shown on the telemetry
+     */
+    private void waitUntilFinished(String task) {
+        if (telemetryPublisher != null) {
+            telemetryPublisher.beginFrame();
+            telemetryPublisher.addData("Waiting, current task", task);
+            telemetryPublisher.endFrame();
+        }
+
+        waitingTelemetryTimer.reset();
+        while (isMoving() && !Thread.currentThread().isInterrupted()) {
+            // Nothing else clears the cache while we are waiting here
+            clearBulkCache();
+            updateMovement();
+
+            if (telemetryPublisher == null && waitingTelemetryTimer.milliseconds() >= WAITING_TELEMETRY_INTERVAL) {
+                waitingTelemetryTimer.reset();
+                telemetry.addLine("Waiting, current task: " + task);
+                telemetry.update();
+            }
+        }
     }
 
     public Telemetry getTelemetry() {
@@ -1,12 +1,11 @@
 package org.firstinspires.ftc.teamcode.subsystems;
 
-import com.arcrobotics.ftclib.hardware.ServoEx;
-import com.arcrobotics.ftclib.hardware.SimpleServo;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 
 import static org.firstinspires.ftc.teamcode.Constants.DroneConstants.*;
 
 import org.firstinspires.ftc.robotcore.external.Telemetry;
+import org.firstinspires.ftc.teamcode.hardware.CachingServo;
 
 /**
  * A subsystem that represents the servo on the arm. Uses the servo to hold and release
@@ -15,7 +14,7 @@ import org.firstinspires.ftc.robotcore.external.Telemetry;
  * @author Esquimalt Atom Smashers
  */
 public class DroneSubsystem extends CustomSubsystemBase {
-    private final ServoEx droneServo;
+    private final CachingServo droneServo;
 
     /**
      * Constructs a DroneSubsystem.
@@ -26,7 +25,7 @@ public class DroneSubsystem extends CustomSubsystemBase {
     public DroneSubsystem(HardwareMap hardwareMap, Telemetry telemetry) {
         super(hardwareMap, telemetry);
 
-        droneServo = new SimpleServo(hardwareMap, DRONE_SERVO_NAME, MIN_ANGLE, MAX_ANGLE);
+        droneServo = getCachingServo(DRONE_SERVO_NAME, MIN_ANGLE, MAX_ANGLE);
     }
 
     /** Turns the servo to release the drone. */
@@ -42,6 +41,6 @@ public class DroneSubsystem extends CustomSubsystemBase {
     /** Prints data from the subsystem */
     @Override
     public void printData() {
-        telemetry.addLine("--- Drone ---");
+        addLine("--- Drone ---");
     }
 }
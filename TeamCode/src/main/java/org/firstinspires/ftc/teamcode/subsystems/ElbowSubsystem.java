@@ -3,12 +3,14 @@ package org.firstinspires.ftc.teamcode.subsystems;
 import com.acmerobotics.dashboard.config.Config;
 import com.arcrobotics.ftclib.controller.PIDController;
 import com.qualcomm.robotcore.hardware.DcMotor;
-import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.DigitalChannel;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 import com.qualcomm.robotcore.util.ElapsedTime;
 
 import org.firstinspires.ftc.robotcore.external.Telemetry;
+import org.firstinspires.ftc.teamcode.hardware.CachingMotor;
+import org.firstinspires.ftc.teamcode.util.ProfiledPositionController;
+import org.firstinspires.ftc.teamcode.util.RobotClock;
 
 import static org.firstinspires.ftc.teamcode.Constants.ElbowConstants.*;
 
@@ -21,9 +23,12 @@ import org.firstinspires.ftc.teamcode.Constants.PIDSubsystemState;
  */
 @Config
 public class ElbowSubsystem extends CustomSubsystemBase {
-    private final DcMotorEx elbowMotor;
+    private final CachingMotor elbowMotor;
 
     private final PIDController controller;
+    private final ProfiledPositionController profiledController;
+    /** Whether the current target is being reached by following a motion profile */
+    private boolean isProfiled;
 
     private static double target = 0;
     private double lastPower;
@@ -45,10 +50,12 @@ public class ElbowSubsystem extends CustomSubsystemBase {
     public ElbowSubsystem(HardwareMap hardwareMap, Telemetry telemetry) {
         super(hardwareMap, telemetry);
 
-        elbowMotor = hardwareMap.get(DcMotorEx.class, ELBOW_DC_MOTOR_NAME);
+        elbowMotor = getCachingMotor(ELBOW_DC_MOTOR_NAME);
         configureMotor();
+        trackVelocity(elbowMotor);
 
         controller = new PIDController(P, I, D);
+        profiledController = new ProfiledPositionController(P, I, D);
 
         elbowLimitSwitch = hardwareMap.get(DigitalChannel.class, ELBOW_LIMIT_SWITCH_NAME);
         elbowLimitSwitch.setMode(DigitalChannel.Mode.INPUT);
@@ -111,11 +118,25 @@ public class ElbowSubsystem extends CustomSubsystemBase {
     public void setTarget(double targetPosition, double timeout) {
         target = targetPosition;
         state = PIDSubsystemState.MOVING_TO_TARGET;
-        if (timer == null) timer = new ElapsedTime();
+        isProfiled = false;
+        if (timer == null) timer = RobotClock.newTimer();
         else timer.reset();
         this.timeout = timeout;
     }
 
+    /**
+     * Set a target that the arm moves to by following a motion profile. The timeout is how long the profile
+     * takes plus {@code PROFILE_TIMEOUT}.
+     *
+     * @param targetPosition The target position in pulses
+     */
+    public void setProfiledTarget(double targetPosition) {
+        profiledController.start(elbowMotor.getCurrentPosition(), elbowMotor.getVelocity(), targetPosition,
+                MAX_VELOCITY, MAX_ACCELERATION, MAX_JERK);
+        setTarget(targetPosition, profiledController.getDuration() + PROFILE_TIMEOUT);
+        isProfiled = true;
+    }
+
     /**
      * Use the PID controller to calculate how fast we should set the motor to. If the motor is moving slow enough,
      * we are close enough and stop moving further.
@@ -125,12 +146,16 @@ public class ElbowSubsystem extends CustomSubsystemBase {
         // If we aren't at the target
         if (state == PIDSubsystemState.MOVING_TO_TARGET)
         {
+            if (isProfiled) {
+                runProfile();
+                return;
+            }
             // If the target is zero, move the arm all the way down
-            // Only stop if we press the limit switch or the timeout ends
+            // Only stop if we press the limit switch, the timeout ends or the arm stalls at the bottom
             if (target == 0) {
                 lastPower = -1;
                 elbowMotor.setPower(-1);
-                if (isLimitSwitchPressed() || isTimeoutPassed()) {
+                if (isLimitSwitchPressed() || isTimeoutPassed() || elbowMotor.isStalled()) {
                     stopMotor();
                     if (isLimitSwitchPressed()) resetEncoder();
                     state = PIDSubsystemState.AT_TARGET;
@@ -150,7 +175,7 @@ public class ElbowSubsystem extends CustomSubsystemBase {
                 int elbowPosition = elbowMotor.getCurrentPosition();
                 double power = controller.calculate(elbowPosition, target);
                 lastPower = power;
-                elbowMotor.setPower(power);
+                elbowMotor.setPower(compensateVoltage(power));
                 // If the power we are setting is basically none, we are close enough to the target
                 if (Math.abs(power) <= PID_POWER_TOLERANCE || isTimeoutPassed()) {
                     state = PIDSubsystemState.AT_TARGET;
@@ -160,6 +185,47 @@ public class ElbowSubsystem extends CustomSubsystemBase {
         }
     }
 
+    /**
+     * Follow the motion profile with feedforward for the velocity, acceleration and gravity. Once the profile
+     * is finished we are done when we are close enough to the target. If the target is zero, keep lowering
+     * slowly until the limit switch is pressed.
+     */
+    private void runProfile() {
+        int elbowPosition = elbowMotor.getCurrentPosition();
+        // If we are moving the arm down and pressing the limit switch, stop and reset the encoders
+        if ((target == 0 || target < elbowPosition) && isLimitSwitchPressed()) {
+            stopMotor();
+            resetEncoder();
+            state = PIDSubsystemState.AT_TARGET;
+            return;
+        }
+
+        double power;
+        if (target == 0 && profiledController.isProfileFinished()) power = HOMING_POWER;
+        else {
+            profiledController.setGains(P, I, D, KV, KA);
+            power = profiledController.calculate(elbowPosition) + getGravityFeedforward(elbowPosition);
+        }
+        lastPower = power;
+        elbowMotor.setPower(compensateVoltage(power));
+
+        boolean isSettled = target != 0 && profiledController.isProfileFinished()
+                && Math.abs(target - elbowPosition) <= POSITION_TOLERANCE;
+        if (isSettled || isTimeoutPassed()) {
+            state = PIDSubsystemState.AT_TARGET;
+            stopMotor();
+        }
+    }
+
+    /**
+     * @param position The position of the elbow in pulses
+     * @return The power needed to hold the arm up against gravity at that position
+     */
+    private double getGravityFeedforward(double position) {
+        double angle = Math.toRadians((position - LEVEL_POSITION) / PULSES_PER_DEGREE);
+        return KG * Math.cos(angle);
+    }
+
     private boolean isTimeoutPassed() {
         if (timeout > 0 && timer.seconds() >= timeout) {
             timeout = 0;
@@ -180,11 +246,13 @@ public class ElbowSubsystem extends CustomSubsystemBase {
     /** Print data from the elbow motor. */
     @Override
     public void printData() {
-        telemetry.addLine("--- Elbow Subsystem ---");
-        telemetry.addData("Elbow Position", elbowMotor.getCurrentPosition());
-        telemetry.addData("Elbow last power", lastPower);
-        telemetry.addData("Is limit pressed?", isLimitSwitchPressed());
-        telemetry.addData("Target", target);
+        addLine("--- Elbow Subsystem ---");
+        addData("Elbow Position", elbowMotor.getCurrentPosition());
+        addData("Elbow last power", lastPower);
+        addData("Elbow velocity", elbowMotor.getVelocity());
+        addData("Elbow stalled?", elbowMotor.isStalled());
+        addData("Is limit pressed?", isLimitSwitchPressed());
+        addData("Target", target);
 //        telemetry.addData("Target", target);
 //        telemetry.addData("State", state);
     }
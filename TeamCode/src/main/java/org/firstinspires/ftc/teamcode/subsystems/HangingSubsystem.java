@@ -2,14 +2,13 @@ package org.firstinspires.ftc.teamcode.subsystems;
 
 import static org.firstinspires.ftc.teamcode.Constants.WinchConstants.*;
 
-import com.arcrobotics.ftclib.hardware.ServoEx;
-import com.arcrobotics.ftclib.hardware.SimpleServo;
 import com.qualcomm.robotcore.hardware.DcMotor;
-import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 import com.qualcomm.robotcore.util.Range;
 
 import org.firstinspires.ftc.robotcore.external.Telemetry;
+import org.firstinspires.ftc.teamcode.hardware.CachingMotor;
+import org.firstinspires.ftc.teamcode.hardware.CachingServo;
 
 /**
  * A subsystem that represents the motor that controls the winch.
@@ -17,8 +16,8 @@ import org.firstinspires.ftc.robotcore.external.Telemetry;
  * @author Esquimalt Atom Smashers
  */
 public class HangingSubsystem extends CustomSubsystemBase {
-    private final DcMotorEx winchMotor;
-    private final ServoEx hookServo;
+    private final CachingMotor winchMotor;
+    private final CachingServo hookServo;
 
     private enum ServoState {
         LEVEL,
@@ -36,10 +35,10 @@ public class HangingSubsystem extends CustomSubsystemBase {
     public HangingSubsystem(HardwareMap hardwareMap, Telemetry telemetry) {
         super(hardwareMap, telemetry);
 
-        winchMotor = hardwareMap.get(DcMotorEx.class, WINCH_MOTOR_NAME);
+        winchMotor = getCachingMotor(WINCH_MOTOR_NAME);
         configureMotor();
 
-        hookServo = new SimpleServo(hardwareMap, HOOK_SERVO_NAME, MIN_ANGLE, MAX_ANGLE);
+        hookServo = getCachingServo(HOOK_SERVO_NAME, MIN_ANGLE, MAX_ANGLE);
     }
 
     /** Configure the winch motor by setting the direction and zero power behavior */
@@ -49,14 +48,17 @@ public class HangingSubsystem extends CustomSubsystemBase {
         winchMotor.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER);
     }
 
-    /** Start moving the winch motor to pull ourselves up. */
+    /**
+     * Start moving the winch motor to pull ourselves up. Not compensated for the battery voltage, since the winch
+     * already runs at full power to lift the robot and can't be driven any harder.
+     */
     public void winch() {
         winchMotor.setPower(WINCH_SPEED);
     }
 
-    /** Start moving the winch motor to let ourselves down. */
+    /** Start moving the winch motor to let ourselves down, as fast as it would with a fresh battery. */
     public void unwinch() {
-        winchMotor.setPower(UNWINCH_SPEED);
+        winchMotor.setPower(compensateVoltage(UNWINCH_SPEED));
     }
 
     /** Stop the winch motor. */
@@ -1,14 +1,13 @@
 package org.firstinspires.ftc.teamcode.subsystems;
 
-import com.arcrobotics.ftclib.hardware.ServoEx;
-import com.arcrobotics.ftclib.hardware.SimpleServo;
 import com.qualcomm.robotcore.hardware.DcMotor;
-import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 
 import static org.firstinspires.ftc.teamcode.Constants.IntakeConstants.*;
 
 import org.firstinspires.ftc.robotcore.external.Telemetry;
+import org.firstinspires.ftc.teamcode.hardware.CachingMotor;
+import org.firstinspires.ftc.teamcode.hardware.CachingServo;
 
 /**
  * A subsystem that represents the servo and motor on the intake. Uses the servo to raise and
@@ -17,8 +16,8 @@ import org.firstinspires.ftc.robotcore.external.Telemetry;
  * @author Esquimalt Atom Smashers
  */
 public class IntakeSubsystem extends CustomSubsystemBase {
-    private final DcMotorEx intakeMotor;
-    private final ServoEx intakeServo;
+    private final CachingMotor intakeMotor;
+    private final CachingServo intakeServo;
 
     /**
      * Constructs an IntakeSubsystem.
@@ -29,9 +28,9 @@ public class IntakeSubsystem extends CustomSubsystemBase {
     public IntakeSubsystem(HardwareMap hardwareMap, Telemetry telemetry) {
         super(hardwareMap, telemetry);
 
-        intakeServo = new SimpleServo(hardwareMap, INTAKE_SERVO_NAME, MIN_ANGLE, MAX_ANGLE);
+        intakeServo = getCachingServo(INTAKE_SERVO_NAME, MIN_ANGLE, MAX_ANGLE);
 
-        intakeMotor = hardwareMap.get(DcMotorEx.class, INTAKE_MOTOR_NAME);
+        intakeMotor = getCachingMotor(INTAKE_MOTOR_NAME);
         configureIntake();
     }
 
@@ -85,7 +84,7 @@ public class IntakeSubsystem extends CustomSubsystemBase {
     /** Prints data from the subsystem */
     @Override
     public void printData() {
-        telemetry.addLine("--- Intake ---");
-        telemetry.addData("Servo pos", intakeServo.getPosition());
+        addLine("--- Intake ---");
+        addData("Servo pos", intakeServo.getPosition());
     }
 }
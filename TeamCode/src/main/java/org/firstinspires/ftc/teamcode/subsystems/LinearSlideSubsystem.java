@@ -3,12 +3,14 @@ package org.firstinspires.ftc.teamcode.subsystems;
 import com.acmerobotics.dashboard.config.Config;
 import com.arcrobotics.ftclib.controller.PIDController;
 import com.qualcomm.robotcore.hardware.DcMotor;
-import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.DigitalChannel;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 import com.qualcomm.robotcore.util.ElapsedTime;
 
 import org.firstinspires.ftc.robotcore.external.Telemetry;
+import org.firstinspires.ftc.teamcode.hardware.CachingMotor;
+import org.firstinspires.ftc.teamcode.util.ProfiledPositionController;
+import org.firstinspires.ftc.teamcode.util.RobotClock;
 
 import static org.firstinspires.ftc.teamcode.Constants.LinearSlideConstants.*;
 import org.firstinspires.ftc.teamcode.Constants.PIDSubsystemState;
@@ -20,9 +22,12 @@ import org.firstinspires.ftc.teamcode.Constants.PIDSubsystemState;
  */
 @Config
 public class LinearSlideSubsystem extends CustomSubsystemBase {
-    private final DcMotorEx slideMotor;
+    private final CachingMotor slideMotor;
 
     private final PIDController controller;
+    private final ProfiledPositionController profiledController;
+    /** Whether the current target is being reached by following a motion profile */
+    private boolean isProfiled;
     private static double target = 0;
 
     private double lastPower;
@@ -44,10 +49,12 @@ public class LinearSlideSubsystem extends CustomSubsystemBase {
     public LinearSlideSubsystem(HardwareMap hardwareMap, Telemetry telemetry) {
         super(hardwareMap, telemetry);
 
-        slideMotor = hardwareMap.get(DcMotorEx.class, SLIDE_MOTOR_NAME);
+        slideMotor = getCachingMotor(SLIDE_MOTOR_NAME);
         configureSlide();
+        trackVelocity(slideMotor);
 
         controller = new PIDController(P, I, D);
+        profiledController = new ProfiledPositionController(P, I, D);
 
         slideLimitSwitch = hardwareMap.get(DigitalChannel.class, SLIDE_LIMIT_SWITCH_NAME);
         slideLimitSwitch.setMode(DigitalChannel.Mode.INPUT);
@@ -136,18 +143,41 @@ public class LinearSlideSubsystem extends CustomSubsystemBase {
         state = PIDSubsystemState.MOVING_TO_TARGET;
         if (targetPosition < MIN_POSITION || targetPosition > MAX_POSITION) return;
         target = targetPosition;
-        if (timer == null) timer = new ElapsedTime();
+        isProfiled = false;
+        if (timer == null) timer = RobotClock.newTimer();
         else timer.reset();
         this.timeout = timeout;
     }
 
+    /**
+     * Sets a target that the slide moves to by following a motion profile. The timeout is how long the
+     * profile takes plus {@code PROFILE_TIMEOUT}.
+     *
+     * @param targetPosition The new target position
+     */
+    public void setProfiledTarget(double targetPosition) {
+        if (targetPosition < MIN_POSITION || targetPosition > MAX_POSITION) {
+            state = PIDSubsystemState.MOVING_TO_TARGET;
+            return;
+        }
+        profiledController.start(slideMotor.getCurrentPosition(), slideMotor.getVelocity(), targetPosition,
+                MAX_VELOCITY, MAX_ACCELERATION, MAX_JERK);
+        setTarget(targetPosition, profiledController.getDuration() + PROFILE_TIMEOUT);
+        isProfiled = true;
+    }
+
     /** Runs the PID controllers if we are moving to a target. If we are close enough to the target, get out of PID mode. */
     public void runPID() {
         if (state == PIDSubsystemState.MOVING_TO_TARGET) {
+            if (isProfiled) {
+                runProfile();
+                return;
+            }
             if (target == 0) {
                 lastPower = -1;
                 slideMotor.setPower(-1);
-                if (isLimitSwitchPressed() || isTimeoutDone()) {
+                // Stalling means it is all the way in even though the limit switch missed it
+                if (isLimitSwitchPressed() || isTimeoutDone() || slideMotor.isStalled()) {
                     if (isLimitSwitchPressed()) resetEncoder();
                     stopMotor();
                     state = PIDSubsystemState.AT_TARGET;
@@ -164,7 +194,7 @@ public class LinearSlideSubsystem extends CustomSubsystemBase {
                 controller.setPID(P, I, D);
                 int slidePosition = slideMotor.getCurrentPosition();
                 double power = controller.calculate(slidePosition, target);
-                slideMotor.setPower(power);
+                slideMotor.setPower(compensateVoltage(power));
                 lastPower = power;
                 // If the power isn't much, we are about as close to the target as we are going to get,
                 // so we don't update anymore
@@ -178,6 +208,37 @@ public class LinearSlideSubsystem extends CustomSubsystemBase {
         }
     }
 
+    /**
+     * Follows the motion profile with feedforward for the velocity and acceleration. Once the profile is
+     * finished we are done when we are close enough to the target. If the target is zero, keep retracting
+     * slowly until the limit switch is pressed instead of retracting at full power the whole way.
+     */
+    private void runProfile() {
+        int slidePosition = slideMotor.getCurrentPosition();
+        if ((target == 0 || target < slidePosition) && isLimitSwitchPressed()) {
+            stopMotor();
+            resetEncoder();
+            state = PIDSubsystemState.AT_TARGET;
+            return;
+        }
+
+        double power;
+        if (target == 0 && profiledController.isProfileFinished()) power = HOMING_POWER;
+        else {
+            profiledController.setGains(P, I, D, KV, KA);
+            power = profiledController.calculate(slidePosition);
+        }
+        slideMotor.setPower(compensateVoltage(power));
+        lastPower = power;
+
+        boolean isSettled = target != 0 && profiledController.isProfileFinished()
+                && Math.abs(target - slidePosition) <= POSITION_TOLERANCE;
+        if (isSettled || isTimeoutDone()) {
+            state = PIDSubsystemState.AT_TARGET;
+            stopMotor();
+        }
+    }
+
     /** @return If the timeout has passed */
     private boolean isTimeoutDone() {
         return timeout > 0 && timer.seconds() >= timeout;
@@ -191,13 +252,16 @@ public class LinearSlideSubsystem extends CustomSubsystemBase {
     /** Prints data from the slide motor. */
     @Override
     public void printData() {
-        telemetry.addLine("--- Slide ---");
-        telemetry.addData("Slide Position", slideMotor.getCurrentPosition());
-        telemetry.addData("Slide last power", lastPower);
-        telemetry.addData("Is limit pressed?", isLimitSwitchPressed());
-        telemetry.addData("Target", target);
-        telemetry.addLine("Comparing " + Math.abs(lastPower) + " and " + PID_POWER_TOLERANCE);
-        telemetry.addData("Result", Math.abs(lastPower) <= PID_POWER_TOLERANCE);
+        addLine("--- Slide ---");
+        addData("Slide Position", slideMotor.getCurrentPosition());
+        addData("Slide last power", lastPower);
+        addData("Slide velocity", slideMotor.getVelocity());
+        addData("Slide stalled?", slideMotor.isStalled());
+        addData("Is limit pressed?", isLimitSwitchPressed());
+        addData("Target", target);
+        addData("Power magnitude", Math.abs(lastPower));
+        addData("Power tolerance", PID_POWER_TOLERANCE);
+        addData("Result", Math.abs(lastPower) <= PID_POWER_TOLERANCE);
 //        telemetry.addData("Target", target);
 //        telemetry.addData("State", state);
 //        telemetry.addData("Power", slideMotor.getPower());
@@ -0,0 +1,100 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import com.arcrobotics.ftclib.controller.PIDController;
+import com.arcrobotics.ftclib.trajectory.TrapezoidProfile;
+import com.qualcomm.robotcore.util.ElapsedTime;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+
+import static org.firstinspires.ftc.teamcode.Constants.DriveConstants.*;
+
+/**
+ * Turns the robot to a heading by following a trapezoidal profile. The output is the feedforward of the
+ * profile's velocity and acceleration plus a PID on the error from the profile's position. Headings from
+ * the IMU wrap around at 180 degrees, so they are unwrapped around the profile before being compared.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class HeadingController {
+    private final PIDController controller = new PIDController(HEADING_P, HEADING_I, HEADING_D);
+    private final ElapsedTime timer = RobotClock.newTimer();
+
+    private TrapezoidProfile profile;
+    /** The heading at the end of the profile, not wrapped */
+    private double goal;
+
+    private double lastVelocity;
+    private double lastTime;
+
+    /**
+     * Starts a new turn from the current heading.
+     *
+     * @param heading The current heading in degrees
+     * @param headingVelocity The current turn rate in degrees/s, counter clockwise is positive
+     * @param goal The heading to turn to in degrees. Not wrapped, so it can be more than 180 degrees away
+     * @param maxVelocity The fastest to turn in degrees/s
+     */
+    public void start(double heading, double headingVelocity, double goal, double maxVelocity) {
+        this.goal = goal;
+        profile = new TrapezoidProfile(
+                new TrapezoidProfile.Constraints(Math.min(maxVelocity, MAX_TURN_VELOCITY), MAX_TURN_ACCELERATION),
+                new TrapezoidProfile.State(goal, 0),
+                new TrapezoidProfile.State(heading, headingVelocity));
+
+        controller.reset();
+        timer.reset();
+        lastVelocity = headingVelocity;
+        lastTime = 0;
+    }
+
+    /**
+     * Calculates how fast to turn. Should be called once per loop while turning.
+     *
+     * @param heading The current heading in degrees
+     * @return The turn power, counter clockwise is positive
+     */
+    public double calculate(double heading) {
+        double time = timer.seconds();
+        TrapezoidProfile.State setpoint = profile.calculate(time);
+        double acceleration = time > lastTime ? (setpoint.velocity - lastVelocity) / (time - lastTime) : 0;
+        lastVelocity = setpoint.velocity;
+        lastTime = time;
+
+        controller.setPID(HEADING_P, HEADING_I, HEADING_D);
+        double feedback = controller.calculate(unwrap(heading, setpoint.position), setpoint.position);
+        double feedforward = HEADING_KV * setpoint.velocity + HEADING_KA * acceleration
+                + HEADING_KS * Math.signum(setpoint.velocity);
+
+        return feedforward + feedback;
+    }
+
+    /**
+     * Checks if the turn is done. It is done once the profile is finished and the heading is within the
+     * tolerance, or if it has gone on too long.
+     *
+     * @param heading The current heading in degrees
+     * @return True if the turn is done
+     */
+    public boolean isFinished(double heading) {
+        double time = timer.seconds();
+        if (!profile.isFinished(time)) return false;
+        return Math.abs(unwrap(heading, goal) - goal) <= AUTO_HEADING_TOLERANCE
+                || time >= profile.totalTime() + TURN_TIMEOUT;
+    }
+
+    /** @return The heading at the end of the turn in degrees, not wrapped */
+    public double getGoal() {
+        return goal;
+    }
+
+    /**
+     * Finds the heading equal to a heading from the IMU that is closest to a reference heading.
+     *
+     * @param heading The heading from the IMU in degrees
+     * @param reference The heading to be close to in degrees
+     * @return The unwrapped heading in degrees
+     */
+    private static double unwrap(double heading, double reference) {
+        return reference + AngleUnit.normalizeDegrees(heading - reference);
+    }
+}
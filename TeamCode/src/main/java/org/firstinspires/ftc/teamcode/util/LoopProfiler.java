@@ -0,0 +1,124 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import android.annotation.SuppressLint;
+
+import com.acmerobotics.dashboard.FtcDashboard;
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.dashboard.telemetry.TelemetryPacket;
+import com.qualcomm.robotcore.util.RobotLog;
+
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Times the parts of the main loop (command scheduler, subsystems, commands, telemetry) into
+ * {@link TimingHistogram TimingHistograms}. Sections are created once during initialization, so timing
+ * them in the loop doesn't allocate. The percentiles are sent to FTC Dashboard a few times a second and
+ * written to a file when the op mode stops.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+@Config
+public class LoopProfiler {
+    /** How often the percentiles are sent to the dashboard, in milliseconds */
+    public static long PUBLISH_INTERVAL_MS = 500;
+
+    private final List<TimingHistogram> sections = new ArrayList<>();
+    /** The time of a whole loop, from one {@link #startLoop()} to the next */
+    private final TimingHistogram loopSection;
+
+    private long loopStartNanos;
+    private long lastPublishNanos;
+
+    /** Creates a profiler with only the whole loop section. */
+    public LoopProfiler() {
+        loopSection = getSection("loop");
+    }
+
+    /**
+     * Gets the section with a name, creating it if it doesn't exist. Should only be called during
+     * initialization.
+     *
+     * @param name The name of the section
+     * @return The histogram for that section
+     */
+    public TimingHistogram getSection(String name) {
+        for (TimingHistogram section : sections) {
+            if (section.getName().equals(name)) return section;
+        }
+        TimingHistogram section = new TimingHistogram(name);
+        sections.add(section);
+        return section;
+    }
+
+    /** Marks the start of a loop, recording the length of the last loop and publishing if it is time. */
+    public void startLoop() {
+        long now = System.nanoTime();
+        if (loopStartNanos != 0) loopSection.record(now - loopStartNanos);
+        loopStartNanos = now;
+
+        if ((now - lastPublishNanos) / 1_000_000 >= PUBLISH_INTERVAL_MS) {
+            lastPublishNanos = now;
+            publish();
+        }
+    }
+
+    /** Sends the percentiles of every section to FTC Dashboard. */
+    public void publish() {
+        // There is no dashboard when running in the simulator
+        FtcDashboard dashboard = FtcDashboard.getInstance();
+        if (dashboard == null) return;
+
+        TelemetryPacket packet = new TelemetryPacket();
+        for (TimingHistogram section : sections) {
+            String name = section.getName();
+            packet.put(name + " p50 (ms)", section.getPercentileMs(50));
+            packet.put(name + " p95 (ms)", section.getPercentileMs(95));
+            packet.put(name + " p99 (ms)", section.getPercentileMs(99));
+            packet.put(name + " max (ms)", section.getMaxMs());
+        }
+        dashboard.sendTelemetryPacket(packet);
+    }
+
+    /**
+     * Writes the percentiles of every section to a file in the Profiles folder.
+     *
+     * @param opModeName The name of the op mode, used in the file name
+     */
+    @SuppressLint("SimpleDateFormat")
+    public void dumpToFile(String opModeName) {
+        File root = new File(AppUtil.ROOT_FOLDER + "/Profiles/");
+        //noinspection ResultOfMethodCallIgnored
+        root.mkdirs();
+
+        String filename = new SimpleDateFormat("yyyy_MM_dd__HH_mm_ss_SSS").format(new Date()) + "__" + opModeName + ".txt";
+        File file = new File(root, filename);
+        try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
+            writer.println(String.format(Locale.US, "%-32s %8s %8s %8s %8s %8s %8s",
+                    "section", "count", "mean", "p50", "p95", "p99", "max"));
+            for (TimingHistogram section : sections) {
+                writer.println(String.format(Locale.US, "%-32s %8d %8.2f %8.2f %8.2f %8.2f %8.2f",
+                        section.getName(), section.getCount(), section.getMeanMs(),
+                        section.getPercentileMs(50), section.getPercentileMs(95),
+                        section.getPercentileMs(99), section.getMaxMs()));
+            }
+        } catch (IOException e) {
+            RobotLog.setGlobalErrorMsg(new RuntimeException(e),
+                    "Unable to write profile to " + file.getAbsolutePath());
+        }
+    }
+
+    /** @return All of the sections */
+    public List<TimingHistogram> getSections() {
+        return sections;
+    }
+}
@@ -0,0 +1,102 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import com.acmerobotics.roadrunner.profile.MotionProfile;
+import com.acmerobotics.roadrunner.profile.MotionProfileGenerator;
+import com.acmerobotics.roadrunner.profile.MotionState;
+import com.arcrobotics.ftclib.controller.PIDController;
+import com.qualcomm.robotcore.util.ElapsedTime;
+
+/**
+ * Moves a motor to a position by following a motion profile instead of jumping straight to the target. The
+ * output is velocity and acceleration feedforward from the profile plus a PID on the error from the profile's
+ * position. The profile is trapezoidal, or S-curve if a jerk limit is given. Anything that depends on the
+ * mechanism, like gravity, is added by the subsystem.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class ProfiledPositionController {
+    private final PIDController controller;
+    private final ElapsedTime timer = RobotClock.newTimer();
+
+    private double kV;
+    private double kA;
+
+    /** Null if we started at the target */
+    private MotionProfile profile;
+    private double target;
+
+    /**
+     * Creates a controller with no feedforward.
+     *
+     * @param p The proportional gain, in power per pulse
+     * @param i The integral gain
+     * @param d The derivative gain
+     */
+    public ProfiledPositionController(double p, double i, double d) {
+        controller = new PIDController(p, i, d);
+    }
+
+    /**
+     * Sets the gains. Can be called every loop so they can be tuned from the dashboard.
+     *
+     * @param p The proportional gain, in power per pulse
+     * @param i The integral gain
+     * @param d The derivative gain
+     * @param kV The velocity feedforward, in power per pulse/s
+     * @param kA The acceleration feedforward, in power per pulse/s^2
+     */
+    public void setGains(double p, double i, double d, double kV, double kA) {
+        controller.setPID(p, i, d);
+        this.kV = kV;
+        this.kA = kA;
+    }
+
+    /**
+     * Generates a profile from the current position to a target and starts following it.
+     *
+     * @param position The current position in pulses
+     * @param velocity The current velocity in pulses/s
+     * @param target The target position in pulses
+     * @param maxVelocity The fastest to move in pulses/s
+     * @param maxAcceleration The fastest to accelerate in pulses/s^2
+     * @param maxJerk The fastest to change acceleration in pulses/s^3, 0 for a trapezoidal profile
+     */
+    public void start(double position, double velocity, double target, double maxVelocity, double maxAcceleration, double maxJerk) {
+        this.target = target;
+        // A profile with no length has no segments to follow
+        profile = position == target ? null : MotionProfileGenerator.generateSimpleMotionProfile(
+                new MotionState(position, velocity),
+                new MotionState(target, 0),
+                maxVelocity, maxAcceleration, maxJerk);
+        controller.reset();
+        timer.reset();
+    }
+
+    /**
+     * Calculates the power to follow the profile. Should be called once per loop.
+     *
+     * @param position The current position in pulses
+     * @return The power for the motor, without anything that depends on the mechanism
+     */
+    public double calculate(double position) {
+        if (profile == null) return controller.calculate(position, target);
+
+        MotionState setpoint = profile.get(timer.seconds());
+        return kV * setpoint.getV() + kA * setpoint.getA() + controller.calculate(position, setpoint.getX());
+    }
+
+    /** @return True if the end of the profile has been reached, the mechanism may still be settling */
+    public boolean isProfileFinished() {
+        return profile == null || timer.seconds() >= profile.duration();
+    }
+
+    /** @return How long the profile takes in seconds */
+    public double getDuration() {
+        return profile == null ? 0 : profile.duration();
+    }
+
+    /** @return Where the profile is right now in pulses */
+    public double getSetpoint() {
+        return profile == null ? target : profile.get(timer.seconds()).getX();
+    }
+}
@@ -0,0 +1,71 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import com.acmerobotics.roadrunner.util.NanoClock;
+import com.qualcomm.robotcore.util.ElapsedTime;
+
+/**
+ * The clock that the controllers, timeouts and velocity estimates of the robot measure time with. On the robot it is
+ * the system clock, but the simulator replaces it with a simulated one, so a simulation gives the same result however
+ * fast the computer runs it. Timing how long the code takes, like the loop profiler does, should still use
+ * {@link System#nanoTime()}.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public final class RobotClock {
+    /** Where the time comes from */
+    public interface TimeSource {
+        /** @return The time in nanoseconds, from an arbitrary starting point */
+        long nanoTime();
+    }
+
+    private static final TimeSource SYSTEM = System::nanoTime;
+
+    private static volatile TimeSource timeSource = SYSTEM;
+
+    /** The robot clock for RoadRunner, which measures time with a {@link NanoClock} */
+    public static final NanoClock NANO_CLOCK = new NanoClock() {
+        @Override
+        public double seconds() {
+            return RobotClock.seconds();
+        }
+    };
+
+    private RobotClock() {
+
+    }
+
+    /** @return The time in nanoseconds, from an arbitrary starting point */
+    public static long nanoTime() {
+        return timeSource.nanoTime();
+    }
+
+    /** @return The time in seconds, from an arbitrary starting point */
+    public static double seconds() {
+        return timeSource.nanoTime() / 1e9;
+    }
+
+    /**
+     * Replaces where the time comes from. Timers that are already running jump by however much the new source
+     * differs from the old one, so this should be done before anything is created.
+     *
+     * @param timeSource The new source of the time
+     */
+    public static void setTimeSource(TimeSource timeSource) {
+        RobotClock.timeSource = timeSource;
+    }
+
+    /** Goes back to measuring time with the system clock. */
+    public static void useSystemTime() {
+        timeSource = SYSTEM;
+    }
+
+    /** @return A new timer that measures time with the robot clock, started now */
+    public static ElapsedTime newTimer() {
+        return new ElapsedTime() {
+            @Override
+            protected long nsNow() {
+                return RobotClock.nanoTime();
+            }
+        };
+    }
+}
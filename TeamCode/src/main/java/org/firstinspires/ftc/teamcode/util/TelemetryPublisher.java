@@ -0,0 +1,206 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import com.acmerobotics.dashboard.FtcDashboard;
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.dashboard.telemetry.TelemetryPacket;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sends the driver station telemetry and FTC Dashboard packets from a background thread, so formatting and sending
+ * them doesn't take time from the control loop. Each loop the robot writes its values between {@link #beginFrame()}
+ * and {@link #endFrame()}, which only stores primitives and references without locking or allocating, and the
+ * background thread sends the latest finished frame every {@link #PUBLISH_INTERVAL_MS}. Values should only be
+ * written from one thread, the op mode's.
+ * <p>
+ * There are three frames, so the loop and the background thread never use the same one: the loop writes one, the
+ * background thread sends another, and the last finished frame waits in between. {@link #endFrame()} swaps the frame
+ * it finished for the waiting one, and the background thread swaps the frame it sent for the waiting one if that is
+ * newer, so the background thread only ever sees whole frames.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+@Config
+public class TelemetryPublisher {
+    /** How often the telemetry is sent, in milliseconds */
+    public static long PUBLISH_INTERVAL_MS = 50;
+
+    /** The most lines in a frame, lines after this are dropped */
+    private static final int MAX_LINES = 64;
+
+    private static final int LINE = 0;
+    private static final int DOUBLE = 1;
+    private static final int LONG = 2;
+    private static final int OBJECT = 3;
+
+    /** Adds to the dashboard packet, called from the background thread */
+    public interface PacketSource {
+        /** @param packet The packet that is about to be sent */
+        void addTo(TelemetryPacket packet);
+    }
+
+    /** Every line of one loop's telemetry, only used by one thread at a time */
+    private static class Frame {
+        private final String[] captions = new String[MAX_LINES];
+        private final int[] types = new int[MAX_LINES];
+        /** Doubles are stored as their bits */
+        private final long[] numbers = new long[MAX_LINES];
+        private final Object[] objects = new Object[MAX_LINES];
+        private int lineCount;
+        /** Counts up with each finished frame, so the newest frame can be told apart */
+        private long sequence;
+    }
+
+    private final Telemetry telemetry;
+    private final List<PacketSource> packetSources = new CopyOnWriteArrayList<>();
+
+    /** The frame being written, only used by the loop */
+    private Frame writeFrame = new Frame();
+    /** The last finished frame, or the frame the background thread gave back once it had a newer one */
+    private final AtomicReference<Frame> waitingFrame = new AtomicReference<>(new Frame());
+    /** The frame being sent, only used by the background thread */
+    private Frame readFrame = new Frame();
+
+    /** The line being written, only used by the loop */
+    private int nextLine;
+    /** How many frames have been finished, only used by the loop */
+    private long frameCount;
+
+    private Thread thread;
+    private volatile boolean isRunning;
+
+    /** @param telemetry The telemetry of the op mode, sent from the background thread */
+    public TelemetryPublisher(Telemetry telemetry) {
+        this.telemetry = telemetry;
+    }
+
+    /** Starts sending telemetry, if it isn't already being sent. */
+    public void start() {
+        if (isRunning) return;
+        isRunning = true;
+        thread = new Thread(this::run, "Telemetry publisher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Stops sending telemetry, without waiting for the background thread. */
+    public void stop() {
+        isRunning = false;
+        if (thread != null) thread.interrupt();
+    }
+
+    /** @return If the background thread is sending the telemetry */
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    /**
+     * Adds something that draws on or adds to every dashboard packet. It is called from the background thread, so it
+     * should only read values that the loop publishes safely.
+     *
+     * @param source What adds to the packet
+     */
+    public void addPacketSource(PacketSource source) {
+        packetSources.add(source);
+    }
+
+    /** @param source Something added with {@link #addPacketSource} */
+    public void removePacketSource(PacketSource source) {
+        packetSources.remove(source);
+    }
+
+    /** Starts writing a new frame, replacing the last one once it is finished. */
+    public void beginFrame() {
+        nextLine = 0;
+    }
+
+    /** Finishes the frame, so the background thread sends it from now on. */
+    public void endFrame() {
+        writeFrame.lineCount = nextLine;
+        writeFrame.sequence = ++frameCount;
+        // Whatever was waiting is either older or already sent, so it is written over next
+        writeFrame = waitingFrame.getAndSet(writeFrame);
+        nextLine = 0;
+    }
+
+    /** @param line A line of text, which should be a constant so nothing is allocated */
+    public void addLine(String line) {
+        int i = nextSlot(line, LINE);
+        if (i != -1) writeFrame.objects[i] = null;
+    }
+
+    public void addData(String caption, double value) {
+        int i = nextSlot(caption, DOUBLE);
+        if (i != -1) writeFrame.numbers[i] = Double.doubleToRawLongBits(value);
+    }
+
+    public void addData(String caption, long value) {
+        int i = nextSlot(caption, LONG);
+        if (i != -1) writeFrame.numbers[i] = value;
+    }
+
+    /** @param value The value, shown with its toString() on the background thread */
+    public void addData(String caption, Object value) {
+        int i = nextSlot(caption, OBJECT);
+        if (i != -1) writeFrame.objects[i] = value;
+    }
+
+    /** @return The slot of the next line, -1 if the frame is full */
+    private int nextSlot(String caption, int type) {
+        if (nextLine >= MAX_LINES) return -1;
+        int i = nextLine++;
+        writeFrame.captions[i] = caption;
+        writeFrame.types[i] = type;
+        return i;
+    }
+
+    private void run() {
+        while (isRunning) {
+            publish();
+            try {
+                Thread.sleep(PUBLISH_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                // Stopping wakes the thread up to exit
+                break;
+            }
+        }
+    }
+
+    /** Sends the last finished frame and the packet sources. */
+    private void publish() {
+        // Only take the waiting frame if it is newer, otherwise the last frame is sent again
+        if (waitingFrame.get().sequence > readFrame.sequence) readFrame = waitingFrame.getAndSet(readFrame);
+
+        Frame frame = readFrame;
+        for (int i = 0; i < frame.lineCount; i++) {
+            String caption = frame.captions[i];
+            switch (frame.types[i]) {
+                case LINE:
+                    telemetry.addLine(caption);
+                    break;
+                case DOUBLE:
+                    telemetry.addData(caption, Double.longBitsToDouble(frame.numbers[i]));
+                    break;
+                case LONG:
+                    telemetry.addData(caption, frame.numbers[i]);
+                    break;
+                default:
+                    telemetry.addData(caption, frame.objects[i]);
+                    break;
+            }
+        }
+        if (frame.lineCount > 0) telemetry.update();
+
+        // There is no dashboard when running in the simulator
+        FtcDashboard dashboard = FtcDashboard.getInstance();
+        if (dashboard == null || packetSources.isEmpty()) return;
+
+        TelemetryPacket packet = new TelemetryPacket();
+        for (PacketSource source : packetSources) source.addTo(packet);
+        dashboard.sendTelemetryPacket(packet);
+    }
+}
@@ -0,0 +1,104 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of durations with fixed size buckets. Recording a duration never allocates, so it can be
+ * used inside the main loop. Durations longer than the last bucket are counted in an overflow bucket, and
+ * the maximum is always kept exactly.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class TimingHistogram {
+    /** The width of each bucket in nanoseconds (0.1 ms) */
+    private static final long BUCKET_WIDTH_NANOS = 100_000;
+    /** The number of buckets, covers 0 to 100 ms */
+    private static final int BUCKET_COUNT = 1000;
+
+    private final String name;
+    /** The last bucket is the overflow bucket */
+    private final int[] buckets = new int[BUCKET_COUNT + 1];
+
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+
+    /**
+     * Creates an empty histogram.
+     *
+     * @param name The name of what is being timed
+     */
+    public TimingHistogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos The duration in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        int bucket = (int) Math.min(nanos / BUCKET_WIDTH_NANOS, BUCKET_COUNT);
+        buckets[bucket]++;
+        count++;
+        totalNanos += nanos;
+        if (nanos > maxNanos) maxNanos = nanos;
+    }
+
+    /**
+     * Records the time since a start time from {@link System#nanoTime()}.
+     *
+     * @param startNanos The start time in nanoseconds
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Gets a percentile of the recorded durations. The result is the upper edge of the bucket the percentile
+     * falls in, so it is at most one bucket width too high.
+     *
+     * @param percentile The percentile (0-100)
+     * @return The percentile in milliseconds, or the maximum if it falls in the overflow bucket
+     */
+    public double getPercentileMs(double percentile) {
+        if (count == 0) return 0;
+        long target = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets[i];
+            if (seen >= Math.max(target, 1)) {
+                return Math.min((i + 1) * BUCKET_WIDTH_NANOS, maxNanos) / 1e6;
+            }
+        }
+        return getMaxMs();
+    }
+
+    /** @return The longest recorded duration in milliseconds */
+    public double getMaxMs() {
+        return maxNanos / 1e6;
+    }
+
+    /** @return The average recorded duration in milliseconds */
+    public double getMeanMs() {
+        return count == 0 ? 0 : totalNanos / 1e6 / count;
+    }
+
+    /** @return The number of recorded durations */
+    public long getCount() {
+        return count;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Clears all of the recorded durations. */
+    public void reset() {
+        Arrays.fill(buckets, 0);
+        count = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+}
@@ -0,0 +1,85 @@
+package org.firstinspires.ftc.teamcode.hardware;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.qualcomm.hardware.lynx.LynxModule;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class BulkReadManagerTest {
+    private LynxModule controlHub;
+    private LynxModule expansionHub;
+    private BulkReadManager bulkReadManager;
+
+    @Before
+    public void setUp() {
+        controlHub = mock(LynxModule.class);
+        expansionHub = mock(LynxModule.class);
+        HardwareMap hardwareMap = mock(HardwareMap.class);
+        when(hardwareMap.getAll(LynxModule.class)).thenReturn(Arrays.asList(controlHub, expansionHub));
+
+        bulkReadManager = new BulkReadManager(hardwareMap);
+    }
+
+    @Test
+    public void switchesEveryModuleToManualCaching() {
+        verify(controlHub).setBulkCachingMode(LynxModule.BulkCachingMode.MANUAL);
+        verify(expansionHub).setBulkCachingMode(LynxModule.BulkCachingMode.MANUAL);
+    }
+
+    @Test
+    public void readsEachModuleOncePerLoop() {
+        for (int i = 0; i < 3; i++) bulkReadManager.update();
+
+        verify(controlHub, times(3)).clearBulkCache();
+        verify(controlHub, times(3)).getBulkData();
+        verify(expansionHub, times(3)).clearBulkCache();
+        verify(expansionHub, times(3)).getBulkData();
+        assertEquals(2, bulkReadManager.getBulkReads());
+        assertEquals(3, bulkReadManager.getLoopCount());
+    }
+
+    @Test
+    public void countsCacheClearsInTheLoopTheyHappenIn() {
+        bulkReadManager.update();
+        // A loop that waits on the hardware clears the cache twice before the next loop starts
+        bulkReadManager.clearCache();
+        bulkReadManager.clearCache();
+        bulkReadManager.update();
+
+        assertEquals(6, bulkReadManager.getBulkReads());
+        assertEquals(2, bulkReadManager.getLoopCount());
+
+        bulkReadManager.update();
+        assertEquals(2, bulkReadManager.getBulkReads());
+    }
+
+    @Test
+    public void countsIndividualReadsPerLoop() {
+        bulkReadManager.update();
+        for (int i = 0; i < 3; i++) bulkReadManager.recordIndividualRead();
+        bulkReadManager.clearCache();
+        bulkReadManager.update();
+
+        assertEquals(3, bulkReadManager.getIndividualReads());
+
+        bulkReadManager.update();
+        assertEquals(0, bulkReadManager.getIndividualReads());
+    }
+
+    @Test
+    public void reportsNothingBeforeTheFirstFullLoop() {
+        bulkReadManager.update();
+
+        assertEquals(0, bulkReadManager.getBulkReads());
+        assertEquals(0, bulkReadManager.getIndividualReads());
+    }
+}
@@ -0,0 +1,143 @@
+package org.firstinspires.ftc.teamcode.roadrunner.drive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+
+import com.acmerobotics.roadrunner.drive.MecanumDrive;
+import com.acmerobotics.roadrunner.util.Angle;
+import com.acmerobotics.roadrunner.util.NanoClock;
+
+import org.firstinspires.ftc.teamcode.roadrunner.util.DoubleArrayList;
+import org.firstinspires.ftc.teamcode.roadrunner.util.WheelEncoders;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+public class KalmanLocalizerTest {
+    // both exact in binary, so every fourth update is exactly one period after the last read
+    private static final double DT = 1.0 / 64;
+    private static final double IMU_PERIOD = 1.0 / 16;
+    private static final double TRACK_WIDTH = 15;
+
+    private double imuPeriod;
+    private FakeDrive drive;
+    private FakeClock clock;
+    private KalmanLocalizer localizer;
+
+    @Before
+    public void setUp() {
+        imuPeriod = KalmanLocalizer.IMU_PERIOD;
+        KalmanLocalizer.IMU_PERIOD = IMU_PERIOD;
+
+        drive = new FakeDrive();
+        clock = new FakeClock();
+        localizer = new KalmanLocalizer(WheelOdometryLocalizer.mecanum(drive, TRACK_WIDTH, TRACK_WIDTH, 1), drive, clock);
+        // Setting the pose reads the IMU, which isn't counted
+        drive.imuReads = 0;
+    }
+
+    @After
+    public void tearDown() {
+        KalmanLocalizer.IMU_PERIOD = imuPeriod;
+    }
+
+    @Test
+    public void readsTheImuOncePerPeriod() {
+        runUpdates(64);
+        assertEquals(16, drive.imuReads);
+    }
+
+    @Test
+    public void readsTheImuEveryUpdateWithoutAPeriod() {
+        KalmanLocalizer.IMU_PERIOD = 0;
+        runUpdates(64);
+        assertEquals(64, drive.imuReads);
+    }
+
+    @Test
+    public void followsTheImuWhenTheWheelsDrift() {
+        // The right wheels slip forward, so the wheels say the robot turned, but the IMU says it didn't
+        runUpdates(128);
+
+        double wheelTurn = 128 * (FakeDrive.RIGHT_STEP - FakeDrive.LEFT_STEP) / TRACK_WIDTH;
+        assertTrue(wheelTurn > Math.toRadians(45));
+        assertEquals(0, Angle.normDelta(localizer.getPoseEstimate().getHeading()), Math.toRadians(1));
+        // It still drove forward
+        assertEquals(128 * (FakeDrive.LEFT_STEP + FakeDrive.RIGHT_STEP) / 2, localizer.getPoseEstimate().getX(), 1);
+    }
+
+    private void runUpdates(int updates) {
+        for (int i = 0; i < updates; i++) {
+            clock.time += DT;
+            drive.step();
+            localizer.update();
+        }
+    }
+
+    private static class FakeClock extends NanoClock {
+        double time = 1;
+
+        @Override
+        public double seconds() {
+            return time;
+        }
+    }
+
+    /** A mecanum drive whose wheels move by the same amount every step, the right side faster, with a still IMU. */
+    private static class FakeDrive extends MecanumDrive implements WheelEncoders {
+        static final double LEFT_STEP = 0.2, RIGHT_STEP = 0.3;
+
+        private final double[] positions = new double[4];
+        int imuReads;
+
+        FakeDrive() {
+            super(DriveConstants.kV, DriveConstants.kA, DriveConstants.kStatic, TRACK_WIDTH, TRACK_WIDTH, 1);
+        }
+
+        void step() {
+            positions[0] += LEFT_STEP;
+            positions[1] += LEFT_STEP;
+            positions[2] += RIGHT_STEP;
+            positions[3] += RIGHT_STEP;
+        }
+
+        @Override
+        public int getWheelCount() {
+            return positions.length;
+        }
+
+        @Override
+        public void readWheelPositions(double[] positions) {
+            System.arraycopy(this.positions, 0, positions, 0, this.positions.length);
+        }
+
+        @Override
+        public void readWheelVelocities(double[] velocities) {
+            velocities[0] = velocities[1] = LEFT_STEP / DT;
+            velocities[2] = velocities[3] = RIGHT_STEP / DT;
+        }
+
+        @NonNull
+        @Override
+        public List<Double> getWheelPositions() {
+            double[] positions = new double[4];
+            readWheelPositions(positions);
+            return DoubleArrayList.wrap(positions);
+        }
+
+        @Override
+        public void setMotorPowers(double frontLeft, double rearLeft, double rearRight, double frontRight) {
+
+        }
+
+        @Override
+        public double getRawExternalHeading() {
+            imuReads++;
+            return 0;
+        }
+    }
+}
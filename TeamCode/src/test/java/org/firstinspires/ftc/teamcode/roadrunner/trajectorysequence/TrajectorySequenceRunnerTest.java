@@ -0,0 +1,176 @@
+package org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.acmerobotics.roadrunner.drive.DriveSignal;
+import com.acmerobotics.roadrunner.followers.HolonomicPIDVAFollower;
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+
+import org.firstinspires.ftc.teamcode.hardware.BatteryMonitor;
+import org.firstinspires.ftc.teamcode.roadrunner.drive.DriveConstants;
+import org.firstinspires.ftc.teamcode.roadrunner.drive.SampleMecanumDrive;
+import org.firstinspires.ftc.teamcode.sim.SimClock;
+import org.firstinspires.ftc.teamcode.sim.SimVoltageSensor;
+import org.firstinspires.ftc.teamcode.util.RobotClock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class TrajectorySequenceRunnerTest {
+    private static final double DT = 0.01;
+    private static final double WAIT = 0.1;
+    /** How long to wait for the build thread before failing, in real time */
+    private static final long TIMEOUT_MS = 5000;
+
+    private static final List<Integer> ENCODERS = Arrays.asList(0, 0, 0, 0);
+    private static final List<Integer> TRACKING = new ArrayList<>();
+
+    private final Pose2d pose = new Pose2d();
+    private final Pose2d velocity = new Pose2d();
+
+    private SimClock clock;
+    private TrajectorySequenceRunner runner;
+    // holds the build thread partway through the steps until the test lets it go
+    private CountDownLatch release;
+
+    @Before
+    public void setUp() {
+        clock = new SimClock();
+        RobotClock.setTimeSource(clock);
+        release = new CountDownLatch(1);
+
+        HolonomicPIDVAFollower follower = new HolonomicPIDVAFollower(
+                SampleMecanumDrive.TRANSLATIONAL_PID, SampleMecanumDrive.TRANSLATIONAL_PID, SampleMecanumDrive.HEADING_PID,
+                SampleMecanumDrive.FOLLOWER_ADMISSIBLE_ERROR, SampleMecanumDrive.FOLLOWER_TIMEOUT, RobotClock.NANO_CLOCK);
+        runner = new TrajectorySequenceRunner(
+                follower, SampleMecanumDrive.HEADING_PID, new BatteryMonitor(new SimVoltageSensor(12)),
+                ENCODERS, ENCODERS, TRACKING, TRACKING);
+    }
+
+    @After
+    public void tearDown() {
+        // The build thread is shared, so a failed test mustn't leave it waiting
+        release.countDown();
+        RobotClock.useSystemTime();
+    }
+
+    @Test
+    public void holdsStillUntilTheNextSegmentIsBuilt() throws Exception {
+        List<String> fired = Collections.synchronizedList(new ArrayList<>());
+        PendingTrajectorySequence pending = newBuilder().buildAsync(builder -> {
+            // Added out of order, since they fire by time
+            builder.addTemporalMarker(WAIT * 1.5, () -> fired.add("second"))
+                    .addTemporalMarker(WAIT * 0.5, () -> fired.add("first"))
+                    .waitSeconds(WAIT)
+                    .waitSeconds(WAIT);
+            awaitRelease();
+            return builder.addTemporalMarker(WAIT * 2.5, () -> fired.add("third"))
+                    .waitSeconds(WAIT);
+        });
+        awaitSegments(pending, 2);
+        runner.followTrajectorySequenceAsync(pending);
+
+        // Both built segments finish, then it waits for the third
+        runFor(3 * WAIT);
+        DriveSignal signal = runner.update(pose, velocity);
+        assertStopped(signal);
+        assertTrue(runner.isBusy());
+        // Only the final sequence has markers
+        assertTrue(fired.isEmpty());
+
+        release.countDown();
+        pending.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        // The markers of the finished segments fire as soon as the final sequence is adopted
+        runner.update(pose, velocity);
+        assertEquals(Arrays.asList("first", "second"), fired);
+
+        runFor(2 * WAIT);
+        assertEquals(Arrays.asList("first", "second", "third"), fired);
+        assertFalse(runner.isBusy());
+    }
+
+    @Test
+    public void stopsFollowingWhenTheBuildFails() throws Exception {
+        List<String> fired = Collections.synchronizedList(new ArrayList<>());
+        PendingTrajectorySequence pending = newBuilder().buildAsync(builder -> {
+            builder.addTemporalMarker(WAIT * 0.5, () -> fired.add("never placed"))
+                    .waitSeconds(WAIT)
+                    .waitSeconds(WAIT);
+            awaitRelease();
+            throw new IllegalStateException("Failed on purpose");
+        });
+        awaitSegments(pending, 2);
+        runner.followTrajectorySequenceAsync(pending);
+
+        runFor(3 * WAIT);
+        assertTrue(runner.isBusy());
+
+        release.countDown();
+        awaitDone(pending);
+        assertNotNull(pending.getError());
+
+        // Finishes what was built, then stops
+        runFor(2 * WAIT);
+        assertStopped(runner.update(pose, velocity));
+        assertFalse(runner.isBusy());
+        assertTrue(fired.isEmpty());
+    }
+
+    private TrajectorySequenceBuilder newBuilder() {
+        return new TrajectorySequenceBuilder(
+                new Pose2d(),
+                SampleMecanumDrive.getVelocityConstraint(DriveConstants.MAX_VEL, DriveConstants.MAX_ANG_VEL, DriveConstants.TRACK_WIDTH),
+                SampleMecanumDrive.getAccelerationConstraint(DriveConstants.MAX_ACCEL),
+                DriveConstants.MAX_ANG_VEL, DriveConstants.MAX_ANG_ACCEL);
+    }
+
+    private void runFor(double seconds) {
+        for (double time = 0; time < seconds; time += DT) {
+            runner.update(pose, velocity);
+            clock.advance(DT);
+        }
+    }
+
+    // called on the build thread
+    private void awaitRelease() {
+        try {
+            if (!release.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)) throw new IllegalStateException("Never released");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitSegments(PendingTrajectorySequence pending, int segments) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (pending.getLatest() == null || pending.getLatest().size() < segments) {
+            assertTrue("Timed out building " + segments + " segments", System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private static void awaitDone(PendingTrajectorySequence pending) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!pending.isDone()) {
+            assertTrue("Timed out waiting for the build", System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private static void assertStopped(DriveSignal signal) {
+        assertNotNull(signal);
+        assertEquals(new Pose2d(), signal.getVel());
+        assertEquals(new Pose2d(), signal.getAccel());
+    }
+}
@@ -0,0 +1,148 @@
+package org.firstinspires.ftc.teamcode.roadrunner.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+public class BinaryLogReaderTest {
+    /** The fields of the JSON log, in order, from when LogFile kept its samples in lists */
+    private static final List<String> LOG_FILE_FIELDS = Arrays.asList(
+            "version", "opModeName", "msInit", "nsInit", "nsStart", "nsStop",
+            "ticksPerRev", "maxRpm", "runUsingEncoder", "motorP", "motorI", "motorD", "motorF",
+            "wheelRadius", "gearRatio", "trackWidth", "kV", "kA", "kStatic",
+            "maxVel", "maxAccel", "maxAngVel", "maxAngAccel",
+            "mecTransP", "mecTransI", "mecTransD", "mecHeadingP", "mecHeadingI", "mecHeadingD", "mecLateralMultiplier",
+            "tankAxialP", "tankAxialI", "tankAxialD", "tankCrossTrackP", "tankCrossTrackI", "tankCrossTrackD",
+            "tankHeadingP", "tankHeadingI", "tankHeadingD",
+            "trackingTicksPerRev", "trackingWheelRadius", "trackingGearRatio", "trackingLateralDistance",
+            "trackingForwardOffset",
+            "LOGO_FACING_DIR", "USB_FACING_DIR",
+            "nsTimes", "targetXs", "targetYs", "targetHeadings", "xs", "ys", "headings", "voltages",
+            "driveEncPositions", "driveEncVels", "trackingEncPositions", "trackingEncVels"
+    );
+    private static final List<String> SAMPLE_FIELDS = Arrays.asList(
+            "nsTimes", "targetXs", "targetYs", "targetHeadings", "xs", "ys", "headings", "voltages");
+
+    private static final int SAMPLES = 200;
+    private static final int DRIVE_ENCODERS = 4;
+    private static final long NS_START = 1_000;
+    private static final long NS_STOP = 2_000;
+    /** The type, time, seven doubles, four encoder counts and the drive encoder positions and velocities */
+    private static final int SAMPLE_BYTES = 1 + 8 + 7 * 8 + 4 + 2 * DRIVE_ENCODERS * 4;
+    /** The type and the time */
+    private static final int STOP_BYTES = 1 + 8;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsTheLogWithTheFieldsOfTheListLog() throws IOException, InterruptedException {
+        File file = writeLog();
+        JsonNode log = mapper.readTree(BinaryLogReader.toJson(new FileInputStream(file)));
+
+        assertEquals(LOG_FILE_FIELDS, getFieldNames(log));
+        assertEquals("RoundTrip", log.get("opModeName").asText());
+        assertEquals(NS_START, log.get("nsStart").asLong());
+        assertEquals(NS_STOP, log.get("nsStop").asLong());
+        assertSamples(log, SAMPLES);
+    }
+
+    @Test
+    public void readsALogCutOffInTheMiddleOfASample() throws IOException, InterruptedException {
+        byte[] bytes = Files.readAllBytes(writeLog().toPath());
+        // Without the stop, and halfway through the last sample
+        byte[] cutOff = Arrays.copyOf(bytes, bytes.length - STOP_BYTES - SAMPLE_BYTES / 2);
+        JsonNode log = mapper.readTree(BinaryLogReader.toJson(new ByteArrayInputStream(cutOff)));
+
+        assertEquals(LOG_FILE_FIELDS, getFieldNames(log));
+        // Still the value from when the log was made
+        assertEquals(0, log.get("nsStop").asLong());
+        assertSamples(log, SAMPLES - 1);
+    }
+
+    @Test
+    public void readsALogCutOffBetweenSamples() throws IOException, InterruptedException {
+        byte[] bytes = Files.readAllBytes(writeLog().toPath());
+        byte[] cutOff = Arrays.copyOf(bytes, bytes.length - STOP_BYTES - SAMPLE_BYTES);
+        JsonNode log = mapper.readTree(BinaryLogReader.toJson(new ByteArrayInputStream(cutOff)));
+
+        assertSamples(log, SAMPLES - 1);
+    }
+
+    private File writeLog() throws IOException, InterruptedException {
+        File file = folder.newFile("log" + BinaryLogWriter.EXTENSION);
+        String metadata = mapper.writeValueAsString(new LogFiles.LogFile("RoundTrip"));
+        BinaryLogWriter writer = new BinaryLogWriter(file, metadata);
+        writer.start(NS_START);
+
+        List<Integer> positions = new ArrayList<>();
+        List<Integer> velocities = new ArrayList<>();
+        for (int i = 0; i < DRIVE_ENCODERS; i++) {
+            positions.add(0);
+            velocities.add(0);
+        }
+        for (int i = 0; i < SAMPLES; i++) {
+            for (int j = 0; j < DRIVE_ENCODERS; j++) {
+                positions.set(j, i * 10 + j);
+                velocities.set(j, -(i * 10 + j));
+            }
+            writer.record(i, i + 0.25, i + 0.5, i + 1, i + 1.25, i + 1.5, 12,
+                    positions, velocities, Collections.emptyList(), Collections.emptyList());
+        }
+
+        writer.close(NS_STOP);
+        writer.awaitFinished();
+        return file;
+    }
+
+    private void assertSamples(JsonNode log, int samples) {
+        for (String field : SAMPLE_FIELDS) {
+            assertTrue(field, log.get(field).isArray());
+            assertEquals(field, samples, log.get(field).size());
+        }
+        for (int i = 0; i < samples; i++) {
+            assertEquals(i, log.get("targetXs").get(i).asDouble(), 0);
+            assertEquals(i + 1.5, log.get("headings").get(i).asDouble(), 0);
+        }
+
+        assertEncoders(log.get("driveEncPositions"), samples, 1);
+        assertEncoders(log.get("driveEncVels"), samples, -1);
+        assertEquals(0, log.get("trackingEncPositions").size());
+        assertEquals(0, log.get("trackingEncVels").size());
+    }
+
+    // a list of each encoder's readings
+    private static void assertEncoders(JsonNode encoders, int samples, int sign) {
+        assertEquals(DRIVE_ENCODERS, encoders.size());
+        for (int j = 0; j < DRIVE_ENCODERS; j++) {
+            JsonNode encoder = encoders.get(j);
+            assertEquals(samples, encoder.size());
+            for (int i = 0; i < samples; i++) assertEquals(sign * (i * 10 + j), encoder.get(i).asInt());
+        }
+    }
+
+    private static List<String> getFieldNames(JsonNode log) {
+        List<String> names = new ArrayList<>();
+        for (Iterator<String> it = log.fieldNames(); it.hasNext(); ) names.add(it.next());
+        return names;
+    }
+}
@@ -0,0 +1,188 @@
+package org.firstinspires.ftc.teamcode.roadrunner.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+
+public class FeedforwardRegressionTest {
+    private static final double KV = 0.017;
+    private static final double KA = 0.003;
+    private static final double K_STATIC = 0.06;
+
+    private static final double LOOP_TIME = 0.02;
+    // the loop time varies by up to this much either way, in seconds
+    private static final double LOOP_JITTER = 0.005;
+    // the longest step the robot is simulated with between samples, in seconds
+    private static final double SUBSTEP = 0.0005;
+
+    private static final double RAMP_RATE = 0.4; // power per second
+    private static final double RAMP_TIME = 2;
+    private static final double CONSTANT_POWER = 0.7;
+    private static final double CONSTANT_POWER_TIME = 1.5;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void differentiatesThePositionsWithUnevenLoopTimes() throws IOException {
+        // x = 3 t + 2 t^2, so v = 3 + 4 t and a = 4 everywhere
+        Random random = new Random(1);
+        FeedforwardRegression.Run run = new FeedforwardRegression.Run();
+        double time = 0;
+        for (int i = 0; i < 50; i++) {
+            run.add(time, 3 * time + 2 * time * time, 0.5);
+            time += LOOP_TIME + (random.nextDouble() * 2 - 1) * LOOP_JITTER;
+        }
+        FeedforwardRegression regression = new FeedforwardRegression();
+        regression.addRun(run);
+        FeedforwardRegression.Result result = regression.fit(true, false);
+        assertNotNull(result);
+
+        // The ends don't have a full window, so they are left out
+        assertEquals(50 - 2 * 5, regression.size());
+        File file = folder.newFile("fit.csv");
+        assertTrue(regression.write(result, file));
+
+        List<String> lines = Files.readAllLines(file.toPath());
+        int samples = 0;
+        for (String line : lines) {
+            if (line.startsWith("#") || line.startsWith("velocity")) continue;
+            String[] columns = line.split(",");
+            double velocity = Double.parseDouble(columns[0]);
+            double acceleration = Double.parseDouble(columns[1]);
+            assertTrue("Velocity " + velocity, velocity > 3 && velocity < 3 + 4 * time);
+            assertEquals(4, acceleration, 1e-6);
+            samples++;
+        }
+        assertEquals(regression.size(), samples);
+    }
+
+    @Test
+    public void fitsTheConstantsDespiteOutliers() {
+        Random random = new Random(2);
+        FeedforwardRegression regression = new FeedforwardRegression();
+        for (int i = 0; i < 3; i++) {
+            for (int direction = 1; direction >= -1; direction -= 2) {
+                regression.addRun(simulate(random, direction, true, 0.0005, 0, true));
+                regression.addRun(simulate(random, direction, false, 0.0005, 0, true));
+            }
+        }
+
+        FeedforwardRegression.Result result = regression.fit(true, true);
+        assertNotNull(result);
+        assertEquals(KV, result.kV, KV * 0.03);
+        assertEquals(KA, result.kA, KA * 0.1);
+        assertEquals(K_STATIC, result.kStatic, K_STATIC * 0.05);
+        // The slipping samples were given less weight
+        assertTrue(result.downWeighted > 0);
+        assertEquals(12, result.runs);
+    }
+
+    @Test
+    public void confidenceIntervalsCoverTheConstants() {
+        int trials = 40;
+        int kVCovered = 0, kACovered = 0, kStaticCovered = 0;
+        for (int trial = 0; trial < trials; trial++) {
+            Random random = new Random(100 + trial);
+            // The positions are exact, so a short window is enough, and it bends least with the changing acceleration
+            FeedforwardRegression regression = new FeedforwardRegression(2);
+            for (int direction = 1; direction >= -1; direction -= 2) {
+                regression.addRun(simulate(random, direction, true, 0, 0.01, false));
+                regression.addRun(simulate(random, direction, false, 0, 0.01, false));
+            }
+
+            FeedforwardRegression.Result result = regression.fit(true, true);
+            assertNotNull(result);
+            // Narrow enough to be useful
+            assertTrue(result.kVError < KV * 0.1);
+            assertTrue(result.kStaticError < K_STATIC * 0.5);
+
+            if (Math.abs(result.kV - KV) <= result.kVError) kVCovered++;
+            if (Math.abs(result.kA - KA) <= result.kAError) kACovered++;
+            if (Math.abs(result.kStatic - K_STATIC) <= result.kStaticError) kStaticCovered++;
+        }
+
+        // 95% intervals, with room for chance and for the smoothing making neighbouring samples alike
+        int minCovered = (int) (trials * 0.8);
+        assertTrue(kVCovered + " of " + trials, kVCovered >= minCovered);
+        assertTrue(kACovered + " of " + trials, kACovered >= minCovered);
+        assertTrue(kStaticCovered + " of " + trials, kStaticCovered >= minCovered);
+    }
+
+    @Test
+    public void reportsWhenARunCantBeWritten() {
+        FeedforwardRegression.Run run = new FeedforwardRegression.Run();
+        run.add(0, 0, 0);
+
+        assertFalse(run.write(folder.getRoot()));
+    }
+
+    /**
+     * Drives a robot that follows the feedforward model exactly and records it.
+     *
+     * @param direction 1 for forward, -1 for backward
+     * @param isRamp Whether the power ramps up, otherwise it is constant
+     * @param positionNoise The standard deviation of the encoder noise, in inches
+     * @param powerNoise The standard deviation of the noise on the recorded power
+     * @param isSlipping Whether some of the samples are thrown off, by encoder glitches and by wheel slip
+     */
+    private static FeedforwardRegression.Run simulate(
+            Random random, int direction, boolean isRamp, double positionNoise, double powerNoise, boolean isSlipping
+    ) {
+        FeedforwardRegression.Run run = new FeedforwardRegression.Run();
+        double duration = isRamp ? RAMP_TIME : CONSTANT_POWER_TIME;
+        double time = 0, position = 0, velocity = 0;
+        int sample = 0;
+        while (time < duration) {
+            double recordedPosition = position + random.nextGaussian() * positionNoise;
+            double recordedPower = getPower(direction, isRamp, time) + random.nextGaussian() * powerNoise;
+            if (isSlipping && sample % 37 == 20) {
+                // a glitched encoder read
+                recordedPosition += direction * 5;
+            }
+            if (isSlipping && sample % 23 == 10) {
+                // the wheels slipped, so the power did less than the model says
+                recordedPower += direction * 0.3;
+            }
+            run.add(time, recordedPosition, recordedPower);
+            sample++;
+
+            double loopTime = LOOP_TIME + (random.nextDouble() * 2 - 1) * LOOP_JITTER;
+            int substeps = (int) Math.ceil(loopTime / SUBSTEP);
+            double substep = loopTime / substeps;
+            for (int i = 0; i < substeps; i++) {
+                double power = getPower(direction, isRamp, time + i * substep);
+                double acceleration;
+                if (velocity == 0 && Math.abs(power) <= K_STATIC) {
+                    acceleration = 0;
+                } else {
+                    double sign = velocity != 0 ? Math.signum(velocity) : Math.signum(power);
+                    acceleration = (power - KV * velocity - K_STATIC * sign) / KA;
+                }
+                double nextVelocity = velocity + acceleration * substep;
+                // static friction stops the robot instead of pushing it backwards
+                if (velocity != 0 && Math.signum(nextVelocity) != Math.signum(velocity)) nextVelocity = 0;
+                position += (velocity + nextVelocity) / 2 * substep;
+                velocity = nextVelocity;
+            }
+            time += loopTime;
+        }
+        return run;
+    }
+
+    // the power changes smoothly between samples, so the model holds at the moment each sample is recorded
+    private static double getPower(int direction, boolean isRamp, double time) {
+        return direction * (isRamp ? RAMP_RATE * time : CONSTANT_POWER);
+    }
+}
@@ -0,0 +1,197 @@
+package org.firstinspires.ftc.teamcode.roadrunner.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+public class LogRetentionTest {
+    private static final int LOG_BYTES = 1000;
+    private static final String[] OLD_LOGS = {
+            "2024_01_01__10_00_00_000__AutoA.rrlog",
+            "2024_01_02__10_00_00_000__AutoB.rrlog",
+            "2024_01_03__10_00_00_000__AutoC.rrlog",
+            "2024_01_04__10_00_00_000__AutoD.rrlog",
+            "2024_01_05__10_00_00_000__AutoE.rrlog",
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File root;
+    private final Random random = new Random(7);
+    // the contents of each old log, random so compressing them doesn't shrink them
+    private final List<byte[]> oldLogContents = new ArrayList<>();
+    private int newLogs;
+
+    @Before
+    public void setUp() throws IOException {
+        root = folder.getRoot();
+        for (int i = 0; i < OLD_LOGS.length; i++) {
+            byte[] contents = new byte[LOG_BYTES];
+            random.nextBytes(contents);
+            File file = new File(root, OLD_LOGS[i]);
+            Files.write(file.toPath(), contents);
+            // Oldest first, well before the logs the tests write
+            assertTrue(file.setLastModified(1_000_000_000_000L + i * 60_000L));
+            oldLogContents.add(contents);
+        }
+    }
+
+    @Test
+    public void rebuildsTheIndexWhenItIsMissing() throws InterruptedException {
+        LogRetention retention = new LogRetention(root);
+        retention.awaitIdle();
+
+        List<LogRetention.Entry> logs = retention.getLogs();
+        assertEquals(OLD_LOGS.length, logs.size());
+        for (int i = 0; i < OLD_LOGS.length; i++) {
+            // Newest first
+            LogRetention.Entry entry = logs.get(OLD_LOGS.length - 1 - i);
+            assertEquals(OLD_LOGS[i], entry.name);
+            assertEquals("Auto" + (char) ('A' + i), entry.opModeName);
+            assertEquals(LOG_BYTES, entry.sizeBytes);
+        }
+        assertTrue(new File(root, "index.json").exists());
+    }
+
+    @Test
+    public void rebuildsTheIndexWhenItCantBeRead() throws IOException, InterruptedException {
+        Files.write(new File(root, "index.json").toPath(), "not an index".getBytes());
+
+        LogRetention retention = new LogRetention(root);
+        retention.awaitIdle();
+
+        assertEquals(OLD_LOGS.length, retention.getLogs().size());
+    }
+
+    @Test
+    public void compressesAllButTheNewestLogs() throws IOException, InterruptedException {
+        LogRetention retention = new LogRetention(root);
+        String newLog = finishLog(retention);
+
+        List<String> names = getNames(retention);
+        int logs = OLD_LOGS.length + 1;
+        assertEquals(logs, names.size());
+        assertEquals(newLog, names.get(0));
+        for (int i = 0; i < logs; i++) {
+            boolean isCompressed = names.get(i).endsWith(LogRetention.GZIP_EXTENSION);
+            assertEquals(names.get(i), i >= LogRetention.UNCOMPRESSED_LOGS, isCompressed);
+        }
+
+        // The oldest is replaced by its compressed copy
+        assertFalse(new File(root, OLD_LOGS[0]).exists());
+        assertArrayEquals(oldLogContents.get(0), decompress(new File(root, OLD_LOGS[0] + LogRetention.GZIP_EXTENSION)));
+    }
+
+    @Test
+    public void leavesLogsThatAreInUseUncompressed() throws IOException, InterruptedException {
+        LogRetention retention = new LogRetention(root);
+        retention.awaitIdle();
+
+        InputStream download = retention.openForDownload(OLD_LOGS[0]);
+        BinaryLogWriter openWriter = addLog(retention);
+        String openLog = openWriter.getFile().getName();
+        for (int i = 0; i < LogRetention.UNCOMPRESSED_LOGS; i++) finishLog(retention);
+
+        List<String> names = getNames(retention);
+        assertTrue(names.contains(OLD_LOGS[0]));
+        assertTrue(names.contains(openLog));
+        for (int i = 1; i < OLD_LOGS.length; i++) {
+            assertTrue(OLD_LOGS[i], names.contains(OLD_LOGS[i] + LogRetention.GZIP_EXTENSION));
+        }
+
+        // Once they are no longer in use, they are compressed after the next log
+        download.close();
+        openWriter.close(System.nanoTime());
+        retention.finish(openWriter);
+        finishLog(retention);
+
+        names = getNames(retention);
+        assertTrue(names.contains(OLD_LOGS[0] + LogRetention.GZIP_EXTENSION));
+        assertTrue(names.contains(openLog + LogRetention.GZIP_EXTENSION));
+        assertFalse(new File(root, OLD_LOGS[0]).exists());
+    }
+
+    @Test
+    public void deletesTheOldestLogsOverTheLimit() throws IOException, InterruptedException {
+        // Room for about two and a half of the old logs
+        long maxTotalBytes = LOG_BYTES * 5 / 2;
+        LogRetention retention = new LogRetention(root, maxTotalBytes);
+        retention.awaitIdle();
+
+        InputStream download = retention.openForDownload(OLD_LOGS[0]);
+        BinaryLogWriter openWriter = addLog(retention);
+        String newLog = finishLog(retention);
+
+        // The oldest that aren't in use are deleted until the rest fit
+        List<String> names = getNames(retention);
+        assertEquals(Arrays.asList(newLog, openWriter.getFile().getName(), OLD_LOGS[4], OLD_LOGS[0]), names);
+        long totalBytes = 0;
+        for (LogRetention.Entry entry : retention.getLogs()) totalBytes += entry.sizeBytes;
+        assertTrue(totalBytes + " bytes", totalBytes <= maxTotalBytes);
+        for (int i = 1; i < 4; i++) {
+            assertFalse(new File(root, OLD_LOGS[i]).exists());
+            assertFalse(new File(root, OLD_LOGS[i] + LogRetention.GZIP_EXTENSION).exists());
+        }
+
+        // Even over the limit, the logs in use are kept
+        assertTrue(new File(root, OLD_LOGS[0]).exists());
+        assertTrue(openWriter.getFile().exists());
+
+        download.close();
+        openWriter.close(System.nanoTime());
+        openWriter.awaitFinished();
+    }
+
+    /** Adds a log that is still being written. */
+    private BinaryLogWriter addLog(LogRetention retention) throws IOException {
+        String name = String.format("2024_02_%02d__10_00_00_000__TeleOp.rrlog", ++newLogs);
+        BinaryLogWriter writer = new BinaryLogWriter(new File(root, name), "{}");
+        retention.add(writer, "TeleOp", System.currentTimeMillis());
+        return writer;
+    }
+
+    /** Writes a whole log, then waits for the old logs to be cleaned up. */
+    private String finishLog(LogRetention retention) throws IOException, InterruptedException {
+        BinaryLogWriter writer = addLog(retention);
+        writer.close(System.nanoTime());
+        retention.finish(writer);
+        retention.awaitIdle();
+        return writer.getFile().getName();
+    }
+
+    /** @return The names of the logs in the index, newest first */
+    private static List<String> getNames(LogRetention retention) {
+        List<String> names = new ArrayList<>();
+        for (LogRetention.Entry entry : retention.getLogs()) names.add(entry.name);
+        return names;
+    }
+
+    private static byte[] decompress(File file) throws IOException {
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = in.read(buffer)) != -1) out.write(buffer, 0, length);
+            return out.toByteArray();
+        }
+    }
+}
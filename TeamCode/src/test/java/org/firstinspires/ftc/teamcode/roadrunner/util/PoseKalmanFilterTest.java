@@ -0,0 +1,106 @@
+package org.firstinspires.ftc.teamcode.roadrunner.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.acmerobotics.roadrunner.util.Angle;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class PoseKalmanFilterTest {
+    private static final double DT = 0.02;
+    private static final double ODOMETRY_HEADING_VELOCITY_VARIANCE = square(Math.toRadians(20));
+    private static final double IMU_HEADING_VARIANCE = square(Math.toRadians(0.5));
+    private static final double HEADING_ACCELERATION_VARIANCE = square(Math.toRadians(720) * DT);
+    private static final double SLIP = 0.03;
+
+    @Test
+    public void correctsTheHeadingTheShortWayAcrossPi() {
+        PoseKalmanFilter filter = new PoseKalmanFilter();
+        filter.reset(0, 0, Math.PI - 0.1, 0, 0.01);
+
+        // Just past pi, so the short way is 0.2 radians forward, not almost a full turn back
+        filter.correctHeading(-Math.PI + 0.1, 0.01);
+
+        assertEquals(0, Angle.normDelta(filter.getHeading() - Math.PI), 1e-9);
+        assertTrue(filter.getHeading() >= 0 && filter.getHeading() < 2 * Math.PI);
+    }
+
+    @Test
+    public void followsTheImuWhenTheOdometryDrifts() {
+        PoseKalmanFilter filter = new PoseKalmanFilter();
+        filter.reset(0, 0, 0, 0, 0);
+
+        // The wheels say the robot is turning at 0.2 rad/s, but the IMU says it is still heading straight
+        double driftRate = 0.2;
+        double odometryHeading = 0;
+        for (int i = 0; i < 500; i++) {
+            step(filter, 1, 0, driftRate * DT);
+            filter.correctHeading(0, IMU_HEADING_VARIANCE);
+            odometryHeading += driftRate * DT;
+        }
+
+        assertEquals(2, odometryHeading, 1e-9);
+        assertEquals(0, Angle.normDelta(filter.getHeading()), Math.toRadians(1));
+    }
+
+    @Test
+    public void keepsTheCovarianceSymmetricAndPositive() {
+        PoseKalmanFilter filter = new PoseKalmanFilter();
+        filter.reset(0, 0, 0, 1, 0.01);
+        Random random = new Random(42);
+
+        double heading = 0;
+        for (int i = 0; i < 2000; i++) {
+            double dx = random.nextDouble() * 2 - 1;
+            double dy = random.nextDouble() * 2 - 1;
+            double turn = (random.nextDouble() * 2 - 1) * 0.1;
+            heading += turn;
+
+            step(filter, dx, dy, turn);
+            // The IMU is read every few updates, like the localizer does
+            if (i % 3 == 0) filter.correctHeading(heading + random.nextGaussian() * 0.01, IMU_HEADING_VARIANCE);
+
+            assertSymmetric(filter);
+            assertPositiveDefinite(filter);
+        }
+    }
+
+    // one update of the localizer, without the IMU
+    private static void step(PoseKalmanFilter filter, double dx, double dy, double odometryTurn) {
+        filter.predictHeadingVelocity(HEADING_ACCELERATION_VARIANCE);
+        filter.correctHeadingVelocity(odometryTurn / DT, ODOMETRY_HEADING_VELOCITY_VARIANCE);
+        filter.predictPose(dx, dy, DT, square(SLIP * Math.hypot(dx, dy)));
+    }
+
+    private static void assertSymmetric(PoseKalmanFilter filter) {
+        for (int i = 0; i < 4; i++) {
+            for (int j = i + 1; j < 4; j++) {
+                assertEquals(filter.getCovariance(i, j), filter.getCovariance(j, i), 0);
+            }
+        }
+    }
+
+    // a symmetric matrix is positive definite if its Cholesky decomposition has only positive pivots
+    private static void assertPositiveDefinite(PoseKalmanFilter filter) {
+        double[][] lower = new double[4][4];
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j <= i; j++) {
+                double sum = filter.getCovariance(i, j);
+                for (int k = 0; k < j; k++) sum -= lower[i][k] * lower[j][k];
+                if (i == j) {
+                    assertTrue("Pivot " + i + " is " + sum, sum > 0);
+                    lower[i][i] = Math.sqrt(sum);
+                } else {
+                    lower[i][j] = sum / lower[j][j];
+                }
+            }
+        }
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+}
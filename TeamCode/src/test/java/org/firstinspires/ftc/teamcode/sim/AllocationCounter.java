@@ -0,0 +1,43 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Counts how much memory the thread that created it allocates, using the allocation counter the JVM keeps for each
+ * thread. Unlike watching the heap grow, this isn't thrown off by the garbage collector or by other threads, so it
+ * counts exactly what the measured code allocated. Only works on a desktop JVM, not on the robot.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+class AllocationCounter {
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final long threadId = Thread.currentThread().getId();
+    private long startBytes;
+
+    /**
+     * Creates a counter for the current thread.
+     *
+     * @throws UnsupportedOperationException If the JVM doesn't count allocations for each thread
+     */
+    AllocationCounter() {
+        if (!THREAD_MX_BEAN.isThreadAllocatedMemorySupported())
+            throw new UnsupportedOperationException("This JVM doesn't count the memory each thread allocates");
+        THREAD_MX_BEAN.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    /** Starts counting from now. */
+    void start() {
+        startBytes = getThreadAllocatedBytes();
+    }
+
+    /** @return How many bytes this thread allocated since {@link #start()} */
+    long getAllocatedBytes() {
+        return getThreadAllocatedBytes() - startBytes;
+    }
+
+    private long getThreadAllocatedBytes() {
+        return THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+    }
+}
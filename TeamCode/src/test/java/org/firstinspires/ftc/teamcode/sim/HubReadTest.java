@@ -0,0 +1,54 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HubReadTest {
+    private static final double DT = 0.01;
+    private static final int LOOPS = 50;
+
+    @Test
+    public void readsEachHubOncePerLoopWithCommands() {
+        assertOneBulkReadPerLoop(false);
+    }
+
+    @Test
+    public void readsEachHubOncePerLoopManually() {
+        assertOneBulkReadPerLoop(true);
+    }
+
+    /**
+     * Drives and moves the arm for a while, then checks that every encoder, velocity, busy and limit switch read came
+     * from the one bulk read of its hub each loop.
+     *
+     * @param manualMode Whether the robot is controlled manually or with commands
+     */
+    private static void assertOneBulkReadPerLoop(boolean manualMode) {
+        try (SimulationHarness harness = new SimulationHarness(manualMode, DT)) {
+            harness.start();
+            harness.getDriverGamepad().left_stick_y = -0.6f;
+            harness.getDriverGamepad().right_stick_x = 0.4f;
+            harness.getOperatorGamepad().left_stick_y = -0.5f;
+            harness.getOperatorGamepad().right_stick_y = -0.5f;
+            harness.step();
+
+            SimHub controlHub = harness.getHardware().getControlHub();
+            SimHub expansionHub = harness.getHardware().getExpansionHub();
+            controlHub.resetCounts();
+            expansionHub.resetCounts();
+            for (int i = 0; i < LOOPS; i++) harness.step();
+
+            // The loops did read from both hubs, more than once per loop
+            assertTrue(controlHub.getReads() + " control hub reads", controlHub.getReads() > LOOPS);
+            assertTrue(expansionHub.getReads() + " expansion hub reads", expansionHub.getReads() > LOOPS);
+
+            assertEquals(LOOPS, controlHub.getBulkReads());
+            assertEquals(LOOPS, expansionHub.getBulkReads());
+            assertEquals(0, controlHub.getIndividualReads());
+            assertEquals(0, expansionHub.getIndividualReads());
+            assertEquals(2, harness.getRobot().getBulkReadManager().getBulkReads());
+        }
+    }
+}
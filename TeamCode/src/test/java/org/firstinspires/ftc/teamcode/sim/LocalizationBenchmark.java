@@ -0,0 +1,149 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import androidx.annotation.NonNull;
+
+import com.acmerobotics.roadrunner.drive.MecanumDrive;
+import com.acmerobotics.roadrunner.localization.Localizer;
+
+import org.firstinspires.ftc.teamcode.roadrunner.drive.DriveConstants;
+import org.firstinspires.ftc.teamcode.roadrunner.drive.KalmanLocalizer;
+import org.firstinspires.ftc.teamcode.roadrunner.drive.WheelOdometryLocalizer;
+import org.firstinspires.ftc.teamcode.roadrunner.util.DoubleArrayList;
+import org.firstinspires.ftc.teamcode.roadrunner.util.WheelEncoders;
+
+import java.util.List;
+
+/**
+ * Measures how much memory the localizers allocate in a tight update loop, comparing RoadRunner's MecanumLocalizer
+ * with the primitive array {@link WheelOdometryLocalizer} alone and inside the {@link KalmanLocalizer}. The wheels
+ * of a fake drive turn a little every update and its gyro turns with them, so the robot is always driving forward
+ * and turning.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class LocalizationBenchmark {
+    public static final int DEFAULT_UPDATES = 10000;
+
+    private LocalizationBenchmark() {
+
+    }
+
+    /**
+     * @param updates The number of updates to run
+     * @return The bytes allocated by each update of RoadRunner's MecanumLocalizer
+     */
+    public static double measureMecanumLocalizerBytesPerUpdate(int updates) {
+        FakeDrive drive = new FakeDrive();
+        return measureBytesPerUpdate(new MecanumDrive.MecanumLocalizer(drive, false), drive, updates);
+    }
+
+    /**
+     * @param updates The number of updates to run
+     * @return The bytes allocated by each update of the WheelOdometryLocalizer with the gyro heading, which is what
+     * SampleMecanumDrive localizes with by default
+     */
+    public static double measureWheelOdometryBytesPerUpdate(int updates) {
+        FakeDrive drive = new FakeDrive();
+        return measureBytesPerUpdate(createOdometry(drive).useExternalHeading(drive), drive, updates);
+    }
+
+    /**
+     * @param updates The number of updates to run
+     * @return The bytes allocated by each update of the KalmanLocalizer, without reading the IMU turn rate
+     */
+    public static double measureKalmanLocalizerBytesPerUpdate(int updates) {
+        FakeDrive drive = new FakeDrive();
+        // The turn rate comes back boxed, which would be counted against the localizer
+        boolean useImuHeadingVelocity = KalmanLocalizer.USE_IMU_HEADING_VELOCITY;
+        KalmanLocalizer.USE_IMU_HEADING_VELOCITY = false;
+        try {
+            return measureBytesPerUpdate(new KalmanLocalizer(createOdometry(drive), drive), drive, updates);
+        } finally {
+            KalmanLocalizer.USE_IMU_HEADING_VELOCITY = useImuHeadingVelocity;
+        }
+    }
+
+    private static WheelOdometryLocalizer createOdometry(FakeDrive drive) {
+        return WheelOdometryLocalizer.mecanum(drive, DriveConstants.TRACK_WIDTH, DriveConstants.TRACK_WIDTH, 1);
+    }
+
+    private static double measureBytesPerUpdate(Localizer localizer, FakeDrive drive, int updates) {
+        // Warms up first, so the JIT has compiled the update and the first update has read where the wheels start
+        runUpdates(localizer, drive, updates);
+
+        AllocationCounter counter = new AllocationCounter();
+        counter.start();
+        runUpdates(localizer, drive, updates);
+        return (double) counter.getAllocatedBytes() / updates;
+    }
+
+    private static void runUpdates(Localizer localizer, FakeDrive drive, int updates) {
+        for (int i = 0; i < updates; i++) {
+            drive.step();
+            localizer.update();
+        }
+    }
+
+    /** A mecanum drive whose wheels move by the same amount every step, the right side a little faster. */
+    private static class FakeDrive extends MecanumDrive implements WheelEncoders {
+        private static final double LEFT_STEP = 0.2, RIGHT_STEP = 0.25;
+        private static final double HEADING_STEP = (RIGHT_STEP - LEFT_STEP) / DriveConstants.TRACK_WIDTH;
+
+        private final double[] positions = new double[4];
+        private double heading;
+
+        FakeDrive() {
+            super(DriveConstants.kV, DriveConstants.kA, DriveConstants.kStatic,
+                    DriveConstants.TRACK_WIDTH, DriveConstants.TRACK_WIDTH, 1);
+        }
+
+        void step() {
+            positions[0] += LEFT_STEP;
+            positions[1] += LEFT_STEP;
+            positions[2] += RIGHT_STEP;
+            positions[3] += RIGHT_STEP;
+            heading += HEADING_STEP;
+        }
+
+        @Override
+        public int getWheelCount() {
+            return positions.length;
+        }
+
+        @Override
+        public void readWheelPositions(double[] positions) {
+            System.arraycopy(this.positions, 0, positions, 0, this.positions.length);
+        }
+
+        @Override
+        public void readWheelVelocities(double[] velocities) {
+            velocities[0] = velocities[1] = LEFT_STEP * 100;
+            velocities[2] = velocities[3] = RIGHT_STEP * 100;
+        }
+
+        @NonNull
+        @Override
+        public List<Double> getWheelPositions() {
+            double[] positions = new double[4];
+            readWheelPositions(positions);
+            return DoubleArrayList.wrap(positions);
+        }
+
+        @Override
+        public List<Double> getWheelVelocities() {
+            double[] velocities = new double[4];
+            readWheelVelocities(velocities);
+            return DoubleArrayList.wrap(velocities);
+        }
+
+        @Override
+        public void setMotorPowers(double frontLeft, double rearLeft, double rearRight, double frontRight) {
+
+        }
+
+        @Override
+        public double getRawExternalHeading() {
+            return heading;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LocalizationBenchmarkTest {
+    @Test
+    public void updatingTheLocalizersDoesNotAllocate() {
+        int updates = LocalizationBenchmark.DEFAULT_UPDATES;
+        double mecanum = LocalizationBenchmark.measureMecanumLocalizerBytesPerUpdate(updates);
+        double wheelOdometry = LocalizationBenchmark.measureWheelOdometryBytesPerUpdate(updates);
+        double kalman = LocalizationBenchmark.measureKalmanLocalizerBytesPerUpdate(updates);
+        System.out.printf("MecanumLocalizer.update(): %.1f bytes allocated%n", mecanum);
+        System.out.printf("WheelOdometryLocalizer.update(): %.1f bytes allocated%n", wheelOdometry);
+        System.out.printf("KalmanLocalizer.update(): %.1f bytes allocated%n", kalman);
+
+        // The JIT compiling the loop can allocate a little while it is being counted
+        assertTrue(wheelOdometry + " bytes per update", wheelOdometry < 1);
+        assertTrue(kalman + " bytes per update", kalman < 1);
+    }
+}
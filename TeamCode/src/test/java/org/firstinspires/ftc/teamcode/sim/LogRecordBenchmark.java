@@ -0,0 +1,103 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import org.firstinspires.ftc.teamcode.roadrunner.util.BinaryLogWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures how much memory {@link BinaryLogWriter#record}, which
+ * {@link org.firstinspires.ftc.teamcode.roadrunner.util.LogFiles#record} uses, allocates for each sample, compared to
+ * storing the same samples in lists of boxed values like the log used to. Only what the recording thread allocates is
+ * counted, not the writer's background thread. Run by {@link LogRecordBenchmarkTest}, which prints the results.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class LogRecordBenchmark {
+    /** Fewer samples than the buffer of the writer holds, so none are dropped before the writer thread catches up */
+    public static final int DEFAULT_RECORDS = 1000;
+
+    private static final double[] TARGET_POSE = {10, 20, 1};
+    private static final double[] POSE = {10.5, 19.5, 1.1};
+    private static final List<Integer> DRIVE_POSITIONS = Arrays.asList(1000, 2000, 3000, 4000);
+    private static final List<Integer> DRIVE_VELOCITIES = Arrays.asList(100, 200, 300, 400);
+    private static final List<Integer> TRACKING = new ArrayList<>();
+
+    private LogRecordBenchmark() {
+
+    }
+
+    /**
+     * Records samples into a new log in a temporary file, the same as following a trajectory does.
+     *
+     * @param records The number of samples to record
+     * @return The bytes allocated for each sample
+     * @throws IOException If the temporary file couldn't be created
+     */
+    public static double measureBytesPerRecord(int records) throws IOException {
+        File file = File.createTempFile("benchmark", BinaryLogWriter.EXTENSION);
+        try {
+            BinaryLogWriter writer = new BinaryLogWriter(file, "{}");
+            writer.start(System.nanoTime());
+            // The first sample loads the classes that recording uses
+            record(writer);
+
+            AllocationCounter counter = new AllocationCounter();
+            counter.start();
+            for (int i = 0; i < records; i++) record(writer);
+            double bytesPerRecord = (double) counter.getAllocatedBytes() / records;
+
+            writer.close(System.nanoTime());
+            writer.awaitFinished();
+            return bytesPerRecord;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Double.NaN;
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    private static void record(BinaryLogWriter writer) {
+        writer.record(
+                TARGET_POSE[0], TARGET_POSE[1], TARGET_POSE[2],
+                POSE[0], POSE[1], POSE[2], 12.5,
+                DRIVE_POSITIONS, DRIVE_VELOCITIES, TRACKING, TRACKING
+        );
+    }
+
+    /**
+     * Stores the same samples in lists of boxed values.
+     *
+     * @param records The number of samples to store
+     * @return The bytes allocated for each sample
+     */
+    public static double measureBoxedBytesPerRecord(int records) {
+        List<List<Double>> doubles = new ArrayList<>();
+        for (int i = 0; i < 7; i++) doubles.add(new ArrayList<>());
+        List<Long> times = new ArrayList<>();
+        List<List<Integer>> encoders = new ArrayList<>();
+        for (int i = 0; i < DRIVE_POSITIONS.size() + DRIVE_VELOCITIES.size(); i++) encoders.add(new ArrayList<>());
+
+        AllocationCounter counter = new AllocationCounter();
+        counter.start();
+        for (int i = 0; i < records; i++) {
+            times.add(System.nanoTime());
+            for (int j = 0; j < 3; j++) {
+                doubles.get(j).add(TARGET_POSE[j]);
+                doubles.get(3 + j).add(POSE[j]);
+            }
+            doubles.get(6).add(12.5 + i * 1e-6);
+            for (int j = 0; j < DRIVE_POSITIONS.size(); j++) {
+                // Encoder readings change every loop, so they aren't in the small Integer cache
+                encoders.get(j).add(DRIVE_POSITIONS.get(j) + i);
+                encoders.get(DRIVE_POSITIONS.size() + j).add(DRIVE_VELOCITIES.get(j) + i);
+            }
+        }
+        return (double) counter.getAllocatedBytes() / records;
+    }
+}
@@ -0,0 +1,20 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class LogRecordBenchmarkTest {
+    @Test
+    public void recordingASampleDoesNotAllocate() throws IOException {
+        double bytes = LogRecordBenchmark.measureBytesPerRecord(LogRecordBenchmark.DEFAULT_RECORDS);
+        double boxedBytes = LogRecordBenchmark.measureBoxedBytesPerRecord(LogRecordBenchmark.DEFAULT_RECORDS);
+        System.out.printf("Bytes allocated per sample: %.1f recording, %.1f in boxed lists%n", bytes, boxedBytes);
+
+        // The JIT compiling the loop can allocate a little while it is being counted
+        assertTrue(bytes < 1);
+        assertTrue(boxedBytes > 100);
+    }
+}
@@ -0,0 +1,554 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import androidx.annotation.Nullable;
+
+import com.acmerobotics.roadrunner.control.PIDCoefficients;
+import com.acmerobotics.roadrunner.control.PIDFController;
+import com.acmerobotics.roadrunner.followers.HolonomicPIDVAFollower;
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+import com.acmerobotics.roadrunner.kinematics.Kinematics;
+import com.acmerobotics.roadrunner.path.LineSegment;
+import com.acmerobotics.roadrunner.path.Path;
+import com.acmerobotics.roadrunner.path.PathSegment;
+import com.acmerobotics.roadrunner.path.heading.LinearInterpolator;
+import com.acmerobotics.roadrunner.profile.MotionProfile;
+import com.acmerobotics.roadrunner.profile.MotionSegment;
+import com.acmerobotics.roadrunner.profile.MotionState;
+import com.acmerobotics.roadrunner.trajectory.Trajectory;
+import com.acmerobotics.roadrunner.util.Angle;
+import com.acmerobotics.roadrunner.util.NanoClock;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.firstinspires.ftc.teamcode.roadrunner.drive.SampleMecanumDrive;
+import org.firstinspires.ftc.teamcode.roadrunner.drive.WheelOdometryLocalizer;
+import org.firstinspires.ftc.teamcode.roadrunner.util.BinaryLogReader;
+import org.firstinspires.ftc.teamcode.roadrunner.util.BinaryLogWriter;
+import org.firstinspires.ftc.teamcode.roadrunner.util.LogColumns.DoubleColumn;
+import org.firstinspires.ftc.teamcode.roadrunner.util.LogColumns.IntColumn;
+import org.firstinspires.ftc.teamcode.roadrunner.util.LogColumns.LongColumn;
+import org.firstinspires.ftc.teamcode.roadrunner.util.LogFiles;
+import org.firstinspires.ftc.teamcode.roadrunner.util.LogRetention;
+import org.firstinspires.ftc.teamcode.roadrunner.util.WheelEncoders;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Replays a recorded RoadRunner log on the computer to tune the follower without field time. The logged encoder
+ * positions are run back through the odometry to find where the robot really went. Then the follower is run along
+ * the logged targets with other gains to see how well it would have tracked them. The targets are rebuilt into
+ * trajectories, so RoadRunner's own follower runs on them, timed by the log instead of the computer's clock.
+ * <p>
+ * The robot can't be asked what it would have done with other gains, so whatever it did that the follower's
+ * command doesn't explain (wheel slip, motor lag, the feedforward being off) is taken from the log and added to the
+ * new command. With the gains the log was recorded with, the replay follows the recorded path exactly. The further
+ * the gains are from those, the more this is only an estimate, since the disturbance would have changed too.
+ * <p>
+ * Runs on the computer from the unit tests or {@link #main}, with a log downloaded from the robot.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class LogReplay {
+    /** Targets closer together than this, in inches, are treated as the target not moving */
+    private static final double EPSILON = 1e-6;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /** The samples of a log, which are read separately from the settings it was recorded with */
+    private static final List<String> COLUMNS = Arrays.asList(
+            "nsTimes", "targetXs", "targetYs", "targetHeadings", "xs", "ys", "headings", "voltages",
+            "driveEncPositions", "driveEncVels", "trackingEncPositions", "trackingEncVels");
+
+    private LogReplay() {
+
+    }
+
+    /**
+     * Replays a log and prints how well the robot tracked the targets, with the gains it was recorded with and
+     * optionally with new ones.
+     * <p>
+     * Usage: {@code LogReplay <log file> [<translational kP> <kI> <kD> <heading kP> <kI> <kD>]}
+     *
+     * @param args The log file, then the new gains if they are to be compared
+     * @throws IOException If the log couldn't be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1 && args.length != 7) {
+            System.err.println("Usage: LogReplay <log file> [<translational kP> <kI> <kD> <heading kP> <kI> <kD>]");
+            return;
+        }
+
+        LogFiles.LogFile log = readLog(new File(args[0]));
+        Settings settings = Settings.fromLog(log);
+        System.out.println("With the recorded gains:");
+        System.out.println(replay(log, settings));
+
+        if (args.length == 7) {
+            settings.translationalPid = new PIDCoefficients(
+                    Double.parseDouble(args[1]), Double.parseDouble(args[2]), Double.parseDouble(args[3]));
+            settings.headingPid = new PIDCoefficients(
+                    Double.parseDouble(args[4]), Double.parseDouble(args[5]), Double.parseDouble(args[6]));
+            System.out.println("With the new gains:");
+            System.out.println(replay(log, settings));
+        }
+    }
+
+    /**
+     * What to replay a log with. Starts from what the log was recorded with, so only what is being tuned needs to
+     * be changed.
+     */
+    public static class Settings {
+        public PIDCoefficients translationalPid;
+        public PIDCoefficients headingPid;
+        /** The track width and lateral multiplier the drive encoders are localized with */
+        public double trackWidth;
+        public double lateralMultiplier;
+        /** Whether to localize with the tracking wheels, if the log has them, instead of the drive encoders */
+        public boolean useTrackingWheels;
+        /**
+         * Whether to take the heading from the logged pose estimate, which had the IMU, instead of the encoders.
+         * The log has no IMU readings of its own.
+         */
+        public boolean useLoggedHeading = true;
+
+        /**
+         * @param log The log to replay
+         * @return The settings the log was recorded with
+         */
+        public static Settings fromLog(LogFiles.LogFile log) {
+            Settings settings = new Settings();
+            settings.translationalPid = new PIDCoefficients(log.mecTransP, log.mecTransI, log.mecTransD);
+            settings.headingPid = new PIDCoefficients(log.mecHeadingP, log.mecHeadingI, log.mecHeadingD);
+            settings.trackWidth = log.trackWidth;
+            settings.lateralMultiplier = log.mecLateralMultiplier;
+            settings.useTrackingWheels = log.trackingEncPositions.size() == 3;
+            return settings;
+        }
+    }
+
+    /**
+     * How well the robot tracked the logged targets in a replay
+     */
+    public static class Result {
+        public final int samples;
+        /** How long the log is, in seconds */
+        public final double duration;
+        /** How far the robot was from the target, in inches */
+        public final double rmsTranslationalError, maxTranslationalError;
+        /** How far the robot was turned from the target, in radians */
+        public final double rmsHeadingError, maxHeadingError;
+        /** How far the replayed localization ended up from the logged pose estimate, in inches */
+        public final double maxLocalizationDifference;
+        /** How many times faster than real time the replay ran */
+        public final double realTimeFactor;
+
+        Result(int samples, double duration, double rmsTranslationalError, double maxTranslationalError,
+               double rmsHeadingError, double maxHeadingError, double maxLocalizationDifference,
+               double realTimeFactor) {
+            this.samples = samples;
+            this.duration = duration;
+            this.rmsTranslationalError = rmsTranslationalError;
+            this.maxTranslationalError = maxTranslationalError;
+            this.rmsHeadingError = rmsHeadingError;
+            this.maxHeadingError = maxHeadingError;
+            this.maxLocalizationDifference = maxLocalizationDifference;
+            this.realTimeFactor = realTimeFactor;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%d samples over %.2f s, replayed %.0fx real time%n" +
+                    "translational error: rms %.3f in, max %.3f in%n" +
+                    "heading error: rms %.3f deg, max %.3f deg%n" +
+                    "localization differs from the log by at most %.3f in",
+                    samples, duration, realTimeFactor,
+                    rmsTranslationalError, maxTranslationalError,
+                    Math.toDegrees(rmsHeadingError), Math.toDegrees(maxHeadingError),
+                    maxLocalizationDifference);
+        }
+    }
+
+    /**
+     * Reads a log as it was saved on the robot or downloaded from it: binary or JSON, and either one gzipped.
+     *
+     * @param file The log file
+     * @return The log, with its samples filled in
+     * @throws IOException If the file couldn't be read or isn't a log
+     */
+    public static LogFiles.LogFile readLog(File file) throws IOException {
+        String name = file.getName();
+        boolean isCompressed = name.endsWith(LogRetention.GZIP_EXTENSION);
+        if (isCompressed) name = name.substring(0, name.length() - LogRetention.GZIP_EXTENSION.length());
+
+        InputStream in = new FileInputStream(file);
+        if (isCompressed) in = new GZIPInputStream(in);
+        if (name.endsWith(BinaryLogWriter.EXTENSION)) in = new ByteArrayInputStream(BinaryLogReader.toJson(in));
+
+        ObjectNode json;
+        try (InputStream stream = in) {
+            json = (ObjectNode) MAPPER.readTree(stream);
+        }
+
+        LogFiles.LogFile log = new LogFiles.LogFile(json.path("opModeName").asText());
+        readLongs(json.path("nsTimes"), log.nsTimes);
+        readDoubles(json.path("targetXs"), log.targetXs);
+        readDoubles(json.path("targetYs"), log.targetYs);
+        readDoubles(json.path("targetHeadings"), log.targetHeadings);
+        readDoubles(json.path("xs"), log.xs);
+        readDoubles(json.path("ys"), log.ys);
+        readDoubles(json.path("headings"), log.headings);
+        readDoubles(json.path("voltages"), log.voltages);
+        readEncoders(json.path("driveEncPositions"), log.driveEncPositions);
+        readEncoders(json.path("driveEncVels"), log.driveEncVels);
+        readEncoders(json.path("trackingEncPositions"), log.trackingEncPositions);
+        readEncoders(json.path("trackingEncVels"), log.trackingEncVels);
+
+        // The columns can't be read by Jackson, the rest are the settings the log was recorded with
+        json.remove(COLUMNS);
+        return MAPPER.readerForUpdating(log).readValue(json);
+    }
+
+    private static void readLongs(JsonNode array, LongColumn column) {
+        for (JsonNode value : array) column.add(value.asLong());
+    }
+
+    private static void readDoubles(JsonNode array, DoubleColumn column) {
+        for (JsonNode value : array) column.add(value.asDouble());
+    }
+
+    private static void readEncoders(JsonNode arrays, List<IntColumn> columns) {
+        for (JsonNode array : arrays) {
+            IntColumn column = new IntColumn();
+            for (JsonNode value : array) column.add(value.asInt());
+            columns.add(column);
+        }
+    }
+
+    /**
+     * Replays a log with the given settings.
+     *
+     * @param log The log, from {@link #readLog}
+     * @param settings What to replay it with, from {@link Settings#fromLog} and then changed
+     * @return How well the robot would have tracked the targets
+     * @throws IllegalArgumentException If the log has too few samples or no encoder positions to localize with
+     */
+    public static Result replay(LogFiles.LogFile log, Settings settings) {
+        long startNanos = System.nanoTime();
+
+        int count = log.nsTimes.size();
+        if (count < 3) throw new IllegalArgumentException("The log needs at least 3 samples");
+
+        double[] times = new double[count];
+        for (int i = 0; i < count; i++) times[i] = (log.nsTimes.get(i) - log.nsTimes.get(0)) / 1e9;
+
+        // Where the robot really went, and its velocity as the follower measured it
+        Pose2d[] poses = new Pose2d[count];
+        Pose2d[] velocities = new Pose2d[count];
+        double maxLocalizationDifference = localize(log, settings, poses, velocities);
+
+        Pose2d[] targets = new Pose2d[count];
+        Pose2d[] targetVelocities = new Pose2d[count];
+        for (int i = 0; i < count; i++) {
+            targets[i] = new Pose2d(log.targetXs.get(i), log.targetYs.get(i), log.targetHeadings.get(i));
+        }
+        for (int i = 0; i < count; i++) {
+            int before = Math.max(i - 1, 0);
+            int after = Math.min(i + 1, count - 1);
+            double dt = times[after] - times[before];
+            if (dt <= 0) {
+                targetVelocities[i] = new Pose2d();
+                continue;
+            }
+            Pose2d fieldVelocity = new Pose2d(
+                    (targets[after].getX() - targets[before].getX()) / dt,
+                    (targets[after].getY() - targets[before].getY()) / dt,
+                    Angle.normDelta(targets[after].getHeading() - targets[before].getHeading()) / dt);
+            targetVelocities[i] = Kinematics.fieldToRobotVelocity(targets[i], fieldVelocity);
+        }
+
+        Trajectory[] trajectories = buildTrajectories(targets, times);
+
+        LogClock clock = new LogClock();
+        PIDCoefficients loggedTranslationalPid = new PIDCoefficients(log.mecTransP, log.mecTransI, log.mecTransD);
+        PIDCoefficients loggedHeadingPid = new PIDCoefficients(log.mecHeadingP, log.mecHeadingI, log.mecHeadingD);
+        Follower logged = new Follower(loggedTranslationalPid, loggedHeadingPid, clock);
+        Follower replayed = new Follower(settings.translationalPid, settings.headingPid, clock);
+
+        Pose2d pose = poses[0];
+        Pose2d commandChange = new Pose2d();
+        double squaredTranslationalError = 0, maxTranslationalError = 0;
+        double squaredHeadingError = 0, maxHeadingError = 0;
+        for (int i = 0; i < count; i++) {
+            double translationalError = Math.hypot(targets[i].getX() - pose.getX(), targets[i].getY() - pose.getY());
+            double headingError = Math.abs(Angle.normDelta(targets[i].getHeading() - pose.getHeading()));
+            squaredTranslationalError += translationalError * translationalError;
+            squaredHeadingError += headingError * headingError;
+            maxTranslationalError = Math.max(maxTranslationalError, translationalError);
+            maxHeadingError = Math.max(maxHeadingError, headingError);
+
+            if (i == count - 1) break;
+            double dt = times[i + 1] - times[i];
+            clock.time = times[i];
+            Trajectory trajectory = trajectories[i];
+            if (trajectory != null && (i == 0 || trajectories[i - 1] != trajectory)) {
+                logged.followTrajectory(trajectory);
+                replayed.followTrajectory(trajectory);
+            }
+            boolean isTurning = isTurning(targets, i);
+            boolean isFollowing = trajectory != null;
+
+            // What the robot did beyond what it was commanded, over until the next sample
+            Pose2d loggedCommand = logged.update(
+                    targets[i], targetVelocities[i], poses[i], velocities[i], isTurning, isFollowing);
+            Pose2d motion = dt > 0 ? robotMotion(poses[i], poses[i + 1]).div(dt) : new Pose2d();
+            Pose2d disturbance = motion.minus(loggedCommand);
+
+            // The velocity is measured from the wheels, which moved with the new command last loop
+            Pose2d velocity = velocities[i].plus(commandChange);
+            Pose2d command = replayed.update(targets[i], targetVelocities[i], pose, velocity, isTurning, isFollowing);
+            commandChange = command.minus(loggedCommand);
+
+            pose = Kinematics.relativeOdometryUpdate(pose, command.plus(disturbance).times(dt));
+        }
+
+        double replayNanos = System.nanoTime() - startNanos;
+        return new Result(count, times[count - 1],
+                Math.sqrt(squaredTranslationalError / count), maxTranslationalError,
+                Math.sqrt(squaredHeadingError / count), maxHeadingError,
+                maxLocalizationDifference, times[count - 1] * 1e9 / replayNanos);
+    }
+
+    /**
+     * Runs the logged encoders back through the odometry.
+     *
+     * @return How far the replayed poses got from the logged ones, in inches
+     */
+    private static double localize(LogFiles.LogFile log, Settings settings, Pose2d[] poses, Pose2d[] velocities) {
+        LoggedEncoders encoders;
+        WheelOdometryLocalizer localizer;
+        if (settings.useTrackingWheels && log.trackingEncPositions.size() == 3) {
+            encoders = new LoggedEncoders(log.trackingEncPositions, log.trackingEncVels,
+                    log.trackingWheelRadius * 2 * Math.PI * log.trackingGearRatio / log.trackingTicksPerRev);
+            // Placed like StandardTrackingWheelLocalizer.getWheelPoses, with what the log was recorded with
+            localizer = WheelOdometryLocalizer.trackingWheels(encoders, Arrays.asList(
+                    new Pose2d(0, log.trackingLateralDistance / 2, 0),
+                    new Pose2d(0, -log.trackingLateralDistance / 2, 0),
+                    new Pose2d(log.trackingForwardOffset, 0, Math.toRadians(90))));
+        } else if (log.driveEncPositions.size() == 4) {
+            encoders = new LoggedEncoders(log.driveEncPositions, log.driveEncVels,
+                    log.wheelRadius * 2 * Math.PI * log.gearRatio / log.ticksPerRev);
+            localizer = WheelOdometryLocalizer.mecanum(
+                    encoders, settings.trackWidth, settings.trackWidth, settings.lateralMultiplier);
+        } else {
+            throw new IllegalArgumentException("The log has no mecanum or tracking wheel encoder positions");
+        }
+
+        Pose2d pose = new Pose2d(log.xs.get(0), log.ys.get(0), log.headings.get(0));
+        localizer.setPoseEstimate(pose);
+        double maxDifference = 0;
+        for (int i = 0; i < poses.length; i++) {
+            encoders.sample = i;
+            localizer.update();
+
+            if (i > 0) {
+                Pose2d delta = new Pose2d(localizer.getDeltaX(), localizer.getDeltaY(), localizer.getDeltaHeading());
+                if (settings.useLoggedHeading) {
+                    delta = new Pose2d(delta.getX(), delta.getY(),
+                            Angle.normDelta(log.headings.get(i) - log.headings.get(i - 1)));
+                }
+                pose = Kinematics.relativeOdometryUpdate(pose, delta);
+            }
+            poses[i] = pose;
+            velocities[i] = new Pose2d(
+                    localizer.getVelocityX(), localizer.getVelocityY(), localizer.getHeadingVelocity());
+
+            maxDifference = Math.max(maxDifference,
+                    Math.hypot(pose.getX() - log.xs.get(i), pose.getY() - log.ys.get(i)));
+        }
+        return maxDifference;
+    }
+
+    /**
+     * The motion from one pose to the next, relative to the robot at the first. The inverse of
+     * {@link Kinematics#relativeOdometryUpdate}, so the robot moves along the same arc when it is replayed.
+     */
+    private static Pose2d robotMotion(Pose2d from, Pose2d to) {
+        double cos = Math.cos(from.getHeading());
+        double sin = Math.sin(from.getHeading());
+        double fieldX = to.getX() - from.getX();
+        double fieldY = to.getY() - from.getY();
+        double arcX = cos * fieldX + sin * fieldY;
+        double arcY = -sin * fieldX + cos * fieldY;
+        double dHeading = Angle.normDelta(to.getHeading() - from.getHeading());
+
+        double sineTerm, cosTerm;
+        if (Math.abs(dHeading) < 1e-6) {
+            sineTerm = 1.0 - dHeading * dHeading / 6.0;
+            cosTerm = dHeading / 2.0;
+        } else {
+            sineTerm = Math.sin(dHeading) / dHeading;
+            cosTerm = (1 - Math.cos(dHeading)) / dHeading;
+        }
+        double scale = sineTerm * sineTerm + cosTerm * cosTerm;
+        return new Pose2d(
+                (sineTerm * arcX + cosTerm * arcY) / scale,
+                (-cosTerm * arcX + sineTerm * arcY) / scale,
+                dHeading);
+    }
+
+    /** Turns hold the position of where they started, so only the heading of the target moves */
+    private static boolean isTurning(Pose2d[] targets, int i) {
+        int before = Math.max(i - 1, 0);
+        int after = Math.min(i + 1, targets.length - 1);
+        return targets[before].getX() == targets[after].getX() && targets[before].getY() == targets[after].getY()
+                && targets[before].getHeading() != targets[after].getHeading();
+    }
+
+    /**
+     * Rebuilds the trajectories from the logged targets. Each run of samples that isn't a turn becomes a path of
+     * straight lines through the targets, followed at a constant speed along each line so it passes through every
+     * target at the time it was logged.
+     *
+     * @return The trajectory each sample is on, null during turns and where the target never moves
+     */
+    private static Trajectory[] buildTrajectories(Pose2d[] targets, double[] times) {
+        Trajectory[] trajectories = new Trajectory[targets.length];
+        int start = 0;
+        while (start < targets.length) {
+            if (isTurning(targets, start)) {
+                start++;
+                continue;
+            }
+
+            int end = start;
+            while (end + 1 < targets.length && !isTurning(targets, end + 1)) end++;
+            Trajectory trajectory = buildTrajectory(targets, times, start, end);
+            for (int i = start; i <= end; i++) trajectories[i] = trajectory;
+            start = end + 1;
+        }
+        return trajectories;
+    }
+
+    /** @return The trajectory through the targets from start to end, or null if the target doesn't move */
+    @Nullable
+    private static Trajectory buildTrajectory(Pose2d[] targets, double[] times, int start, int end) {
+        List<PathSegment> pathSegments = new ArrayList<>();
+        List<MotionSegment> profileSegments = new ArrayList<>();
+        double displacement = 0;
+        for (int i = start; i < end; i++) {
+            double length = targets[i].vec().distTo(targets[i + 1].vec());
+            if (length > EPSILON) {
+                pathSegments.add(new PathSegment(
+                        new LineSegment(targets[i].vec(), targets[i + 1].vec()),
+                        new LinearInterpolator(targets[i].getHeading(),
+                                Angle.normDelta(targets[i + 1].getHeading() - targets[i].getHeading()))));
+            } else {
+                length = 0;
+            }
+
+            double dt = times[i + 1] - times[i];
+            if (dt > 0) profileSegments.add(new MotionSegment(new MotionState(displacement, length / dt), dt));
+            displacement += length;
+        }
+
+        if (pathSegments.isEmpty() || profileSegments.isEmpty()) return null;
+        return new Trajectory(new Path(pathSegments), new MotionProfile(profileSegments));
+    }
+
+    /**
+     * Computes the robot velocity that the runner would command: RoadRunner's HolonomicPIDVAFollower along
+     * trajectories, and a PIDFController on the heading during turns, both set up like SampleMecanumDrive and
+     * TrajectorySequenceRunner. They measure time with the log's clock, so the replay runs as fast as it can.
+     */
+    private static class Follower {
+        private final HolonomicPIDVAFollower trajectoryFollower;
+        private final PIDFController turnController;
+
+        Follower(PIDCoefficients translationalPid, PIDCoefficients headingPid, NanoClock clock) {
+            trajectoryFollower = new HolonomicPIDVAFollower(translationalPid, translationalPid, headingPid,
+                    SampleMecanumDrive.FOLLOWER_ADMISSIBLE_ERROR, SampleMecanumDrive.FOLLOWER_TIMEOUT, clock);
+            turnController = new PIDFController(headingPid, 0, 0, 0, (position, velocity) -> 0.0, clock);
+            turnController.setInputBounds(0, 2 * Math.PI);
+        }
+
+        void followTrajectory(Trajectory trajectory) {
+            trajectoryFollower.followTrajectory(trajectory);
+        }
+
+        /**
+         * @param isTurning Whether the target is turning in place
+         * @param isFollowing Whether the target is on the trajectory last given to {@link #followTrajectory}
+         * @return The commanded velocity, relative to the robot
+         */
+        Pose2d update(Pose2d target, Pose2d targetVelocity, Pose2d pose, Pose2d velocity, boolean isTurning,
+                      boolean isFollowing) {
+            if (isTurning) {
+                turnController.setTargetPosition(target.getHeading());
+                double correction = turnController.update(pose.getHeading());
+                return new Pose2d(0, 0, targetVelocity.getHeading() + correction);
+            }
+
+            // Waits and finished trajectories stop the robot, like the runner does
+            if (!isFollowing || !trajectoryFollower.isFollowing()) return new Pose2d();
+            return trajectoryFollower.update(pose, velocity).getVel();
+        }
+    }
+
+    /** A clock that reads the time of the sample being replayed */
+    private static class LogClock extends NanoClock {
+        double time;
+
+        @Override
+        public double seconds() {
+            return time;
+        }
+    }
+
+    /** Gives the localizer the encoders of one sample of the log at a time */
+    private static class LoggedEncoders implements WheelEncoders {
+        private final List<IntColumn> positions;
+        private final List<IntColumn> velocities;
+        private final double inchesPerTick;
+        int sample;
+
+        LoggedEncoders(List<IntColumn> positions, List<IntColumn> velocities, double inchesPerTick) {
+            this.positions = positions;
+            this.velocities = velocities;
+            this.inchesPerTick = inchesPerTick;
+        }
+
+        @Override
+        public int getWheelCount() {
+            return positions.size();
+        }
+
+        @Override
+        public void readWheelPositions(double[] positions) {
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = this.positions.get(i).get(sample) * inchesPerTick;
+            }
+        }
+
+        @Override
+        public void readWheelVelocities(double[] velocities) {
+            for (int i = 0; i < velocities.length; i++) {
+                // Older logs may not have the velocities of every wheel
+                velocities[i] = i < this.velocities.size() && sample < this.velocities.get(i).size()
+                        ? this.velocities.get(i).get(sample) * inchesPerTick : 0;
+            }
+        }
+    }
+}
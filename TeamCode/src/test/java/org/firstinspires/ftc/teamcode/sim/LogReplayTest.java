@@ -0,0 +1,82 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import com.acmerobotics.roadrunner.control.PIDCoefficients;
+
+import org.firstinspires.ftc.teamcode.roadrunner.util.LogColumns.IntColumn;
+import org.firstinspires.ftc.teamcode.roadrunner.util.LogFiles;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class LogReplayTest {
+    private static final int SAMPLES = 51;
+    private static final double DT = 0.02;
+    private static final double SPEED = 10;
+    /** How far the logged robot is behind its target, in inches */
+    private static final double LAG = 1;
+
+    @Test
+    public void followsTheLoggedPathWithTheLoggedGains() {
+        LogFiles.LogFile log = createLog();
+        LogReplay.Result result = LogReplay.replay(log, LogReplay.Settings.fromLog(log));
+        System.out.println(result);
+
+        assertEquals(SAMPLES, result.samples);
+        assertEquals((SAMPLES - 1) * DT, result.duration, 1e-9);
+        // Only off by the encoders rounding to whole ticks
+        assertEquals(LAG, result.rmsTranslationalError, 0.05);
+        assertTrue(result.maxLocalizationDifference < 0.05);
+    }
+
+    @Test
+    public void tracksBetterWithMoreProportionalGain() {
+        LogFiles.LogFile log = createLog();
+        LogReplay.Settings settings = LogReplay.Settings.fromLog(log);
+        double loggedError = LogReplay.replay(log, settings).rmsTranslationalError;
+
+        PIDCoefficients pid = settings.translationalPid;
+        settings.translationalPid = new PIDCoefficients(pid.kP + 4, pid.kI, pid.kD);
+        double newError = LogReplay.replay(log, settings).rmsTranslationalError;
+
+        assertTrue(newError + " in isn't less than " + loggedError + " in", newError < loggedError);
+    }
+
+    /** Replays the log given to Gradle with {@code -PreplayLog=<log file>}, and is skipped without one. */
+    @Test
+    public void replaysTheGivenLog() throws IOException {
+        String path = System.getProperty("replayLog");
+        assumeTrue(path != null && !path.isEmpty());
+        LogReplay.main(new String[]{path});
+    }
+
+    /** A log of the robot driving straight forward at a constant speed, a little behind its target. */
+    private static LogFiles.LogFile createLog() {
+        LogFiles.LogFile log = new LogFiles.LogFile("LogReplayTest");
+        double inchesPerTick = log.wheelRadius * 2 * Math.PI * log.gearRatio / log.ticksPerRev;
+        for (int wheel = 0; wheel < 4; wheel++) {
+            log.driveEncPositions.add(new IntColumn());
+            log.driveEncVels.add(new IntColumn());
+        }
+
+        for (int i = 0; i < SAMPLES; i++) {
+            double x = SPEED * i * DT;
+            log.nsTimes.add(Math.round(i * DT * 1e9));
+            log.targetXs.add(x + LAG);
+            log.targetYs.add(0);
+            log.targetHeadings.add(0);
+            log.xs.add(x);
+            log.ys.add(0);
+            log.headings.add(0);
+            log.voltages.add(12);
+            for (int wheel = 0; wheel < 4; wheel++) {
+                log.driveEncPositions.get(wheel).add((int) Math.round(x / inchesPerTick));
+                log.driveEncVels.get(wheel).add((int) Math.round(SPEED / inchesPerTick));
+            }
+        }
+        return log;
+    }
+}
@@ -0,0 +1,79 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+import com.acmerobotics.roadrunner.trajectory.Trajectory;
+
+import org.firstinspires.ftc.teamcode.auto.AutoPaths;
+import org.firstinspires.ftc.teamcode.auto.AutoPosition;
+import org.firstinspires.ftc.teamcode.roadrunner.drive.DriveConstants;
+import org.firstinspires.ftc.teamcode.roadrunner.drive.SampleMecanumDrive;
+import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.TrajectoryReplanner;
+import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.TrajectorySequence;
+import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.sequencesegment.SequenceSegment;
+import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.sequencesegment.TrajectorySegment;
+
+/**
+ * Measures how long {@link TrajectoryReplanner#replan} takes, which has to fit in a loop or two since the runner
+ * replans inside {@code update()}. Each trajectory of the longest autonomous path is replanned with the robot pushed
+ * off to the side partway along it and still moving. Run by {@link ReplanBenchmarkTest}, which prints the result.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class ReplanBenchmark {
+    public static final int DEFAULT_REPLANS = 200;
+
+    /** How far the robot is pushed off the trajectory, in inches */
+    private static final double PUSH_DISTANCE = 6;
+    /** How fast the robot is moving when it replans, in inches per second */
+    private static final double SPEED = 30;
+
+    private ReplanBenchmark() {
+
+    }
+
+    /**
+     * @param replans The number of trajectories to plan
+     * @return The average time of each plan in nanoseconds
+     */
+    public static double measureNanosPerReplan(int replans) {
+        TrajectoryReplanner replanner = new TrajectoryReplanner(
+                SampleMecanumDrive.getVelocityConstraint(DriveConstants.MAX_VEL, DriveConstants.MAX_ANG_VEL, DriveConstants.TRACK_WIDTH),
+                SampleMecanumDrive.getAccelerationConstraint(DriveConstants.MAX_ACCEL));
+
+        AutoPosition autoPosition = new AutoPosition(AutoPosition.SpikeMark.UPSTAGE, true, true, false);
+        TrajectorySequence sequence = AutoPaths.getBackdropPath(autoPosition);
+
+        int trajectories = 0;
+        for (int i = 0; i < sequence.size(); i++) {
+            if (sequence.get(i) instanceof TrajectorySegment) trajectories++;
+        }
+        Trajectory[] originals = new Trajectory[trajectories];
+        Pose2d[] poses = new Pose2d[trajectories];
+        for (int i = 0, j = 0; i < sequence.size(); i++) {
+            SequenceSegment segment = sequence.get(i);
+            if (!(segment instanceof TrajectorySegment)) continue;
+
+            // A third of the way along, pushed to the side of the way the robot is heading
+            Trajectory trajectory = ((TrajectorySegment) segment).getTrajectory();
+            Pose2d onPath = trajectory.get(trajectory.duration() / 3);
+            double side = onPath.getHeading() + Math.PI / 2;
+            originals[j] = trajectory;
+            poses[j] = new Pose2d(
+                    onPath.getX() + Math.cos(side) * PUSH_DISTANCE,
+                    onPath.getY() + Math.sin(side) * PUSH_DISTANCE,
+                    onPath.getHeading());
+            j++;
+        }
+        Pose2d velocity = new Pose2d(SPEED, 0, 0);
+
+        // Plan each trajectory once first, so the JIT has compiled the planner before it is timed
+        for (int j = 0; j < originals.length; j++) replanner.replan(originals[j], poses[j], velocity);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < replans; i++) {
+            int j = i % originals.length;
+            replanner.replan(originals[j], poses[j], velocity);
+        }
+        return (double) (System.nanoTime() - start) / replans;
+    }
+}
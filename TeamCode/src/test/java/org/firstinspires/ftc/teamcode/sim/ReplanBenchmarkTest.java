@@ -0,0 +1,23 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ReplanBenchmarkTest {
+    /**
+     * The longest a plan can take on the computer running the tests, in milliseconds. A loop is about 20 ms and the
+     * Control Hub is several times slower than a desktop, so a plan taking this long here would hold up the robot
+     * for a few loops.
+     */
+    private static final double MAX_MILLIS_PER_PLAN = 20;
+
+    @Test
+    public void planningFitsInALoop() {
+        double nanos = ReplanBenchmark.measureNanosPerReplan(ReplanBenchmark.DEFAULT_REPLANS);
+        double millis = nanos / 1e6;
+        System.out.printf("TrajectoryReplanner.replan(): %.3f ms%n", millis);
+
+        assertTrue(millis + " ms per plan", millis < MAX_MILLIS_PER_PLAN);
+    }
+}
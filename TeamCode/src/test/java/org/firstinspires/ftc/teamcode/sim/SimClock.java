@@ -0,0 +1,30 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import org.firstinspires.ftc.teamcode.util.RobotClock;
+
+/**
+ * A clock that only moves when the simulation moves it. Given to {@link RobotClock} so the robot code measures
+ * simulated time instead of real time.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class SimClock implements RobotClock.TimeSource {
+    /** Starts well above zero, since some of the code treats a time of 0 as never */
+    private static final long START_NANOS = 1_000_000_000L;
+
+    private volatile long nanos = START_NANOS;
+
+    /**
+     * Moves the clock forward.
+     *
+     * @param seconds How far to move it in seconds
+     */
+    public void advance(double seconds) {
+        nanos += Math.round(seconds * 1e9);
+    }
+
+    @Override
+    public long nanoTime() {
+        return nanos;
+    }
+}
@@ -0,0 +1,107 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import com.qualcomm.robotcore.hardware.DigitalChannel;
+import com.qualcomm.robotcore.hardware.DigitalChannelController;
+import com.qualcomm.robotcore.util.SerialNumber;
+
+/**
+ * A simulated bank of digital ports. Backs the SDK's own DigitalChannelImpl and LED classes, so limit
+ * switches and LEDs behave like they do on the hub.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class SimDigitalChannelController implements DigitalChannelController {
+    /** The number of digital ports on a hub */
+    public static final int PORT_COUNT = 8;
+
+    /** The hub the ports are on, inputs are bulk read */
+    private final SimHub hub;
+    private final DigitalChannel.Mode[] modes = new DigitalChannel.Mode[PORT_COUNT];
+    /** Digital ports are pulled high, so a released limit switch reads true */
+    private final boolean[] states = new boolean[PORT_COUNT];
+
+    /**
+     * Creates the ports, all inputs that read true.
+     *
+     * @param hub The hub the ports are on
+     */
+    public SimDigitalChannelController(SimHub hub) {
+        this.hub = hub;
+        for (int i = 0; i < PORT_COUNT; i++) {
+            modes[i] = DigitalChannel.Mode.INPUT;
+            states[i] = true;
+        }
+    }
+
+    /**
+     * Sets what an input port reads, like a switch being pressed or released.
+     *
+     * @param channel The port
+     * @param state The state of the port, false if a limit switch is pressed
+     */
+    public void setInputState(int channel, boolean state) {
+        states[channel] = state;
+    }
+
+    @Override
+    public SerialNumber getSerialNumber() {
+        return SerialNumber.createFake();
+    }
+
+    @Override
+    public DigitalChannel.Mode getDigitalChannelMode(int channel) {
+        return modes[channel];
+    }
+
+    @Override
+    public void setDigitalChannelMode(int channel, DigitalChannel.Mode mode) {
+        modes[channel] = mode;
+    }
+
+    @Deprecated
+    @Override
+    public void setDigitalChannelMode(int channel, Mode mode) {
+        setDigitalChannelMode(channel, mode == Mode.OUTPUT ? DigitalChannel.Mode.OUTPUT : DigitalChannel.Mode.INPUT);
+    }
+
+    @Override
+    public boolean getDigitalChannelState(int channel) {
+        if (modes[channel] == DigitalChannel.Mode.INPUT) hub.read();
+        return states[channel];
+    }
+
+    @Override
+    public void setDigitalChannelState(int channel, boolean state) {
+        if (modes[channel] == DigitalChannel.Mode.OUTPUT) states[channel] = state;
+    }
+
+    @Override
+    public Manufacturer getManufacturer() {
+        return Manufacturer.Other;
+    }
+
+    @Override
+    public String getDeviceName() {
+        return "Simulated Digital Channel Controller";
+    }
+
+    @Override
+    public String getConnectionInfo() {
+        return "simulated";
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public void resetDeviceConfigurationForOpMode() {
+
+    }
+
+    @Override
+    public void close() {
+
+    }
+}
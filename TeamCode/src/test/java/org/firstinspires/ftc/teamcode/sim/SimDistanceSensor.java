@@ -0,0 +1,62 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import com.qualcomm.robotcore.hardware.DistanceSensor;
+
+import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+
+/**
+ * A simulated {@link DistanceSensor} that reads whatever distance it was last given.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class SimDistanceSensor implements DistanceSensor {
+    /** What a real sensor reads when nothing is in range */
+    public static final double OUT_OF_RANGE = distanceOutOfRange;
+
+    private double distanceCm = OUT_OF_RANGE;
+
+    /**
+     * Sets the distance the sensor reads.
+     *
+     * @param distance The distance, or {@link #OUT_OF_RANGE} if nothing is in front of the sensor
+     * @param unit The unit of the distance
+     */
+    public void setDistance(double distance, DistanceUnit unit) {
+        distanceCm = distance == OUT_OF_RANGE ? OUT_OF_RANGE : DistanceUnit.CM.fromUnit(unit, distance);
+    }
+
+    @Override
+    public double getDistance(DistanceUnit unit) {
+        return distanceCm == OUT_OF_RANGE ? OUT_OF_RANGE : unit.fromUnit(DistanceUnit.CM, distanceCm);
+    }
+
+    @Override
+    public Manufacturer getManufacturer() {
+        return Manufacturer.Other;
+    }
+
+    @Override
+    public String getDeviceName() {
+        return "Simulated Distance Sensor";
+    }
+
+    @Override
+    public String getConnectionInfo() {
+        return "simulated";
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public void resetDeviceConfigurationForOpMode() {
+
+    }
+
+    @Override
+    public void close() {
+
+    }
+}
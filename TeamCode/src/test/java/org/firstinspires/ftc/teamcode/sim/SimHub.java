@@ -0,0 +1,102 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.qualcomm.hardware.lynx.LynxModule;
+
+/**
+ * A simulated Lynx module (control hub or expansion hub) that counts the transactions the robot makes with it.
+ * A LynxModule can't be created without a USB connection, so {@link #getModule()} is a Mockito mock whose bulk
+ * caching is handled here, the way the SDK handles it:
+ * <ul>
+ *     <li>OFF: every read is its own transaction</li>
+ *     <li>MANUAL: the first read after the cache is cleared is a bulk read, the rest come from the cache</li>
+ *     <li>AUTO: not modelled, every read counts as a bulk read, which is never fewer than the SDK does</li>
+ * </ul>
+ * The simulated devices on the hub call {@link #read()} for each encoder, velocity, busy and digital input read.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class SimHub {
+    /** What the hub reports, new enough for RoadRunner's firmware check */
+    private static final String FIRMWARE_VERSION = "HW: 20, Maj: 1, Min: 8, Eng: 2";
+
+    private final LynxModule module = mock(LynxModule.class);
+    private LynxModule.BulkCachingMode bulkCachingMode = LynxModule.BulkCachingMode.OFF;
+    /** Whether the cache holds a bulk read that hasn't been cleared */
+    private boolean isCached;
+
+    private int reads;
+    private int bulkReads;
+    private int individualReads;
+
+    public SimHub() {
+        doAnswer(invocation -> {
+            bulkCachingMode = invocation.getArgument(0);
+            isCached = false;
+            return null;
+        }).when(module).setBulkCachingMode(any());
+        when(module.getBulkCachingMode()).thenAnswer(invocation -> bulkCachingMode);
+        doAnswer(invocation -> {
+            isCached = false;
+            return null;
+        }).when(module).clearBulkCache();
+        // The bulk data itself isn't simulated, the devices read their own state
+        when(module.getBulkData()).thenAnswer(invocation -> {
+            if (!isCached) bulkRead();
+            return null;
+        });
+        when(module.getNullableFirmwareVersionString()).thenReturn(FIRMWARE_VERSION);
+    }
+
+    /** Counts a read of one value from the hub, served from the bulk cache if it can be. */
+    void read() {
+        reads++;
+        switch (bulkCachingMode) {
+            case OFF:
+                individualReads++;
+                break;
+            case MANUAL:
+                if (!isCached) bulkRead();
+                break;
+            case AUTO:
+                bulkReads++;
+                break;
+        }
+    }
+
+    private void bulkRead() {
+        bulkReads++;
+        isCached = bulkCachingMode == LynxModule.BulkCachingMode.MANUAL;
+    }
+
+    /** Sets the counts back to zero. */
+    public void resetCounts() {
+        reads = 0;
+        bulkReads = 0;
+        individualReads = 0;
+    }
+
+    /** @return The module to put in the hardware map */
+    public LynxModule getModule() {
+        return module;
+    }
+
+    /** @return The number of values the devices on the hub have read since the counts were reset */
+    public int getReads() {
+        return reads;
+    }
+
+    /** @return The number of bulk reads sent to the hub since the counts were reset */
+    public int getBulkReads() {
+        return bulkReads;
+    }
+
+    /** @return The number of reads that weren't bulk reads since the counts were reset */
+    public int getIndividualReads() {
+        return individualReads;
+    }
+}
@@ -0,0 +1,106 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import com.qualcomm.robotcore.hardware.IMU;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.AngularVelocity;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesOrder;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesReference;
+import org.firstinspires.ftc.robotcore.external.navigation.Orientation;
+import org.firstinspires.ftc.robotcore.external.navigation.Quaternion;
+import org.firstinspires.ftc.robotcore.external.navigation.YawPitchRollAngles;
+
+/**
+ * A simulated {@link IMU} that only measures yaw. The heading and turn rate are set by the simulated
+ * drive base, see {@link SimMecanumDrive}. The robot is assumed to stay flat, so pitch and roll are always 0.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class SimImu implements IMU {
+    /** The heading of the robot on the field in radians, counter clockwise is positive */
+    private double heading;
+    /** The heading the last time the yaw was reset */
+    private double yawZero;
+    /** The turn rate of the robot in radians per second */
+    private double headingVelocity;
+
+    /**
+     * Sets the simulated heading and turn rate of the robot.
+     *
+     * @param heading The heading in radians
+     * @param headingVelocity The turn rate in radians per second
+     */
+    public void setHeading(double heading, double headingVelocity) {
+        this.heading = heading;
+        this.headingVelocity = headingVelocity;
+    }
+
+    private double getYawRadians() {
+        return AngleUnit.normalizeRadians(heading - yawZero);
+    }
+
+    @Override
+    public boolean initialize(Parameters parameters) {
+        return true;
+    }
+
+    @Override
+    public void resetYaw() {
+        yawZero = heading;
+    }
+
+    @Override
+    public YawPitchRollAngles getRobotYawPitchRollAngles() {
+        return new YawPitchRollAngles(AngleUnit.RADIANS, getYawRadians(), 0, 0, System.nanoTime());
+    }
+
+    @Override
+    public Orientation getRobotOrientation(AxesReference reference, AxesOrder order, AngleUnit angleUnit) {
+        return new Orientation(AxesReference.INTRINSIC, AxesOrder.ZYX, AngleUnit.RADIANS,
+                (float) getYawRadians(), 0, 0, System.nanoTime())
+                .toAxesReference(reference)
+                .toAxesOrder(order)
+                .toAngleUnit(angleUnit);
+    }
+
+    @Override
+    public Quaternion getRobotOrientationAsQuaternion() {
+        double yaw = getYawRadians();
+        return new Quaternion((float) Math.cos(yaw / 2), 0, 0, (float) Math.sin(yaw / 2), System.nanoTime());
+    }
+
+    @Override
+    public AngularVelocity getRobotAngularVelocity(AngleUnit angleUnit) {
+        return new AngularVelocity(angleUnit, 0, 0, (float) angleUnit.fromRadians(headingVelocity), System.nanoTime());
+    }
+
+    @Override
+    public Manufacturer getManufacturer() {
+        return Manufacturer.Other;
+    }
+
+    @Override
+    public String getDeviceName() {
+        return "Simulated IMU";
+    }
+
+    @Override
+    public String getConnectionInfo() {
+        return "simulated";
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public void resetDeviceConfigurationForOpMode() {
+
+    }
+
+    @Override
+    public void close() {
+
+    }
+}
@@ -0,0 +1,105 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import static org.firstinspires.ftc.teamcode.Constants.DriveConstants.PULSES_PER_INCH;
+
+import org.firstinspires.ftc.teamcode.roadrunner.drive.DriveConstants;
+
+/**
+ * Simulates the drive base moving on the field. Turns the velocities of the four simulated drive motors
+ * into a robot velocity, integrates it into a pose and feeds the heading to the simulated IMU. The wheels
+ * are assumed to never slip.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class SimMecanumDrive {
+    private final SimMotor frontLeftMotor;
+    private final SimMotor frontRightMotor;
+    private final SimMotor rearLeftMotor;
+    private final SimMotor rearRightMotor;
+    private final SimImu imu;
+
+    /** The distance from the center of the robot to the wheels used for turning, in inches */
+    private final double turnRadius;
+
+    /** The pose of the robot on the field in inches and radians */
+    private double x;
+    private double y;
+    private double heading;
+
+    /**
+     * Creates a simulated drive base.
+     *
+     * @param frontLeftMotor The front left drive motor
+     * @param frontRightMotor The front right drive motor
+     * @param rearLeftMotor The rear left drive motor
+     * @param rearRightMotor The rear right drive motor
+     * @param imu The IMU to give the heading to
+     */
+    public SimMecanumDrive(SimMotor frontLeftMotor, SimMotor frontRightMotor, SimMotor rearLeftMotor,
+                           SimMotor rearRightMotor, SimImu imu) {
+        this.frontLeftMotor = frontLeftMotor;
+        this.frontRightMotor = frontRightMotor;
+        this.rearLeftMotor = rearLeftMotor;
+        this.rearRightMotor = rearRightMotor;
+        this.imu = imu;
+        // The wheel base is assumed to be the same as the track width
+        turnRadius = DriveConstants.TRACK_WIDTH;
+    }
+
+    /**
+     * Moves the robot using the current wheel velocities. The motors should be updated first.
+     *
+     * @param dt The time step in seconds
+     */
+    public void update(double dt) {
+        // Wheel speeds in inches per second, the motor directions already make positive forward
+        double frontLeft = frontLeftMotor.getPhysicalVelocity() / PULSES_PER_INCH;
+        double frontRight = frontRightMotor.getPhysicalVelocity() / PULSES_PER_INCH;
+        double rearLeft = rearLeftMotor.getPhysicalVelocity() / PULSES_PER_INCH;
+        double rearRight = rearRightMotor.getPhysicalVelocity() / PULSES_PER_INCH;
+
+        // Undo the wheel mixing in DriveSubsystem.drive, strafe is positive to the right and turn is clockwise
+        double forward = (frontLeft + frontRight + rearLeft + rearRight) / 4;
+        double strafe = (-frontLeft - frontRight + rearLeft + rearRight) / 4;
+        double turn = (frontLeft - frontRight + rearLeft - rearRight) / 4;
+
+        double headingVelocity = -turn / turnRadius;
+
+        // Integrate around the middle of the step so turning while driving curves properly
+        double midHeading = heading + headingVelocity * dt / 2;
+        x += (forward * Math.cos(midHeading) + strafe * Math.sin(midHeading)) * dt;
+        y += (forward * Math.sin(midHeading) - strafe * Math.cos(midHeading)) * dt;
+        heading += headingVelocity * dt;
+
+        imu.setHeading(heading, headingVelocity);
+    }
+
+    /**
+     * Moves the robot to a pose without simulating the movement.
+     *
+     * @param x The x position in inches
+     * @param y The y position in inches
+     * @param heading The heading in radians
+     */
+    public void setPose(double x, double y, double heading) {
+        this.x = x;
+        this.y = y;
+        this.heading = heading;
+        imu.setHeading(heading, 0);
+    }
+
+    /** @return The x position of the robot in inches */
+    public double getX() {
+        return x;
+    }
+
+    /** @return The y position of the robot in inches */
+    public double getY() {
+        return y;
+    }
+
+    /** @return The heading of the robot in radians, counter clockwise is positive */
+    public double getHeading() {
+        return heading;
+    }
+}
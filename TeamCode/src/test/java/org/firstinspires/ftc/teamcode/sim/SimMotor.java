@@ -0,0 +1,388 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import com.qualcomm.robotcore.hardware.DcMotorController;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.hardware.PIDCoefficients;
+import com.qualcomm.robotcore.hardware.PIDFCoefficients;
+import com.qualcomm.robotcore.hardware.configuration.typecontainers.MotorConfigurationType;
+import com.qualcomm.robotcore.util.Range;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.CurrentUnit;
+
+import java.util.EnumMap;
+
+/**
+ * A simulated {@link DcMotorEx}. The shaft is modelled as a first order system: the velocity approaches
+ * the commanded power times the free speed with a time constant, and the encoder integrates the velocity.
+ * The model only moves when {@link #update(double, double)} is called, so it can be stepped at any rate.
+ * Reading the encoder, velocity or busy flag counts as a read on the motor's {@link SimHub}.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class SimMotor implements DcMotorEx {
+    /** Proportional gain of the simulated RUN_TO_POSITION controller, in power per tick */
+    private static final double RUN_TO_POSITION_P = 0.01;
+    /** The voltage the free speed is measured at */
+    private static final double NOMINAL_VOLTAGE = 12;
+    /** How many times slower the motor slows down when floating instead of braking */
+    private static final double FLOAT_SLOWDOWN = 5;
+
+    private final SimHub hub;
+    private final int port;
+    private final double ticksPerRev;
+    private final double freeSpeedTicksPerSecond;
+    private final double timeConstant;
+    private final double stallCurrent;
+
+    private Direction direction = Direction.FORWARD;
+    private RunMode mode = RunMode.RUN_WITHOUT_ENCODER;
+    private ZeroPowerBehavior zeroPowerBehavior = ZeroPowerBehavior.FLOAT;
+    private final EnumMap<RunMode, PIDFCoefficients> pidfCoefficients = new EnumMap<>(RunMode.class);
+
+    private double power;
+    private int targetPosition;
+    private int targetPositionTolerance = 10;
+    private boolean enabled = true;
+    private double currentAlertAmps = 5;
+
+    /** Position and velocity of the shaft in ticks, before the direction is applied */
+    private double shaftPosition;
+    private double shaftVelocity;
+    /** The shaft position when the encoder was last reset */
+    private double encoderZero;
+    private double currentAmps;
+
+    /** The range the mechanism can physically move in, used for arms that hit a hard stop */
+    private double minPosition = Double.NEGATIVE_INFINITY;
+    private double maxPosition = Double.POSITIVE_INFINITY;
+
+    /**
+     * Creates a simulated motor.
+     *
+     * @param hub The hub the motor is plugged into
+     * @param port The port of the motor, only used for {@link #getPortNumber()}
+     * @param ticksPerRev The encoder ticks per revolution of the output shaft
+     * @param freeSpeedRpm The speed of the output shaft at full power and no load
+     * @param timeConstant How long it takes to reach 63% of a new speed, in seconds
+     * @param stallCurrent The current at full power and no speed, in amps
+     */
+    public SimMotor(SimHub hub, int port, double ticksPerRev, double freeSpeedRpm, double timeConstant, double stallCurrent) {
+        this.hub = hub;
+        this.port = port;
+        this.ticksPerRev = ticksPerRev;
+        this.freeSpeedTicksPerSecond = freeSpeedRpm / 60 * ticksPerRev;
+        this.timeConstant = timeConstant;
+        this.stallCurrent = stallCurrent;
+    }
+
+    /**
+     * Creates a simulated goBILDA 5203 312 RPM motor.
+     *
+     * @param hub The hub the motor is plugged into
+     * @param port The port of the motor
+     */
+    public SimMotor(SimHub hub, int port) {
+        this(hub, port, 537.7, 312, 0.1, 9.2);
+    }
+
+    /**
+     * Stops the mechanism from moving past a range, like an arm hitting the robot or a slide at full extension.
+     * The range uses the same direction as the encoder, see {@link #getPhysicalPosition()}.
+     *
+     * @param minPosition The lowest position in ticks, measured from where the mechanism started
+     * @param maxPosition The highest position in ticks, measured from where the mechanism started
+     */
+    public void setHardStops(double minPosition, double maxPosition) {
+        this.minPosition = minPosition;
+        this.maxPosition = maxPosition;
+    }
+
+    /**
+     * Moves the simulated shaft forward in time.
+     *
+     * @param dt The time step in seconds
+     * @param batteryVoltage The voltage of the battery, scales the speed when not using the encoder
+     */
+    public void update(double dt, double batteryVoltage) {
+        double command = 0;
+        if (enabled) {
+            switch (mode) {
+                case RUN_TO_POSITION:
+                    double error = targetPosition - getEncoderPosition();
+                    command = applyDirection(Range.clip(error * RUN_TO_POSITION_P, -Math.abs(power), Math.abs(power)));
+                    break;
+                case RUN_USING_ENCODER:
+                    // The velocity controller on the hub makes up for the battery voltage
+                    command = applyDirection(power);
+                    break;
+                case RUN_WITHOUT_ENCODER:
+                    command = applyDirection(power) * batteryVoltage / NOMINAL_VOLTAGE;
+                    break;
+                case STOP_AND_RESET_ENCODER:
+                    break;
+            }
+        }
+
+        double tau = command == 0 && zeroPowerBehavior == ZeroPowerBehavior.FLOAT ? timeConstant * FLOAT_SLOWDOWN : timeConstant;
+        double targetVelocity = Range.clip(command, -1, 1) * freeSpeedTicksPerSecond;
+        shaftVelocity += (targetVelocity - shaftVelocity) * (1 - Math.exp(-dt / tau));
+        shaftPosition += shaftVelocity * dt;
+
+        double physicalPosition = getPhysicalPosition();
+        if (physicalPosition < minPosition || physicalPosition > maxPosition) {
+            shaftPosition = applyDirection(Range.clip(physicalPosition, minPosition, maxPosition));
+            shaftVelocity = 0;
+        }
+
+        // The back EMF lowers the current as the motor speeds up
+        currentAmps = Math.abs(command - shaftVelocity / freeSpeedTicksPerSecond) * stallCurrent;
+    }
+
+    /** @return The position in ticks since the start of the simulation in the motor's direction, ignoring encoder resets */
+    public double getPhysicalPosition() {
+        return applyDirection(shaftPosition);
+    }
+
+    /** @return The velocity in ticks per second in the motor's direction, without reading from the hub */
+    public double getPhysicalVelocity() {
+        return applyDirection(shaftVelocity);
+    }
+
+    /** @return The position the encoder reads, without reading from the hub */
+    private int getEncoderPosition() {
+        return (int) Math.round(applyDirection(shaftPosition - encoderZero));
+    }
+
+    private double applyDirection(double value) {
+        return direction == Direction.FORWARD ? value : -value;
+    }
+
+    @Override
+    public void setMotorEnable() {
+        enabled = true;
+    }
+
+    @Override
+    public void setMotorDisable() {
+        enabled = false;
+    }
+
+    @Override
+    public boolean isMotorEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setVelocity(double angularRate) {
+        setPower(angularRate / freeSpeedTicksPerSecond);
+    }
+
+    @Override
+    public void setVelocity(double angularRate, AngleUnit unit) {
+        setVelocity(unit.toRadians(angularRate) / (2 * Math.PI) * ticksPerRev);
+    }
+
+    @Override
+    public double getVelocity() {
+        hub.read();
+        return getPhysicalVelocity();
+    }
+
+    @Override
+    public double getVelocity(AngleUnit unit) {
+        return unit.fromRadians(getVelocity() / ticksPerRev * 2 * Math.PI);
+    }
+
+    @Deprecated
+    @Override
+    public void setPIDCoefficients(RunMode mode, PIDCoefficients pidCoefficients) {
+        setPIDFCoefficients(mode, new PIDFCoefficients(pidCoefficients.p, pidCoefficients.i, pidCoefficients.d, 0));
+    }
+
+    @Override
+    public void setPIDFCoefficients(RunMode mode, PIDFCoefficients pidfCoefficients) {
+        this.pidfCoefficients.put(mode, new PIDFCoefficients(pidfCoefficients));
+    }
+
+    @Override
+    public void setVelocityPIDFCoefficients(double p, double i, double d, double f) {
+        setPIDFCoefficients(RunMode.RUN_USING_ENCODER, new PIDFCoefficients(p, i, d, f));
+    }
+
+    @Override
+    public void setPositionPIDFCoefficients(double p) {
+        setPIDFCoefficients(RunMode.RUN_TO_POSITION, new PIDFCoefficients(p, 0, 0, 0));
+    }
+
+    @Deprecated
+    @Override
+    public PIDCoefficients getPIDCoefficients(RunMode mode) {
+        PIDFCoefficients coefficients = getPIDFCoefficients(mode);
+        return new PIDCoefficients(coefficients.p, coefficients.i, coefficients.d);
+    }
+
+    @Override
+    public PIDFCoefficients getPIDFCoefficients(RunMode mode) {
+        PIDFCoefficients coefficients = pidfCoefficients.get(mode);
+        return coefficients == null ? new PIDFCoefficients() : new PIDFCoefficients(coefficients);
+    }
+
+    @Override
+    public void setTargetPositionTolerance(int tolerance) {
+        targetPositionTolerance = tolerance;
+    }
+
+    @Override
+    public int getTargetPositionTolerance() {
+        return targetPositionTolerance;
+    }
+
+    @Override
+    public double getCurrent(CurrentUnit unit) {
+        return unit == CurrentUnit.MILLIAMPS ? currentAmps * 1000 : currentAmps;
+    }
+
+    @Override
+    public double getCurrentAlert(CurrentUnit unit) {
+        return unit == CurrentUnit.MILLIAMPS ? currentAlertAmps * 1000 : currentAlertAmps;
+    }
+
+    @Override
+    public void setCurrentAlert(double current, CurrentUnit unit) {
+        currentAlertAmps = unit == CurrentUnit.MILLIAMPS ? current / 1000 : current;
+    }
+
+    @Override
+    public boolean isOverCurrent() {
+        return currentAmps > currentAlertAmps;
+    }
+
+    @Override
+    public MotorConfigurationType getMotorType() {
+        return MotorConfigurationType.getUnspecifiedMotorType();
+    }
+
+    @Override
+    public void setMotorType(MotorConfigurationType motorType) {
+
+    }
+
+    @Override
+    public DcMotorController getController() {
+        return null;
+    }
+
+    @Override
+    public int getPortNumber() {
+        return port;
+    }
+
+    @Override
+    public void setZeroPowerBehavior(ZeroPowerBehavior zeroPowerBehavior) {
+        this.zeroPowerBehavior = zeroPowerBehavior;
+    }
+
+    @Override
+    public ZeroPowerBehavior getZeroPowerBehavior() {
+        return zeroPowerBehavior;
+    }
+
+    @Deprecated
+    @Override
+    public void setPowerFloat() {
+        setZeroPowerBehavior(ZeroPowerBehavior.FLOAT);
+        setPower(0);
+    }
+
+    @Override
+    public boolean getPowerFloat() {
+        return zeroPowerBehavior == ZeroPowerBehavior.FLOAT && power == 0;
+    }
+
+    @Override
+    public void setTargetPosition(int position) {
+        targetPosition = position;
+    }
+
+    @Override
+    public int getTargetPosition() {
+        return targetPosition;
+    }
+
+    @Override
+    public boolean isBusy() {
+        hub.read();
+        return mode == RunMode.RUN_TO_POSITION && Math.abs(targetPosition - getEncoderPosition()) > targetPositionTolerance;
+    }
+
+    @Override
+    public int getCurrentPosition() {
+        hub.read();
+        return getEncoderPosition();
+    }
+
+    @Override
+    public void setMode(RunMode mode) {
+        if (mode == RunMode.STOP_AND_RESET_ENCODER) {
+            encoderZero = shaftPosition;
+            power = 0;
+        }
+        this.mode = mode;
+    }
+
+    @Override
+    public RunMode getMode() {
+        return mode;
+    }
+
+    @Override
+    public void setDirection(Direction direction) {
+        this.direction = direction;
+    }
+
+    @Override
+    public Direction getDirection() {
+        return direction;
+    }
+
+    @Override
+    public void setPower(double power) {
+        this.power = Range.clip(power, -1, 1);
+    }
+
+    @Override
+    public double getPower() {
+        return power;
+    }
+
+    @Override
+    public Manufacturer getManufacturer() {
+        return Manufacturer.Other;
+    }
+
+    @Override
+    public String getDeviceName() {
+        return "Simulated Motor";
+    }
+
+    @Override
+    public String getConnectionInfo() {
+        return "simulated port " + port;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public void resetDeviceConfigurationForOpMode() {
+
+    }
+
+    @Override
+    public void close() {
+
+    }
+}
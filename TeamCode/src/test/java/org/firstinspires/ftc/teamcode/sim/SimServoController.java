@@ -0,0 +1,115 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import com.qualcomm.robotcore.hardware.PwmControl;
+import com.qualcomm.robotcore.hardware.ServoControllerEx;
+import com.qualcomm.robotcore.hardware.configuration.typecontainers.ServoConfigurationType;
+
+/**
+ * A simulated bank of servo ports. Backs the SDK's own ServoImpl and RevBlinkinLedDriver classes, which
+ * only need a controller to write their positions to. Servos move to their position instantly.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class SimServoController implements ServoControllerEx {
+    /** The number of servo ports on a hub */
+    public static final int PORT_COUNT = 6;
+
+    private final double[] positions = new double[PORT_COUNT];
+    private final boolean[] pwmEnabled = new boolean[PORT_COUNT];
+    private final PwmControl.PwmRange[] pwmRanges = new PwmControl.PwmRange[PORT_COUNT];
+
+    public SimServoController() {
+        for (int i = 0; i < PORT_COUNT; i++) {
+            pwmEnabled[i] = true;
+            pwmRanges[i] = PwmControl.PwmRange.defaultRange;
+        }
+    }
+
+    @Override
+    public void setServoPwmRange(int servo, PwmControl.PwmRange range) {
+        pwmRanges[servo] = range;
+    }
+
+    @Override
+    public PwmControl.PwmRange getServoPwmRange(int servo) {
+        return pwmRanges[servo];
+    }
+
+    @Override
+    public void setServoPwmEnable(int servo) {
+        pwmEnabled[servo] = true;
+    }
+
+    @Override
+    public void setServoPwmDisable(int servo) {
+        pwmEnabled[servo] = false;
+    }
+
+    @Override
+    public boolean isServoPwmEnabled(int servo) {
+        return pwmEnabled[servo];
+    }
+
+    @Override
+    public void setServoType(int servo, ServoConfigurationType servoType) {
+
+    }
+
+    @Override
+    public void pwmEnable() {
+        for (int i = 0; i < PORT_COUNT; i++) setServoPwmEnable(i);
+    }
+
+    @Override
+    public void pwmDisable() {
+        for (int i = 0; i < PORT_COUNT; i++) setServoPwmDisable(i);
+    }
+
+    @Override
+    public PwmStatus getPwmStatus() {
+        for (boolean enabled : pwmEnabled) {
+            if (enabled) return PwmStatus.ENABLED;
+        }
+        return PwmStatus.DISABLED;
+    }
+
+    @Override
+    public void setServoPosition(int servo, double position) {
+        positions[servo] = position;
+    }
+
+    @Override
+    public double getServoPosition(int servo) {
+        return positions[servo];
+    }
+
+    @Override
+    public Manufacturer getManufacturer() {
+        return Manufacturer.Other;
+    }
+
+    @Override
+    public String getDeviceName() {
+        return "Simulated Servo Controller";
+    }
+
+    @Override
+    public String getConnectionInfo() {
+        return "simulated";
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public void resetDeviceConfigurationForOpMode() {
+
+    }
+
+    @Override
+    public void close() {
+
+    }
+}
@@ -0,0 +1,65 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import com.qualcomm.robotcore.hardware.VoltageSensor;
+
+/**
+ * A simulated battery {@link VoltageSensor} that reads whatever voltage it was last given.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class SimVoltageSensor implements VoltageSensor {
+    private double voltage;
+
+    /**
+     * Creates a sensor reading a voltage.
+     *
+     * @param voltage The battery voltage in volts
+     */
+    public SimVoltageSensor(double voltage) {
+        this.voltage = voltage;
+    }
+
+    /**
+     * Sets the voltage the sensor reads.
+     *
+     * @param voltage The battery voltage in volts
+     */
+    public void setVoltage(double voltage) {
+        this.voltage = voltage;
+    }
+
+    @Override
+    public double getVoltage() {
+        return voltage;
+    }
+
+    @Override
+    public Manufacturer getManufacturer() {
+        return Manufacturer.Other;
+    }
+
+    @Override
+    public String getDeviceName() {
+        return "Simulated Voltage Sensor";
+    }
+
+    @Override
+    public String getConnectionInfo() {
+        return "simulated";
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public void resetDeviceConfigurationForOpMode() {
+
+    }
+
+    @Override
+    public void close() {
+
+    }
+}
@@ -0,0 +1,165 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import com.qualcomm.hardware.rev.RevBlinkinLedDriver;
+import com.qualcomm.robotcore.hardware.DigitalChannelImpl;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.qualcomm.robotcore.hardware.LED;
+import com.qualcomm.robotcore.hardware.ServoImpl;
+
+import org.firstinspires.ftc.teamcode.Constants.BoxConstants;
+import org.firstinspires.ftc.teamcode.Constants.DistanceSensorConstants;
+import org.firstinspires.ftc.teamcode.Constants.DriveConstants;
+import org.firstinspires.ftc.teamcode.Constants.DroneConstants;
+import org.firstinspires.ftc.teamcode.Constants.ElbowConstants;
+import org.firstinspires.ftc.teamcode.Constants.IntakeConstants;
+import org.firstinspires.ftc.teamcode.Constants.LEDConstants;
+import org.firstinspires.ftc.teamcode.Constants.LinearSlideConstants;
+import org.firstinspires.ftc.teamcode.Constants.WinchConstants;
+
+/**
+ * A {@link HardwareMap} filled with simulated devices under the same names as the real robot, so the
+ * subsystems and {@link org.firstinspires.ftc.teamcode.Robot} can be created without a Control Hub.
+ * Motors and the IMU are our own simulated devices, while servos, LEDs and limit switches are the SDK's
+ * own classes backed by simulated controllers. The drive motors are on the control hub and the rest on the
+ * expansion hub, both {@link SimHub}s that count the reads. Call {@link #update(double)} once per loop to move
+ * everything forward in time.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class SimulatedHardware {
+    /** The names of the hubs */
+    private static final String CONTROL_HUB_NAME = "Control Hub";
+    private static final String EXPANSION_HUB_NAME = "Expansion Hub 2";
+    /** The name the hub reports its battery voltage under, its own name */
+    private static final String BATTERY_NAME = CONTROL_HUB_NAME;
+
+    /** Digital ports of the limit switches */
+    private static final int ELBOW_LIMIT_PORT = 0;
+    private static final int SLIDE_LIMIT_PORT = 1;
+    /** How close to the bottom an arm has to be to press its limit switch, in ticks */
+    private static final double LIMIT_SWITCH_TRAVEL = 5;
+
+    private final HardwareMap hardwareMap;
+
+    private final SimHub controlHub = new SimHub();
+    private final SimHub expansionHub = new SimHub();
+
+    private final SimMotor frontLeftMotor = new SimMotor(controlHub, 0);
+    private final SimMotor frontRightMotor = new SimMotor(controlHub, 1);
+    private final SimMotor rearLeftMotor = new SimMotor(controlHub, 2);
+    private final SimMotor rearRightMotor = new SimMotor(controlHub, 3);
+    private final SimMotor elbowMotor = new SimMotor(expansionHub, 0);
+    private final SimMotor slideMotor = new SimMotor(expansionHub, 1);
+    private final SimMotor intakeMotor = new SimMotor(expansionHub, 2);
+    private final SimMotor winchMotor = new SimMotor(expansionHub, 3);
+    private final SimMotor[] motors = {frontLeftMotor, frontRightMotor, rearLeftMotor, rearRightMotor,
+            elbowMotor, slideMotor, intakeMotor, winchMotor};
+
+    private final SimImu imu = new SimImu();
+    private final SimMecanumDrive drive = new SimMecanumDrive(frontLeftMotor, frontRightMotor, rearLeftMotor, rearRightMotor, imu);
+    private final SimDistanceSensor leftDistanceSensor = new SimDistanceSensor();
+    private final SimDistanceSensor rightDistanceSensor = new SimDistanceSensor();
+    private final SimServoController servoController = new SimServoController();
+    private final SimDigitalChannelController digitalController = new SimDigitalChannelController(expansionHub);
+
+    private double batteryVoltage = 12.5;
+    private final SimVoltageSensor voltageSensor = new SimVoltageSensor(batteryVoltage);
+
+    /** Creates the simulated devices and puts them in a new hardware map. */
+    public SimulatedHardware() {
+        hardwareMap = new HardwareMap(null, null);
+
+        hardwareMap.put(CONTROL_HUB_NAME, controlHub.getModule());
+        hardwareMap.put(EXPANSION_HUB_NAME, expansionHub.getModule());
+
+        hardwareMap.put(DriveConstants.FRONT_LEFT_MOTOR_NAME, frontLeftMotor);
+        hardwareMap.put(DriveConstants.FRONT_RIGHT_MOTOR_NAME, frontRightMotor);
+        hardwareMap.put(DriveConstants.REAR_LEFT_MOTOR_NAME, rearLeftMotor);
+        hardwareMap.put(DriveConstants.REAR_RIGHT_MOTOR_NAME, rearRightMotor);
+        hardwareMap.put(DriveConstants.IMU_NAME, imu);
+        hardwareMap.put(BATTERY_NAME, voltageSensor);
+        hardwareMap.put(ElbowConstants.ELBOW_DC_MOTOR_NAME, elbowMotor);
+        hardwareMap.put(LinearSlideConstants.SLIDE_MOTOR_NAME, slideMotor);
+        hardwareMap.put(IntakeConstants.INTAKE_MOTOR_NAME, intakeMotor);
+        hardwareMap.put(WinchConstants.WINCH_MOTOR_NAME, winchMotor);
+
+        hardwareMap.put(DistanceSensorConstants.LEFT_DISTANCE_SENSOR_NAME, leftDistanceSensor);
+        hardwareMap.put(DistanceSensorConstants.RIGHT_DISTANCE_SENSOR_NAME, rightDistanceSensor);
+
+        hardwareMap.put(BoxConstants.BOX_SERVO_NAME, new ServoImpl(servoController, 0));
+        hardwareMap.put(DroneConstants.DRONE_SERVO_NAME, new ServoImpl(servoController, 1));
+        hardwareMap.put(IntakeConstants.INTAKE_SERVO_NAME, new ServoImpl(servoController, 2));
+        hardwareMap.put(WinchConstants.HOOK_SERVO_NAME, new ServoImpl(servoController, 3));
+        hardwareMap.put(LEDConstants.LED_NAME, new RevBlinkinLedDriver(servoController, 4));
+
+        hardwareMap.put(ElbowConstants.ELBOW_LIMIT_SWITCH_NAME, new DigitalChannelImpl(digitalController, ELBOW_LIMIT_PORT));
+        hardwareMap.put(LinearSlideConstants.SLIDE_LIMIT_SWITCH_NAME, new DigitalChannelImpl(digitalController, SLIDE_LIMIT_PORT));
+        hardwareMap.put(BoxConstants.RED_LEFT_LED_NAME, new LED(digitalController, 2));
+        hardwareMap.put(BoxConstants.GREEN_LEFT_LED_NAME, new LED(digitalController, 3));
+        hardwareMap.put(BoxConstants.RED_RIGHT_LED_NAME, new LED(digitalController, 4));
+        hardwareMap.put(BoxConstants.GREEN_RIGHT_LED_NAME, new LED(digitalController, 5));
+
+        // The elbow and slide start at the bottom and can't go any lower
+        elbowMotor.setHardStops(0, Double.POSITIVE_INFINITY);
+        slideMotor.setHardStops(0, LinearSlideConstants.MAX_POSITION);
+    }
+
+    /**
+     * Moves all of the simulated devices forward in time.
+     *
+     * @param dt The time step in seconds
+     */
+    public void update(double dt) {
+        for (SimMotor motor : motors) motor.update(dt, batteryVoltage);
+        drive.update(dt);
+
+        // The limit switches read false while they are pressed
+        digitalController.setInputState(ELBOW_LIMIT_PORT, elbowMotor.getPhysicalPosition() > LIMIT_SWITCH_TRAVEL);
+        digitalController.setInputState(SLIDE_LIMIT_PORT, slideMotor.getPhysicalPosition() > LIMIT_SWITCH_TRAVEL);
+    }
+
+    public HardwareMap getHardwareMap() {
+        return hardwareMap;
+    }
+
+    public SimHub getControlHub() {
+        return controlHub;
+    }
+
+    public SimHub getExpansionHub() {
+        return expansionHub;
+    }
+
+    public SimMecanumDrive getDrive() {
+        return drive;
+    }
+
+    public SimMotor getElbowMotor() {
+        return elbowMotor;
+    }
+
+    public SimMotor getSlideMotor() {
+        return slideMotor;
+    }
+
+    public SimDistanceSensor getLeftDistanceSensor() {
+        return leftDistanceSensor;
+    }
+
+    public SimDistanceSensor getRightDistanceSensor() {
+        return rightDistanceSensor;
+    }
+
+    public SimServoController getServoController() {
+        return servoController;
+    }
+
+    public double getBatteryVoltage() {
+        return batteryVoltage;
+    }
+
+    public void setBatteryVoltage(double batteryVoltage) {
+        this.batteryVoltage = batteryVoltage;
+        voltageSensor.setVoltage(batteryVoltage);
+    }
+}
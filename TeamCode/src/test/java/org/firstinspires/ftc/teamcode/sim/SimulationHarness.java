@@ -0,0 +1,138 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import com.acmerobotics.dashboard.telemetry.MultipleTelemetry;
+import com.arcrobotics.ftclib.command.CommandScheduler;
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.hardware.Gamepad;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import org.firstinspires.ftc.teamcode.Robot;
+import org.firstinspires.ftc.teamcode.util.RobotClock;
+
+/**
+ * Runs the whole {@link Robot} against {@link SimulatedHardware} at a fixed time step, as fast as the
+ * computer allows. Used to benchmark the loop and to check routines without the robot.
+ * <p>
+ * The hardware and the {@link RobotClock} both move by exactly one time step each loop, so the controllers,
+ * timeouts and velocity estimates see simulated time and a simulation gives the same result however fast it
+ * runs. FTCLib's {@code WaitCommand} and the I and D terms of its PID controllers still measure real time.
+ * <p>
+ * Only one harness can run at a time, since the robot clock and the command scheduler are shared. Call
+ * {@link #close()} when done to give the robot clock back to the system.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class SimulationHarness implements AutoCloseable {
+    private final SimClock clock = new SimClock();
+    private final SimulatedHardware hardware;
+    private final LinearOpMode opMode;
+    private final Robot robot;
+    private final boolean manualMode;
+    /** The time step in seconds */
+    private final double dt;
+
+    /** How long has been simulated, in seconds */
+    private double time;
+
+    /**
+     * Creates the simulated hardware and a robot that uses it.
+     *
+     * @param manualMode Whether the robot is controlled manually or with commands
+     * @param dt The time step of each loop in seconds
+     */
+    public SimulationHarness(boolean manualMode, double dt) {
+        this.manualMode = manualMode;
+        this.dt = dt;
+
+        // The scheduler is shared, so forget the subsystems and commands of the last simulation
+        CommandScheduler.getInstance().reset();
+        RobotClock.setTimeSource(clock);
+
+        hardware = new SimulatedHardware();
+        opMode = new SimulatedOpMode(hardware.getHardwareMap());
+        robot = new Robot(opMode, manualMode, true);
+    }
+
+    /** Does what the op modes do after the start button is pressed. */
+    public void start() {
+        if (manualMode) robot.startManual();
+        else robot.start();
+    }
+
+    /** Runs one loop of the robot, then moves the hardware forward by one time step. */
+    public void step() {
+        if (manualMode) robot.runManually();
+        else robot.run();
+        hardware.update(dt);
+        clock.advance(dt);
+        time += dt;
+    }
+
+    /**
+     * Runs the robot for some amount of simulated time.
+     *
+     * @param seconds The simulated time in seconds
+     */
+    public void runFor(double seconds) {
+        long steps = Math.round(seconds / dt);
+        for (long i = 0; i < steps; i++) step();
+    }
+
+    /** Stops the telemetry thread and goes back to measuring time with the system clock. */
+    @Override
+    public void close() {
+        robot.getTelemetryPublisher().stop();
+        CommandScheduler.getInstance().reset();
+        RobotClock.useSystemTime();
+    }
+
+    /**
+     * Measures how fast the robot loop runs with no hardware delays.
+     *
+     * @param loops The number of loops to run
+     * @return The number of loops per second of real time, which is the only thing here that isn't simulated
+     */
+    public double measureLoopsPerSecond(int loops) {
+        long start = System.nanoTime();
+        for (int i = 0; i < loops; i++) step();
+        return loops / ((System.nanoTime() - start) / 1e9);
+    }
+
+    public Robot getRobot() {
+        return robot;
+    }
+
+    public SimulatedHardware getHardware() {
+        return hardware;
+    }
+
+    /** @return The gamepad the driver uses, its sticks and buttons can be set directly */
+    public Gamepad getDriverGamepad() {
+        return opMode.gamepad1;
+    }
+
+    /** @return The gamepad the operator uses, its sticks and buttons can be set directly */
+    public Gamepad getOperatorGamepad() {
+        return opMode.gamepad2;
+    }
+
+    /** @return How long has been simulated, in seconds */
+    public double getTime() {
+        return time;
+    }
+
+    /** An op mode that only holds the simulated hardware map, gamepads and a telemetry that goes nowhere. */
+    private static class SimulatedOpMode extends LinearOpMode {
+        SimulatedOpMode(HardwareMap hardwareMap) {
+            this.hardwareMap = hardwareMap;
+            telemetry = new MultipleTelemetry();
+            gamepad1 = new Gamepad();
+            gamepad2 = new Gamepad();
+        }
+
+        @Override
+        public void runOpMode() {
+
+        }
+    }
+}
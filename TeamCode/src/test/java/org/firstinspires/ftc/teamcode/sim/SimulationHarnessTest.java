@@ -0,0 +1,86 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+import com.qualcomm.hardware.lynx.LynxModule;
+
+import org.firstinspires.ftc.teamcode.Constants;
+import org.junit.Test;
+
+public class SimulationHarnessTest {
+    private static final double DT = 0.01;
+
+    @Test
+    public void drivesForwardWithTheLeftStick() {
+        try (SimulationHarness harness = new SimulationHarness(true, DT)) {
+            harness.start();
+            // Pushing the stick up is negative
+            harness.getDriverGamepad().left_stick_y = -1;
+            harness.runFor(1);
+
+            SimMecanumDrive drive = harness.getHardware().getDrive();
+            assertEquals(1, harness.getTime(), 1e-9);
+            assertTrue("Drove " + drive.getX() + " in", drive.getX() > 20);
+            assertEquals(0, drive.getY(), 1);
+            assertEquals(0, drive.getHeading(), Math.toRadians(2));
+        }
+    }
+
+    @Test
+    public void givesTheSameResultHoweverFastItRuns() throws InterruptedException {
+        double[] fast = runScenario(false);
+        double[] slow = runScenario(true);
+        assertArrayEquals(fast, slow, 0);
+    }
+
+    @Test
+    public void onlyCreatesTheTrajectoryDriveOnceItIsUsed() {
+        boolean useTrajectoryFollower = Constants.AutoConstants.USE_TRAJECTORY_FOLLOWER;
+        Constants.AutoConstants.USE_TRAJECTORY_FOLLOWER = false;
+        try (SimulationHarness harness = new SimulationHarness(false, DT)) {
+            harness.start();
+            harness.runFor(0.1);
+
+            // Creating the trajectory drive checks the firmware of the hubs, nothing else does
+            LynxModule controlHub = harness.getHardware().getControlHub().getModule();
+            verify(controlHub, never()).getNullableFirmwareVersionString();
+
+            harness.getRobot().getDriveSubsystem().trajectorySequenceBuilder(new Pose2d());
+            verify(controlHub, atLeastOnce()).getNullableFirmwareVersionString();
+        } finally {
+            Constants.AutoConstants.USE_TRAJECTORY_FOLLOWER = useTrajectoryFollower;
+        }
+    }
+
+    /**
+     * Drives, turns and raises the elbow, then reports where everything ended up.
+     *
+     * @param isSlow Whether to sleep between loops, so the real time is very different from the simulated time
+     */
+    private static double[] runScenario(boolean isSlow) throws InterruptedException {
+        try (SimulationHarness harness = new SimulationHarness(true, DT)) {
+            harness.start();
+            harness.getDriverGamepad().left_stick_y = -0.6f;
+            harness.getDriverGamepad().right_stick_x = 0.4f;
+            harness.getOperatorGamepad().left_stick_y = -0.5f;
+
+            for (int i = 0; i < 150; i++) {
+                harness.step();
+                if (isSlow && i % 10 == 0) Thread.sleep(5);
+            }
+
+            SimMecanumDrive drive = harness.getHardware().getDrive();
+            return new double[]{
+                    drive.getX(), drive.getY(), drive.getHeading(),
+                    harness.getHardware().getElbowMotor().getPhysicalPosition(),
+                    harness.getRobot().getDriveSubsystem().getHeading()
+            };
+        }
+    }
+}
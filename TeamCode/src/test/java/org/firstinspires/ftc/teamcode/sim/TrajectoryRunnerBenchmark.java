@@ -0,0 +1,130 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import com.acmerobotics.roadrunner.followers.HolonomicPIDVAFollower;
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+
+import org.firstinspires.ftc.teamcode.auto.AutoPaths;
+import org.firstinspires.ftc.teamcode.auto.AutoPosition;
+import org.firstinspires.ftc.teamcode.hardware.BatteryMonitor;
+import org.firstinspires.ftc.teamcode.roadrunner.drive.DriveConstants;
+import org.firstinspires.ftc.teamcode.roadrunner.drive.SampleMecanumDrive;
+import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.TrajectorySequence;
+import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.TrajectorySequenceBuilder;
+import org.firstinspires.ftc.teamcode.roadrunner.trajectorysequence.TrajectorySequenceRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures how long {@link TrajectorySequenceRunner#update} takes and how much memory it allocates while following
+ * the longest autonomous path. The robot is always reported where it started, so the follower is always correcting.
+ * There is no dashboard in the simulator, so drawing the field overlay isn't included. Waiting and turning are
+ * measured on their own too, since following a trajectory is mostly RoadRunner's follower. Run by
+ * {@link TrajectoryRunnerBenchmarkTest}, which prints the results.
+ *
+ * @author Esquimalt Atom Smashers
+ */
+public class TrajectoryRunnerBenchmark {
+    public static final int DEFAULT_UPDATES = 1000;
+
+    private static final List<Integer> ENCODERS = Arrays.asList(0, 0, 0, 0);
+    private static final List<Integer> TRACKING = new ArrayList<>();
+
+    /** Longer than the updates take, so the runner is still in the segment when they are done */
+    private static final double LONG_SEGMENT_SECONDS = 60;
+    private static final double LONG_TURN = 20 * Math.PI;
+
+    private TrajectoryRunnerBenchmark() {
+
+    }
+
+    /**
+     * @param updates The number of updates to run
+     * @return The average time of each update in nanoseconds
+     */
+    public static double measureNanosPerUpdate(int updates) {
+        // Run it once first, so the JIT has compiled the update before it is timed
+        runUpdates(createRunner(), updates);
+
+        TrajectorySequenceRunner runner = createRunner();
+        Pose2d pose = new Pose2d();
+        Pose2d velocity = new Pose2d();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < updates; i++) runner.update(pose, velocity);
+        return (double) (System.nanoTime() - start) / updates;
+    }
+
+    /**
+     * @param updates The number of updates to run
+     * @return The bytes allocated by each update while following the longest autonomous path
+     */
+    public static double measureBytesPerUpdate(int updates) {
+        return measureBytesPerUpdate(getBackdropPath(), updates);
+    }
+
+    /**
+     * @param updates The number of updates to run
+     * @return The bytes allocated by each update while waiting, which is only the runner's own work
+     */
+    public static double measureBytesPerWaitUpdate(int updates) {
+        return measureBytesPerUpdate(newBuilder().waitSeconds(LONG_SEGMENT_SECONDS).build(), updates);
+    }
+
+    /**
+     * @param updates The number of updates to run
+     * @return The bytes allocated by each update while turning in place
+     */
+    public static double measureBytesPerTurnUpdate(int updates) {
+        return measureBytesPerUpdate(newBuilder().turn(LONG_TURN).build(), updates);
+    }
+
+    private static double measureBytesPerUpdate(TrajectorySequence sequence, int updates) {
+        TrajectorySequenceRunner runner = createRunner(sequence);
+        Pose2d pose = new Pose2d();
+        Pose2d velocity = new Pose2d();
+        // The first update starts the first segment, and the classes it uses are loaded before counting
+        runUpdates(createRunner(sequence), updates);
+        runner.update(pose, velocity);
+
+        AllocationCounter counter = new AllocationCounter();
+        counter.start();
+        for (int i = 1; i < updates; i++) runner.update(pose, velocity);
+        return (double) counter.getAllocatedBytes() / (updates - 1);
+    }
+
+    private static void runUpdates(TrajectorySequenceRunner runner, int updates) {
+        Pose2d pose = new Pose2d();
+        Pose2d velocity = new Pose2d();
+        for (int i = 0; i < updates; i++) runner.update(pose, velocity);
+    }
+
+    private static TrajectorySequenceRunner createRunner() {
+        return createRunner(getBackdropPath());
+    }
+
+    private static TrajectorySequenceRunner createRunner(TrajectorySequence sequence) {
+        HolonomicPIDVAFollower follower = new HolonomicPIDVAFollower(
+                SampleMecanumDrive.TRANSLATIONAL_PID, SampleMecanumDrive.TRANSLATIONAL_PID, SampleMecanumDrive.HEADING_PID,
+                SampleMecanumDrive.FOLLOWER_ADMISSIBLE_ERROR, SampleMecanumDrive.FOLLOWER_TIMEOUT);
+        TrajectorySequenceRunner runner = new TrajectorySequenceRunner(
+                follower, SampleMecanumDrive.HEADING_PID, new BatteryMonitor(new SimVoltageSensor(12)),
+                ENCODERS, ENCODERS, TRACKING, TRACKING);
+        runner.followTrajectorySequenceAsync(sequence);
+        return runner;
+    }
+
+    private static TrajectorySequence getBackdropPath() {
+        AutoPosition autoPosition = new AutoPosition(AutoPosition.SpikeMark.UPSTAGE, true, true, false);
+        return AutoPaths.getBackdropPath(autoPosition);
+    }
+
+    private static TrajectorySequenceBuilder newBuilder() {
+        return new TrajectorySequenceBuilder(
+                new Pose2d(),
+                SampleMecanumDrive.getVelocityConstraint(DriveConstants.MAX_VEL, DriveConstants.MAX_ANG_VEL, DriveConstants.TRACK_WIDTH),
+                SampleMecanumDrive.getAccelerationConstraint(DriveConstants.MAX_ACCEL),
+                DriveConstants.MAX_ANG_VEL, DriveConstants.MAX_ANG_ACCEL);
+    }
+}
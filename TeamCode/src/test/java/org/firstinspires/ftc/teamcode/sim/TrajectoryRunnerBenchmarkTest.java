@@ -0,0 +1,42 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TrajectoryRunnerBenchmarkTest {
+    /**
+     * The most a turning update can allocate. Pose2d and DriveSignal can't be changed once they are made, so each
+     * update makes a drive signal with two poses, and RoadRunner's motion profile and PID controller make a motion
+     * state and box their inputs. Together they are under 200 bytes on a 64-bit JVM.
+     */
+    private static final double MAX_TURN_BYTES_PER_UPDATE = 256;
+
+    @Test
+    public void reportsTheCostOfAnUpdate() {
+        int updates = TrajectoryRunnerBenchmark.DEFAULT_UPDATES;
+        double nanos = TrajectoryRunnerBenchmark.measureNanosPerUpdate(updates);
+        double bytes = TrajectoryRunnerBenchmark.measureBytesPerUpdate(updates);
+        double waitBytes = TrajectoryRunnerBenchmark.measureBytesPerWaitUpdate(updates);
+        double turnBytes = TrajectoryRunnerBenchmark.measureBytesPerTurnUpdate(updates);
+        System.out.printf("TrajectorySequenceRunner.update(): %.0f ns, %.1f bytes allocated%n", nanos, bytes);
+        System.out.printf("TrajectorySequenceRunner.update() waiting: %.1f bytes allocated%n", waitBytes);
+        System.out.printf("TrajectorySequenceRunner.update() turning: %.1f bytes allocated%n", turnBytes);
+
+        // Following a trajectory is mostly RoadRunner's follower, which allocates, so it is only reported.
+        // The JIT compiling the loop can allocate a little while it is being counted.
+        assertTrue(waitBytes + " bytes per update", waitBytes < 1);
+        assertTrue(turnBytes + " bytes per update", turnBytes < MAX_TURN_BYTES_PER_UPDATE);
+    }
+
+    @Test
+    public void countsWhatTheThreadAllocates() {
+        AllocationCounter counter = new AllocationCounter();
+        counter.start();
+        byte[] bytes = new byte[10_000];
+        long allocated = counter.getAllocatedBytes();
+
+        assertTrue("Counted " + allocated + " bytes", allocated >= bytes.length);
+        assertTrue("Counted " + allocated + " bytes", allocated < 2 * bytes.length);
+    }
+}
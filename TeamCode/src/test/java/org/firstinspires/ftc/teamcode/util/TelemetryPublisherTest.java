@@ -0,0 +1,77 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TelemetryPublisherTest {
+    private static final int LINES = 16;
+    private static final String[] CAPTIONS = new String[LINES];
+
+    static {
+        for (int i = 0; i < LINES; i++) CAPTIONS[i] = "line " + i;
+    }
+
+    private long publishInterval;
+
+    @Before
+    public void setUp() {
+        publishInterval = TelemetryPublisher.PUBLISH_INTERVAL_MS;
+        // Send as often as possible, so the background thread is reading while the frames are being written
+        TelemetryPublisher.PUBLISH_INTERVAL_MS = 0;
+    }
+
+    @After
+    public void tearDown() {
+        TelemetryPublisher.PUBLISH_INTERVAL_MS = publishInterval;
+    }
+
+    @Test
+    public void onlySendsWholeFrames() throws InterruptedException {
+        // The values of the frame being sent, checked once the telemetry is updated
+        long[] values = new long[LINES];
+        AtomicInteger lineCount = new AtomicInteger();
+        AtomicInteger framesSent = new AtomicInteger();
+        AtomicInteger tornFrames = new AtomicInteger();
+
+        // Only stubbed, so the mock doesn't remember every call
+        Telemetry telemetry = mock(Telemetry.class, withSettings().stubOnly());
+        when(telemetry.addData(anyString(), any(Object.class))).thenAnswer(invocation -> {
+            values[lineCount.getAndIncrement()] = invocation.<Long>getArgument(1);
+            return null;
+        });
+        when(telemetry.update()).thenAnswer(invocation -> {
+            boolean isWhole = lineCount.get() == LINES;
+            for (int i = 1; i < lineCount.get(); i++) isWhole &= values[i] == values[0];
+            if (!isWhole) tornFrames.incrementAndGet();
+            framesSent.incrementAndGet();
+            lineCount.set(0);
+            return true;
+        });
+
+        TelemetryPublisher publisher = new TelemetryPublisher(telemetry);
+        publisher.start();
+        // Every line of a frame has the number of the frame
+        for (long frame = 1; frame <= 200_000; frame++) {
+            publisher.beginFrame();
+            for (String caption : CAPTIONS) publisher.addData(caption, frame);
+            publisher.endFrame();
+        }
+        Thread.sleep(50);
+        publisher.stop();
+
+        assertTrue("Only sent " + framesSent.get() + " frames", framesSent.get() > 1);
+        assertEquals(0, tornFrames.get());
+    }
+}